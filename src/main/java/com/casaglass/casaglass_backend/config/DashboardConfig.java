@@ -0,0 +1,30 @@
+package com.casaglass.casaglass_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Configuración de los dashboards de ventas
+ *
+ * casaglass.dashboard.trabajadores: IDs de los trabajadores que venden directamente y
+ * aparecen en los dashboards (separados por coma). Por defecto 12,13,14,15.
+ */
+@Component
+public class DashboardConfig {
+
+    private final Set<Long> trabajadoresMonitoreados;
+
+    public DashboardConfig(@Value("${casaglass.dashboard.trabajadores:12,13,14,15}") Set<Long> trabajadoresMonitoreados) {
+        this.trabajadoresMonitoreados = Set.copyOf(trabajadoresMonitoreados);
+    }
+
+    public Set<Long> getTrabajadoresMonitoreados() {
+        return trabajadoresMonitoreados;
+    }
+
+    public boolean esTrabajadorMonitoreado(Long trabajadorId) {
+        return trabajadorId != null && trabajadoresMonitoreados.contains(trabajadorId);
+    }
+}
@@ -0,0 +1,45 @@
+package com.casaglass.casaglass_backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Ejecutores de tareas de la aplicación
+ *
+ * applicationTaskExecutor: el ejecutor general que Spring Boot crearía por defecto (procesamiento
+ * de ingresos en segundo plano, respuestas asíncronas de MVC). Se declara aquí porque Spring Boot
+ * deja de crearlo en cuanto existe otro Executor en el contexto.
+ *
+ * informeMensualExecutor: pool acotado para los previews del informe mensual por sede,
+ * casaglass.informes.hilos hilos (por defecto 3) para no acaparar el pool de conexiones.
+ * Con la cola llena la tarea corre en el hilo que la pidió en lugar de rechazarse.
+ */
+@Configuration
+public class EjecutoresConfig {
+
+    private static final int COLA_INFORMES = 100;
+
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    @Primary
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor informeMensualExecutor(@Value("${casaglass.informes.hilos:3}") int hilos) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, hilos));
+        executor.setMaxPoolSize(Math.max(1, hilos));
+        executor.setQueueCapacity(COLA_INFORMES);
+        executor.setThreadNamePrefix("informe-mensual-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+}
@@ -74,6 +74,30 @@ public class ClienteController {
         }
     }
 
+    /**
+     * 🔎 BÚSQUEDA RÁPIDA DE CLIENTES (selector del POS, type-ahead)
+     * GET /api/clientes/buscar?q=juan per&conCredito=true&page=1&size=20
+     *
+     * - q: texto libre; cada palabra debe coincidir como prefijo en nombre, NIT, correo o ciudad
+     *   (sin importar tildes ni mayúsculas). Tolera un error de tipeo si no hay coincidencias.
+     * - conCredito: true para solo clientes con crédito habilitado
+     * - page / size: default 1 / 20, máximo 200
+     *
+     * Respuesta: PageResponse<ClienteSimpleDTO> ordenada por relevancia
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<Object> buscarClientes(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Boolean conCredito,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(clienteService.buscarRapido(q, conCredito, page, size));
+        } catch (Exception e) {
+            return ResponseEntity.status(500).body(Map.of("error", "Error interno: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<Cliente> obtenerCliente(@PathVariable Long id) {
         return clienteService.obtenerClientePorId(id)
@@ -1,6 +1,7 @@
 package com.casaglass.casaglass_backend.controller;
 
 import com.casaglass.casaglass_backend.dto.CorteInventarioCompletoDTO;
+import com.casaglass.casaglass_backend.dto.PageResponse;
 import com.casaglass.casaglass_backend.service.CorteInventarioCompletoService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -39,6 +40,35 @@ public class CorteInventarioCompletoController {
         return ResponseEntity.ok(inventario);
     }
 
+    /**
+     * GET /api/cortes-inventario-completo/paginado
+     * Inventario de cortes paginado por cursor, con filtros combinables resueltos en SQL.
+     * <p>
+     * <b>Parámetros (todos opcionales):</b> {@code categoriaId}, {@code tipo}, {@code color},
+     * {@code largoMin}, {@code largoMax}, {@code q} (nombre o código), {@code sedeId} (stock &gt; 0 en
+     * esa sede), {@code soloConStock} (default true), {@code size} (default 50, máximo 500) y
+     * {@code cursor} (vacío para la primera página, luego el {@code nextCursor} de la respuesta).
+     */
+    @GetMapping("/paginado")
+    public ResponseEntity<PageResponse<CorteInventarioCompletoDTO>> obtenerInventarioPaginado(
+            @RequestParam(required = false) Long categoriaId,
+            @RequestParam(required = false) String tipo,
+            @RequestParam(required = false) String color,
+            @RequestParam(required = false) Double largoMin,
+            @RequestParam(required = false) Double largoMax,
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(required = false) Long sedeId,
+            @RequestParam(required = false) Boolean soloConStock,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor) {
+        try {
+            return ResponseEntity.ok(corteInventarioCompletoService.buscarInventarioPaginado(
+                categoriaId, tipo, color, largoMin, largoMax, query, sedeId, soloConStock, size, cursor));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * GET /api/cortes-inventario-completo/sede/{sedeId}
      * Obtiene cortes de una sede específica con información completa
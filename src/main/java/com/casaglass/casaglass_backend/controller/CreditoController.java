@@ -299,6 +299,18 @@ public class CreditoController {
         }
     }
 
+    /** 🔍 Verificar totales de un crédito contra un recálculo completo (no modifica nada) */
+    @GetMapping("/{creditoId}/verificar")
+    public ResponseEntity<?> verificarTotales(@PathVariable Long creditoId) {
+        try {
+            return ResponseEntity.ok(service.verificarTotales(creditoId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error interno: " + e.getMessage()));
+        }
+    }
+
     /** ❌ Anular crédito */
     @PutMapping("/{creditoId}/anular")
     public ResponseEntity<?> anularCredito(@PathVariable Long creditoId) {
@@ -6,6 +6,7 @@ import com.casaglass.casaglass_backend.dto.SedeDashboardDTO;
 import com.casaglass.casaglass_backend.service.DashboardCompletoService;
 import com.casaglass.casaglass_backend.service.DashboardService;
 import com.casaglass.casaglass_backend.service.SedeDashboardService;
+import com.casaglass.casaglass_backend.service.VentasDiariasService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +14,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/dashboard")
@@ -28,6 +30,9 @@ public class DashboardController {
     @Autowired
     private SedeDashboardService sedeDashboardService;
 
+    @Autowired
+    private VentasDiariasService ventasDiariasService;
+
     /**
      * 📊 DASHBOARD COMPLETO - Endpoint consolidado
      * Retorna todos los datos relevantes en una sola llamada
@@ -49,6 +54,25 @@ public class DashboardController {
         }
     }
 
+    /**
+     * 🔄 RECONSTRUIR ACUMULADOS DIARIOS DE VENTAS
+     * Recalcula ventas_diarias* desde las órdenes (uso administrativo: carga inicial o corrección)
+     * 
+     * POST /api/dashboard/ventas-diarias/recalcular?desde=2025-01-01&hasta=2025-12-31
+     */
+    @PostMapping("/ventas-diarias/recalcular")
+    public ResponseEntity<?> recalcularVentasDiarias(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta
+    ) {
+        try {
+            ventasDiariasService.recalcularRango(desde, hasta);
+            return ResponseEntity.ok(Map.of("desde", desde, "hasta", hasta));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * 🏠 TARJETAS DEL HOME CON FILTRO DE SEDE OPCIONAL
      * 
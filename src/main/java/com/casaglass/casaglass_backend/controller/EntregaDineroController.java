@@ -15,6 +15,7 @@ import com.casaglass.casaglass_backend.service.EntregaDineroService;
 import com.casaglass.casaglass_backend.service.EntregaDetalleService;
 import com.casaglass.casaglass_backend.service.AbonoService;
 import com.casaglass.casaglass_backend.service.ReembolsoVentaService;
+import com.casaglass.casaglass_backend.service.PendienteEntregaService;
 import com.casaglass.casaglass_backend.model.Abono;
 import jakarta.persistence.RollbackException;
 import jakarta.validation.Valid;
@@ -51,6 +52,9 @@ public class EntregaDineroController {
     @Autowired
     private ReembolsoVentaService reembolsoVentaService;
 
+    @Autowired
+    private PendienteEntregaService pendienteEntregaService;
+
     public EntregaDineroController(EntregaDineroService service) {
         this.service = service;
     }
@@ -487,6 +491,39 @@ public class EntregaDineroController {
         }
     }
     
+    /**
+     * 💵 PENDIENTES DE ENTREGA DE LA SEDE (precalculados)
+     * GET /api/entregas-dinero/pendientes?sedeId=1
+     *
+     * Mismo criterio que /ordenes-disponibles, leído de pendientes_entrega en una sola consulta.
+     * Respuesta: pendientes (órdenes a contado, abonos y reembolsos), totalesPorMedio
+     * (efectivo, transferencia, cheque, depósito; los egresos restan) y conteos por tipo.
+     */
+    @GetMapping("/pendientes")
+    public ResponseEntity<?> obtenerPendientes(@RequestParam Long sedeId) {
+        try {
+            return ResponseEntity.ok(pendienteEntregaService.resumenPorSede(sedeId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error interno: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 🔁 RECONSTRUIR PENDIENTES DE ENTREGA (reparación)
+     * POST /api/entregas-dinero/pendientes/reconstruir?sedeId=1 (sin sedeId = todas las sedes)
+     */
+    @PostMapping("/pendientes/reconstruir")
+    public ResponseEntity<?> reconstruirPendientes(@RequestParam(required = false) Long sedeId) {
+        try {
+            int filas = pendienteEntregaService.reconstruir(sedeId);
+            return ResponseEntity.ok(Map.of("mensaje", "Pendientes reconstruidos", "filas", filas));
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(Map.of("error", "Error interno: " + e.getMessage()));
+        }
+    }
+
     /**
      * Convierte una Orden a OrdenParaEntregaDTO
      */
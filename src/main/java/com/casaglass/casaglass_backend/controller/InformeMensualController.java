@@ -33,6 +33,26 @@ public class InformeMensualController {
         return ResponseEntity.ok(informeMensualService.calcularPreview(sedeId, year, month));
     }
 
+    /**
+     * GET /api/informes/mensual/preview/sedes?year=&month=
+     * Preview del mes para todas las sedes (calculadas en paralelo)
+     */
+    @GetMapping("/preview/sedes")
+    public ResponseEntity<List<InformeMensualResponseDTO>> previewTodasLasSedes(
+            @RequestParam int year,
+            @RequestParam int month) {
+        return ResponseEntity.ok(informeMensualService.calcularPreviewTodasLasSedes(year, month));
+    }
+
+    /**
+     * GET /api/informes/mensual/preview/anio?year=
+     * Preview de cada mes del año (hasta el mes actual) para todas las sedes, ordenado por sede y mes
+     */
+    @GetMapping("/preview/anio")
+    public ResponseEntity<List<InformeMensualResponseDTO>> previewAnio(@RequestParam int year) {
+        return ResponseEntity.ok(informeMensualService.calcularPreviewAnioTodasLasSedes(year));
+    }
+
     @GetMapping("/cierre")
     public ResponseEntity<InformeMensualResponseDTO> obtenerCierre(
             @RequestParam Long sedeId,
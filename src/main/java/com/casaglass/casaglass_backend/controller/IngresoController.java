@@ -8,6 +8,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -141,6 +142,8 @@ public class IngresoController {
                     .orElseThrow(() -> new RuntimeException("Error al recargar ingreso"));
             
             return ResponseEntity.ok(ingresoLimpio);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (IllegalArgumentException e) {
             System.err.println("❌ Error de validación: " + e.getMessage());
             return ResponseEntity.badRequest().body(e.getMessage());
@@ -160,28 +163,56 @@ public class IngresoController {
         try {
             ingresoService.eliminarIngreso(id);
             return ResponseEntity.noContent().build();
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (RuntimeException e) {
             return ResponseEntity.status(404).body(e.getMessage());
         }
     }
 
+    /**
+     * PUT /api/ingresos/{id}/procesar
+     * Aplica el ingreso al inventario de la sede principal y actualiza los costos.
+     * Con {@code ?segundoPlano=true} responde 202 de inmediato con el estado inicial;
+     * el avance se consulta en GET /api/ingresos/{id}/procesamiento.
+     */
     @PutMapping("/{id}/procesar")
-    public ResponseEntity<?> procesarInventario(@PathVariable Long id) {
+    public ResponseEntity<?> procesarInventario(@PathVariable Long id,
+                                                @RequestParam(defaultValue = "false") boolean segundoPlano) {
         try {
-            Ingreso ingreso = ingresoService.obtenerIngresoPorId(id)
-                    .orElseThrow(() -> new RuntimeException("Ingreso no encontrado"));
-            ingresoService.procesarInventario(ingreso);
+            if (segundoPlano) {
+                return ResponseEntity.accepted().body(ingresoService.procesarInventarioEnSegundoPlano(id));
+            }
+            ingresoService.procesarInventarioPorId(id);
             return ResponseEntity.ok("Inventario procesado correctamente");
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    /**
+     * GET /api/ingresos/{id}/procesamiento
+     * Estado y avance del procesamiento: estadoProcesamiento (EN_COLA, EN_PROCESO, COMPLETADO, ERROR),
+     * lineasProcesadas / lineasTotales (productos distintos) y mensajeProcesamiento si falló
+     */
+    @GetMapping("/{id}/procesamiento")
+    public ResponseEntity<?> obtenerEstadoProcesamiento(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ingresoService.obtenerEstadoProcesamiento(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(404).body(e.getMessage());
+        }
+    }
+
     @PutMapping("/{id}/reprocesar")
     public ResponseEntity<?> reprocesarInventario(@PathVariable Long id) {
         try {
             ingresoService.reprocesarInventario(id);
             return ResponseEntity.ok("Inventario reprocesado correctamente");
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -192,6 +223,8 @@ public class IngresoController {
         try {
             Ingreso ingreso = ingresoService.marcarComoProcesado(id);
             return ResponseEntity.ok(ingreso);
+        } catch (ResponseStatusException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getReason());
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -4,8 +4,10 @@ import com.casaglass.casaglass_backend.dto.ProductoInventarioCompletoDTO;
 import com.casaglass.casaglass_backend.service.InventarioCompletoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.Map;
 
@@ -88,6 +90,19 @@ public class InventarioCompletoController {
         }
     }
 
+    /**
+     * GET /api/inventario-completo/exportar
+     * Exporta el inventario completo (sin filtros) como JSON en streaming,
+     * escribiendo cada producto a medida que se lee de la base de datos
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarInventario() {
+        StreamingResponseBody cuerpo = salida -> inventarioCompletoService.exportarInventarioCompleto(salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cuerpo);
+    }
+
     /**
      * GET /api/inventario-completo/sede/{sedeId}
      * Obtiene productos de una sede específica con información completa
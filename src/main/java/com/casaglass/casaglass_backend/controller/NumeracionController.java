@@ -0,0 +1,52 @@
+package com.casaglass.casaglass_backend.controller;
+
+import com.casaglass.casaglass_backend.dto.AuditoriaNumeracionDTO;
+import com.casaglass.casaglass_backend.service.NumeracionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/numeracion")
+// CORS configurado globalmente en CorsConfig.java
+public class NumeracionController {
+
+    private final NumeracionService service;
+
+    public NumeracionController(NumeracionService service) {
+        this.service = service;
+    }
+
+    /**
+     * 🔢 PRÓXIMO NÚMERO DE UNA SECUENCIA (no lo consume)
+     * GET /api/numeracion/{secuencia}/siguiente
+     * secuencia: ORDEN | FACTURA
+     */
+    @GetMapping("/{secuencia}/siguiente")
+    public ResponseEntity<?> siguiente(@PathVariable String secuencia) {
+        try {
+            return ResponseEntity.ok(Map.of("siguiente", service.consultarSiguiente(secuencia)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * 🔍 AUDITORÍA DE HUECOS EN LA NUMERACIÓN
+     * GET /api/numeracion/{secuencia}/auditoria
+     * secuencia: ORDEN | FACTURA
+     *
+     * Retorna los rangos de números que nunca fueron emitidos
+     * (rollbacks o bloques no usados) y el estado de la reserva actual
+     */
+    @GetMapping("/{secuencia}/auditoria")
+    public ResponseEntity<?> auditoria(@PathVariable String secuencia) {
+        try {
+            AuditoriaNumeracionDTO auditoria = service.auditarHuecos(secuencia);
+            return ResponseEntity.ok(auditoria);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
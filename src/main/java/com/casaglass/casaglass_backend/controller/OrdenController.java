@@ -13,8 +13,10 @@ import com.casaglass.casaglass_backend.service.FacturaService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -228,8 +230,11 @@ public class OrdenController {
      * - size: Tamaño de página (default: 20, máximo: 100)
      * - sortBy: Campo para ordenar (fecha, numero, total) - default: fecha
      * - sortOrder: ASC o DESC - default: DESC
+     * - cursor: Paginación por cursor (keyset). Enviar vacío (cursor=) para la primera página
+     *   y luego el nextCursor de la respuesta. Tiene prioridad sobre page.
      * 
      * Respuesta:
+     * - Si se proporciona cursor: PageResponse con nextCursor (sin totales, totalElements = -1)
      * - Si se proporcionan page y size: PageResponse con paginación
      * - Si no se proporcionan: List<Orden> (compatibilidad hacia atrás)
      */
@@ -247,7 +252,8 @@ public class OrdenController {
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false) String sortBy,
-            @RequestParam(required = false) String sortOrder) {
+            @RequestParam(required = false) String sortOrder,
+            @RequestParam(required = false) String cursor) {
         
         // Convertir estado String a enum
         Orden.EstadoOrden estadoEnum = null;
@@ -261,7 +267,7 @@ public class OrdenController {
         
         // Si solo hay trabajadorId y ningún otro filtro nuevo, usar método específico (compatibilidad)
         if (trabajadorId != null && estadoEnum == null && fechaDesde == null && fechaHasta == null && 
-            facturada == null && page == null && size == null && sortBy == null && sortOrder == null) {
+            facturada == null && page == null && size == null && sortBy == null && sortOrder == null && cursor == null) {
             // Filtros combinados con trabajador (compatibilidad hacia atrás)
             if (sedeId != null) return service.listarPorSedeYTrabajador(sedeId, trabajadorId);
             if (venta != null) return service.listarPorTrabajadorYVenta(trabajadorId, venta);
@@ -270,7 +276,7 @@ public class OrdenController {
         
         // Si hay filtros antiguos simples sin filtros nuevos, mantener compatibilidad
         if (estadoEnum == null && fechaDesde == null && fechaHasta == null && facturada == null && 
-            page == null && size == null && sortBy == null && sortOrder == null) {
+            page == null && size == null && sortBy == null && sortOrder == null && cursor == null) {
             // Filtros combinados con sede (compatibilidad hacia atrás)
             if (clienteId != null && sedeId != null) return service.listarPorClienteYSede(clienteId, sedeId);
             if (sedeId != null && venta != null) return service.listarPorSedeYVenta(sedeId, venta);
@@ -288,10 +294,25 @@ public class OrdenController {
         // Usar método con filtros completos
         return service.listarConFiltros(
             clienteId, sedeId, estadoEnum, fechaDesde, fechaHasta, 
-            venta, credito, facturada, page, size, sortBy, sortOrder
+            venta, credito, facturada, page, size, sortBy, sortOrder, cursor
         );
     }
 
+    /**
+     * 📤 EXPORTAR TODAS LAS ÓRDENES (JSON en streaming)
+     * GET /api/ordenes/exportar
+     *
+     * Mismo contenido que GET /api/ordenes sin filtros, pero se escribe a medida que
+     * se lee de la base de datos: no arma la lista completa en memoria
+     */
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar() {
+        StreamingResponseBody cuerpo = salida -> service.exportarOrdenes(salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cuerpo);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<OrdenResponseDTO> obtener(@PathVariable Long id) {
         return service.obtenerPorId(id)
@@ -624,8 +645,11 @@ public class OrdenController {
      * - size: Tamaño de página (default: 20, máximo: 100)
      * - sortBy: Campo para ordenar (fecha, numero, total) - default: fecha
      * - sortOrder: ASC o DESC - default: DESC
+     * - cursor: Paginación por cursor (keyset). Enviar vacío (cursor=) para la primera página
+     *   y luego el nextCursor de la respuesta. Tiene prioridad sobre page.
      * 
      * Respuesta:
+     * - Si se proporciona cursor: PageResponse con nextCursor (sin totales, totalElements = -1)
      * - Si se proporcionan page y size: PageResponse con paginación
      * - Si no se proporcionan: List<OrdenTablaDTO> (compatibilidad hacia atrás)
      */
@@ -643,7 +667,8 @@ public class OrdenController {
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false) String sortBy,
-            @RequestParam(required = false) String sortOrder) {
+            @RequestParam(required = false) String sortOrder,
+            @RequestParam(required = false) String cursor) {
         
         // Convertir estado String a enum
         Orden.EstadoOrden estadoEnum = null;
@@ -657,7 +682,7 @@ public class OrdenController {
         
         // Si hay trabajadorId, filtrar por trabajador (compatibilidad hacia atrás)
         // Nota: trabajadorId no está en el query del repositorio, se maneja después
-        if (trabajadorId != null && (clienteId == null && sedeId == null && estadoEnum == null && 
+        if (trabajadorId != null && cursor == null && (clienteId == null && sedeId == null && estadoEnum == null && 
             fechaDesde == null && fechaHasta == null && venta == null && credito == null && facturada == null)) {
             // Solo filtro por trabajador, usar método específico
             if (page != null && size != null) {
@@ -670,7 +695,7 @@ public class OrdenController {
         // Usar método con filtros completos
         return service.listarParaTablaConFiltros(
             clienteId, sedeId, estadoEnum, fechaDesde, fechaHasta, 
-            venta, credito, facturada, page, size, sortBy, sortOrder
+            venta, credito, facturada, page, size, sortBy, sortOrder, cursor
         );
     }
 
@@ -728,6 +753,18 @@ public class OrdenController {
         );
     }
 
+    /**
+     * 📤 EXPORTAR TODAS LAS ÓRDENES PARA TABLA (JSON en streaming)
+     * GET /api/ordenes/tabla/exportar
+     */
+    @GetMapping("/tabla/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarParaTabla() {
+        StreamingResponseBody cuerpo = salida -> service.exportarParaTabla(salida);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(cuerpo);
+    }
+
     /**
      * 🚀 ÓRDENES DE UNA SEDE PARA TABLA (optimizado)
      */
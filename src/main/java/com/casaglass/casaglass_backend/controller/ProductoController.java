@@ -3,8 +3,10 @@ package com.casaglass.casaglass_backend.controller;
 import com.casaglass.casaglass_backend.dto.ProductoActualizarDTO;
 import com.casaglass.casaglass_backend.dto.ProductoPosicionDTO;
 import com.casaglass.casaglass_backend.model.Producto;
+import com.casaglass.casaglass_backend.model.ProductoCostoHistorial;
 import com.casaglass.casaglass_backend.model.TipoProducto;
 import com.casaglass.casaglass_backend.model.ColorProducto;
+import com.casaglass.casaglass_backend.service.CostoPromedioService;
 import com.casaglass.casaglass_backend.service.ProductoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,9 +24,11 @@ public class ProductoController {
     private static final Logger log = LoggerFactory.getLogger(ProductoController.class);
 
     private final ProductoService service;
+    private final CostoPromedioService costoPromedioService;
 
-    public ProductoController(ProductoService service) {
+    public ProductoController(ProductoService service, CostoPromedioService costoPromedioService) {
         this.service = service;
+        this.costoPromedioService = costoPromedioService;
     }
 
     /**
@@ -225,6 +229,16 @@ public class ProductoController {
         }
     }
 
+    /**
+     * 📈 HISTORIAL DE COSTOS DE UN PRODUCTO
+     * GET /api/productos/{id}/historial-costos
+     * Cada ingreso procesado (promedio ponderado) y cada ajuste manual, del más reciente al más antiguo
+     */
+    @GetMapping("/{id}/historial-costos")
+    public List<ProductoCostoHistorial> historialCostos(@PathVariable Long id) {
+        return costoPromedioService.historial(id);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> eliminar(@PathVariable Long id) {
         service.eliminar(id);
@@ -268,4 +282,32 @@ public class ProductoController {
             return ResponseEntity.status(500).body(List.of());
         }
     }
+
+    /**
+     * 🔃 REORDENAR POSICIONES EN BLOQUE
+     * PUT /api/productos/posiciones
+     * 
+     * Recibe los IDs en el nuevo orden; los productos enviados intercambian entre sí
+     * las posiciones que ya ocupaban (el resto de productos no se mueve).
+     * Productos sin posición reciben posiciones nuevas al final.
+     * 
+     * Body esperado:
+     * {
+     *   "ids": [15, 3, 8]
+     * }
+     * 
+     * Respuesta: { "actualizados": 2 }
+     */
+    @PutMapping("/posiciones")
+    public ResponseEntity<?> reordenarPosiciones(@RequestBody Map<String, List<Long>> request) {
+        try {
+            int actualizados = service.reordenarPosiciones(request.get("ids"));
+            return ResponseEntity.ok(Map.of("actualizados", actualizados));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error al reordenar posiciones de productos", e);
+            return ResponseEntity.status(500).body(Map.of("error", "Error interno: " + e.getMessage()));
+        }
+    }
 }
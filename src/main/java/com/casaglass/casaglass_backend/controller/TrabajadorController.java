@@ -20,8 +20,6 @@ import java.util.stream.Collectors;
 // CORS configurado globalmente en CorsConfig.java
 public class TrabajadorController {
 
-    private static final java.util.Set<Long> TRABAJADORES_MONITOREADOS_DASHBOARD = java.util.Set.of(12L, 13L, 14L, 15L);
-
     private final TrabajadorService service;
     private final TrabajadorDashboardService dashboardService;
 
@@ -55,7 +53,7 @@ public class TrabajadorController {
 
         // Dashboard admin: solo trabajadores que sí venden directamente.
         return base.stream()
-                .filter(t -> t != null && t.getId() != null && TRABAJADORES_MONITOREADOS_DASHBOARD.contains(t.getId()))
+                .filter(t -> t != null && t.getId() != null && dashboardService.esTrabajadorMonitoreado(t.getId()))
                 .collect(Collectors.toList());
     }
 
@@ -46,8 +46,10 @@ public class TrasladoMovimientoController {
      * - size: Tamaño de página (default: 20, máximo: 100)
      * - sortBy: Campo para ordenar (fecha, id) - default: fecha
      * - sortOrder: ASC o DESC - default: DESC
+     * - cursor: paginación por cursor (keyset); "" pide la primera página y cada respuesta trae nextCursor
      * 
      * Respuesta:
+     * - Si se proporciona cursor: PageResponse sin totales (totalElements = -1) con nextCursor
      * - Si se proporcionan page y size: PageResponse con paginación
      * - Si no se proporcionan: List<TrasladoMovimientoDTO> (compatibilidad hacia atrás)
      */
@@ -64,19 +66,20 @@ public class TrasladoMovimientoController {
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false) String sortBy,
-            @RequestParam(required = false) String sortOrder) {
+            @RequestParam(required = false) String sortOrder,
+            @RequestParam(required = false) String cursor) {
         
         // Si solo hay sedeId y ningún otro filtro nuevo, usar método específico (compatibilidad)
         if (sedeId != null && sedeOrigenId == null && sedeDestinoId == null && fechaDesde == null && 
             fechaHasta == null && estado == null && confirmado == null && trabajadorId == null && 
-            page == null && size == null && sortBy == null && sortOrder == null) {
+            page == null && size == null && sortBy == null && sortOrder == null && cursor == null) {
             return ResponseEntity.ok(service.obtenerMovimientosPorSede(sedeId));
         }
         
         // Usar método con filtros completos
         Object resultado = service.obtenerMovimientosConFiltros(
             sedeOrigenId, sedeDestinoId, sedeId, fechaDesde, fechaHasta, 
-            estado, confirmado, trabajadorId, page, size, sortBy, sortOrder
+            estado, confirmado, trabajadorId, page, size, sortBy, sortOrder, cursor
         );
         
         return ResponseEntity.ok(resultado);
@@ -0,0 +1,36 @@
+package com.casaglass.casaglass_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Reporte de huecos en una secuencia de numeración (ORDEN / FACTURA)
+ * Los huecos aparecen cuando una transacción que ya tenía número hace rollback
+ * o cuando la aplicación se detiene sin devolver el sobrante de su bloque.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditoriaNumeracionDTO {
+    private String secuencia;
+    private Long numeroMinimo;              // Menor número emitido
+    private Long numeroMaximo;              // Mayor número emitido
+    private long cantidadEmitidos;          // Números que existen en la tabla
+    private long totalFaltantes;            // Suma de los tamaños de todos los huecos
+    private Long siguienteReservado;        // siguiente_valor de la tabla de secuencias
+    private Long rangoMemoriaDesde;         // Próximo número del bloque en memoria de esta instancia
+    private Long rangoMemoriaHasta;         // Último número del bloque en memoria (inclusive)
+    private List<HuecoDTO> huecos;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HuecoDTO {
+        private Long desde;                 // Inclusive
+        private Long hasta;                 // Inclusive
+        private long cantidad;
+    }
+}
@@ -0,0 +1,43 @@
+package com.casaglass.casaglass_backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Token opaco para paginación por cursor (keyset)
+ * Codifica en Base64 URL-safe los valores de la última fila de la página
+ * (campo de ordenamiento, dirección, valor y id de desempate)
+ */
+public final class CursorToken {
+
+    private static final String SEPARADOR = "|";
+
+    private CursorToken() {
+    }
+
+    /**
+     * Codifica las partes del cursor en un token opaco
+     */
+    public static String encode(String... partes) {
+        String plano = String.join(SEPARADOR, partes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token y valida que tenga el número de partes esperado
+     *
+     * @throws IllegalArgumentException si el token no es válido
+     */
+    public static String[] decode(String token, int partesEsperadas) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] partes = plano.split("\\" + SEPARADOR, -1);
+            if (partes.length != partesEsperadas) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return partes;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + token);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.casaglass.casaglass_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Variación neta de stock de un producto (o corte) en una sede, ya agregada por el llamador.
+ * Con exigirStock = true y delta negativo, la sede debe tener stock suficiente para cubrirla;
+ * con false (reversiones) se aplica aunque la cantidad quede negativa.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaInventarioDTO {
+    private Long productoId; // ID del producto (o del corte, en inventario_cortes)
+    private Long sedeId;
+    private Double delta;
+    private boolean exigirStock;
+}
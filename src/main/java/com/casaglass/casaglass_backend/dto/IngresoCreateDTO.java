@@ -37,7 +37,7 @@ public class IngresoCreateDTO {
         private ProductoIdDTO producto;
         private Double cantidad;
         private Double costoUnitario; // Costo original del ingreso (para calcular totalCosto y trazabilidad)
-        private Double costoUnitarioPonderado; // Costo calculado con promedio ponderado (viene del frontend, se usa para actualizar producto.costo)
+        private Double costoUnitarioPonderado; // Ignorado: el servidor calcula el promedio ponderado al procesar el ingreso
         private Double totalLinea; // Se calcula con costoUnitario (costo original)
         
         @Data
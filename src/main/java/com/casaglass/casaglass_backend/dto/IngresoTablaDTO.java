@@ -23,6 +23,7 @@ public class IngresoTablaDTO {
     private String observaciones;
     private Double totalCosto;
     private Boolean procesado;
+    private String estadoProcesamiento; // EN_COLA, EN_PROCESO, COMPLETADO, ERROR (null en ingresos antiguos)
     
     // SUMA DE TODAS LAS CANTIDADES DE LOS DETALLES
     private Integer cantidadTotal;
@@ -1,5 +1,6 @@
 package com.casaglass.casaglass_backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -15,13 +16,16 @@ import java.util.List;
 @AllArgsConstructor
 public class PageResponse<T> {
     private List<T> content;           // Array con los registros de la página actual
-    private long totalElements;        // Total de registros que cumplen los filtros
-    private int totalPages;            // Total de páginas
+    private long totalElements;        // Total de registros que cumplen los filtros (-1 en modo cursor)
+    private int totalPages;            // Total de páginas (-1 en modo cursor)
     private int page;                  // Página actual (1-indexed)
     private int size;                  // Tamaño de página
     private boolean hasNext;           // Si hay página siguiente
     private boolean hasPrevious;       // Si hay página anterior
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;         // Token para pedir la siguiente página (solo modo cursor)
+
     /**
      * Constructor helper para crear respuesta paginada
      */
@@ -34,9 +38,25 @@ public class PageResponse<T> {
             page,
             size,
             page < totalPages,
-            page > 1
+            page > 1,
+            null
         );
     }
-}
-
 
+    /**
+     * Constructor helper para respuestas paginadas por cursor (keyset)
+     * No calcula totales: contar todas las filas costaría lo mismo que la paginación por offset
+     */
+    public static <T> PageResponse<T> ofCursor(List<T> content, int size, String nextCursor, boolean hasPrevious) {
+        return new PageResponse<>(
+            content,
+            -1,
+            -1,
+            0,
+            size,
+            nextCursor != null,
+            hasPrevious,
+            nextCursor
+        );
+    }
+}
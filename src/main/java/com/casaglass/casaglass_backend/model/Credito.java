@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -78,8 +79,10 @@ public class Credito {
     /** 
      * Lista de abonos realizados a este crédito
      * EAGER para evitar problemas de lazy loading como en el resto del proyecto
+     * En listados se cargan por lotes (un SELECT ... IN por cada 100 créditos), no uno por crédito
      */
     @OneToMany(mappedBy = "credito", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    @BatchSize(size = 100)
     @JsonIgnoreProperties({"credito", "hibernateLazyInitializer", "handler"})
     private List<Abono> abonos = new ArrayList<>();
 
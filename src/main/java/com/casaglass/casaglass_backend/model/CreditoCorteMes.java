@@ -0,0 +1,27 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Cierre de mes ya calculado del libro de créditos (ver CreditoMovimientoService)
+ * Si existe la fila, credito_saldos_mes tiene el saldo de cada crédito con saldo distinto
+ * de 0 a ese fin de mes. Un movimiento con fecha <= mes borra este cierre y los siguientes.
+ */
+@Entity
+@Table(name = "credito_cortes_mes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditoCorteMes {
+
+  /** Último día del mes */
+  @Id
+  private LocalDate mes;
+
+  @Column(name = "fecha_registro", nullable = false)
+  private LocalDateTime fechaRegistro;
+}
@@ -0,0 +1,64 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Movimiento del libro de créditos (solo se agregan filas, nunca se editan)
+ * La suma de monto de un crédito con fecha <= X es su saldo a esa fecha.
+ * Lo mantiene CreditoMovimientoService: cada cambio del crédito agrega filas compensatorias.
+ */
+@Entity
+@Table(name = "credito_movimientos", indexes = {
+  @Index(name = "idx_credito_mov_credito", columnList = "credito_id, id"),
+  @Index(name = "idx_credito_mov_sede_fecha", columnList = "sede_id, fecha, credito_id, monto"),
+  @Index(name = "idx_credito_mov_fecha", columnList = "fecha, credito_id, monto")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditoMovimiento {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "credito_id", nullable = false)
+  private Long creditoId;
+
+  @Column(name = "sede_id")
+  private Long sedeId;
+
+  /** Fecha efectiva del movimiento (la que cuenta para el saldo a una fecha) */
+  @Column(nullable = false)
+  private LocalDate fecha;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private TipoMovimiento tipo;
+
+  /** Abono que originó el movimiento (null en abonos sin registro propio) */
+  @Column(name = "abono_id")
+  private Long abonoId;
+
+  /** Positivo aumenta la deuda, negativo la reduce */
+  @Column(nullable = false)
+  private Double monto;
+
+  /** Saldo del crédito después de este movimiento (en orden de registro) */
+  @Column(nullable = false)
+  private Double saldo;
+
+  @Column(name = "fecha_registro", nullable = false)
+  private LocalDateTime fechaRegistro;
+
+  public enum TipoMovimiento {
+    APERTURA,   // Total del crédito
+    RETENCION,  // Retenciones de la orden (fuente + ICA)
+    ABONO,      // Pagos del cliente
+    ANULACION   // Saldo restante al anular
+  }
+}
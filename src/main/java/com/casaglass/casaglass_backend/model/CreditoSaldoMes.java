@@ -0,0 +1,37 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Saldo de un crédito al cierre de un mes (suma de sus movimientos con fecha <= mes)
+ * Solo se guardan saldos distintos de 0; las filas se arman con INSERT ... SELECT
+ * desde CreditoCorteMesRepository y se borran junto con su cierre.
+ */
+@Entity
+@Table(name = "credito_saldos_mes", indexes = {
+  @Index(name = "idx_credito_saldo_mes", columnList = "mes, sede_id, credito_id, saldo")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreditoSaldoMes {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private LocalDate mes;
+
+  @Column(name = "credito_id", nullable = false)
+  private Long creditoId;
+
+  @Column(name = "sede_id")
+  private Long sedeId;
+
+  @Column(nullable = false)
+  private Double saldo;
+}
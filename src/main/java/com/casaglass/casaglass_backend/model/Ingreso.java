@@ -5,6 +5,7 @@ import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -52,6 +53,36 @@ public class Ingreso {
     @Column(nullable = false)
     private Boolean procesado = false; // Indica si ya se actualizó el inventario
 
+    // ⏳ Estado del procesamiento de inventario (null en ingresos anteriores a este campo)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "estado_procesamiento", length = 20)
+    private EstadoProcesamiento estadoProcesamiento;
+
+    // Avance del procesamiento: productos distintos aplicados al inventario / total a aplicar
+    @Column(name = "lineas_procesadas")
+    private Integer lineasProcesadas;
+
+    @Column(name = "lineas_totales")
+    private Integer lineasTotales;
+
+    // Motivo del error cuando el procesamiento en segundo plano falla
+    @Column(name = "mensaje_procesamiento", length = 500)
+    private String mensajeProcesamiento;
+
+    // Instancia que tomó el procesamiento en segundo plano y último aviso de que sigue viva
+    @Column(name = "procesamiento_instancia", length = 100)
+    private String procesamientoInstancia;
+
+    @Column(name = "procesamiento_latido")
+    private LocalDateTime procesamientoLatido;
+
+    public enum EstadoProcesamiento {
+        EN_COLA,      // Aceptado para procesar en segundo plano
+        EN_PROCESO,   // Aplicando inventario y costos
+        COMPLETADO,   // Inventario y costos aplicados (procesado = true)
+        ERROR         // Falló; no se aplicó nada (ver mensajeProcesamiento)
+    }
+
     // Método de conveniencia para agregar detalles
     public void agregarDetalle(IngresoDetalle detalle) {
         detalles.add(detalle);
@@ -45,9 +45,8 @@ public class IngresoDetalle {
     @Column(nullable = false)
     private Double costoUnitario; // Costo original del ingreso (para calcular totalCosto y trazabilidad)
 
-    @NotNull
     @Column(nullable = false)
-    private Double costoUnitarioPonderado; // Costo calculado con promedio ponderado (viene del frontend, se usa para actualizar producto.costo)
+    private Double costoUnitarioPonderado; // Costo promedio ponderado que quedó en producto.costo (lo calcula el servidor al procesar; antes = costoUnitario)
 
     @Column(nullable = false)
     private Double totalLinea; // Se calcula con costoUnitario (costo original)
@@ -62,5 +61,8 @@ public class IngresoDetalle {
             // totalLinea siempre se calcula con costoUnitario (costo original)
             this.totalLinea = costoUnitario * cantidad;
         }
+        if (costoUnitarioPonderado == null) {
+            this.costoUnitarioPonderado = costoUnitario;
+        }
     }
 }
\ No newline at end of file
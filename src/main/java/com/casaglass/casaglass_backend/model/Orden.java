@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -11,7 +12,43 @@ import java.util.List;
 @Entity
 @Table(name = "ordenes", indexes = {
   @Index(name = "idx_orden_numero", columnList = "numero", unique = true),
-  @Index(name = "idx_orden_cliente", columnList = "cliente_id")
+  @Index(name = "idx_orden_cliente", columnList = "cliente_id"),
+  @Index(name = "idx_orden_fecha", columnList = "fecha, id"),
+  @Index(name = "idx_orden_total", columnList = "total, id")
+})
+// 🗺️ PLANES DE CARGA POR CASO DE USO (usados con @EntityGraph en OrdenRepository)
+// - tabla:   listados; trae en el mismo SELECT cliente, sede, trabajador y crédito
+// - detalle: una sola orden con sus items y productos
+// - entrega: órdenes candidatas a entrega de dinero
+@NamedEntityGraphs({
+  @NamedEntityGraph(
+    name = "Orden.tabla",
+    attributeNodes = {
+      @NamedAttributeNode("cliente"),
+      @NamedAttributeNode("sede"),
+      @NamedAttributeNode("trabajador"),
+      @NamedAttributeNode("creditoDetalle")
+    }
+  ),
+  @NamedEntityGraph(
+    name = "Orden.detalle",
+    attributeNodes = {
+      @NamedAttributeNode("cliente"),
+      @NamedAttributeNode("sede"),
+      @NamedAttributeNode("trabajador"),
+      @NamedAttributeNode("creditoDetalle"),
+      @NamedAttributeNode(value = "items", subgraph = "items.producto")
+    },
+    subgraphs = @NamedSubgraph(name = "items.producto", attributeNodes = @NamedAttributeNode("producto"))
+  ),
+  @NamedEntityGraph(
+    name = "Orden.entrega",
+    attributeNodes = {
+      @NamedAttributeNode("cliente"),
+      @NamedAttributeNode("sede"),
+      @NamedAttributeNode("creditoDetalle")
+    }
+  )
 })
 @Data
 @NoArgsConstructor
@@ -87,7 +124,9 @@ public class Orden {
   @JsonIgnoreProperties({"orden", "hibernateLazyInitializer", "handler"})
   private Factura factura;
 
+  // En listados los items se cargan por lotes (un SELECT ... IN por cada 100 órdenes), no uno por orden
   @OneToMany(mappedBy = "orden", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+  @BatchSize(size = 100)
   @JsonIgnoreProperties({"orden", "hibernateLazyInitializer", "handler"})
   private List<OrdenItem> items = new ArrayList<>();
 
@@ -0,0 +1,70 @@
+package com.casaglass.casaglass_backend.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Copia inmutable de BusinessSettings usada por los cálculos de IVA y retenciones
+ * Se arma una sola vez y se comparte entre hilos (ver BusinessSettingsService.obtenerParametros)
+ * Todos los valores vienen resueltos: nunca son null
+ */
+@Getter
+@AllArgsConstructor
+public final class ParametrosTributarios {
+
+  private final Long id;                  // null si no hay configuración guardada
+  private final Double ivaRate;
+  private final Double reteRate;
+  private final Long reteThreshold;
+  private final Double icaRate;
+  private final Long icaThreshold;
+  private final Double reteivaRate;
+  private final Long reteivaThreshold;
+  private final LocalDate updatedAt;
+
+  /**
+   * Arma la copia desde la entidad, usando los valores por defecto donde falten
+   */
+  public static ParametrosTributarios desde(BusinessSettings settings) {
+    if (settings == null) {
+      return porDefecto();
+    }
+    return new ParametrosTributarios(
+        settings.getId(),
+        settings.getIvaRate() != null ? settings.getIvaRate() : 19.0,
+        settings.getReteRate() != null ? settings.getReteRate() : 2.5,
+        settings.getReteThreshold() != null ? settings.getReteThreshold() : 1_000_000L,
+        settings.getIcaRate() != null ? settings.getIcaRate() : 1.0,
+        settings.getIcaThreshold() != null ? settings.getIcaThreshold() : 1_000_000L,
+        settings.getReteivaRate() != null ? settings.getReteivaRate() : 15.0,
+        settings.getReteivaThreshold() != null ? settings.getReteivaThreshold() : 1_000_000L,
+        settings.getUpdatedAt()
+    );
+  }
+
+  /**
+   * Valores por defecto cuando no existe configuración guardada
+   */
+  public static ParametrosTributarios porDefecto() {
+    return new ParametrosTributarios(null, 19.0, 2.5, 1_000_000L, 1.0, 1_000_000L, 15.0, 1_000_000L, LocalDate.now());
+  }
+
+  /**
+   * Entidad desacoplada con estos valores (para respuestas del API)
+   */
+  public BusinessSettings aEntidad() {
+    BusinessSettings settings = new BusinessSettings();
+    settings.setId(id);
+    settings.setIvaRate(ivaRate);
+    settings.setReteRate(reteRate);
+    settings.setReteThreshold(reteThreshold);
+    settings.setIcaRate(icaRate);
+    settings.setIcaThreshold(icaThreshold);
+    settings.setReteivaRate(reteivaRate);
+    settings.setReteivaThreshold(reteivaThreshold);
+    settings.setUpdatedAt(updatedAt);
+    return settings;
+  }
+}
@@ -0,0 +1,94 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Dinero recibido en una sede que aún no sale en una entrega de dinero
+ * Una fila por orden a contado, abono o reembolso pendiente, con su aporte por medio de pago
+ * ya calculado. Lo mantiene PendienteEntregaService: cada cambio de la orden (o de sus abonos,
+ * reembolsos y detalles de entrega) rehace las filas de esa orden.
+ */
+@Entity
+@Table(name = "pendientes_entrega", indexes = {
+  @Index(name = "idx_pendiente_sede_fecha", columnList = "sede_id, fecha, id"),
+  @Index(name = "idx_pendiente_orden", columnList = "orden_id")
+}, uniqueConstraints = {
+  @UniqueConstraint(name = "uk_pendiente_referencia", columnNames = {"tipo", "referencia_id"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendienteEntrega {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /** Sede donde se recibió el dinero (la del abono; la de la venta para órdenes y reembolsos) */
+  @Column(name = "sede_id", nullable = false)
+  private Long sedeId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private TipoPendiente tipo;
+
+  /** ID de la orden, abono o reembolso según el tipo */
+  @Column(name = "referencia_id", nullable = false)
+  private Long referenciaId;
+
+  @Column(name = "orden_id", nullable = false)
+  private Long ordenId;
+
+  @Column(name = "numero_orden")
+  private Long numeroOrden;
+
+  /** Fecha de la venta, del abono o del reembolso */
+  private LocalDate fecha;
+
+  @Column(name = "cliente_nombre", length = 100)
+  private String clienteNombre;
+
+  @Column(name = "cliente_nit", length = 50)
+  private String clienteNit;
+
+  @Column(length = 255)
+  private String obra;
+
+  /** Método de pago del abono, forma del reembolso o descripción de la orden a contado */
+  @Column(name = "metodo_pago", length = 255)
+  private String metodoPago;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "tipo_movimiento", nullable = false, length = 20)
+  private EntregaDetalle.TipoMovimiento tipoMovimiento;
+
+  /** Monto de la fila (siempre >= 0; los egresos restan usando tipoMovimiento) */
+  @Column(nullable = false)
+  private Double monto;
+
+  /** Aporte a la entrega por medio de pago, con signo (los egresos quedan negativos) */
+  @Column(name = "monto_efectivo", nullable = false)
+  private Double montoEfectivo;
+
+  @Column(name = "monto_transferencia", nullable = false)
+  private Double montoTransferencia;
+
+  @Column(name = "monto_cheque", nullable = false)
+  private Double montoCheque;
+
+  @Column(name = "monto_deposito", nullable = false)
+  private Double montoDeposito;
+
+  @Column(name = "fecha_actualizacion", nullable = false)
+  private LocalDateTime fechaActualizacion;
+
+  public enum TipoPendiente {
+    ORDEN,      // Orden a contado completa
+    ABONO,      // Abono a una orden a crédito
+    REEMBOLSO   // Devolución procesada (egreso)
+  }
+}
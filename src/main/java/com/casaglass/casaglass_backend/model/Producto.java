@@ -8,7 +8,9 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+    @Index(name = "idx_producto_posicion_num", columnList = "posicion_num")
+})
 @org.hibernate.annotations.DynamicUpdate  // ✅ Actualizar solo campos modificados
 @Data
 @NoArgsConstructor
@@ -33,6 +35,12 @@ public class Producto {
 
     private String posicion;
 
+    // 📍 Copia numérica de posicion: permite ordenar y correr posiciones con un solo UPDATE en SQL
+    // Se sincroniza sola antes de cada INSERT/UPDATE (null si posicion no es un número)
+    @Column(name = "posicion_num")
+    @JsonIgnore
+    private Long posicionNum;
+
     // 🔁 Nueva relación con Categoria
     @ManyToOne(fetch = FetchType.EAGER) // EAGER para evitar problemas de carga perezosa
     @JoinColumn(name = "categoria_id", nullable = true)
@@ -62,4 +70,25 @@ public class Producto {
 
     @Lob
     private String descripcion;
+
+    @PrePersist
+    @PreUpdate
+    protected void sincronizarPosicionNum() {
+        this.posicionNum = parsearPosicion(posicion);
+    }
+
+    /**
+     * Interpreta la posición como número entero positivo (null si no aplica)
+     */
+    public static Long parsearPosicion(String posicion) {
+        if (posicion == null || posicion.trim().isEmpty()) {
+            return null;
+        }
+        try {
+            long valor = Long.parseLong(posicion.trim());
+            return valor > 0 ? valor : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
 }
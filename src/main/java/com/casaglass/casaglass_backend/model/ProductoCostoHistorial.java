@@ -0,0 +1,64 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Historial del costo promedio ponderado de cada producto
+ * Una fila por cada cambio de costo (ingreso procesado o ajuste manual) con el costo que quedó
+ * vigente desde esa fecha. Los reportes de margen toman el costo vigente a una fecha de aquí,
+ * sin recalcular promedios. Lo escribe CostoPromedioService.
+ */
+@Entity
+@Table(name = "producto_costos_historial", indexes = {
+  @Index(name = "idx_costo_historial_producto_fecha", columnList = "producto_id, fecha, id"),
+  @Index(name = "idx_costo_historial_ingreso", columnList = "ingreso_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoCostoHistorial {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "producto_id", nullable = false)
+  private Long productoId;
+
+  /** Ingreso que originó el cambio (null en ajustes manuales) */
+  @Column(name = "ingreso_id")
+  private Long ingresoId;
+
+  @Column(nullable = false)
+  private LocalDateTime fecha;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 20)
+  private Origen origen;
+
+  /** Stock total (todas las sedes) antes del cambio */
+  @Column(name = "stock_anterior")
+  private Double stockAnterior;
+
+  @Column(name = "costo_anterior")
+  private Double costoAnterior;
+
+  /** Unidades que entraron (0 en ajustes manuales) */
+  @Column(name = "cantidad_ingresada", nullable = false)
+  private Double cantidadIngresada;
+
+  /** Costo unitario promedio de las líneas del ingreso */
+  @Column(name = "costo_ingreso")
+  private Double costoIngreso;
+
+  @Column(name = "costo_nuevo", nullable = false)
+  private Double costoNuevo;
+
+  public enum Origen {
+    INGRESO,   // Promedio ponderado al procesar un ingreso
+    AJUSTE     // Cambio manual del costo (PUT /api/productos/{id}/costo)
+  }
+}
@@ -0,0 +1,24 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Consecutivo reservado por secuencia (ORDEN, FACTURA)
+ * siguienteValor es el primer número que aún no ha sido entregado a ninguna instancia:
+ * cada JVM reserva bloques [siguienteValor, siguienteValor + tamaño) y los reparte en memoria.
+ */
+@Entity
+@Table(name = "secuencias_numeracion")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SecuenciaNumeracion {
+
+  @Id
+  @Column(length = 30)
+  private String nombre;
+
+  @Column(name = "siguiente_valor", nullable = false)
+  private Long siguienteValor;
+}
@@ -10,7 +10,9 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "traslados")
+@Table(name = "traslados", indexes = {
+  @Index(name = "idx_traslado_fecha", columnList = "fecha, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
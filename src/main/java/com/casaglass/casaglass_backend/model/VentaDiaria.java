@@ -0,0 +1,51 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Acumulado diario de órdenes por sede × trabajador × venta/crédito × estado
+ * Tabla derivada de ordenes: se mantiene sumando/restando el aporte de cada orden (ver VentasDiariasService), nunca se edita a mano.
+ * Sede/trabajador sin dato se guardan como 0 para que la clave única agrupe esas filas.
+ */
+@Entity
+@Table(name = "ventas_diarias", indexes = {
+  @Index(name = "idx_ventas_diarias_fecha", columnList = "fecha, trabajador_id")
+}, uniqueConstraints = {
+  @UniqueConstraint(name = "uk_ventas_diarias_clave", columnNames = {"fecha", "sede_id", "trabajador_id", "venta", "credito", "estado"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaDiaria {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private LocalDate fecha;
+
+  @Column(name = "sede_id", nullable = false)
+  private Long sedeId;
+
+  @Column(name = "trabajador_id", nullable = false)
+  private Long trabajadorId;
+
+  @Column(nullable = false)
+  private boolean venta;
+
+  @Column(nullable = false)
+  private boolean credito;
+
+  @Column(nullable = false, length = 20)
+  private String estado;
+
+  @Column(name = "cantidad_ordenes", nullable = false)
+  private Long cantidadOrdenes;
+
+  @Column(name = "monto_total", nullable = false)
+  private Double montoTotal;
+}
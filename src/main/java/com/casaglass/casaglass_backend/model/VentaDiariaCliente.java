@@ -0,0 +1,45 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Acumulado diario de ventas por cliente (cantidad de órdenes y monto)
+ * Tabla derivada de ordenes: se mantiene sumando/restando el aporte de cada orden (ver VentasDiariasService).
+ * Sede/trabajador sin dato se guardan como 0 para que la clave única agrupe esas filas.
+ */
+@Entity
+@Table(name = "ventas_diarias_cliente", indexes = {
+  @Index(name = "idx_ventas_diarias_cliente_fecha", columnList = "fecha, trabajador_id")
+}, uniqueConstraints = {
+  @UniqueConstraint(name = "uk_ventas_diarias_cliente_clave", columnNames = {"fecha", "trabajador_id", "cliente_id", "estado"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaDiariaCliente {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private LocalDate fecha;
+
+  @Column(name = "trabajador_id", nullable = false)
+  private Long trabajadorId;
+
+  @Column(name = "cliente_id", nullable = false)
+  private Long clienteId;
+
+  @Column(nullable = false, length = 20)
+  private String estado;
+
+  @Column(name = "cantidad_ordenes", nullable = false)
+  private Long cantidadOrdenes;
+
+  @Column(name = "monto_total", nullable = false)
+  private Double montoTotal;
+}
@@ -0,0 +1,50 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Último aporte de cada orden a los acumulados diarios (ventas_diarias*)
+ * Al cambiar la orden se resta este aporte y se suma el nuevo (ver VentasDiariasService).
+ * Sede/trabajador/cliente sin dato se guardan como 0, igual que en los acumulados.
+ * fecha NULL = fila recién reservada, la orden todavía no aporta nada.
+ */
+@Entity
+@Table(name = "ventas_diarias_orden", indexes = {
+  @Index(name = "idx_ventas_diarias_orden_fecha", columnList = "fecha")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaDiariaOrden {
+
+  @Id
+  @Column(name = "orden_id")
+  private Long ordenId;
+
+  private LocalDate fecha;
+
+  @Column(name = "sede_id")
+  private Long sedeId;
+
+  @Column(name = "trabajador_id")
+  private Long trabajadorId;
+
+  @Column(name = "cliente_id")
+  private Long clienteId;
+
+  private Boolean venta;
+
+  private Boolean credito;
+
+  @Column(length = 20)
+  private String estado;
+
+  private Double total;
+
+  /** Aporte a ventas_diarias_producto: "productoId:cantidad:monto" separados por ';' (solo ventas, sin cortes) */
+  @Column(columnDefinition = "MEDIUMTEXT")
+  private String productos;
+}
@@ -0,0 +1,45 @@
+package com.casaglass.casaglass_backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Acumulado diario de unidades y monto vendidos por producto (solo ventas, sin cortes)
+ * Tabla derivada de orden_items: se mantiene sumando/restando el aporte de cada orden (ver VentasDiariasService).
+ * Sede/trabajador sin dato se guardan como 0 para que la clave única agrupe esas filas.
+ */
+@Entity
+@Table(name = "ventas_diarias_producto", indexes = {
+  @Index(name = "idx_ventas_diarias_producto_fecha", columnList = "fecha, trabajador_id")
+}, uniqueConstraints = {
+  @UniqueConstraint(name = "uk_ventas_diarias_producto_clave", columnNames = {"fecha", "trabajador_id", "producto_id", "estado"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VentaDiariaProducto {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private LocalDate fecha;
+
+  @Column(name = "trabajador_id", nullable = false)
+  private Long trabajadorId;
+
+  @Column(name = "producto_id", nullable = false)
+  private Long productoId;
+
+  @Column(nullable = false, length = 20)
+  private String estado;
+
+  @Column(nullable = false)
+  private Double cantidad;
+
+  @Column(name = "monto_total", nullable = false)
+  private Double montoTotal;
+}
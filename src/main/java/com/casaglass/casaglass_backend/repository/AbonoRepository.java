@@ -95,6 +95,21 @@ public interface AbonoRepository extends JpaRepository<Abono, Long> {
         @Param("sedeId") Long sedeId
     );
 
+    /**
+     * Mismo criterio que findAbonosDisponiblesParaEntregaSinFecha para los abonos de unas órdenes
+     * (sincronización de pendientes de entrega)
+     */
+    @Query("SELECT DISTINCT a FROM Abono a " +
+           "JOIN a.orden o " +
+           "LEFT JOIN EntregaDetalle ed ON ed.abono.id = a.id WHERE " +
+           "a.cliente.id != 499 AND " +
+           "o.id IN :ordenIds AND " +
+           "o.credito = true AND " +
+           "o.venta = true AND " +
+           "o.estado = 'ACTIVA' AND " +
+           "ed.id IS NULL")
+    List<Abono> findAbonosDisponiblesParaEntregaPorOrdenes(@Param("ordenIds") List<Long> ordenIds);
+
     /**
      * 💰 ABONOS DISPONIBLES PARA ENTREGA — TODAS LAS SEDES (SIN FILTRO DE FECHA NI SEDE)
      * Usado para el dashboard agregado de todas las sedes.
@@ -132,4 +147,15 @@ public interface AbonoRepository extends JpaRepository<Abono, Long> {
         @Param("metodoPago") String metodoPago,
         @Param("sedeId") Long sedeId
     );
-}
\ No newline at end of file
+
+    /**
+     * Abonos de una entrega de dinero nueva con su crédito, orden y cliente en un solo SELECT ... IN
+     */
+    @Query("SELECT a FROM Abono a " +
+           "JOIN FETCH a.credito " +
+           "JOIN FETCH a.cliente " +
+           "LEFT JOIN FETCH a.orden o " +
+           "LEFT JOIN FETCH o.creditoDetalle " +
+           "WHERE a.id IN :ids")
+    List<Abono> findByIdInParaEntrega(@Param("ids") List<Long> ids);
+}
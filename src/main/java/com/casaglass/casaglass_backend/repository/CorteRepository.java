@@ -51,6 +51,12 @@ public interface CorteRepository extends JpaRepository<Corte, Long> {
     // 🆕 Método para buscar por lista de IDs
     List<Corte> findByIdIn(List<Long> ids);
 
+    /**
+     * IDs de la lista que son cortes (validación en lote sin cargar entidades)
+     */
+    @Query("SELECT c.id FROM Corte c WHERE c.id IN :ids")
+    List<Long> findIdsByIdIn(@Param("ids") List<Long> ids);
+
     List<Corte> findByCodigoAndLargoCmOrderByIdDesc(String codigo, Double largoCm);
 
     // 🆕 Buscar corte existente por código base (sin sufijo), largo exacto, categoría y color
@@ -80,4 +86,61 @@ public interface CorteRepository extends JpaRepository<Corte, Long> {
                                                               @Param("categoriaId") Long categoriaId,
                                                               @Param("color") com.casaglass.casaglass_backend.model.ColorProducto color,
                                                               @Param("sedeId") Long sedeId);
-}
\ No newline at end of file
+
+    /**
+     * 📏 Datos de reutilización de los cortes de un código (sin cargar entidades)
+     * Retorna [id, color, categoriaId, largoCm]; alimenta CorteIndiceService
+     */
+    @Query("SELECT c.id, c.color, cat.id, c.largoCm FROM Corte c LEFT JOIN c.categoria cat WHERE c.codigo = :codigo")
+    List<Object[]> findDatosIndicePorCodigo(@Param("codigo") String codigo);
+
+    /**
+     * 📊 INVENTARIO DE CORTES PIVOTADO POR SEDE (una sola consulta, sin cargar entidades)
+     * Retorna [id, codigo, nombre, categoria, tipo, color, largo, cantInsula, cantCentro, cantPatios,
+     * precio1, precio2, precio3] ordenado por codigo, largo e id
+     * Todos los filtros son opcionales (null = sin filtro); q llega ya en minúsculas y con comodines
+     * sedeConStock: solo cortes con existencia &gt; 0 en esa sede; soloConStock: con existencia &gt; 0 en alguna
+     * Keyset: con cursorId informado retorna las filas posteriores a (cursorCodigo, cursorLargo, cursorId)
+     */
+    @Query(value = "SELECT c.id, p.codigo, p.nombre, cat.nombre AS categoria, p.tipo, p.color, c.largo, " +
+                   "COALESCE(SUM(CASE WHEN ic.sede_id = :insulaId THEN ic.cantidad END), 0), " +
+                   "COALESCE(SUM(CASE WHEN ic.sede_id = :centroId THEN ic.cantidad END), 0), " +
+                   "COALESCE(SUM(CASE WHEN ic.sede_id = :patiosId THEN ic.cantidad END), 0), " +
+                   "p.precio1, p.precio2, p.precio3 " +
+                   "FROM cortes c " +
+                   "JOIN productos p ON p.id = c.id " +
+                   "LEFT JOIN categorias cat ON cat.id = p.categoria_id " +
+                   "LEFT JOIN inventario_cortes ic ON ic.corte_id = c.id " +
+                   "WHERE (:categoriaId IS NULL OR p.categoria_id = :categoriaId) " +
+                   "AND (:tipo IS NULL OR p.tipo = :tipo) " +
+                   "AND (:color IS NULL OR p.color = :color) " +
+                   "AND (:largoMin IS NULL OR c.largo >= :largoMin) " +
+                   "AND (:largoMax IS NULL OR c.largo <= :largoMax) " +
+                   "AND (:q IS NULL OR LOWER(p.nombre) LIKE :q OR LOWER(p.codigo) LIKE :q) " +
+                   "AND (:sedeConStock IS NULL OR EXISTS (SELECT 1 FROM inventario_cortes s " +
+                   "     WHERE s.corte_id = c.id AND s.sede_id = :sedeConStock AND s.cantidad > 0)) " +
+                   "AND (:soloConStock = FALSE OR EXISTS (SELECT 1 FROM inventario_cortes s " +
+                   "     WHERE s.corte_id = c.id AND s.cantidad > 0)) " +
+                   "AND (:cursorId IS NULL OR p.codigo > :cursorCodigo " +
+                   "     OR (p.codigo = :cursorCodigo AND (c.largo > :cursorLargo " +
+                   "     OR (c.largo = :cursorLargo AND c.id > :cursorId)))) " +
+                   "GROUP BY c.id, p.codigo, p.nombre, cat.nombre, p.tipo, p.color, c.largo, p.precio1, p.precio2, p.precio3 " +
+                   "ORDER BY p.codigo ASC, c.largo ASC, c.id ASC " +
+                   "LIMIT :limite",
+           nativeQuery = true)
+    List<Object[]> buscarInventarioPivotado(@Param("insulaId") Long insulaId,
+                                            @Param("centroId") Long centroId,
+                                            @Param("patiosId") Long patiosId,
+                                            @Param("categoriaId") Long categoriaId,
+                                            @Param("tipo") String tipo,
+                                            @Param("color") String color,
+                                            @Param("largoMin") Double largoMin,
+                                            @Param("largoMax") Double largoMax,
+                                            @Param("q") String q,
+                                            @Param("sedeConStock") Long sedeConStock,
+                                            @Param("soloConStock") boolean soloConStock,
+                                            @Param("cursorCodigo") String cursorCodigo,
+                                            @Param("cursorLargo") Double cursorLargo,
+                                            @Param("cursorId") Long cursorId,
+                                            @Param("limite") int limite);
+}
@@ -0,0 +1,77 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.CreditoCorteMes;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cierres de mes del libro de créditos (credito_cortes_mes + credito_saldos_mes)
+ */
+@Repository
+public interface CreditoCorteMesRepository extends JpaRepository<CreditoCorteMes, LocalDate> {
+
+    /**
+     * 🔒 Lee el cierre con bloqueo compartido (LOCK IN SHARE MODE): mientras dure la
+     * transacción ningún movimiento atrasado puede borrarlo
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM CreditoCorteMes c WHERE c.mes = :mes")
+    Optional<CreditoCorteMes> bloquearCorte(@Param("mes") LocalDate mes);
+
+    /**
+     * 🔒 Bloquea todos los cierres (SELECT ... FOR UPDATE) antes de armar cierres nuevos
+     * La tabla tiene una fila por mes; el bloqueo también cubre los huecos donde se insertan
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM CreditoCorteMes c")
+    List<CreditoCorteMes> bloquearTodos();
+
+    @Query("SELECT MAX(c.mes) FROM CreditoCorteMes c WHERE c.mes <= :mes")
+    LocalDate ultimoCorteHasta(@Param("mes") LocalDate mes);
+
+    /**
+     * Arma el cierre de un mes desde todo el libro (solo la primera vez, cuando no hay cierre anterior)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO credito_saldos_mes (mes, credito_id, sede_id, saldo) " +
+                   "SELECT :mes, m.credito_id, m.sede_id, SUM(m.monto) FROM credito_movimientos m " +
+                   "WHERE m.fecha <= :mes " +
+                   "GROUP BY m.credito_id, m.sede_id " +
+                   "HAVING ABS(SUM(m.monto)) >= 0.005",
+           nativeQuery = true)
+    int insertarSaldosDesdeLibro(@Param("mes") LocalDate mes);
+
+    /**
+     * Arma el cierre de un mes desde el cierre anterior + los movimientos del mes
+     */
+    @Modifying
+    @Query(value = "INSERT INTO credito_saldos_mes (mes, credito_id, sede_id, saldo) " +
+                   "SELECT :mes, t.credito_id, t.sede_id, SUM(t.monto) FROM (" +
+                   "  SELECT s.credito_id, s.sede_id, s.saldo AS monto FROM credito_saldos_mes s " +
+                   "  WHERE s.mes = :anterior " +
+                   "  UNION ALL " +
+                   "  SELECT m.credito_id, m.sede_id, m.monto FROM credito_movimientos m " +
+                   "  WHERE m.fecha > :anterior AND m.fecha <= :mes" +
+                   ") t " +
+                   "GROUP BY t.credito_id, t.sede_id " +
+                   "HAVING ABS(SUM(t.monto)) >= 0.005",
+           nativeQuery = true)
+    int insertarSaldosDesdeCorte(@Param("anterior") LocalDate anterior, @Param("mes") LocalDate mes);
+
+    @Modifying
+    @Query(value = "DELETE FROM credito_cortes_mes WHERE mes >= :desde", nativeQuery = true)
+    int eliminarCortesDesde(@Param("desde") LocalDate desde);
+
+    @Modifying
+    @Query(value = "DELETE FROM credito_saldos_mes WHERE mes >= :desde", nativeQuery = true)
+    int eliminarSaldosDesde(@Param("desde") LocalDate desde);
+}
@@ -0,0 +1,86 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.CreditoMovimiento;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface CreditoMovimientoRepository extends JpaRepository<CreditoMovimiento, Long> {
+
+    /**
+     * Estado actual del libro de un crédito: [tipo, abonoId, fecha, sedeId, SUM(monto)]
+     */
+    @Query("SELECT m.tipo, m.abonoId, m.fecha, m.sedeId, SUM(m.monto) FROM CreditoMovimiento m " +
+           "WHERE m.creditoId = :creditoId " +
+           "GROUP BY m.tipo, m.abonoId, m.fecha, m.sedeId")
+    List<Object[]> resumirPorCredito(@Param("creditoId") Long creditoId);
+
+    /**
+     * Abonos del crédito que el libro registró sin fila en la tabla de abonos (registrarAbono,
+     * pago del cliente especial), en negativo como todo abono del libro
+     */
+    @Query("SELECT COALESCE(SUM(m.monto), 0) FROM CreditoMovimiento m " +
+           "WHERE m.creditoId = :creditoId AND m.tipo = :abono AND m.abonoId IS NULL")
+    Double sumarAbonosSinRegistro(@Param("creditoId") Long creditoId,
+                                  @Param("abono") CreditoMovimiento.TipoMovimiento abono);
+
+    /**
+     * 📊 Total de créditos activos a una fecha (todas las sedes): suma de los saldos
+     * positivos por crédito. Se resuelve sobre el índice (fecha, credito_id, monto).
+     * Recorre todo el libro: solo como respaldo de saldoPendienteDesdeCorte.
+     */
+    @Query(value = "SELECT COALESCE(SUM(GREATEST(t.saldo, 0)), 0) FROM (" +
+                   "  SELECT m.credito_id, SUM(m.monto) AS saldo FROM credito_movimientos m " +
+                   "  WHERE m.fecha <= :fecha " +
+                   "  GROUP BY m.credito_id" +
+                   ") t",
+           nativeQuery = true)
+    Double saldoPendienteAFecha(@Param("fecha") LocalDate fecha);
+
+    /**
+     * 📊 Total de créditos activos a una fecha en una sede (índice sede_id, fecha, credito_id, monto)
+     */
+    @Query(value = "SELECT COALESCE(SUM(GREATEST(t.saldo, 0)), 0) FROM (" +
+                   "  SELECT m.credito_id, SUM(m.monto) AS saldo FROM credito_movimientos m " +
+                   "  WHERE m.sede_id = :sedeId AND m.fecha <= :fecha " +
+                   "  GROUP BY m.credito_id" +
+                   ") t",
+           nativeQuery = true)
+    Double saldoPendienteAFechaPorSede(@Param("sedeId") Long sedeId, @Param("fecha") LocalDate fecha);
+
+    /**
+     * 📊 Total de créditos activos a una fecha partiendo de un cierre de mes (todas las sedes):
+     * saldos del cierre + movimientos con fecha en (corte, fecha]
+     */
+    @Query(value = "SELECT COALESCE(SUM(GREATEST(t.saldo, 0)), 0) FROM (" +
+                   "  SELECT x.credito_id, SUM(x.monto) AS saldo FROM (" +
+                   "    SELECT s.credito_id, s.saldo AS monto FROM credito_saldos_mes s WHERE s.mes = :corte " +
+                   "    UNION ALL " +
+                   "    SELECT m.credito_id, m.monto FROM credito_movimientos m " +
+                   "    WHERE m.fecha > :corte AND m.fecha <= :fecha" +
+                   "  ) x GROUP BY x.credito_id" +
+                   ") t",
+           nativeQuery = true)
+    Double saldoPendienteDesdeCorte(@Param("corte") LocalDate corte, @Param("fecha") LocalDate fecha);
+
+    /**
+     * 📊 Total de créditos activos a una fecha en una sede partiendo de un cierre de mes
+     */
+    @Query(value = "SELECT COALESCE(SUM(GREATEST(t.saldo, 0)), 0) FROM (" +
+                   "  SELECT x.credito_id, SUM(x.monto) AS saldo FROM (" +
+                   "    SELECT s.credito_id, s.saldo AS monto FROM credito_saldos_mes s " +
+                   "    WHERE s.mes = :corte AND s.sede_id = :sedeId " +
+                   "    UNION ALL " +
+                   "    SELECT m.credito_id, m.monto FROM credito_movimientos m " +
+                   "    WHERE m.sede_id = :sedeId AND m.fecha > :corte AND m.fecha <= :fecha" +
+                   "  ) x GROUP BY x.credito_id" +
+                   ") t",
+           nativeQuery = true)
+    Double saldoPendienteDesdeCortePorSede(@Param("sedeId") Long sedeId, @Param("corte") LocalDate corte,
+                                           @Param("fecha") LocalDate fecha);
+}
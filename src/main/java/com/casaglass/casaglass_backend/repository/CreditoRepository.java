@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -35,6 +36,15 @@ public interface CreditoRepository extends JpaRepository<Credito, Long> {
     // 📊 MÉTODO PARA DASHBOARD - DEUDAS CREADAS EN EL MES (sin importar estado)
     List<Credito> findByOrdenSedeIdAndFechaInicioBetween(Long sedeId, LocalDate desde, LocalDate hasta);
 
+    /**
+     * Suma de totalCredito de los créditos de la sede iniciados en el periodo (sin importar estado)
+     */
+    @Query("SELECT COALESCE(SUM(c.totalCredito), 0.0) FROM Credito c " +
+           "WHERE c.orden.sede.id = :sedeId AND c.fechaInicio BETWEEN :desde AND :hasta")
+    Double sumTotalCreditoPorSedeEnPeriodo(@Param("sedeId") Long sedeId,
+                                           @Param("desde") LocalDate desde,
+                                           @Param("hasta") LocalDate hasta);
+
     // 📊 MÉTODO PARA DASHBOARD - HISTÓRICO TOTAL DE DEUDAS DE LA SEDE (todos los estados)
     List<Credito> findByOrdenSedeId(Long sedeId);
 
@@ -90,4 +100,14 @@ public interface CreditoRepository extends JpaRepository<Credito, Long> {
         @Param("fechaDesde") LocalDate fechaDesde,
         @Param("fechaHasta") LocalDate fechaHasta
     );
-}
\ No newline at end of file
+
+    /**
+     * 📊 Créditos agrupados por estado: [estado, cantidad, saldoPendiente, totalAbonado]
+     * Solo órdenes de los trabajadores indicados
+     */
+    @Query("SELECT c.estado, COUNT(c), COALESCE(SUM(c.saldoPendiente), 0), COALESCE(SUM(c.totalAbonado), 0) " +
+           "FROM Credito c JOIN c.orden o " +
+           "WHERE o.trabajador.id IN :trabajadores " +
+           "GROUP BY c.estado")
+    List<Object[]> resumirPorEstado(@Param("trabajadores") Collection<Long> trabajadores);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -54,6 +55,17 @@ public interface EntregaDetalleRepository extends JpaRepository<EntregaDetalle,
 
     Optional<EntregaDetalle> findFirstByOrdenIdAndEntregaEstadoInOrderByIdDesc(Long ordenId, List<EntregaDinero.EstadoEntrega> estados);
 
+    /**
+     * Entregas (en estado dentro de {@code estados}) de varias órdenes en una sola consulta:
+     * [ordenId, entregaId, estadoEntrega], del detalle más reciente al más antiguo
+     */
+    @Query("SELECT ed.orden.id, e.id, e.estado FROM EntregaDetalle ed JOIN ed.entrega e " +
+           "WHERE ed.orden.id IN :ordenIds AND e.estado IN :estados " +
+           "ORDER BY ed.id DESC")
+    List<Object[]> findEntregasPorOrdenIds(
+            @Param("ordenIds") Collection<Long> ordenIds,
+            @Param("estados") List<EntregaDinero.EstadoEntrega> estados);
+
     /**
      * Detalles de ingreso (contado o abono) vinculados a una entrega en estado que bloquea edición.
      * Excluye filas de egreso (reembolso) que comparten el mismo {@code orden_id}.
@@ -83,4 +95,24 @@ public interface EntregaDetalleRepository extends JpaRepository<EntregaDetalle,
     boolean existsByReembolsoVentaIdAndEntregaIdNot(
             @Param("reembolsoId") Long reembolsoId,
             @Param("entregaId") Long entregaId);
-}
\ No newline at end of file
+
+    // ===== Validaciones en lote para crear entregas (una consulta por tipo) =====
+
+    /** IDs de las órdenes (de la lista) que ya están en alguna entrega con estado en {@code estados}. */
+    @Query("SELECT DISTINCT ed.orden.id FROM EntregaDetalle ed " +
+           "WHERE ed.orden.id IN :ordenIds AND ed.entrega.estado IN :estados")
+    List<Long> findOrdenIdsEnEntregas(
+            @Param("ordenIds") List<Long> ordenIds,
+            @Param("estados") List<EntregaDinero.EstadoEntrega> estados);
+
+    /** IDs de los abonos (de la lista) que ya están en alguna entrega con estado en {@code estados}. */
+    @Query("SELECT DISTINCT ed.abono.id FROM EntregaDetalle ed " +
+           "WHERE ed.abono.id IN :abonoIds AND ed.entrega.estado IN :estados")
+    List<Long> findAbonoIdsEnEntregas(
+            @Param("abonoIds") List<Long> abonoIds,
+            @Param("estados") List<EntregaDinero.EstadoEntrega> estados);
+
+    /** IDs de los reembolsos (de la lista) que ya están vinculados a cualquier entrega. */
+    @Query("SELECT DISTINCT ed.reembolsoVenta.id FROM EntregaDetalle ed WHERE ed.reembolsoVenta.id IN :reembolsoIds")
+    List<Long> findReembolsoIdsEnEntregas(@Param("reembolsoIds") List<Long> reembolsoIds);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +24,12 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
      */
     Optional<Factura> findByOrdenId(Long ordenId);
 
+    /**
+     * Números de factura de varias órdenes en una sola consulta: [ordenId, numeroFactura]
+     */
+    @Query("SELECT f.orden.id, f.numeroFactura FROM Factura f WHERE f.orden.id IN :ordenIds")
+    List<Object[]> findNumerosFacturaPorOrdenIds(@Param("ordenIds") Collection<Long> ordenIds);
+
     /**
      * Listar facturas por estado
      */
@@ -57,6 +64,30 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
             "FROM facturas", nativeQuery = true)
     Long obtenerSiguienteNumero();
 
+    /**
+     * Consecutivos numéricos de las facturas automáticas (FACnnnn)
+     */
+    String CONSECUTIVOS_AUTOMATICOS = "SELECT CAST(SUBSTRING(numero_factura, 4) AS UNSIGNED) AS consecutivo " +
+            "FROM facturas WHERE numero_factura REGEXP '^FAC[0-9]+$'";
+
+    /**
+     * Resumen de los consecutivos automáticos para la auditoría de huecos
+     * Una fila: [min consecutivo, max consecutivo, cantidad de consecutivos distintos]
+     */
+    @Query(value = "SELECT MIN(consecutivo), MAX(consecutivo), COUNT(DISTINCT consecutivo) FROM (" +
+            CONSECUTIVOS_AUTOMATICOS + ") c", nativeQuery = true)
+    List<Object[]> resumenConsecutivosAutomaticos();
+
+    /**
+     * Huecos de los consecutivos automáticos calculados en la base de datos
+     * Cada fila: [desde, hasta] inclusive, en orden ascendente
+     */
+    @Query(value = "SELECT anterior + 1 AS desde, consecutivo - 1 AS hasta FROM (" +
+            "SELECT consecutivo, LAG(consecutivo) OVER (ORDER BY consecutivo) AS anterior FROM (" +
+            CONSECUTIVOS_AUTOMATICOS + ") c) t " +
+            "WHERE consecutivo > anterior + 1 ORDER BY consecutivo", nativeQuery = true)
+    List<Object[]> listarHuecosConsecutivosAutomaticos();
+
     /**
      * Contar facturas por estado
      */
@@ -87,5 +118,17 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
         @Param("numeroFactura") String numeroFactura,
         @Param("ordenId") Long ordenId
     );
-}
 
+    /**
+     * 📊 Facturas del rango agrupadas por estado: [estado, cantidad, montoTotal]
+     * Solo órdenes de los trabajadores indicados
+     */
+    @Query("SELECT f.estado, COUNT(f), COALESCE(SUM(f.total), 0) FROM Factura f JOIN f.orden o " +
+           "WHERE f.fecha BETWEEN :desde AND :hasta AND o.trabajador.id IN :trabajadores " +
+           "GROUP BY f.estado")
+    List<Object[]> resumirPorEstado(
+        @Param("desde") LocalDate desde,
+        @Param("hasta") LocalDate hasta,
+        @Param("trabajadores") Collection<Long> trabajadores
+    );
+}
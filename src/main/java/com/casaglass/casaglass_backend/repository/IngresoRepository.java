@@ -2,13 +2,18 @@ package com.casaglass.casaglass_backend.repository;
 
 import com.casaglass.casaglass_backend.model.Ingreso;
 import com.casaglass.casaglass_backend.model.Proveedor;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface IngresoRepository extends JpaRepository<Ingreso, Long> {
@@ -78,4 +83,61 @@ public interface IngresoRepository extends JpaRepository<Ingreso, Long> {
      */
     @Query("SELECT COALESCE(SUM(d.cantidad), 0) FROM IngresoDetalle d WHERE d.ingreso.id = :ingresoId")
     Integer calcularCantidadTotal(@Param("ingresoId") Long ingresoId);
-}
\ No newline at end of file
+
+    /**
+     * 🔒 Bloquea la fila del ingreso (SELECT ... FOR UPDATE) para procesarlo o editarlo en la petición
+     * Un encolarProcesamiento simultáneo espera a que esa transacción termine y reevalúa su condición
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Ingreso i WHERE i.id = :id")
+    Optional<Ingreso> bloquearPorId(@Param("id") Long id);
+
+    /**
+     * ⏳ Pasa el ingreso a la cola de procesamiento solo si no está procesado ni ya en cola/proceso
+     * (evita que dos pedidos simultáneos lo encolen dos veces)
+     *
+     * @return 1 si quedó encolado, 0 si no existe o no se puede encolar
+     */
+    @Modifying
+    @Query("UPDATE Ingreso i SET i.estadoProcesamiento = :enCola, i.lineasProcesadas = 0, " +
+           "i.lineasTotales = NULL, i.mensajeProcesamiento = NULL, " +
+           "i.procesamientoInstancia = :instancia, i.procesamientoLatido = :ahora " +
+           "WHERE i.id = :id AND i.procesado = false " +
+           "AND (i.estadoProcesamiento IS NULL OR i.estadoProcesamiento NOT IN :activos)")
+    int encolarProcesamiento(@Param("id") Long id,
+                             @Param("enCola") Ingreso.EstadoProcesamiento enCola,
+                             @Param("activos") List<Ingreso.EstadoProcesamiento> activos,
+                             @Param("instancia") String instancia,
+                             @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * ⏳ Registra estado y avance del procesamiento (se ejecuta en su propia transacción)
+     * y renueva el latido de la instancia que lo ejecuta
+     */
+    @Modifying
+    @Query("UPDATE Ingreso i SET i.estadoProcesamiento = :estado, i.lineasProcesadas = :procesadas, " +
+           "i.lineasTotales = :totales, i.mensajeProcesamiento = :mensaje, i.procesamientoLatido = :ahora " +
+           "WHERE i.id = :id")
+    int actualizarProcesamiento(@Param("id") Long id,
+                                @Param("estado") Ingreso.EstadoProcesamiento estado,
+                                @Param("procesadas") Integer procesadas,
+                                @Param("totales") Integer totales,
+                                @Param("mensaje") String mensaje,
+                                @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * ⏳ Procesamientos que quedaron a medias por un reinicio (la transacción se revirtió):
+     * los de esta instancia y los de otras cuyo latido venció (o que no tienen dueño registrado).
+     * Los de otras instancias vivas no se tocan.
+     */
+    @Modifying
+    @Query("UPDATE Ingreso i SET i.estadoProcesamiento = :error, i.lineasProcesadas = 0, i.mensajeProcesamiento = :mensaje " +
+           "WHERE i.procesado = false AND i.estadoProcesamiento IN :activos " +
+           "AND (i.procesamientoInstancia IS NULL OR i.procesamientoInstancia = :instancia " +
+           "OR i.procesamientoLatido IS NULL OR i.procesamientoLatido < :vencido)")
+    int marcarInterrumpidos(@Param("error") Ingreso.EstadoProcesamiento error,
+                            @Param("activos") List<Ingreso.EstadoProcesamiento> activos,
+                            @Param("mensaje") String mensaje,
+                            @Param("instancia") String instancia,
+                            @Param("vencido") LocalDateTime vencido);
+}
@@ -0,0 +1,31 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.ColorProducto;
+import com.casaglass.casaglass_backend.model.TipoProducto;
+
+/**
+ * Fila de la matriz de inventario completo: datos del producto (y del vidrio si aplica)
+ * más la cantidad pivotada por sede (Insula=1, Centro=2, Patios=3)
+ */
+public interface InventarioCompletoProjection {
+    Long getId();
+    String getCodigo();
+    String getNombre();
+    String getDescripcion();
+    Long getCategoriaId();
+    String getCategoriaNombre();
+    TipoProducto getTipo();
+    ColorProducto getColor();
+    String getPosicion();
+    Boolean getEsVidrio();
+    Double getMm();
+    Double getM1();
+    Double getM2();
+    Double getCantidadInsula();
+    Double getCantidadCentro();
+    Double getCantidadPatios();
+    Double getCosto();
+    Double getPrecio1();
+    Double getPrecio2();
+    Double getPrecio3();
+}
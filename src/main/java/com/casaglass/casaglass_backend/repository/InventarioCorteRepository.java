@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +15,13 @@ public interface InventarioCorteRepository extends JpaRepository<InventarioCorte
 
     List<InventarioCorte> findBySedeId(Long sedeId);
 
+    /**
+     * 📊 Valor del inventario de cortes de la sede: Σ cantidad × precio1 (o costo si no hay precio1)
+     */
+    @Query("SELECT COALESCE(SUM(COALESCE(ic.cantidad, 0.0) * COALESCE(c.precio1, c.costo, 0.0)), 0.0) " +
+           "FROM InventarioCorte ic JOIN ic.corte c WHERE ic.sede.id = :sedeId")
+    Double valorInventarioPorSede(@Param("sedeId") Long sedeId);
+
     List<InventarioCorte> findByCorteIdAndSedeId(Long corteId, Long sedeId);
 
     @Query("SELECT ic FROM InventarioCorte ic WHERE ic.cantidad > 0")
@@ -47,4 +55,14 @@ public interface InventarioCorteRepository extends JpaRepository<InventarioCorte
 
     // Nuevo: buscar inventarios para una lista de cortes
     List<InventarioCorte> findByCorteIdIn(List<Long> corteIds);
+
+    /**
+     * 🔒 Bloquea y lee las cantidades de varios cortes en varias sedes: [corteId, sedeId, cantidad]
+     */
+    @Query(value = "SELECT corte_id, sede_id, cantidad FROM inventario_cortes " +
+                   "WHERE sede_id IN :sedeIds AND corte_id IN :corteIds " +
+                   "ORDER BY id ASC FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> bloquearCantidades(@Param("sedeIds") Collection<Long> sedeIds,
+                                      @Param("corteIds") Collection<Long> corteIds);
 }
\ No newline at end of file
@@ -3,10 +3,12 @@ package com.casaglass.casaglass_backend.repository;
 import com.casaglass.casaglass_backend.model.Inventario;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +29,13 @@ public interface InventarioRepository extends JpaRepository<Inventario, Long> {
            "WHERE i.sede.id = :sedeId")
     List<Inventario> findBySedeId(@Param("sedeId") Long sedeId);
 
+    /**
+     * 📊 Valor del inventario de la sede: Σ cantidad × precio1 (o costo si no hay precio1)
+     */
+    @Query("SELECT COALESCE(SUM(COALESCE(i.cantidad, 0.0) * COALESCE(p.precio1, p.costo, 0.0)), 0.0) " +
+           "FROM Inventario i JOIN i.producto p WHERE i.sede.id = :sedeId")
+    Double valorInventarioPorSede(@Param("sedeId") Long sedeId);
+
     /**
      * 🔒 BUSCAR INVENTARIO CON LOCK OPTIMISTA
      * 
@@ -50,6 +59,59 @@ public interface InventarioRepository extends JpaRepository<Inventario, Long> {
         return findByProductoIdAndSedeId(productoId, sedeId);
     }
 
+    /**
+     * 🔒 BLOQUEAR INVENTARIOS DE VARIOS PRODUCTOS EN UNA SEDE (SELECT ... FOR UPDATE)
+     *
+     * Ordenado por ID para que dos ventas concurrentes siempre tomen los bloqueos
+     * en el mismo orden (evita deadlocks)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventario i " +
+           "WHERE i.sede.id = :sedeId AND i.producto.id IN :productoIds " +
+           "ORDER BY i.id ASC")
+    List<Inventario> bloquearPorSedeYProductos(@Param("sedeId") Long sedeId,
+                                               @Param("productoIds") Collection<Long> productoIds);
+
+    /**
+     * 🔒 BLOQUEAR Y LEER CANTIDADES DE VARIOS PRODUCTOS EN VARIAS SEDES (SELECT ... FOR UPDATE)
+     * Proyección escalar [productoId, sedeId, cantidad], sin cargar entidades; en orden de ID
+     */
+    @Query(value = "SELECT producto_id, sede_id, cantidad FROM inventario " +
+                   "WHERE sede_id IN :sedeIds AND producto_id IN :productoIds " +
+                   "ORDER BY id ASC FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> bloquearCantidades(@Param("sedeIds") Collection<Long> sedeIds,
+                                      @Param("productoIds") Collection<Long> productoIds);
+
+    /**
+     * ➕ SUMA ATÓMICA SOBRE UNA FILA EXISTENTE (delta negativo = descuento)
+     * Con exigirStock = true no aplica el cambio si la cantidad quedaría negativa
+     *
+     * @return filas actualizadas (0 si no existe la fila o no alcanza el stock)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE inventario SET cantidad = cantidad + :delta, version = COALESCE(version, 0) + 1 " +
+                   "WHERE producto_id = :productoId AND sede_id = :sedeId " +
+                   "AND (:exigirStock = FALSE OR cantidad + :delta >= 0)",
+           nativeQuery = true)
+    int sumarCantidad(@Param("productoId") Long productoId,
+                      @Param("sedeId") Long sedeId,
+                      @Param("delta") double delta,
+                      @Param("exigirStock") boolean exigirStock);
+
+    /**
+     * ➕ SUMA ATÓMICA O CREACIÓN DE LA FILA (una sola sentencia, sin carrera entre SELECT e INSERT)
+     * Se apoya en uk_inventario_producto_sede
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "INSERT INTO inventario (producto_id, sede_id, cantidad, version) " +
+                   "VALUES (:productoId, :sedeId, :delta, 0) " +
+                   "ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad), version = COALESCE(version, 0) + 1",
+           nativeQuery = true)
+    int sumarCantidadOCrear(@Param("productoId") Long productoId,
+                            @Param("sedeId") Long sedeId,
+                            @Param("delta") double delta);
+
     // Nuevo: buscar inventarios para una lista de productos con FETCH
     @Query("SELECT i FROM Inventario i " +
            "LEFT JOIN FETCH i.producto p " +
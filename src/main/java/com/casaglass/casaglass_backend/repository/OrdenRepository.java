@@ -1,10 +1,16 @@
 package com.casaglass.casaglass_backend.repository;
 
 import com.casaglass.casaglass_backend.model.Orden;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 
@@ -12,66 +18,131 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Cada consulta de órdenes declara su plan de carga (ver @NamedEntityGraph en Orden):
+ * - Orden.tabla para listados y búsquedas
+ * - Orden.detalle para una sola orden
+ * - Orden.entrega para las candidatas a entrega de dinero
+ * Las consultas que solo necesitan totales o números usan proyecciones escalares.
+ */
 public interface OrdenRepository extends JpaRepository<Orden, Long> {
 
+    @Override
+    @EntityGraph(value = "Orden.detalle", type = EntityGraph.EntityGraphType.LOAD)
+    Optional<Orden> findById(Long id);
+
+    @Override
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
+    List<Orden> findAll();
+
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     Optional<Orden> findByNumero(Long numero);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findByClienteId(Long clienteId);
 
     /**
      * Encuentra órdenes de un cliente en un rango de fechas
      * Optimizado para mejorar rendimiento al filtrar en la base de datos
      */
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findByClienteIdAndFechaBetween(Long clienteId, LocalDate fechaDesde, LocalDate fechaHasta);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findByVenta(boolean venta);     // true = ventas, false = cotizaciones
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findByCredito(boolean credito); // true = a crédito
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     Optional<Orden> findByCreditoDetalleId(Long creditoDetalleId);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findByFechaBetween(LocalDate desde, LocalDate hasta);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findBySedeId(Long sedeId);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findByClienteIdAndSedeId(Long clienteId, Long sedeId);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findBySedeIdAndVenta(Long sedeId, boolean venta);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findBySedeIdAndCredito(Long sedeId, boolean credito);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findBySedeIdAndFechaBetween(Long sedeId, LocalDate desde, LocalDate hasta);
 
     /**
      * Ventas (venta=true) en la sede y periodo
      */
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findBySedeIdAndFechaBetweenAndVentaTrue(Long sedeId, LocalDate desde, LocalDate hasta);
 
     // 🆕 Métodos para filtrar por trabajador
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findByTrabajadorId(Long trabajadorId);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findByTrabajadorIdAndVenta(Long trabajadorId, boolean venta);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findByTrabajadorIdAndFechaBetween(Long trabajadorId, LocalDate desde, LocalDate hasta);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findBySedeIdAndTrabajadorId(Long sedeId, Long trabajadorId);
 
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findAllById(Iterable<Long> ids);
 
     // Método para obtener el siguiente número de orden disponible (thread-safe)
     @Query("SELECT COALESCE(MAX(o.numero), 0) + 1 FROM Orden o")
     Long obtenerSiguienteNumero();
+
+    /**
+     * Resumen de la numeración emitida para la auditoría de huecos
+     * Una fila: [min numero, max numero, cantidad]
+     */
+    @Query("SELECT MIN(o.numero), MAX(o.numero), COUNT(o) FROM Orden o")
+    List<Object[]> resumenNumeracion();
+
+    /**
+     * Huecos de la numeración calculados en la base de datos (solo viajan los huecos)
+     * Cada fila: [desde, hasta] inclusive, en orden ascendente
+     */
+    @Query(value = "SELECT anterior + 1 AS desde, numero - 1 AS hasta FROM (" +
+            "SELECT numero, LAG(numero) OVER (ORDER BY numero) AS anterior FROM ordenes) t " +
+            "WHERE numero > anterior + 1 ORDER BY numero", nativeQuery = true)
+    List<Object[]> listarHuecosNumeracion();
+
+    /**
+     * Totales de ventas de una sede en el periodo (solo agregados, sin cargar órdenes)
+     * Una fila: [total ventas, total ventas a contado, min numero, max numero, cantidad]
+     */
+    @Query("SELECT COALESCE(SUM(o.total), 0.0), " +
+           "COALESCE(SUM(CASE WHEN o.credito = false THEN o.total ELSE 0.0 END), 0.0), " +
+           "MIN(o.numero), MAX(o.numero), COUNT(o) FROM Orden o " +
+           "WHERE o.sede.id = :sedeId AND o.fecha BETWEEN :desde AND :hasta AND o.venta = true")
+    List<Object[]> resumenVentasPorSedeEnPeriodo(@Param("sedeId") Long sedeId,
+                                                 @Param("desde") LocalDate desde,
+                                                 @Param("hasta") LocalDate hasta);
+
+    /**
+     * 📤 Bloque de órdenes para exportación por keyset (id > despues, LIMIT del Pageable)
+     * Cada bloque es una consulta cerrada: los items (@BatchSize) y demás relaciones se cargan
+     * después con IN por bloque, sin cursores abiertos que obliguen al driver a guardar todo
+     */
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT o FROM Orden o WHERE o.id > :despues ORDER BY o.id ASC")
+    List<Orden> bloqueExportacion(@Param("despues") Long despues, Pageable pageable);
     
     @EntityGraph(attributePaths = {"cliente", "sede", "items", "items.producto"})
     @Query("SELECT o FROM Orden o")
     List<Orden> findAllWithFullRelations();
 
-    /**
-     * Suma total de ventas a contado en un periodo para una sede (venta=true AND credito=false)
-     */
-    @Query("SELECT COALESCE(SUM(o.total), 0.0) FROM Orden o WHERE o.sede.id = :sedeId AND o.fecha BETWEEN :desde AND :hasta AND o.venta = true AND o.credito = false")
-    Double sumTotalVentasContadoPorSedeEnPeriodo(@Param("sedeId") Long sedeId, @Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
-
     /**
      * 🔍 OBTENER ORDEN POR ID CON TODAS LAS RELACIONES CARGADAS
      * Usa fetch joins para cargar todas las relaciones de una vez y evitar problemas de lazy loading
@@ -107,6 +178,7 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
      * 💰 ÓRDENES A CONTADO DISPONIBLES PARA ENTREGA
      * ⚠️ EXCLUYE al cliente especial (ID 499 - JAIRO JAVIER VELANDIA)
      */
+    @EntityGraph(value = "Orden.entrega", type = EntityGraph.EntityGraphType.LOAD)
     @Query("SELECT o FROM Orden o WHERE " +
            "o.cliente.id != 499 AND " + // ⚠️ EXCLUIR CLIENTE ESPECIAL
            "o.sede.id = :sedeId AND " +
@@ -125,6 +197,7 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
          * 💰 ÓRDENES A CONTADO DISPONIBLES PARA ENTREGA (TODAS LAS SEDES)
          * Usado por el dashboard agregado cuando no se filtra por sede.
          */
+        @EntityGraph(value = "Orden.entrega", type = EntityGraph.EntityGraphType.LOAD)
         @Query("SELECT o FROM Orden o WHERE " +
             "o.cliente.id != 499 AND " +
             "o.credito = false AND " +
@@ -137,6 +210,7 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
      * 💰 ÓRDENES A CONTADO DISPONIBLES PARA ENTREGA (SIN FILTRO DE FECHA)
      * Trae todas las órdenes de la sede que aún no están incluidas en entrega.
      */
+    @EntityGraph(value = "Orden.entrega", type = EntityGraph.EntityGraphType.LOAD)
     @Query("SELECT o FROM Orden o WHERE " +
            "o.cliente.id != 499 AND " +
            "o.sede.id = :sedeId AND " +
@@ -148,6 +222,20 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
         @Param("sedeId") Long sedeId
     );
 
+    /**
+     * Mismo criterio que findOrdenesContadoDisponiblesParaEntregaSinFecha, limitado a unas órdenes
+     * (sincronización de pendientes de entrega)
+     */
+    @EntityGraph(value = "Orden.entrega", type = EntityGraph.EntityGraphType.LOAD)
+    @Query("SELECT o FROM Orden o WHERE " +
+           "o.cliente.id != 499 AND " +
+           "o.id IN :ordenIds AND " +
+           "o.credito = false AND " +
+           "o.venta = true AND " +
+           "o.incluidaEntrega = false AND " +
+           "o.estado = 'ACTIVA'")
+    List<Orden> findOrdenesContadoDisponiblesParaEntregaPorIds(@Param("ordenIds") List<Long> ordenIds);
+
     /**
      * 🏦 ÓRDENES A CRÉDITO CON ABONOS EN EL PERÍODO
      * - De la sede especificada
@@ -157,6 +245,7 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
      * - No incluidas en otra entrega (incluidaEntrega = false)
      * - Crédito abierto (no cerrado)
      */
+    @EntityGraph(value = "Orden.entrega", type = EntityGraph.EntityGraphType.LOAD)
     @Query("SELECT DISTINCT o FROM Orden o " +
            "JOIN o.creditoDetalle c " +
            "JOIN c.abonos a WHERE " +
@@ -174,6 +263,7 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
     );
 
     // 📊 MÉTODO PARA DASHBOARD - VENTAS DE HOY
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     List<Orden> findBySedeIdAndFechaAndVentaTrue(Long sedeId, LocalDate fecha);
 
     /**
@@ -182,6 +272,7 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
      * Todos los parámetros son opcionales (nullable)
      * El ordenamiento se maneja en el servicio
      */
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
     @Query("SELECT DISTINCT o FROM Orden o " +
            "LEFT JOIN o.factura f " +
            "WHERE (:clienteId IS NULL OR o.cliente.id = :clienteId) AND " +
@@ -203,4 +294,122 @@ public interface OrdenRepository extends JpaRepository<Orden, Long> {
         @Param("credito") Boolean credito,
         @Param("facturada") Boolean facturada
     );
-}
\ No newline at end of file
+
+    /**
+     * Filtros compartidos por las búsquedas paginadas (mismos que buscarConFiltros)
+     */
+    String FILTROS_TABLA =
+           "(:clienteId IS NULL OR o.cliente.id = :clienteId) AND " +
+           "(:sedeId IS NULL OR o.sede.id = :sedeId) AND " +
+           "(:estado IS NULL OR o.estado = :estado) AND " +
+           "(:fechaDesde IS NULL OR o.fecha >= :fechaDesde) AND " +
+           "(:fechaHasta IS NULL OR o.fecha <= :fechaHasta) AND " +
+           "(:venta IS NULL OR o.venta = :venta) AND " +
+           "(:credito IS NULL OR o.credito = :credito) AND " +
+           "(:facturada IS NULL OR (:facturada = true AND f.id IS NOT NULL) OR (:facturada = false AND f.id IS NULL)) ";
+
+    /**
+     * 📄 BÚSQUEDA CON FILTROS PAGINADA EN BASE DE DATOS (offset)
+     * El ordenamiento y el LIMIT/OFFSET llegan en el Pageable
+     */
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
+    @Query(value = "SELECT o FROM Orden o LEFT JOIN o.factura f WHERE " + FILTROS_TABLA,
+           countQuery = "SELECT COUNT(o) FROM Orden o LEFT JOIN o.factura f WHERE " + FILTROS_TABLA)
+    Page<Orden> buscarConFiltrosPaginado(
+        @Param("clienteId") Long clienteId,
+        @Param("sedeId") Long sedeId,
+        @Param("estado") Orden.EstadoOrden estado,
+        @Param("fechaDesde") LocalDate fechaDesde,
+        @Param("fechaHasta") LocalDate fechaHasta,
+        @Param("venta") Boolean venta,
+        @Param("credito") Boolean credito,
+        @Param("facturada") Boolean facturada,
+        Pageable pageable
+    );
+
+    /**
+     * 🔑 PAGINACIÓN POR CURSOR (keyset) ORDENANDO POR FECHA + ID
+     * Si cursorId es null se retorna la primera página.
+     * El Pageable debe traer Sort(fecha, id) en la misma dirección que :asc y page = 0
+     */
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
+    @Query("SELECT o FROM Orden o LEFT JOIN o.factura f WHERE " + FILTROS_TABLA + "AND " +
+           "(:cursorId IS NULL OR " +
+           "(:asc = true AND (o.fecha > :cursorFecha OR (o.fecha = :cursorFecha AND o.id > :cursorId))) OR " +
+           "(:asc = false AND (o.fecha < :cursorFecha OR (o.fecha = :cursorFecha AND o.id < :cursorId))))")
+    List<Orden> buscarConFiltrosKeysetPorFecha(
+        @Param("clienteId") Long clienteId,
+        @Param("sedeId") Long sedeId,
+        @Param("estado") Orden.EstadoOrden estado,
+        @Param("fechaDesde") LocalDate fechaDesde,
+        @Param("fechaHasta") LocalDate fechaHasta,
+        @Param("venta") Boolean venta,
+        @Param("credito") Boolean credito,
+        @Param("facturada") Boolean facturada,
+        @Param("asc") boolean asc,
+        @Param("cursorFecha") LocalDate cursorFecha,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+
+    /**
+     * 🔑 PAGINACIÓN POR CURSOR (keyset) ORDENANDO POR NÚMERO + ID
+     */
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
+    @Query("SELECT o FROM Orden o LEFT JOIN o.factura f WHERE " + FILTROS_TABLA + "AND " +
+           "(:cursorId IS NULL OR " +
+           "(:asc = true AND (o.numero > :cursorNumero OR (o.numero = :cursorNumero AND o.id > :cursorId))) OR " +
+           "(:asc = false AND (o.numero < :cursorNumero OR (o.numero = :cursorNumero AND o.id < :cursorId))))")
+    List<Orden> buscarConFiltrosKeysetPorNumero(
+        @Param("clienteId") Long clienteId,
+        @Param("sedeId") Long sedeId,
+        @Param("estado") Orden.EstadoOrden estado,
+        @Param("fechaDesde") LocalDate fechaDesde,
+        @Param("fechaHasta") LocalDate fechaHasta,
+        @Param("venta") Boolean venta,
+        @Param("credito") Boolean credito,
+        @Param("facturada") Boolean facturada,
+        @Param("asc") boolean asc,
+        @Param("cursorNumero") Long cursorNumero,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+
+    /**
+     * 🔑 PAGINACIÓN POR CURSOR (keyset) ORDENANDO POR TOTAL + ID
+     * Requiere ordenes.total NOT NULL (ver db/mysql-ordenes-indices-paginacion.sql):
+     * una fila con total NULL no cumple ninguna comparación y el cursor la saltaría
+     */
+    @EntityGraph(value = "Orden.tabla", type = EntityGraph.EntityGraphType.LOAD)
+    @Query("SELECT o FROM Orden o LEFT JOIN o.factura f WHERE " + FILTROS_TABLA + "AND " +
+           "(:cursorId IS NULL OR " +
+           "(:asc = true AND (o.total > :cursorTotal OR (o.total = :cursorTotal AND o.id > :cursorId))) OR " +
+           "(:asc = false AND (o.total < :cursorTotal OR (o.total = :cursorTotal AND o.id < :cursorId))))")
+    List<Orden> buscarConFiltrosKeysetPorTotal(
+        @Param("clienteId") Long clienteId,
+        @Param("sedeId") Long sedeId,
+        @Param("estado") Orden.EstadoOrden estado,
+        @Param("fechaDesde") LocalDate fechaDesde,
+        @Param("fechaHasta") LocalDate fechaHasta,
+        @Param("venta") Boolean venta,
+        @Param("credito") Boolean credito,
+        @Param("facturada") Boolean facturada,
+        @Param("asc") boolean asc,
+        @Param("cursorTotal") Double cursorTotal,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+
+    /**
+     * Órdenes de una entrega de dinero nueva, cargadas en un solo SELECT ... IN
+     */
+    @EntityGraph(value = "Orden.entrega", type = EntityGraph.EntityGraphType.LOAD)
+    List<Orden> findByIdIn(List<Long> ids);
+
+    /**
+     * Marca en una sola sentencia las órdenes a contado incluidas en una entrega de dinero
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Orden o SET o.incluidaEntrega = true WHERE o.id IN :ids")
+    int marcarIncluidasEnEntrega(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,25 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.PendienteEntrega;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface PendienteEntregaRepository extends JpaRepository<PendienteEntrega, Long> {
+
+    /**
+     * Pendientes de una sede en una sola lectura sobre idx_pendiente_sede_fecha
+     */
+    List<PendienteEntrega> findBySedeIdOrderByFechaAscIdAsc(Long sedeId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM PendienteEntrega p WHERE p.ordenId IN :ordenIds")
+    int eliminarPorOrdenes(@Param("ordenIds") List<Long> ordenIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM PendienteEntrega p WHERE p.sedeId = :sedeId")
+    int eliminarPorSede(@Param("sedeId") Long sedeId);
+}
@@ -0,0 +1,14 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.ProductoCostoHistorial;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface ProductoCostoHistorialRepository extends JpaRepository<ProductoCostoHistorial, Long> {
+
+    /**
+     * Historial de un producto, del cambio más reciente al más antiguo
+     */
+    List<ProductoCostoHistorial> findByProductoIdOrderByFechaDescIdDesc(Long productoId);
+}
@@ -3,15 +3,20 @@ package com.casaglass.casaglass_backend.repository;
 import com.casaglass.casaglass_backend.model.Producto;
 import com.casaglass.casaglass_backend.model.Corte;
 import com.casaglass.casaglass_backend.model.ColorProducto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
@@ -106,18 +111,156 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
      * Retorna null si no hay productos con posición
      * Usa consulta nativa para mejor compatibilidad con MariaDB
      */
-    @Query(value = "SELECT MAX(CAST(posicion AS UNSIGNED)) FROM productos WHERE posicion IS NOT NULL AND posicion != ''", nativeQuery = true)
+    @Query(value = "SELECT MAX(posicion_num) FROM productos", nativeQuery = true)
     Long obtenerMaximaPosicion();
 
     /**
      * 📍 Obtener productos con posición (excluyendo Cortes)
-     * Útil para correr posiciones al insertar un nuevo producto
      * Usa JPQL para manejar correctamente la herencia JOINED
-     * El filtrado por posición numérica se hace en Java para evitar problemas con CAST en JPQL
      */
     @Query("SELECT p FROM Producto p WHERE TYPE(p) != Corte AND p.posicion IS NOT NULL AND p.posicion != ''")
     List<Producto> encontrarProductosConPosicion();
 
+    /**
+     * 📍 CORRER POSICIONES EN UN SOLO UPDATE
+     * Suma delta (+1 o -1) a los productos (excluyendo Cortes) con posición en [desde, hasta]
+     * posicion se asigna antes que posicion_num para que ambas partan del valor anterior
+     * Incrementa version igual que lo haría Hibernate (lock optimista)
+     *
+     * @param excluirId producto que se está moviendo (null si ninguno)
+     * @return cantidad de productos corridos
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = "UPDATE productos SET " +
+                   "posicion = CAST(posicion_num + :delta AS CHAR), " +
+                   "posicion_num = posicion_num + :delta, " +
+                   "version = COALESCE(version, 0) + 1 " +
+                   "WHERE posicion_num BETWEEN :desde AND :hasta " +
+                   "AND (:excluirId IS NULL OR id <> :excluirId) " +
+                   "AND id NOT IN (SELECT c.id FROM cortes c)",
+           nativeQuery = true)
+    int desplazarPosiciones(
+        @Param("desde") Long desde,
+        @Param("hasta") Long hasta,
+        @Param("delta") long delta,
+        @Param("excluirId") Long excluirId
+    );
+
+    /**
+     * 📍 Completa posicion_num en filas antiguas cuya posición numérica nunca se sincronizó
+     * Idempotente: solo toca filas con posicion_num NULL y posicion numérica
+     */
+    @Modifying
+    @Query(value = "UPDATE productos SET posicion_num = CAST(TRIM(posicion) AS UNSIGNED) " +
+                   "WHERE posicion_num IS NULL AND TRIM(posicion) REGEXP '^[0-9]+$' " +
+                   "AND CAST(TRIM(posicion) AS UNSIGNED) > 0",
+           nativeQuery = true)
+    int sincronizarPosicionesNumericas();
+
+    /**
+     * 📍 Productos para la tabla de posiciones, ya ordenados en BD
+     * Con posición primero (ascendente), luego sin posición
+     */
+    @Query("SELECT p FROM Producto p LEFT JOIN FETCH p.categoria c " +
+           "WHERE TYPE(p) != Corte AND (:categoriaId IS NULL OR c.id = :categoriaId) " +
+           "ORDER BY CASE WHEN p.posicionNum IS NULL THEN 1 ELSE 0 END, p.posicionNum ASC, p.id ASC")
+    List<Producto> listarParaPosiciones(@Param("categoriaId") Long categoriaId);
+
+    /**
+     * 📍 Posición actual de un conjunto de productos (sin cargar entidades)
+     * Retorna [id, posicionNum] excluyendo Cortes
+     */
+    @Query("SELECT p.id, p.posicionNum FROM Producto p WHERE p.id IN :ids AND TYPE(p) != Corte")
+    List<Object[]> obtenerPosicionesPorIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 💲 Costo actual y stock total (todas las sedes) de varios productos, bloqueando sus filas
+     * de productos e inventario hasta el fin de la transacción (SELECT ... FOR UPDATE).
+     * Retorna [id, costo, stockTotal] en orden de ID para que dos ingresos concurrentes
+     * bloqueen en el mismo orden.
+     */
+    @Query(value = "SELECT p.id, p.costo, COALESCE(SUM(i.cantidad), 0) " +
+                   "FROM productos p LEFT JOIN inventario i ON i.producto_id = p.id " +
+                   "WHERE p.id IN :ids " +
+                   "GROUP BY p.id, p.costo " +
+                   "ORDER BY p.id " +
+                   "FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> bloquearCostoYStockTotal(@Param("ids") List<Long> ids);
+
+    /**
+     * Filtros de la matriz de inventario completo (alias p = producto, c = categoría)
+     * Todos opcionales; conStockSedeId / sinStockSedeId filtran por la cantidad en esa sede
+     */
+    String FILTROS_INVENTARIO_COMPLETO =
+           "TYPE(p) != Corte AND " +
+           "(:categoriaId IS NULL OR c.id = :categoriaId) AND " +
+           "(:categoriaNombre IS NULL OR LOWER(c.nombre) LIKE LOWER(CONCAT('%', :categoriaNombre, '%'))) AND " +
+           "(:tipo IS NULL OR p.tipo = :tipo) AND " +
+           "(:color IS NULL OR p.color = :color) AND " +
+           "(:codigo IS NULL OR LOWER(p.codigo) LIKE LOWER(CONCAT('%', :codigo, '%'))) AND " +
+           "(:nombre IS NULL OR LOWER(p.nombre) LIKE LOWER(CONCAT('%', :nombre, '%'))) AND " +
+           "(:q IS NULL OR LOWER(p.codigo) LIKE LOWER(CONCAT('%', :q, '%')) OR LOWER(p.nombre) LIKE LOWER(CONCAT('%', :q, '%'))) AND " +
+           "(:conStockSedeId IS NULL OR COALESCE((SELECT SUM(ic.cantidad) FROM Inventario ic " +
+           "WHERE ic.producto.id = p.id AND ic.sede.id = :conStockSedeId), 0.0) > 0) AND " +
+           "(:sinStockSedeId IS NULL OR COALESCE((SELECT SUM(isc.cantidad) FROM Inventario isc " +
+           "WHERE isc.producto.id = p.id AND isc.sede.id = :sinStockSedeId), 0.0) = 0) ";
+
+    String SELECT_INVENTARIO_COMPLETO =
+           "SELECT p.id AS id, p.codigo AS codigo, p.nombre AS nombre, p.descripcion AS descripcion, " +
+           "c.id AS categoriaId, c.nombre AS categoriaNombre, p.tipo AS tipo, p.color AS color, " +
+           "p.posicion AS posicion, " +
+           "CASE WHEN v.id IS NOT NULL THEN true ELSE false END AS esVidrio, " +
+           "v.mm AS mm, v.m1 AS m1, v.m2 AS m2, " +
+           "COALESCE((SELECT SUM(i1.cantidad) FROM Inventario i1 WHERE i1.producto.id = p.id AND i1.sede.id = 1), 0.0) AS cantidadInsula, " +
+           "COALESCE((SELECT SUM(i2.cantidad) FROM Inventario i2 WHERE i2.producto.id = p.id AND i2.sede.id = 2), 0.0) AS cantidadCentro, " +
+           "COALESCE((SELECT SUM(i3.cantidad) FROM Inventario i3 WHERE i3.producto.id = p.id AND i3.sede.id = 3), 0.0) AS cantidadPatios, " +
+           "p.costo AS costo, p.precio1 AS precio1, p.precio2 AS precio2, p.precio3 AS precio3 " +
+           "FROM Producto p " +
+           "LEFT JOIN p.categoria c " +
+           "LEFT JOIN ProductoVidrio v ON v.id = p.id " +
+           "WHERE " + FILTROS_INVENTARIO_COMPLETO +
+           "ORDER BY p.codigo ASC, p.nombre ASC, p.id ASC";
+
+    /**
+     * 📦 MATRIZ DE INVENTARIO COMPLETO EN UNA SOLA CONSULTA
+     * Proyección plana: columnas del producto + una cantidad agregada por sede,
+     * sin hidratar entidades Producto ni Inventario
+     * Orden fijo por código, nombre e id; el Pageable solo aporta LIMIT/OFFSET (Pageable.unpaged() = todo)
+     */
+    @Query(value = SELECT_INVENTARIO_COMPLETO,
+           countQuery = "SELECT COUNT(p) FROM Producto p LEFT JOIN p.categoria c WHERE " + FILTROS_INVENTARIO_COMPLETO)
+    Page<InventarioCompletoProjection> buscarInventarioCompleto(
+        @Param("categoriaId") Long categoriaId,
+        @Param("categoriaNombre") String categoriaNombre,
+        @Param("tipo") com.casaglass.casaglass_backend.model.TipoProducto tipo,
+        @Param("color") ColorProducto color,
+        @Param("codigo") String codigo,
+        @Param("nombre") String nombre,
+        @Param("q") String q,
+        @Param("conStockSedeId") Long conStockSedeId,
+        @Param("sinStockSedeId") Long sinStockSedeId,
+        Pageable pageable
+    );
+
+    /**
+     * 📤 Misma matriz como Stream para exportación (lectura por lotes, sin armar la lista)
+     * Consumir dentro de una transacción y cerrar el Stream al terminar
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_INVENTARIO_COMPLETO)
+    Stream<InventarioCompletoProjection> streamInventarioCompleto(
+        @Param("categoriaId") Long categoriaId,
+        @Param("categoriaNombre") String categoriaNombre,
+        @Param("tipo") com.casaglass.casaglass_backend.model.TipoProducto tipo,
+        @Param("color") ColorProducto color,
+        @Param("codigo") String codigo,
+        @Param("nombre") String nombre,
+        @Param("q") String q,
+        @Param("conStockSedeId") Long conStockSedeId,
+        @Param("sinStockSedeId") Long sinStockSedeId
+    );
+
     @Query(
         value = "SELECT p.id AS id, p.codigo AS codigo, p.nombre AS nombre, " +
                 "c.id AS categoriaId, c.nombre AS categoriaNombre, p.color AS color, " +
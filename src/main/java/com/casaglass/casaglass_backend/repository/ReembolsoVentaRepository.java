@@ -43,6 +43,19 @@ public interface ReembolsoVentaRepository extends JpaRepository<ReembolsoVenta,
            "ed.id IS NULL")
     List<ReembolsoVenta> findReembolsosDisponiblesParaEntregaSinFecha(@Param("sedeId") Long sedeId);
 
+    /**
+     * Mismo criterio que findReembolsosDisponiblesParaEntregaSinFecha para los reembolsos de unas órdenes
+     * (sincronización de pendientes de entrega)
+     */
+    @Query("SELECT DISTINCT r FROM ReembolsoVenta r " +
+           "LEFT JOIN EntregaDetalle ed ON ed.reembolsoVenta.id = r.id WHERE " +
+           "r.cliente.id != 499 AND " +
+           "r.ordenOriginal.id IN :ordenIds AND " +
+           "r.procesado = true AND " +
+           "r.estado = 'PROCESADO' AND " +
+           "ed.id IS NULL")
+    List<ReembolsoVenta> findReembolsosDisponiblesParaEntregaPorOrdenes(@Param("ordenIds") List<Long> ordenIds);
+
     /**
      * 🔍 BÚSQUEDA AVANZADA DE REEMBOLSOS DE VENTA CON MÚLTIPLES FILTROS
      * Todos los parámetros son opcionales (nullable)
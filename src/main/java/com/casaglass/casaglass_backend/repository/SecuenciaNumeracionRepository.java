@@ -0,0 +1,21 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.SecuenciaNumeracion;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface SecuenciaNumeracionRepository extends JpaRepository<SecuenciaNumeracion, String> {
+
+    /**
+     * 🔒 Lee la secuencia con bloqueo pesimista (SELECT ... FOR UPDATE)
+     * Solo se usa al reservar un bloque nuevo, no por cada número entregado
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SecuenciaNumeracion s WHERE s.nombre = :nombre")
+    Optional<SecuenciaNumeracion> findByNombreForUpdate(@Param("nombre") String nombre);
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface TrasladoDetalleRepository extends JpaRepository<TrasladoDetalle, Long> {
@@ -19,4 +20,16 @@ public interface TrasladoDetalleRepository extends JpaRepository<TrasladoDetalle
     @Modifying
     @Query(value = "DELETE FROM traslado_detalles WHERE id = :id", nativeQuery = true)
     void deleteByIdNative(@Param("id") Long id);
+
+    /**
+     * 📋 DETALLES DE VARIOS TRASLADOS PARA EL LISTADO DE MOVIMIENTOS (proyección, sin entidades)
+     * Retorna: [trasladoId, detalleId, cantidad, productoId, productoNombre, productoCodigo, categoria,
+     * productoDescontarId, productoDescontarNombre, productoDescontarCodigo, categoriaDescontar]
+     */
+    @Query("SELECT d.traslado.id, d.id, d.cantidad, p.id, p.nombre, p.codigo, c.nombre, " +
+           "pd.id, pd.nombre, pd.codigo, cd.nombre " +
+           "FROM TrasladoDetalle d JOIN d.producto p LEFT JOIN p.categoria c " +
+           "LEFT JOIN d.productoInventarioADescontarSede1 pd LEFT JOIN pd.categoria cd " +
+           "WHERE d.traslado.id IN :trasladoIds ORDER BY d.id")
+    List<Object[]> findDatosMovimientoPorTrasladoIds(@Param("trasladoIds") Collection<Long> trasladoIds);
 }
@@ -0,0 +1,18 @@
+package com.casaglass.casaglass_backend.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Cabecera de traslado para el listado de movimientos (sin entidades ni detalles)
+ */
+public interface TrasladoMovimientoProjection {
+    Long getId();
+    LocalDate getFecha();
+    Long getSedeOrigenId();
+    String getSedeOrigenNombre();
+    Long getSedeDestinoId();
+    String getSedeDestinoNombre();
+    Long getTrabajadorConfirmacionId();
+    String getTrabajadorConfirmacionNombre();
+    LocalDate getFechaConfirmacion();
+}
@@ -1,6 +1,9 @@
 package com.casaglass.casaglass_backend.repository;
 
 import com.casaglass.casaglass_backend.model.Traslado;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -58,29 +61,99 @@ public interface TrasladoRepository extends JpaRepository<Traslado, Long> {
     List<Traslado> findByFechaConfirmacionIsNull();
 
     /**
-     * 🔍 BÚSQUEDA AVANZADA DE TRASLADOS CON MÚLTIPLES FILTROS
+     * 🔍 FILTROS DE LA BÚSQUEDA AVANZADA DE MOVIMIENTOS
      * Todos los parámetros son opcionales (nullable)
      * Nota: estado se maneja como "PENDIENTE" (fechaConfirmacion IS NULL) o "CONFIRMADO" (fechaConfirmacion IS NOT NULL)
      */
-    @Query("SELECT DISTINCT t FROM Traslado t " +
-           "LEFT JOIN FETCH t.sedeOrigen " +
-           "LEFT JOIN FETCH t.sedeDestino " +
-           "LEFT JOIN FETCH t.trabajadorConfirmacion " +
-           "WHERE (:sedeOrigenId IS NULL OR t.sedeOrigen.id = :sedeOrigenId) AND " +
-           "(:sedeDestinoId IS NULL OR t.sedeDestino.id = :sedeDestinoId) AND " +
-           "(:sedeId IS NULL OR t.sedeOrigen.id = :sedeId OR t.sedeDestino.id = :sedeId) AND " +
+    String FILTROS_MOVIMIENTOS =
+           "(:sedeOrigenId IS NULL OR so.id = :sedeOrigenId) AND " +
+           "(:sedeDestinoId IS NULL OR sd.id = :sedeDestinoId) AND " +
+           "(:sedeId IS NULL OR so.id = :sedeId OR sd.id = :sedeId) AND " +
            "(:fechaDesde IS NULL OR t.fecha >= :fechaDesde) AND " +
            "(:fechaHasta IS NULL OR t.fecha <= :fechaHasta) AND " +
            "(:confirmado IS NULL OR (:confirmado = true AND t.fechaConfirmacion IS NOT NULL) OR (:confirmado = false AND t.fechaConfirmacion IS NULL)) AND " +
-           "(:trabajadorId IS NULL OR t.trabajadorConfirmacion.id = :trabajadorId) " +
-           "ORDER BY t.fecha DESC, t.id DESC")
-    List<Traslado> buscarConFiltros(
+           "(:trabajadorId IS NULL OR tc.id = :trabajadorId) ";
+
+    String SELECT_MOVIMIENTOS =
+           "SELECT t.id AS id, t.fecha AS fecha, so.id AS sedeOrigenId, so.nombre AS sedeOrigenNombre, " +
+           "sd.id AS sedeDestinoId, sd.nombre AS sedeDestinoNombre, " +
+           "tc.id AS trabajadorConfirmacionId, tc.nombre AS trabajadorConfirmacionNombre, " +
+           "t.fechaConfirmacion AS fechaConfirmacion " +
+           "FROM Traslado t JOIN t.sedeOrigen so JOIN t.sedeDestino sd LEFT JOIN t.trabajadorConfirmacion tc WHERE ";
+
+    /**
+     * 📋 MOVIMIENTOS CON FILTROS (proyección, sin detalles)
+     * El ordenamiento llega en el Sort
+     */
+    @Query(SELECT_MOVIMIENTOS + FILTROS_MOVIMIENTOS)
+    List<TrasladoMovimientoProjection> buscarMovimientos(
+        @Param("sedeOrigenId") Long sedeOrigenId,
+        @Param("sedeDestinoId") Long sedeDestinoId,
+        @Param("sedeId") Long sedeId,
+        @Param("fechaDesde") LocalDate fechaDesde,
+        @Param("fechaHasta") LocalDate fechaHasta,
+        @Param("confirmado") Boolean confirmado,
+        @Param("trabajadorId") Long trabajadorId,
+        Sort sort
+    );
+
+    /**
+     * 📄 MOVIMIENTOS CON FILTROS PAGINADOS EN BASE DE DATOS (offset)
+     * El ordenamiento y el LIMIT/OFFSET llegan en el Pageable
+     */
+    @Query(value = SELECT_MOVIMIENTOS + FILTROS_MOVIMIENTOS,
+           countQuery = "SELECT COUNT(t) FROM Traslado t JOIN t.sedeOrigen so JOIN t.sedeDestino sd " +
+                        "LEFT JOIN t.trabajadorConfirmacion tc WHERE " + FILTROS_MOVIMIENTOS)
+    Page<TrasladoMovimientoProjection> buscarMovimientosPaginado(
+        @Param("sedeOrigenId") Long sedeOrigenId,
+        @Param("sedeDestinoId") Long sedeDestinoId,
+        @Param("sedeId") Long sedeId,
+        @Param("fechaDesde") LocalDate fechaDesde,
+        @Param("fechaHasta") LocalDate fechaHasta,
+        @Param("confirmado") Boolean confirmado,
+        @Param("trabajadorId") Long trabajadorId,
+        Pageable pageable
+    );
+
+    /**
+     * 🔑 MOVIMIENTOS POR CURSOR (keyset) ORDENANDO POR FECHA + ID
+     * Si cursorId es null se retorna la primera página.
+     * El Pageable debe traer Sort(fecha, id) en la misma dirección que :asc y page = 0
+     */
+    @Query(SELECT_MOVIMIENTOS + FILTROS_MOVIMIENTOS + "AND " +
+           "(:cursorId IS NULL OR " +
+           "(:asc = true AND (t.fecha > :cursorFecha OR (t.fecha = :cursorFecha AND t.id > :cursorId))) OR " +
+           "(:asc = false AND (t.fecha < :cursorFecha OR (t.fecha = :cursorFecha AND t.id < :cursorId))))")
+    List<TrasladoMovimientoProjection> buscarMovimientosKeysetPorFecha(
+        @Param("sedeOrigenId") Long sedeOrigenId,
+        @Param("sedeDestinoId") Long sedeDestinoId,
+        @Param("sedeId") Long sedeId,
+        @Param("fechaDesde") LocalDate fechaDesde,
+        @Param("fechaHasta") LocalDate fechaHasta,
+        @Param("confirmado") Boolean confirmado,
+        @Param("trabajadorId") Long trabajadorId,
+        @Param("asc") boolean asc,
+        @Param("cursorFecha") LocalDate cursorFecha,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
+    );
+
+    /**
+     * 🔑 MOVIMIENTOS POR CURSOR (keyset) ORDENANDO POR ID
+     * El Pageable debe traer Sort(id) en la misma dirección que :asc y page = 0
+     */
+    @Query(SELECT_MOVIMIENTOS + FILTROS_MOVIMIENTOS + "AND " +
+           "(:cursorId IS NULL OR (:asc = true AND t.id > :cursorId) OR (:asc = false AND t.id < :cursorId))")
+    List<TrasladoMovimientoProjection> buscarMovimientosKeysetPorId(
         @Param("sedeOrigenId") Long sedeOrigenId,
         @Param("sedeDestinoId") Long sedeDestinoId,
         @Param("sedeId") Long sedeId,
-        @Param("fechaDesde") java.time.LocalDate fechaDesde,
-        @Param("fechaHasta") java.time.LocalDate fechaHasta,
+        @Param("fechaDesde") LocalDate fechaDesde,
+        @Param("fechaHasta") LocalDate fechaHasta,
         @Param("confirmado") Boolean confirmado,
-        @Param("trabajadorId") Long trabajadorId
+        @Param("trabajadorId") Long trabajadorId,
+        @Param("asc") boolean asc,
+        @Param("cursorId") Long cursorId,
+        Pageable pageable
     );
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.casaglass.casaglass_backend.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * ➕ UPSERT MULTIFILA QUE SUMA SOBRE UNA CLAVE ÚNICA
+ *
+ * INSERT INTO tabla (claves..., sumas...) VALUES (...), (...)
+ * ON DUPLICATE KEY UPDATE suma = suma + VALUES(suma)
+ *
+ * Una sentencia por bloque de filas (acota el tamaño del paquete SQL). La suma la hace la base
+ * de datos, así que no hay lectura previa ni conflictos de versión con escrituras simultáneas.
+ * Quien llama debe pasar las filas ordenadas por clave para que dos transacciones concurrentes
+ * bloqueen las filas en el mismo orden.
+ *
+ * Tabla y columnas son constantes del código que llama (nunca datos del usuario).
+ */
+@Repository
+public class UpsertSumaRepository {
+
+    /** Filas por sentencia por defecto */
+    public static final int FILAS_POR_SENTENCIA = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UpsertSumaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Suma las filas sobre la clave única de la tabla, creando las que no existan
+     *
+     * @param columnasClave   columnas de la clave única (primeros valores de cada fila)
+     * @param columnasSuma    columnas acumuladas (valores restantes de cada fila)
+     * @param columnaVersion  opcional; se inserta en 0 y se incrementa en cada actualización
+     * @param filas           valores de cada fila: claves seguidas de sumas
+     * @param avance          opcional; recibe la cantidad de filas aplicadas tras cada bloque
+     */
+    public void sumar(String tabla, List<String> columnasClave, List<String> columnasSuma, String columnaVersion,
+                      List<Object[]> filas, int filasPorSentencia, IntConsumer avance) {
+        if (filas == null || filas.isEmpty()) {
+            return;
+        }
+        int porFila = columnasClave.size() + columnasSuma.size();
+        String columnas = String.join(", ", columnasClave) + ", " + String.join(", ", columnasSuma)
+                + (columnaVersion != null ? ", " + columnaVersion : "");
+        String valoresFila = "(" + "?, ".repeat(porFila - 1) + "?" + (columnaVersion != null ? ", 0)" : ")");
+
+        StringBuilder actualizacion = new StringBuilder(" ON DUPLICATE KEY UPDATE ");
+        for (int i = 0; i < columnasSuma.size(); i++) {
+            String c = columnasSuma.get(i);
+            actualizacion.append(i == 0 ? "" : ", ").append(c).append(" = ").append(c).append(" + VALUES(").append(c).append(")");
+        }
+        if (columnaVersion != null) {
+            actualizacion.append(", ").append(columnaVersion).append(" = COALESCE(").append(columnaVersion).append(", 0) + 1");
+        }
+
+        for (int desde = 0; desde < filas.size(); desde += filasPorSentencia) {
+            List<Object[]> bloque = filas.subList(desde, Math.min(desde + filasPorSentencia, filas.size()));
+            StringBuilder sql = new StringBuilder("INSERT INTO ").append(tabla)
+                    .append(" (").append(columnas).append(") VALUES ");
+            Object[] args = new Object[bloque.size() * porFila];
+            for (int i = 0; i < bloque.size(); i++) {
+                Object[] fila = bloque.get(i);
+                if (fila.length != porFila) {
+                    throw new IllegalArgumentException("Cada fila debe traer " + porFila + " valores para " + tabla);
+                }
+                sql.append(i == 0 ? "" : ", ").append(valoresFila);
+                System.arraycopy(fila, 0, args, i * porFila, porFila);
+            }
+            sql.append(actualizacion);
+            jdbcTemplate.update(sql.toString(), args);
+            if (avance != null) {
+                avance.accept(desde + bloque.size());
+            }
+        }
+    }
+}
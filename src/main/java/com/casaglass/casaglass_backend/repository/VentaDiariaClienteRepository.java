@@ -0,0 +1,46 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.VentaDiariaCliente;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VentaDiariaClienteRepository extends JpaRepository<VentaDiariaCliente, Long> {
+
+    @Modifying
+    @Query(value = "DELETE FROM ventas_diarias_cliente WHERE fecha BETWEEN :desde AND :hasta", nativeQuery = true)
+    int eliminarRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * 🔄 Reconstruye el acumulado por cliente desde ordenes (solo ventas)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_diarias_cliente (fecha, trabajador_id, cliente_id, estado, cantidad_ordenes, monto_total) " +
+                   "SELECT o.fecha, COALESCE(o.trabajador_id, 0), COALESCE(o.cliente_id, 0), o.estado, COUNT(*), COALESCE(SUM(o.total), 0) " +
+                   "FROM ordenes o " +
+                   "WHERE o.fecha BETWEEN :desde AND :hasta AND o.venta = true " +
+                   "GROUP BY o.fecha, COALESCE(o.trabajador_id, 0), COALESCE(o.cliente_id, 0), o.estado",
+           nativeQuery = true)
+    int insertarDesdeOrdenes(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Top clientes por monto: [clienteId, nombre, nit, cantidadOrdenes, montoTotal]
+     */
+    @Query("SELECT c.id, c.nombre, c.nit, SUM(v.cantidadOrdenes), SUM(v.montoTotal) FROM VentaDiariaCliente v " +
+           "JOIN Cliente c ON c.id = v.clienteId " +
+           "WHERE v.fecha BETWEEN :desde AND :hasta AND v.trabajadorId IN :trabajadores " +
+           "GROUP BY c.id, c.nombre, c.nit " +
+           "ORDER BY SUM(v.montoTotal) DESC")
+    List<Object[]> topClientes(@Param("desde") LocalDate desde,
+                               @Param("hasta") LocalDate hasta,
+                               @Param("trabajadores") Collection<Long> trabajadores,
+                               Pageable pageable);
+}
@@ -0,0 +1,121 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.VentaDiariaOrden;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VentaDiariaOrdenRepository extends JpaRepository<VentaDiariaOrden, Long> {
+
+    /**
+     * Reserva la fila de cada orden existente (fecha NULL = sin aporte todavía)
+     * Así el FOR UPDATE posterior bloquea solo registros y nunca huecos del índice
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO ventas_diarias_orden (orden_id) " +
+                   "SELECT o.id FROM ordenes o WHERE o.id IN :ordenIds ORDER BY o.id",
+           nativeQuery = true)
+    int reservar(@Param("ordenIds") Collection<Long> ordenIds);
+
+    /**
+     * 🔒 Último aporte aplicado de cada orden, bloqueado en orden de id:
+     * [ordenId, fecha, sedeId, trabajadorId, clienteId, venta, credito, estado, total, productos]
+     */
+    @Query(value = "SELECT orden_id, fecha, sede_id, trabajador_id, cliente_id, venta, credito, estado, total, productos " +
+                   "FROM ventas_diarias_orden WHERE orden_id IN :ordenIds ORDER BY orden_id FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> bloquearAportes(@Param("ordenIds") Collection<Long> ordenIds);
+
+    /**
+     * Aporte actual de cada orden (ids nulos como 0, igual que en los acumulados):
+     * [ordenId, fecha, sedeId, trabajadorId, clienteId, venta, credito, estado, total]
+     */
+    @Query(value = "SELECT o.id, o.fecha, COALESCE(o.sede_id, 0), COALESCE(o.trabajador_id, 0), COALESCE(o.cliente_id, 0), " +
+                   "o.venta, o.credito, o.estado, COALESCE(o.total, 0) " +
+                   "FROM ordenes o WHERE o.id IN :ordenIds",
+           nativeQuery = true)
+    List<Object[]> aportesActuales(@Param("ordenIds") Collection<Long> ordenIds);
+
+    /**
+     * Aporte actual por producto de las órdenes de venta (sin cortes):
+     * [ordenId, productoId, cantidad, montoTotal]
+     */
+    @Query(value = "SELECT oi.orden_id, oi.producto_id, COALESCE(SUM(oi.cantidad), 0), COALESCE(SUM(oi.total_linea), 0) " +
+                   "FROM orden_items oi " +
+                   "JOIN ordenes o ON o.id = oi.orden_id " +
+                   "WHERE oi.orden_id IN :ordenIds AND o.venta = true " +
+                   "AND oi.producto_id IS NOT NULL " +
+                   "AND oi.producto_id NOT IN (SELECT c.id FROM cortes c) " +
+                   "GROUP BY oi.orden_id, oi.producto_id",
+           nativeQuery = true)
+    List<Object[]> aportesProductosActuales(@Param("ordenIds") Collection<Long> ordenIds);
+
+    @Modifying
+    @Query(value = "UPDATE ventas_diarias_orden SET fecha = :fecha, sede_id = :sedeId, trabajador_id = :trabajadorId, " +
+                   "cliente_id = :clienteId, venta = :venta, credito = :credito, estado = :estado, total = :total, " +
+                   "productos = :productos WHERE orden_id = :ordenId",
+           nativeQuery = true)
+    int actualizarAporte(@Param("ordenId") Long ordenId,
+                         @Param("fecha") LocalDate fecha,
+                         @Param("sedeId") Long sedeId,
+                         @Param("trabajadorId") Long trabajadorId,
+                         @Param("clienteId") Long clienteId,
+                         @Param("venta") boolean venta,
+                         @Param("credito") boolean credito,
+                         @Param("estado") String estado,
+                         @Param("total") Double total,
+                         @Param("productos") String productos);
+
+    @Modifying
+    @Query(value = "DELETE FROM ventas_diarias_orden WHERE orden_id IN :ordenIds", nativeQuery = true)
+    int eliminarPorOrdenIds(@Param("ordenIds") Collection<Long> ordenIds);
+
+    /**
+     * Elimina los aportes del rango (por fecha aplicada o por fecha actual de la orden)
+     */
+    @Modifying
+    @Query(value = "DELETE FROM ventas_diarias_orden WHERE fecha BETWEEN :desde AND :hasta " +
+                   "OR orden_id IN (SELECT o.id FROM ordenes o WHERE o.fecha BETWEEN :desde AND :hasta)",
+           nativeQuery = true)
+    int eliminarRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Sube el límite de GROUP_CONCAT de la conexión actual al tamaño de la columna productos
+     * (el valor por defecto, 1024 bytes, corta sin error las órdenes con muchas líneas)
+     * Llamar en la misma transacción, justo antes de insertarDesdeOrdenes
+     */
+    @Modifying
+    @Query(value = "SET SESSION group_concat_max_len = 16777215", nativeQuery = true)
+    void ampliarGroupConcat();
+
+    /**
+     * 🔄 Reconstruye los aportes del rango desde ordenes/orden_items (llamar después de eliminarRango)
+     * productos sale de GROUP_CONCAT: requiere ampliarGroupConcat() antes en la misma conexión
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_diarias_orden (orden_id, fecha, sede_id, trabajador_id, cliente_id, venta, credito, estado, total, productos) " +
+                   "SELECT o.id, o.fecha, COALESCE(o.sede_id, 0), COALESCE(o.trabajador_id, 0), COALESCE(o.cliente_id, 0), " +
+                   "o.venta, o.credito, o.estado, COALESCE(o.total, 0), p.productos " +
+                   "FROM ordenes o " +
+                   "LEFT JOIN (" +
+                   "  SELECT x.orden_id, GROUP_CONCAT(CONCAT(x.producto_id, ':', x.cantidad, ':', x.monto) ORDER BY x.producto_id SEPARATOR ';') AS productos " +
+                   "  FROM (SELECT oi.orden_id, oi.producto_id, COALESCE(SUM(oi.cantidad), 0) AS cantidad, COALESCE(SUM(oi.total_linea), 0) AS monto " +
+                   "        FROM orden_items oi " +
+                   "        JOIN ordenes ov ON ov.id = oi.orden_id " +
+                   "        WHERE ov.fecha BETWEEN :desde AND :hasta AND ov.venta = true " +
+                   "        AND oi.producto_id IS NOT NULL " +
+                   "        AND oi.producto_id NOT IN (SELECT c.id FROM cortes c) " +
+                   "        GROUP BY oi.orden_id, oi.producto_id) x " +
+                   "  GROUP BY x.orden_id" +
+                   ") p ON p.orden_id = o.id " +
+                   "WHERE o.fecha BETWEEN :desde AND :hasta",
+           nativeQuery = true)
+    int insertarDesdeOrdenes(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
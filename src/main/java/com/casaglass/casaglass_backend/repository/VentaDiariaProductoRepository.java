@@ -0,0 +1,49 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.VentaDiariaProducto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VentaDiariaProductoRepository extends JpaRepository<VentaDiariaProducto, Long> {
+
+    @Modifying
+    @Query(value = "DELETE FROM ventas_diarias_producto WHERE fecha BETWEEN :desde AND :hasta", nativeQuery = true)
+    int eliminarRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * 🔄 Reconstruye el acumulado desde orden_items (solo ventas, excluye cortes)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_diarias_producto (fecha, trabajador_id, producto_id, estado, cantidad, monto_total) " +
+                   "SELECT o.fecha, COALESCE(o.trabajador_id, 0), oi.producto_id, o.estado, COALESCE(SUM(oi.cantidad), 0), COALESCE(SUM(oi.total_linea), 0) " +
+                   "FROM orden_items oi " +
+                   "JOIN ordenes o ON o.id = oi.orden_id " +
+                   "WHERE o.fecha BETWEEN :desde AND :hasta AND o.venta = true " +
+                   "AND oi.producto_id IS NOT NULL " +
+                   "AND oi.producto_id NOT IN (SELECT c.id FROM cortes c) " +
+                   "GROUP BY o.fecha, COALESCE(o.trabajador_id, 0), oi.producto_id, o.estado",
+           nativeQuery = true)
+    int insertarDesdeOrdenes(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Top productos por monto: [productoId, nombre, codigo, cantidadVendida, montoTotal]
+     */
+    @Query("SELECT p.id, p.nombre, p.codigo, SUM(v.cantidad), SUM(v.montoTotal) FROM VentaDiariaProducto v " +
+           "JOIN Producto p ON p.id = v.productoId " +
+           "WHERE v.fecha BETWEEN :desde AND :hasta AND v.trabajadorId IN :trabajadores " +
+           "GROUP BY p.id, p.nombre, p.codigo " +
+           "ORDER BY SUM(v.montoTotal) DESC")
+    List<Object[]> topProductos(@Param("desde") LocalDate desde,
+                                @Param("hasta") LocalDate hasta,
+                                @Param("trabajadores") Collection<Long> trabajadores,
+                                Pageable pageable);
+}
@@ -0,0 +1,76 @@
+package com.casaglass.casaglass_backend.repository;
+
+import com.casaglass.casaglass_backend.model.VentaDiaria;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, Long> {
+
+    @Modifying
+    @Query(value = "DELETE FROM ventas_diarias WHERE fecha BETWEEN :desde AND :hasta", nativeQuery = true)
+    int eliminarRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * 🔄 Reconstruye el acumulado desde ordenes para el rango (llamar después de eliminarRango)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO ventas_diarias (fecha, sede_id, trabajador_id, venta, credito, estado, cantidad_ordenes, monto_total) " +
+                   "SELECT o.fecha, COALESCE(o.sede_id, 0), COALESCE(o.trabajador_id, 0), o.venta, o.credito, o.estado, COUNT(*), COALESCE(SUM(o.total), 0) " +
+                   "FROM ordenes o " +
+                   "WHERE o.fecha BETWEEN :desde AND :hasta " +
+                   "GROUP BY o.fecha, COALESCE(o.sede_id, 0), COALESCE(o.trabajador_id, 0), o.venta, o.credito, o.estado",
+           nativeQuery = true)
+    int insertarDesdeOrdenes(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    @Query(value = "SELECT MIN(fecha), MAX(fecha) FROM ordenes", nativeQuery = true)
+    List<Object[]> obtenerRangoFechasOrdenes();
+
+    /**
+     * Resumen por tipo: [venta, cantidadOrdenes, montoTotal]
+     */
+    @Query("SELECT v.venta, SUM(v.cantidadOrdenes), SUM(v.montoTotal) FROM VentaDiaria v " +
+           "WHERE v.fecha BETWEEN :desde AND :hasta AND v.trabajadorId IN :trabajadores " +
+           "GROUP BY v.venta")
+    List<Object[]> resumirPorTipo(@Param("desde") LocalDate desde,
+                                  @Param("hasta") LocalDate hasta,
+                                  @Param("trabajadores") Collection<Long> trabajadores);
+
+    /**
+     * Ventas contado vs crédito: [credito, cantidadOrdenes, montoTotal]
+     */
+    @Query("SELECT v.credito, SUM(v.cantidadOrdenes), SUM(v.montoTotal) FROM VentaDiaria v " +
+           "WHERE v.fecha BETWEEN :desde AND :hasta AND v.trabajadorId IN :trabajadores AND v.venta = true " +
+           "GROUP BY v.credito")
+    List<Object[]> resumirVentasPorCredito(@Param("desde") LocalDate desde,
+                                           @Param("hasta") LocalDate hasta,
+                                           @Param("trabajadores") Collection<Long> trabajadores);
+
+    /**
+     * Ventas por día: [fecha, cantidadOrdenes, montoTotal]
+     */
+    @Query("SELECT v.fecha, SUM(v.cantidadOrdenes), SUM(v.montoTotal) FROM VentaDiaria v " +
+           "WHERE v.fecha BETWEEN :desde AND :hasta AND v.trabajadorId IN :trabajadores AND v.venta = true " +
+           "GROUP BY v.fecha ORDER BY v.fecha")
+    List<Object[]> ventasPorDia(@Param("desde") LocalDate desde,
+                                @Param("hasta") LocalDate hasta,
+                                @Param("trabajadores") Collection<Long> trabajadores);
+
+    /**
+     * Ventas por sede: [sedeId, nombreSede, cantidadOrdenes, montoTotal]
+     */
+    @Query("SELECT s.id, s.nombre, SUM(v.cantidadOrdenes), SUM(v.montoTotal) FROM VentaDiaria v " +
+           "JOIN Sede s ON s.id = v.sedeId " +
+           "WHERE v.fecha BETWEEN :desde AND :hasta AND v.trabajadorId IN :trabajadores AND v.venta = true " +
+           "GROUP BY s.id, s.nombre")
+    List<Object[]> ventasPorSede(@Param("desde") LocalDate desde,
+                                 @Param("hasta") LocalDate hasta,
+                                 @Param("trabajadores") Collection<Long> trabajadores);
+}
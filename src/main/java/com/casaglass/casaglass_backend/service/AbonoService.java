@@ -26,19 +26,25 @@ public class AbonoService {
     private final SedeRepository sedeRepo;
     private final CreditoService creditoService;
     private final EntregaDetalleRepository entregaDetalleRepo;
+    private final CreditoMovimientoService creditoMovimientoService;
+    private final PendienteEntregaService pendienteEntregaService;
 
     public AbonoService(AbonoRepository abonoRepo,
                         CreditoRepository creditoRepo,
                         OrdenRepository ordenRepo,
                         SedeRepository sedeRepo,
                         CreditoService creditoService,
-                        EntregaDetalleRepository entregaDetalleRepo) {
+                        EntregaDetalleRepository entregaDetalleRepo,
+                        CreditoMovimientoService creditoMovimientoService,
+                        PendienteEntregaService pendienteEntregaService) {
         this.abonoRepo = abonoRepo;
         this.creditoRepo = creditoRepo;
         this.ordenRepo = ordenRepo;
         this.sedeRepo = sedeRepo;
         this.creditoService = creditoService;
         this.entregaDetalleRepo = entregaDetalleRepo;
+        this.creditoMovimientoService = creditoMovimientoService;
+        this.pendienteEntregaService = pendienteEntregaService;
     }
 
     private void assertAbonoNoEnEntregaDinero(Long abonoId) {
@@ -162,6 +168,7 @@ public class AbonoService {
 
         // Guardar abono
         Abono guardado = abonoRepo.save(abono);
+        credito.getAbonos().add(guardado);
 
         // Actualizar totales del crédito
         credito.setTotalAbonado(norm(credito.getTotalAbonado() + monto));
@@ -173,7 +180,11 @@ public class AbonoService {
             credito.setFechaCierre(LocalDate.now());
         }
         
+        // Si el abono quedó con fecha anterior a otros, corregir el saldo de los posteriores
+        creditoService.reescribirSaldosDesde(credito, guardado.getFecha(), guardado.getId());
         creditoRepo.save(credito);
+        creditoMovimientoService.registrarCambio(credito.getId());
+        pendienteEntregaService.registrarCambio(credito.getOrden());
 
         return guardado;
     }
@@ -262,7 +273,11 @@ public class AbonoService {
 
         // Actualizar crédito usando el método del crédito
         credito.agregarAbono(guardado);
+        // Si el abono quedó con fecha anterior a otros, corregir el saldo de los posteriores
+        creditoService.reescribirSaldosDesde(credito, guardado.getFecha(), guardado.getId());
         creditoRepo.save(credito);
+        creditoMovimientoService.registrarCambio(credito.getId());
+        pendienteEntregaService.registrarCambio(credito.getOrden());
 
         return guardado;
     }
@@ -284,6 +299,10 @@ public class AbonoService {
             throw new IllegalArgumentException("No se pueden modificar abonos de un crédito anulado");
         }
 
+        // Punto de partida para el recálculo incremental
+        LocalDate fechaAnterior = abono.getFecha();
+        double montoPrevio = norm(abono.getTotal());
+
         // Permitir edición de fecha, método de pago, factura
         if (payload.getFecha() != null) abono.setFecha(payload.getFecha());
         if (payload.getMetodoPago() != null) abono.setMetodoPago(payload.getMetodoPago());
@@ -305,13 +324,15 @@ public class AbonoService {
             }
 
             abono.setTotal(nuevoMonto);
-            abono.setSaldo(nuevoSaldoPendiente);
         }
 
         Abono actualizado = abonoRepo.save(abono);
         
-        // Recalcular totales del crédito
-        creditoService.recalcularTotales(creditoId);
+        // Actualizar totales del crédito: solo la diferencia y los abonos desde el más antiguo afectado
+        LocalDate desde = (fechaAnterior != null && fechaAnterior.isBefore(actualizado.getFecha()))
+                ? fechaAnterior : actualizado.getFecha();
+        creditoService.aplicarCambioAbonos(credito, norm(actualizado.getTotal()) - montoPrevio, desde, actualizado.getId());
+        pendienteEntregaService.registrarCambio(credito.getOrden());
         
         return actualizado;
     }
@@ -334,6 +355,10 @@ public class AbonoService {
             throw new IllegalArgumentException("No se pueden modificar abonos de un crédito anulado");
         }
 
+        // Punto de partida para el recálculo incremental
+        LocalDate fechaAnterior = abono.getFecha();
+        double montoPrevio = norm(abono.getTotal());
+
         // Actualizar fecha, método de pago, factura
         if (abonoDTO.getFecha() != null) abono.setFecha(abonoDTO.getFecha());
         if (abonoDTO.getMetodoPago() != null) abono.setMetodoPago(abonoDTO.getMetodoPago());
@@ -377,13 +402,15 @@ public class AbonoService {
             }
 
             abono.setTotal(nuevoMonto);
-            abono.setSaldo(nuevoSaldoPendiente);
         }
 
         Abono actualizado = abonoRepo.save(abono);
         
-        // Recalcular totales del crédito
-        creditoService.recalcularTotales(creditoId);
+        // Actualizar totales del crédito: solo la diferencia y los abonos desde el más antiguo afectado
+        LocalDate desde = (fechaAnterior != null && fechaAnterior.isBefore(actualizado.getFecha()))
+                ? fechaAnterior : actualizado.getFecha();
+        creditoService.aplicarCambioAbonos(credito, norm(actualizado.getTotal()) - montoPrevio, desde, actualizado.getId());
+        pendienteEntregaService.registrarCambio(credito.getOrden());
         
         return actualizado;
     }
@@ -412,8 +439,9 @@ public class AbonoService {
         // siga referenciando el abono borrado y falle en merge al guardar el crédito.
         credito.getAbonos().remove(abono);
 
-        // Recalcular totales del crédito
-        creditoService.recalcularTotales(creditoId);
+        // Actualizar totales del crédito: descontar el abono y reescribir solo los posteriores
+        creditoService.aplicarCambioAbonos(credito, -norm(abono.getTotal()), abono.getFecha(), abono.getId());
+        pendienteEntregaService.registrarCambio(credito.getOrden());
     }
 
     /**
@@ -438,12 +466,11 @@ public class AbonoService {
 
         assertAbonoNoEnEntregaDinero(abonoId);
 
-        Long creditoId = credito.getId();
-
         credito.getAbonos().remove(abono);
 
-        // Recalcular totales del crédito
-        creditoService.recalcularTotales(creditoId);
+        // Actualizar totales del crédito: descontar el abono y reescribir solo los posteriores
+        creditoService.aplicarCambioAbonos(credito, -norm(abono.getTotal()), abono.getFecha(), abono.getId());
+        pendienteEntregaService.registrarCambio(credito.getOrden());
     }
 
     /**
@@ -1,13 +1,18 @@
 package com.casaglass.casaglass_backend.service;
 
 import com.casaglass.casaglass_backend.model.BusinessSettings;
+import com.casaglass.casaglass_backend.model.ParametrosTributarios;
 import com.casaglass.casaglass_backend.repository.BusinessSettingsRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Transactional
@@ -15,6 +20,18 @@ public class BusinessSettingsService {
 
     private final BusinessSettingsRepository repository;
 
+    /**
+     * Copia en memoria de la configuración vigente junto con su generación
+     * (parametros null = hay que recargar). Cada invalidación sube la generación,
+     * así una carga que empezó antes de la invalidación no puede publicarse después.
+     * Si hay varias instancias, cada una recarga solo con sus propios cambios.
+     */
+    private final AtomicReference<CacheParametros> parametrosCache =
+            new AtomicReference<>(new CacheParametros(0L, null));
+
+    private record CacheParametros(long generacion, ParametrosTributarios parametros) {
+    }
+
     public BusinessSettingsService(BusinessSettingsRepository repository) {
         this.repository = repository;
     }
@@ -23,24 +40,52 @@ public class BusinessSettingsService {
      * 📋 OBTENER CONFIGURACIÓN ACTUAL
      * Retorna la primera configuración encontrada (debería haber solo una)
      * Si no existe, retorna una configuración con valores por defecto
+     * Se sirve desde la copia en memoria; el objeto retornado es nuevo en cada llamada
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public BusinessSettings obtenerConfiguracion() {
+        return obtenerParametros().aEntidad();
+    }
+
+    /**
+     * 💰 PARÁMETROS TRIBUTARIOS VIGENTES (IVA, retenciones y umbrales)
+     * Solo consulta la base de datos la primera vez o después de un cambio
+     */
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ParametrosTributarios obtenerParametros() {
+        CacheParametros actual = parametrosCache.get();
+        if (actual.parametros() != null) {
+            return actual.parametros();
+        }
         List<BusinessSettings> settings = repository.findAll();
-        if (!settings.isEmpty()) {
-            return settings.get(0);
+        ParametrosTributarios cargados = settings.isEmpty()
+                ? ParametrosTributarios.porDefecto()
+                : ParametrosTributarios.desde(settings.get(0));
+        // Solo se publica si nadie invalidó mientras cargábamos (misma generación);
+        // si no, se usa para esta llamada y la siguiente vuelve a consultar
+        parametrosCache.compareAndSet(actual, new CacheParametros(actual.generacion(), cargados));
+        return cargados;
+    }
+
+    /**
+     * Invalida la copia en memoria cuando la transacción actual confirme
+     * (si hace rollback la copia sigue siendo válida)
+     */
+    private void invalidarCacheAlConfirmar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidarCache();
+                }
+            });
+        } else {
+            invalidarCache();
         }
-        // Si no existe, retornar configuración por defecto (sin guardar)
-        BusinessSettings defaultSettings = new BusinessSettings();
-        defaultSettings.setIvaRate(19.0);
-        defaultSettings.setReteRate(2.5);
-        defaultSettings.setReteThreshold(1_000_000L);
-        defaultSettings.setIcaRate(1.0);
-        defaultSettings.setIcaThreshold(1_000_000L);
-        defaultSettings.setReteivaRate(15.0);
-        defaultSettings.setReteivaThreshold(1_000_000L);
-        defaultSettings.setUpdatedAt(LocalDate.now());
-        return defaultSettings;
+    }
+
+    private void invalidarCache() {
+        parametrosCache.updateAndGet(actual -> new CacheParametros(actual.generacion() + 1, null));
     }
 
     /**
@@ -63,6 +108,7 @@ public class BusinessSettingsService {
         // Establecer fecha de actualización
         settings.setUpdatedAt(LocalDate.now());
         
+        invalidarCacheAlConfirmar();
         return repository.save(settings);
     }
 
@@ -87,6 +133,7 @@ public class BusinessSettingsService {
         existente.setReteivaThreshold(settings.getReteivaThreshold());
         existente.setUpdatedAt(LocalDate.now());
         
+        invalidarCacheAlConfirmar();
         return repository.save(existente);
     }
 
@@ -100,6 +147,7 @@ public class BusinessSettingsService {
         // Validar valores
         validarConfiguracion(settings);
         
+        invalidarCacheAlConfirmar();
         if (!existentes.isEmpty()) {
             // Actualizar la primera configuración existente
             BusinessSettings existente = existentes.get(0);
@@ -154,6 +202,7 @@ public class BusinessSettingsService {
         if (!repository.existsById(id)) {
             throw new IllegalArgumentException("Configuración no encontrada con ID: " + id);
         }
+        invalidarCacheAlConfirmar();
         repository.deleteById(id);
     }
 
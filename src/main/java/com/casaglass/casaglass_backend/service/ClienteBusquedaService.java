@@ -0,0 +1,375 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.dto.ClienteSimpleDTO;
+import com.casaglass.casaglass_backend.dto.PageResponse;
+import com.casaglass.casaglass_backend.model.Cliente;
+import com.casaglass.casaglass_backend.repository.ClienteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * 🔎 ÍNDICE EN MEMORIA PARA BÚSQUEDA DE CLIENTES (type-ahead del POS)
+ *
+ * Cada cliente se parte en palabras normalizadas (minúsculas, sin tildes ni signos) de
+ * nombre, NIT, correo y ciudad. Las palabras se guardan en un mapa ordenado, así que
+ * buscar por prefijo es un recorrido de rango, sin ir a la base de datos.
+ *
+ * Cada palabra de la consulta debe coincidir como prefijo de alguna palabra del cliente.
+ * Si no hay resultados se prueba con errores de tipeo (una letra de diferencia) y al
+ * final con "contiene", como hacía el LIKE '%x%'.
+ *
+ * Se carga al arrancar y ClienteService / OrdenService lo actualizan al confirmar cada cambio.
+ * Si hay varias instancias, cada una solo ve sus propios cambios hasta el próximo arranque.
+ */
+@Service
+public class ClienteBusquedaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClienteBusquedaService.class);
+
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^a-z0-9]+");
+
+    private static final int MAX_PAGINA = 200;
+    private static final int LARGO_MINIMO_TIPEO = 4;
+
+    private final ClienteRepository clienteRepository;
+
+    /** clienteId → datos indexados */
+    private final Map<Long, Entrada> entradas = new ConcurrentHashMap<>();
+
+    /** palabra normalizada → clientes que la contienen */
+    private final ConcurrentSkipListMap<String, Set<Long>> palabras = new ConcurrentSkipListMap<>();
+
+    private volatile boolean cargado = false;
+
+    public ClienteBusquedaService(ClienteRepository clienteRepository) {
+        this.clienteRepository = clienteRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargarAlIniciar() {
+        try {
+            recargar();
+        } catch (RuntimeException e) {
+            log.warn("No se pudo cargar el índice de búsqueda de clientes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 🔄 Reconstruye el índice completo desde la base de datos
+     */
+    public synchronized void recargar() {
+        List<Cliente> clientes = clienteRepository.findAll();
+        entradas.clear();
+        palabras.clear();
+        for (Cliente cliente : clientes) {
+            indexar(Entrada.desde(cliente));
+        }
+        cargado = true;
+        log.info("Índice de búsqueda de clientes cargado: {} clientes", clientes.size());
+    }
+
+    /**
+     * Actualiza el cliente en el índice cuando la transacción actual confirme
+     * (los datos se copian ahora; si hace rollback no se aplica nada)
+     */
+    public void registrarCambio(Cliente cliente) {
+        if (cliente == null || cliente.getId() == null) {
+            return;
+        }
+        Entrada entrada = Entrada.desde(cliente);
+        alConfirmar(() -> indexar(entrada));
+    }
+
+    /**
+     * Quita el cliente del índice cuando la transacción actual confirme
+     */
+    public void registrarEliminacion(Long clienteId) {
+        if (clienteId == null) {
+            return;
+        }
+        alConfirmar(() -> desindexar(clienteId));
+    }
+
+    /**
+     * 🔎 BÚSQUEDA RANKEADA
+     * Orden: coincidencia exacta de palabra en el nombre, luego prefijo en el nombre,
+     * luego coincidencias en NIT/correo/ciudad; a igual puntaje, por nombre.
+     *
+     * @param texto texto libre (varias palabras = todas deben coincidir)
+     * @param conCredito si es true, solo clientes con crédito habilitado
+     */
+    public PageResponse<ClienteSimpleDTO> buscar(String texto, Boolean conCredito, Integer page, Integer size) {
+        asegurarCargado();
+        int pagina = (page == null || page < 1) ? 1 : page;
+        int tamano = (size == null || size < 1) ? 20 : Math.min(size, MAX_PAGINA);
+
+        List<String> consulta = partir(texto);
+        List<Resultado> resultados = new ArrayList<>();
+        if (consulta.isEmpty()) {
+            for (Entrada entrada : entradas.values()) {
+                resultados.add(new Resultado(entrada, 0));
+            }
+        } else {
+            resultados = buscarPorPrefijo(consulta, false);
+            if (resultados.isEmpty()) {
+                resultados = buscarPorPrefijo(consulta, true);
+            }
+            if (resultados.isEmpty()) {
+                resultados = buscarPorContenido(String.join(" ", consulta));
+            }
+        }
+
+        if (Boolean.TRUE.equals(conCredito)) {
+            resultados.removeIf(r -> !Boolean.TRUE.equals(r.entrada().dto().getCredito()));
+        }
+
+        resultados.sort(Comparator.comparingInt(Resultado::puntaje).reversed()
+            .thenComparing(r -> r.entrada().nombreNormalizado()));
+
+        int desde = Math.min((pagina - 1) * tamano, resultados.size());
+        int hasta = Math.min(desde + tamano, resultados.size());
+        List<ClienteSimpleDTO> contenido = new ArrayList<>(hasta - desde);
+        for (Resultado r : resultados.subList(desde, hasta)) {
+            contenido.add(r.entrada().dto());
+        }
+        return PageResponse.of(contenido, resultados.size(), pagina, tamano);
+    }
+
+    private List<Resultado> buscarPorPrefijo(List<String> consulta, boolean toleraTipeo) {
+        Map<Long, Integer> puntajes = null;
+        for (String termino : consulta) {
+            Set<String> coincidentes = toleraTipeo ? palabrasCercanas(termino) : palabrasConPrefijo(termino);
+            Map<Long, Integer> delTermino = new HashMap<>();
+            for (String palabra : coincidentes) {
+                Set<Long> ids = palabras.get(palabra);
+                if (ids == null) {
+                    continue;
+                }
+                for (Long id : ids) {
+                    Entrada entrada = entradas.get(id);
+                    if (entrada == null) {
+                        continue;
+                    }
+                    int puntaje = puntuar(entrada, termino, palabra, toleraTipeo);
+                    delTermino.merge(id, puntaje, Math::max);
+                }
+            }
+            if (puntajes == null) {
+                puntajes = delTermino;
+            } else {
+                // Todas las palabras de la consulta deben coincidir
+                puntajes.keySet().retainAll(delTermino.keySet());
+                for (Map.Entry<Long, Integer> e : puntajes.entrySet()) {
+                    e.setValue(e.getValue() + delTermino.get(e.getKey()));
+                }
+            }
+            if (puntajes.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        String consultaCompleta = String.join(" ", consulta);
+        List<Resultado> resultados = new ArrayList<>(puntajes.size());
+        for (Map.Entry<Long, Integer> e : puntajes.entrySet()) {
+            Entrada entrada = entradas.get(e.getKey());
+            if (entrada == null) {
+                continue;
+            }
+            int bonus = entrada.nombreNormalizado().startsWith(consultaCompleta) ? 5 : 0;
+            resultados.add(new Resultado(entrada, e.getValue() + bonus));
+        }
+        return resultados;
+    }
+
+    private List<Resultado> buscarPorContenido(String consulta) {
+        List<Resultado> resultados = new ArrayList<>();
+        for (Entrada entrada : entradas.values()) {
+            if (entrada.textoCompleto().contains(consulta)) {
+                resultados.add(new Resultado(entrada, 0));
+            }
+        }
+        return resultados;
+    }
+
+    private int puntuar(Entrada entrada, String termino, String palabra, boolean porTipeo) {
+        if (porTipeo) {
+            return entrada.palabrasNombre().contains(palabra) ? 1 : 0;
+        }
+        if (entrada.palabrasNombre().contains(palabra)) {
+            return palabra.equals(termino) ? 4 : 3;
+        }
+        return palabra.equals(termino) ? 2 : 1;
+    }
+
+    private Set<String> palabrasConPrefijo(String prefijo) {
+        return palabras.subMap(prefijo, true, prefijo + Character.MAX_VALUE, false).keySet();
+    }
+
+    /**
+     * Palabras a una edición de distancia (cambio, inserción o borrado de una letra).
+     * Solo para términos de 4+ letras y palabras que empiezan con la misma letra.
+     */
+    private Set<String> palabrasCercanas(String termino) {
+        Set<String> cercanas = new HashSet<>();
+        if (termino.length() < LARGO_MINIMO_TIPEO) {
+            return cercanas;
+        }
+        for (String palabra : palabrasConPrefijo(termino.substring(0, 1))) {
+            // Como prefijo: se compara contra el inicio de la palabra del largo del término (±1)
+            for (int largo = termino.length() - 1; largo <= termino.length() + 1; largo++) {
+                if (largo <= palabra.length() && aUnaEdicion(termino, palabra.substring(0, largo))) {
+                    cercanas.add(palabra);
+                    break;
+                }
+            }
+        }
+        return cercanas;
+    }
+
+    static boolean aUnaEdicion(String a, String b) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > 1) {
+            return false;
+        }
+        int i = 0;
+        int j = 0;
+        boolean editado = false;
+        while (i < la && j < lb) {
+            if (a.charAt(i) == b.charAt(j)) {
+                i++;
+                j++;
+                continue;
+            }
+            if (editado) {
+                return false;
+            }
+            editado = true;
+            if (la > lb) {
+                i++;
+            } else if (lb > la) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return !(editado && (i < la || j < lb));
+    }
+
+    private synchronized void indexar(Entrada entrada) {
+        desindexar(entrada.dto().getId());
+        entradas.put(entrada.dto().getId(), entrada);
+        for (String palabra : entrada.todasLasPalabras()) {
+            palabras.computeIfAbsent(palabra, p -> ConcurrentHashMap.newKeySet()).add(entrada.dto().getId());
+        }
+    }
+
+    private synchronized void desindexar(Long clienteId) {
+        Entrada anterior = entradas.remove(clienteId);
+        if (anterior == null) {
+            return;
+        }
+        for (String palabra : anterior.todasLasPalabras()) {
+            Set<Long> ids = palabras.get(palabra);
+            if (ids != null) {
+                ids.remove(clienteId);
+                if (ids.isEmpty()) {
+                    palabras.remove(palabra, ids);
+                }
+            }
+        }
+    }
+
+    private void asegurarCargado() {
+        if (!cargado) {
+            synchronized (this) {
+                if (!cargado) {
+                    recargar();
+                }
+            }
+        }
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    static String normalizar(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(valor, Normalizer.Form.NFD)).replaceAll("");
+        return NO_ALFANUMERICO.matcher(sinTildes.toLowerCase()).replaceAll(" ").trim();
+    }
+
+    static List<String> partir(String valor) {
+        String normalizado = normalizar(valor);
+        List<String> resultado = new ArrayList<>();
+        if (normalizado.isEmpty()) {
+            return resultado;
+        }
+        for (String palabra : normalizado.split(" ")) {
+            if (!palabra.isEmpty()) {
+                resultado.add(palabra);
+            }
+        }
+        return resultado;
+    }
+
+    /** Copia inmutable de lo que se indexa de un cliente */
+    private record Entrada(ClienteSimpleDTO dto, String nombreNormalizado, Set<String> palabrasNombre,
+                           Set<String> todasLasPalabras, String textoCompleto) {
+
+        static Entrada desde(Cliente cliente) {
+            String nombre = normalizar(cliente.getNombre());
+            Set<String> palabrasNombre = new LinkedHashSet<>(partir(cliente.getNombre()));
+
+            Set<String> todas = new LinkedHashSet<>(palabrasNombre);
+            for (String campo : new String[] { cliente.getNit(), cliente.getCorreo(), cliente.getCiudad() }) {
+                List<String> partes = partir(campo);
+                todas.addAll(partes);
+                // NIT y correo también completos, sin puntos ni guiones (900.123.456-7 → 9001234567)
+                if (partes.size() > 1) {
+                    todas.add(String.join("", partes));
+                }
+            }
+
+            String texto = String.join(" ", nombre, normalizar(cliente.getNit()),
+                normalizar(cliente.getCorreo()), normalizar(cliente.getCiudad()));
+            return new Entrada(new ClienteSimpleDTO(cliente), nombre, Set.copyOf(palabrasNombre),
+                Set.copyOf(todas), texto);
+        }
+    }
+
+    private record Resultado(Entrada entrada, int puntaje) {
+    }
+}
@@ -1,5 +1,7 @@
 package com.casaglass.casaglass_backend.service;
 
+import com.casaglass.casaglass_backend.dto.ClienteSimpleDTO;
+import com.casaglass.casaglass_backend.dto.PageResponse;
 import com.casaglass.casaglass_backend.model.Cliente;
 import com.casaglass.casaglass_backend.repository.ClienteRepository;
 import org.springframework.stereotype.Service;
@@ -12,15 +14,26 @@ import java.util.Optional;
 public class ClienteService {
 
     private final ClienteRepository clienteRepository;
+    private final ClienteBusquedaService clienteBusquedaService;
 
-    public ClienteService(ClienteRepository clienteRepository) {
+    public ClienteService(ClienteRepository clienteRepository, ClienteBusquedaService clienteBusquedaService) {
         this.clienteRepository = clienteRepository;
+        this.clienteBusquedaService = clienteBusquedaService;
     }
 
     public List<Cliente> listarClientes() {
         return clienteRepository.findAll();
     }
 
+    /**
+     * 🔎 BÚSQUEDA RÁPIDA PARA EL SELECTOR DE CLIENTES (type-ahead)
+     * Se resuelve en memoria con el índice de ClienteBusquedaService, sin consultar la base de datos
+     */
+    public PageResponse<ClienteSimpleDTO> buscarRapido(
+            String texto, Boolean conCredito, Integer page, Integer size) {
+        return clienteBusquedaService.buscar(texto, conCredito, page, size);
+    }
+
     /**
      * 🚀 LISTADO DE CLIENTES CON FILTROS COMPLETOS
      * Acepta múltiples filtros opcionales y retorna lista o respuesta paginada
@@ -194,7 +207,9 @@ public class ClienteService {
             }
         }
         
-        return clienteRepository.save(cliente);
+        Cliente guardado = clienteRepository.save(cliente);
+        clienteBusquedaService.registrarCambio(guardado);
+        return guardado;
     }
 
     public Cliente actualizarCliente(Long id, Cliente cliente) {
@@ -231,11 +246,14 @@ public class ClienteService {
             c.setCiudad(ciudadNormalizada);
             c.setCorreo(correoNormalizado);
             c.setCredito(cliente.getCredito());
-            return clienteRepository.save(c);
+            Cliente actualizado = clienteRepository.save(c);
+            clienteBusquedaService.registrarCambio(actualizado);
+            return actualizado;
         }).orElseThrow(() -> new RuntimeException("Cliente no encontrado con id " + id));
     }
 
     public void eliminarCliente(Long id) {
         clienteRepository.deleteById(id);
+        clienteBusquedaService.registrarEliminacion(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,283 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.ColorProducto;
+import com.casaglass.casaglass_backend.model.Corte;
+import com.casaglass.casaglass_backend.repository.CorteRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 📏 ÍNDICE EN MEMORIA DE CORTES POR CÓDIGO Y LARGO
+ *
+ * Para reutilizar un corte existente (mismo código, color, categoría y largo) en ventas,
+ * traslados y uniones sin consultar la BD en cada línea. Cada código tiene un mapa ordenado
+ * por largo con los datos mínimos del corte (id, color, categoría); la primera consulta de
+ * un código lo carga con una sola proyección y desde ahí se resuelve en memoria.
+ *
+ * Cada mapa es inmutable y se reemplaza completo al cambiar (copy-on-write), así las
+ * lecturas concurrentes nunca ven un mapa a medio modificar.
+ *
+ * Sincronización: CorteService registra cada corte creado/actualizado y quita los eliminados.
+ * Con transacción activa el cambio queda pendiente en la transacción y solo se publica en el
+ * índice compartido al commit (en rollback se descarta); mientras tanto las búsquedas de esa
+ * misma transacción ven sus propios cambios superpuestos al índice. Lo que el índice no tenga
+ * (cortes de otra instancia) lo confirma CorteService en BD.
+ */
+@Service
+public class CorteIndiceService {
+
+    /** Clave del recurso de transacción con los cambios pendientes de publicar en el índice */
+    private static final Object CAMBIOS_PENDIENTES = new Object();
+
+    /** Datos de un corte necesarios para decidir si se reutiliza */
+    public record Entrada(Long id, ColorProducto color, Long categoriaId, double largoCm) {
+    }
+
+    private final CorteRepository corteRepository;
+
+    private final ConcurrentMap<String, NavigableMap<Double, List<Entrada>>> indicePorCodigo = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, String> codigoPorId = new ConcurrentHashMap<>();
+
+    public CorteIndiceService(CorteRepository corteRepository) {
+        this.corteRepository = corteRepository;
+    }
+
+    /**
+     * Cortes del código con exactamente ese largo, color y categoría (mismos criterios que
+     * CorteRepository.findExistingByCodigoAndSpecs), del más reciente al más antiguo
+     */
+    public List<Entrada> buscarExactos(String codigo, double largoCm, ColorProducto color, Long categoriaId) {
+        List<Entrada> resultado = new ArrayList<>();
+        for (Entrada e : buscarPorLargo(codigo, largoCm)) {
+            if (Objects.equals(e.color(), color) && Objects.equals(e.categoriaId(), categoriaId)) {
+                resultado.add(e);
+            }
+        }
+        resultado.sort((a, b) -> Long.compare(b.id(), a.id()));
+        return resultado;
+    }
+
+    /**
+     * Cortes del código con ese largo exacto (cualquier color o categoría)
+     */
+    public List<Entrada> buscarPorLargo(String codigo, double largoCm) {
+        if (codigo == null) {
+            return List.of();
+        }
+        List<Entrada> entradas = indiceVisible(codigo).get(largoCm);
+        return entradas != null ? entradas : List.of();
+    }
+
+    /**
+     * Cortes del código con largo entre desde y hasta (ambos inclusive)
+     */
+    public List<Entrada> buscarEnRango(String codigo, double desde, double hasta) {
+        if (codigo == null || hasta < desde) {
+            return List.of();
+        }
+        List<Entrada> resultado = new ArrayList<>();
+        for (List<Entrada> entradas : indiceVisible(codigo).subMap(desde, true, hasta, true).values()) {
+            resultado.addAll(entradas);
+        }
+        return resultado;
+    }
+
+    /**
+     * Registra (o reubica, si cambió código, largo, color o categoría) un corte ya guardado
+     */
+    public void registrar(Corte corte) {
+        if (corte == null || corte.getId() == null || corte.getCodigo() == null || corte.getLargoCm() == null) {
+            return;
+        }
+        String codigo = corte.getCodigo();
+        Entrada entrada = new Entrada(
+                corte.getId(),
+                corte.getColor(),
+                corte.getCategoria() != null ? corte.getCategoria().getId() : null,
+                corte.getLargoCm());
+        aplicar(entrada.id(), codigo, entrada);
+    }
+
+    /**
+     * Quita un corte eliminado
+     */
+    public void quitar(Long corteId) {
+        if (corteId == null) {
+            return;
+        }
+        aplicar(corteId, null, null);
+    }
+
+    /**
+     * Descarta el índice de un código; la siguiente consulta lo recarga desde la BD
+     */
+    public void invalidar(String codigo) {
+        if (codigo == null) {
+            return;
+        }
+        NavigableMap<Double, List<Entrada>> indice = indicePorCodigo.remove(codigo);
+        if (indice != null) {
+            for (List<Entrada> entradas : indice.values()) {
+                for (Entrada e : entradas) {
+                    codigoPorId.remove(e.id(), codigo);
+                }
+            }
+        }
+    }
+
+    private NavigableMap<Double, List<Entrada>> obtenerIndice(String codigo) {
+        NavigableMap<Double, List<Entrada>> indice = indicePorCodigo.get(codigo);
+        if (indice != null) {
+            return indice;
+        }
+        TreeMap<Double, List<Entrada>> cargado = new TreeMap<>();
+        for (Object[] fila : corteRepository.findDatosIndicePorCodigo(codigo)) {
+            if (fila[3] == null) {
+                continue;
+            }
+            Entrada e = new Entrada(
+                    ((Number) fila[0]).longValue(),
+                    (ColorProducto) fila[1],
+                    fila[2] != null ? ((Number) fila[2]).longValue() : null,
+                    ((Number) fila[3]).doubleValue());
+            cargado.computeIfAbsent(e.largoCm(), k -> new ArrayList<>()).add(e);
+        }
+        NavigableMap<Double, List<Entrada>> nuevo = congelar(cargado);
+        NavigableMap<Double, List<Entrada>> previo = indicePorCodigo.putIfAbsent(codigo, nuevo);
+        if (previo != null) {
+            return previo;
+        }
+        for (List<Entrada> entradas : nuevo.values()) {
+            for (Entrada e : entradas) {
+                codigoPorId.put(e.id(), codigo);
+            }
+        }
+        return nuevo;
+    }
+
+    private void quitarDelIndice(Long corteId) {
+        String codigo = codigoPorId.remove(corteId);
+        if (codigo != null) {
+            indicePorCodigo.computeIfPresent(codigo, (k, indice) -> sinEntrada(indice, corteId));
+        }
+    }
+
+    /**
+     * Índice del código tal como lo ve la transacción actual: el compartido más sus cambios pendientes
+     */
+    private NavigableMap<Double, List<Entrada>> indiceVisible(String codigo) {
+        NavigableMap<Double, List<Entrada>> indice = obtenerIndice(codigo);
+        CambiosPendientes pendientes = TransactionSynchronizationManager.isSynchronizationActive()
+                ? (CambiosPendientes) TransactionSynchronizationManager.getResource(CAMBIOS_PENDIENTES)
+                : null;
+        if (pendientes == null || pendientes.porId.isEmpty()) {
+            return indice;
+        }
+        TreeMap<Double, List<Entrada>> copia = new TreeMap<>();
+        indice.forEach((largo, entradas) -> {
+            for (Entrada e : entradas) {
+                if (!pendientes.porId.containsKey(e.id())) {
+                    copia.computeIfAbsent(largo, k -> new ArrayList<>()).add(e);
+                }
+            }
+        });
+        for (Pendiente p : pendientes.porId.values()) {
+            if (p.entrada() != null && codigo.equals(p.codigo())) {
+                copia.computeIfAbsent(p.entrada().largoCm(), k -> new ArrayList<>()).add(p.entrada());
+            }
+        }
+        return congelar(copia);
+    }
+
+    /**
+     * Sin transacción publica el cambio ya; con transacción lo deja pendiente hasta el commit
+     * (entrada null = corte eliminado)
+     */
+    private void aplicar(Long corteId, String codigo, Entrada entrada) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publicar(corteId, codigo, entrada);
+            return;
+        }
+
+        CambiosPendientes pendientes = (CambiosPendientes) TransactionSynchronizationManager.getResource(CAMBIOS_PENDIENTES);
+        if (pendientes == null) {
+            CambiosPendientes nuevos = new CambiosPendientes();
+            TransactionSynchronizationManager.bindResource(CAMBIOS_PENDIENTES, nuevos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    nuevos.porId.forEach((id, p) -> publicar(id, p.codigo(), p.entrada()));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CAMBIOS_PENDIENTES);
+                }
+            });
+            pendientes = nuevos;
+        }
+        pendientes.porId.remove(corteId);
+        pendientes.porId.put(corteId, new Pendiente(codigo, entrada));
+    }
+
+    private void publicar(Long corteId, String codigo, Entrada entrada) {
+        quitarDelIndice(corteId);
+        if (entrada == null) {
+            return;
+        }
+        NavigableMap<Double, List<Entrada>> actualizado = indicePorCodigo.computeIfPresent(codigo,
+                (k, indice) -> conEntrada(indice, entrada));
+        if (actualizado != null) {
+            codigoPorId.put(corteId, codigo);
+        }
+    }
+
+    private static NavigableMap<Double, List<Entrada>> conEntrada(NavigableMap<Double, List<Entrada>> indice, Entrada entrada) {
+        TreeMap<Double, List<Entrada>> copia = new TreeMap<>();
+        indice.forEach((largo, entradas) -> copia.put(largo, new ArrayList<>(entradas)));
+        copia.computeIfAbsent(entrada.largoCm(), k -> new ArrayList<>()).add(entrada);
+        return congelar(copia);
+    }
+
+    private static NavigableMap<Double, List<Entrada>> sinEntrada(NavigableMap<Double, List<Entrada>> indice, Long corteId) {
+        TreeMap<Double, List<Entrada>> copia = new TreeMap<>();
+        indice.forEach((largo, entradas) -> {
+            List<Entrada> restantes = new ArrayList<>();
+            for (Entrada e : entradas) {
+                if (!e.id().equals(corteId)) {
+                    restantes.add(e);
+                }
+            }
+            if (!restantes.isEmpty()) {
+                copia.put(largo, restantes);
+            }
+        });
+        return congelar(copia);
+    }
+
+    private static NavigableMap<Double, List<Entrada>> congelar(TreeMap<Double, List<Entrada>> mapa) {
+        for (Map.Entry<Double, List<Entrada>> e : mapa.entrySet()) {
+            e.setValue(List.copyOf(e.getValue()));
+        }
+        return Collections.unmodifiableNavigableMap(mapa);
+    }
+
+    private record Pendiente(String codigo, Entrada entrada) {
+    }
+
+    private static final class CambiosPendientes {
+        private final Map<Long, Pendiente> porId = new LinkedHashMap<>();
+    }
+}
@@ -1,17 +1,18 @@
 package com.casaglass.casaglass_backend.service;
 
 import com.casaglass.casaglass_backend.dto.CorteInventarioCompletoDTO;
-import com.casaglass.casaglass_backend.model.Corte;
-import com.casaglass.casaglass_backend.model.InventarioCorte;
+import com.casaglass.casaglass_backend.dto.CursorToken;
+import com.casaglass.casaglass_backend.dto.PageResponse;
 import com.casaglass.casaglass_backend.model.TipoProducto;
 import com.casaglass.casaglass_backend.model.ColorProducto;
 import com.casaglass.casaglass_backend.repository.CorteRepository;
-import com.casaglass.casaglass_backend.repository.InventarioCorteRepository;
 import com.casaglass.casaglass_backend.repository.SedeRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -19,18 +20,18 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class CorteInventarioCompletoService {
 
+    private static final int TAMANO_POR_DEFECTO = 50;
+    private static final int TAMANO_MAXIMO = 500;
+
     private final CorteRepository corteRepository;
-    private final InventarioCorteRepository inventarioCorteRepository;
     private final SedeRepository sedeRepository;
 
     // Cache de sedes por nombre
     private Map<String, Long> sedeIds = null;
 
     public CorteInventarioCompletoService(CorteRepository corteRepository,
-                                        InventarioCorteRepository inventarioCorteRepository,
                                         SedeRepository sedeRepository) {
         this.corteRepository = corteRepository;
-        this.inventarioCorteRepository = inventarioCorteRepository;
         this.sedeRepository = sedeRepository;
     }
 
@@ -68,297 +69,188 @@ public class CorteInventarioCompletoService {
 
     public List<CorteInventarioCompletoDTO> obtenerInventarioCompleto() {
         // Para listados de selección, solo retornar cortes que tengan stock disponible.
-        List<InventarioCorte> todosLosInventarios = inventarioCorteRepository.findAllWithStock();
-
-        List<Long> cortesIds = todosLosInventarios.stream()
-            .map(inv -> inv.getCorte().getId())
-            .distinct()
-            .collect(Collectors.toList());
-
-        if (cortesIds.isEmpty()) {
-            return List.of();
-        }
-
-        List<Corte> cortes = corteRepository.findByIdIn(cortesIds);
-
-        // Obtener inventarios agrupados por corte y sede
-        Map<Long, Map<Long, Double>> inventariosPorCorteYSede = 
-            todosLosInventarios.stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getCorte().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        InventarioCorte::getCantidad,
-                        Double::sum // En caso de duplicados, sumar
-                    )
-                ));
-
-        // Convertir a DTOs
-        return cortes.stream()
-            .map(corte -> convertirADTO(corte, inventariosPorCorteYSede.get(corte.getId()), null))
-            .collect(Collectors.toList());
+        return consultar(null, null, null, null, null, null, null, true);
     }
 
     public List<CorteInventarioCompletoDTO> obtenerInventarioCompletoPorCategoria(Long categoriaId) {
-        // Obtener cortes de una categoría específica
-        List<Corte> cortes = corteRepository.findByCategoria_Id(categoriaId);
-        
-        // Obtener inventarios para esos cortes
-        List<Long> cortesIds = cortes.stream().map(Corte::getId).collect(Collectors.toList());
-        Map<Long, Map<Long, Double>> inventariosPorCorteYSede = 
-            inventarioCorteRepository.findByCorteIdIn(cortesIds).stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getCorte().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        InventarioCorte::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return cortes.stream()
-            .map(corte -> convertirADTO(corte, inventariosPorCorteYSede.get(corte.getId()), null))
-            .collect(Collectors.toList());
+        return consultar(categoriaId, null, null, null, null, null, null, false);
     }
 
     public List<CorteInventarioCompletoDTO> buscarInventarioCompleto(String query) {
-        // Búsqueda por nombre o código
-        List<Corte> cortes = corteRepository.findByNombreContainingIgnoreCaseOrCodigoContainingIgnoreCase(query, query);
-
-        if (cortes.isEmpty()) {
-            return List.of();
-        }
-
-        // Obtener inventarios para esos cortes con stock disponible
-        List<Long> cortesIds = cortes.stream().map(Corte::getId).collect(Collectors.toList());
-        List<InventarioCorte> inventariosConStock = inventarioCorteRepository.findByCorteIdIn(cortesIds).stream()
-            .filter(inv -> inv.getCantidad() != null && inv.getCantidad() > 0)
-            .collect(Collectors.toList());
-
-        Map<Long, Map<Long, Double>> inventariosPorCorteYSede = inventariosConStock.stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getCorte().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        InventarioCorte::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return cortes.stream()
-            .filter(corte -> inventariosPorCorteYSede.containsKey(corte.getId()))
-            .map(corte -> convertirADTO(corte, inventariosPorCorteYSede.get(corte.getId()), null))
-            .collect(Collectors.toList());
+        // Búsqueda por nombre o código, solo cortes con stock disponible
+        return consultar(null, null, null, null, null, query, null, true);
     }
 
     public List<CorteInventarioCompletoDTO> buscarInventarioCompletoPorSede(String query, Long sedeId) {
-        List<Corte> cortes = corteRepository.findByNombreContainingIgnoreCaseOrCodigoContainingIgnoreCase(query, query);
-        if (cortes.isEmpty()) {
-            return List.of();
-        }
-
-        List<Long> cortesIds = cortes.stream().map(Corte::getId).collect(Collectors.toList());
-        List<InventarioCorte> inventariosSede = inventarioCorteRepository.findBySedeIdAndCorteIdInWithStock(sedeId, cortesIds);
-        if (inventariosSede.isEmpty()) {
-            return List.of();
-        }
-
-        Map<Long, Map<Long, Double>> inventariosPorCorteYSede = inventariosSede.stream()
-            .collect(Collectors.groupingBy(
-                inv -> inv.getCorte().getId(),
-                Collectors.toMap(
-                    inv -> inv.getSede().getId(),
-                    InventarioCorte::getCantidad,
-                    Double::sum
-                )
-            ));
-
-        return cortes.stream()
-            .filter(corte -> inventariosPorCorteYSede.containsKey(corte.getId()))
-            .map(corte -> convertirADTO(corte, inventariosPorCorteYSede.get(corte.getId()), sedeId))
-            .collect(Collectors.toList());
+        return consultar(null, null, null, null, null, query, sedeId, true);
     }
 
     public List<CorteInventarioCompletoDTO> obtenerInventarioCompletoPorRangoLargo(Double largoMin, Double largoMax) {
-        // Búsqueda por rango de largo
-        List<Corte> cortes = corteRepository.findByLargoCmBetween(largoMin, largoMax);
-        
-        // Obtener inventarios para esos cortes
-        List<Long> cortesIds = cortes.stream().map(Corte::getId).collect(Collectors.toList());
-        Map<Long, Map<Long, Double>> inventariosPorCorteYSede = 
-            inventarioCorteRepository.findByCorteIdIn(cortesIds).stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getCorte().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        InventarioCorte::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return cortes.stream()
-            .map(corte -> convertirADTO(corte, inventariosPorCorteYSede.get(corte.getId()), null))
-            .collect(Collectors.toList());
+        return consultar(null, null, null, largoMin, largoMax, null, null, false);
     }
 
     public List<CorteInventarioCompletoDTO> obtenerInventarioCompletoPorTipo(String tipoStr) {
-        // Convertir String a enum
-        TipoProducto tipo;
-        try {
-            tipo = TipoProducto.valueOf(tipoStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Tipo de producto inválido: " + tipoStr);
-        }
-
-        // Obtener cortes de un tipo específico
-        List<Corte> cortes = corteRepository.findByTipo(tipo);
-        
-        // Obtener inventarios para esos cortes
-        List<Long> cortesIds = cortes.stream().map(Corte::getId).collect(Collectors.toList());
-        Map<Long, Map<Long, Double>> inventariosPorCorteYSede = 
-            inventarioCorteRepository.findByCorteIdIn(cortesIds).stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getCorte().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        InventarioCorte::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return cortes.stream()
-            .map(corte -> convertirADTO(corte, inventariosPorCorteYSede.get(corte.getId()), null))
-            .collect(Collectors.toList());
+        return consultar(null, tipoStr, null, null, null, null, null, false);
     }
 
     public List<CorteInventarioCompletoDTO> obtenerInventarioCompletoPorColor(String colorStr) {
-        // Convertir String a enum
-        ColorProducto color;
-        try {
-            color = ColorProducto.valueOf(colorStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException("Color de producto inválido: " + colorStr);
-        }
-
-        // Obtener cortes de un color específico
-        List<Corte> cortes = corteRepository.findByColor(color);
-        
-        // Obtener inventarios para esos cortes
-        List<Long> cortesIds = cortes.stream().map(Corte::getId).collect(Collectors.toList());
-        Map<Long, Map<Long, Double>> inventariosPorCorteYSede = 
-            inventarioCorteRepository.findByCorteIdIn(cortesIds).stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getCorte().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        InventarioCorte::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return cortes.stream()
-            .map(corte -> convertirADTO(corte, inventariosPorCorteYSede.get(corte.getId()), null))
-            .collect(Collectors.toList());
+        return consultar(null, null, colorStr, null, null, null, null, false);
     }
 
     /**
-     * Cortes con stock estrictamente en {@code sedeId} (cantidad &gt; 0 vía
-     * {@link InventarioCorteRepository#findBySedeIdWithStock(long)}). El DTO sigue
+     * Cortes con stock estrictamente en {@code sedeId} (cantidad &gt; 0 en esa sede). El DTO sigue
      * trayendo el desglose tri-sede; solo la columna de esta sede tendrá cantidad.
      */
     public List<CorteInventarioCompletoDTO> obtenerInventarioCompletoPorSede(Long sedeId) {
-        List<InventarioCorte> inventariosSede = inventarioCorteRepository.findBySedeIdWithStock(sedeId);
-        
-        // Obtener los cortes únicos
-        List<Long> cortesIds = inventariosSede.stream()
-            .map(inv -> inv.getCorte().getId())
-            .distinct()
-            .collect(Collectors.toList());
-        
-        // Obtener cortes
-        List<Corte> cortes = corteRepository.findByIdIn(cortesIds);
-        
-        // Crear mapa de inventarios por corte y sede (solo para esta sede)
-        Map<Long, Map<Long, Double>> inventariosPorCorteYSede = 
-            inventariosSede.stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getCorte().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        InventarioCorte::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return cortes.stream()
-            .map(corte -> convertirADTO(corte, inventariosPorCorteYSede.get(corte.getId()), sedeId))
+        return consultar(null, null, null, null, null, null, sedeId, true);
+    }
+
+    /**
+     * 🔑 INVENTARIO DE CORTES PAGINADO POR CURSOR (keyset sobre codigo/largo/id)
+     * Filtros, pivote por sede, orden y límite se resuelven en una sola consulta SQL.
+     * Enviar cursor vacío (o null) para la primera página y luego el nextCursor de la respuesta.
+     *
+     * @param sedeId       con valor: solo cortes con existencia &gt; 0 en esa sede (y solo su columna)
+     * @param soloConStock sin sedeId: true (default) = solo cortes con existencia &gt; 0 en alguna sede
+     */
+    public PageResponse<CorteInventarioCompletoDTO> buscarInventarioPaginado(
+            Long categoriaId,
+            String tipo,
+            String color,
+            Double largoMin,
+            Double largoMax,
+            String query,
+            Long sedeId,
+            Boolean soloConStock,
+            Integer size,
+            String cursor) {
+
+        int tamano = (size == null || size < 1) ? TAMANO_POR_DEFECTO : Math.min(size, TAMANO_MAXIMO);
+
+        String cursorCodigo = null;
+        Double cursorLargo = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] partes = CursorToken.decode(cursor, 3);
+            try {
+                cursorCodigo = partes[0];
+                cursorLargo = Double.valueOf(partes[1]);
+                cursorId = Long.valueOf(partes[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+        }
+
+        List<CorteInventarioCompletoDTO> filas = consultar(
+            categoriaId, tipo, color, largoMin, largoMax, query, sedeId,
+            soloConStock == null || soloConStock,
+            cursorCodigo, cursorLargo, cursorId, tamano + 1);
+
+        boolean hayMas = filas.size() > tamano;
+        List<CorteInventarioCompletoDTO> pagina = hayMas ? new ArrayList<>(filas.subList(0, tamano)) : filas;
+
+        String nextCursor = null;
+        if (hayMas) {
+            CorteInventarioCompletoDTO ultima = pagina.get(pagina.size() - 1);
+            nextCursor = CursorToken.encode(
+                ultima.getCodigo(), String.valueOf(ultima.getLargoCm()), String.valueOf(ultima.getId()));
+        }
+
+        return PageResponse.ofCursor(pagina, tamano, nextCursor, cursorId != null);
+    }
+
+    private List<CorteInventarioCompletoDTO> consultar(
+            Long categoriaId, String tipo, String color, Double largoMin, Double largoMax,
+            String query, Long sedeId, boolean soloConStock) {
+        return consultar(categoriaId, tipo, color, largoMin, largoMax, query, sedeId, soloConStock,
+            null, null, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Valida los filtros, ejecuta la consulta pivotada y arma los DTOs directamente desde las filas
+     */
+    private List<CorteInventarioCompletoDTO> consultar(
+            Long categoriaId, String tipoStr, String colorStr, Double largoMin, Double largoMax,
+            String query, Long sedeId, boolean soloConStock,
+            String cursorCodigo, Double cursorLargo, Long cursorId, int limite) {
+
+        String tipo = null;
+        if (tipoStr != null && !tipoStr.isBlank()) {
+            try {
+                tipo = TipoProducto.valueOf(tipoStr.trim().toUpperCase()).name();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Tipo de producto inválido: " + tipoStr);
+            }
+        }
+        String color = null;
+        if (colorStr != null && !colorStr.isBlank()) {
+            try {
+                color = ColorProducto.valueOf(colorStr.trim().toUpperCase()).name();
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Color de producto inválido: " + colorStr);
+            }
+        }
+        if (largoMin != null && largoMax != null && largoMax < largoMin) {
+            throw new IllegalArgumentException("El largo máximo no puede ser menor que el largo mínimo");
+        }
+        String patron = (query == null || query.isBlank())
+            ? null
+            : "%" + query.trim().toLowerCase(Locale.ROOT) + "%";
+
+        Long insulaId = sedeIdOPorDefecto("insula", 1L);
+        Long centroId = sedeIdOPorDefecto("centro", 2L);
+        Long patiosId = sedeIdOPorDefecto("patios", 3L);
+
+        List<Object[]> filas = corteRepository.buscarInventarioPivotado(
+            insulaId, centroId, patiosId,
+            categoriaId, tipo, color, largoMin, largoMax, patron,
+            sedeId, soloConStock,
+            cursorCodigo, cursorLargo, cursorId, limite);
+
+        return filas.stream()
+            .map(fila -> convertirADTO(fila, sedeId, insulaId, centroId, patiosId))
             .collect(Collectors.toList());
     }
 
+    private Long sedeIdOPorDefecto(String nombreSede, Long porDefecto) {
+        Long id = obtenerSedeId(nombreSede);
+        return id != null ? id : porDefecto;
+    }
+
     /**
      * {@code filtroSedeInventario} = cuando no es {@code null}: se solicitó
-     * {@link #obtenerInventarioCompletoPorSede(long)} o {@code ?sedeId=}; el mapa solo trae
-     * filas de esa sede, pero las claves reales de {@code inventario_cortes} deben mapear a
-     * Insula/Centro/Patios usando el <strong>id de sede de la query</strong> (1,2,3), no solo
-     * {@link #obtenerSedeId(String)} por nombre (si no coincide, antes quedaba en 0 o se mezclaba
-     * con otra sede y el total parecía “suma de todo”).
+     * {@link #obtenerInventarioCompletoPorSede(Long)} o {@code ?sedeId=}; solo la columna de esa
+     * sede conserva su cantidad, las otras quedan en 0 (el total no es la “suma de todo”).
      */
     private CorteInventarioCompletoDTO convertirADTO(
-            Corte corte, Map<Long, Double> inventariosPorSede, Long filtroSedeInventario) {
-        double insU;
-        double cenU;
-        double patU;
+            Object[] fila, Long filtroSedeInventario, Long insulaId, Long centroId, Long patiosId) {
+        double insU = aDouble(fila[7]);
+        double cenU = aDouble(fila[8]);
+        double patU = aDouble(fila[9]);
         if (filtroSedeInventario != null) {
-            double v = 0.0;
-            if (inventariosPorSede != null) {
-                if (inventariosPorSede.containsKey(filtroSedeInventario)) {
-                    v = inventariosPorSede.get(filtroSedeInventario);
-                } else if (inventariosPorSede.size() == 1) {
-                    v = inventariosPorSede.values().iterator().next();
-                } else {
-                    for (Map.Entry<Long, Double> e : inventariosPorSede.entrySet()) {
-                        v += e.getValue() != null ? e.getValue() : 0.0;
-                    }
-                }
-            }
-            insU = filtroSedeInventario.equals(1L) ? v : 0.0;
-            cenU = filtroSedeInventario.equals(2L) ? v : 0.0;
-            patU = filtroSedeInventario.equals(3L) ? v : 0.0;
-            if (filtroSedeInventario != 1L && filtroSedeInventario != 2L && filtroSedeInventario != 3L) {
-                Long ins = obtenerSedeId("insula");
-                Long cen = obtenerSedeId("centro");
-                Long pat = obtenerSedeId("patios");
-                insU = ins != null && filtroSedeInventario.equals(ins) ? v : 0.0;
-                cenU = cen != null && filtroSedeInventario.equals(cen) ? v : 0.0;
-                patU = pat != null && filtroSedeInventario.equals(pat) ? v : 0.0;
-            }
-        } else {
-            Long insulaId = obtenerSedeId("insula");
-            Long centroId = obtenerSedeId("centro");
-            Long patiosId = obtenerSedeId("patios");
-            insU = inventariosPorSede != null && insulaId != null ? inventariosPorSede.getOrDefault(insulaId, 0.0) : 0;
-            cenU = inventariosPorSede != null && centroId != null ? inventariosPorSede.getOrDefault(centroId, 0.0) : 0;
-            patU = inventariosPorSede != null && patiosId != null ? inventariosPorSede.getOrDefault(patiosId, 0.0) : 0;
+            insU = filtroSedeInventario.equals(insulaId) ? insU : 0.0;
+            cenU = filtroSedeInventario.equals(centroId) ? cenU : 0.0;
+            patU = filtroSedeInventario.equals(patiosId) ? patU : 0.0;
         }
 
-        String categoriaNombre = corte.getCategoria() != null ? corte.getCategoria().getNombre() : null;
-        String tipoProducto = corte.getTipo() != null ? corte.getTipo().name() : null;
-        String colorProducto = corte.getColor() != null ? corte.getColor().name() : null;
-
         return new CorteInventarioCompletoDTO(
-            corte.getId(),
-            corte.getCodigo(),
-            corte.getNombre(),
-            categoriaNombre,
-            tipoProducto,
-            colorProducto,
-            corte.getLargoCm(),
+            ((Number) fila[0]).longValue(),
+            (String) fila[1],
+            (String) fila[2],
+            (String) fila[3],
+            (String) fila[4],
+            (String) fila[5],
+            fila[6] != null ? ((Number) fila[6]).doubleValue() : null,
             insU,
             cenU,
             patU,
-            corte.getPrecio1(),
-            corte.getPrecio2(),
-            corte.getPrecio3()
+            fila[10] != null ? ((Number) fila[10]).doubleValue() : null,
+            fila[11] != null ? ((Number) fila[11]).doubleValue() : null,
+            fila[12] != null ? ((Number) fila[12]).doubleValue() : null
         );
     }
+
+    private static double aDouble(Object valor) {
+        return valor != null ? ((Number) valor).doubleValue() : 0.0;
+    }
 }
@@ -1,6 +1,7 @@
 package com.casaglass.casaglass_backend.service;
 
 import com.casaglass.casaglass_backend.model.Categoria;
+import com.casaglass.casaglass_backend.model.ColorProducto;
 import com.casaglass.casaglass_backend.model.Corte;
 import com.casaglass.casaglass_backend.model.Producto;
 import com.casaglass.casaglass_backend.model.InventarioCorte;
@@ -9,6 +10,7 @@ import com.casaglass.casaglass_backend.repository.CategoriaRepository;
 import com.casaglass.casaglass_backend.repository.CorteRepository;
 import com.casaglass.casaglass_backend.dto.CorteActualizarCompletoDTO;
 import com.casaglass.casaglass_backend.dto.CorteInventarioCompletoDTO;
+import com.casaglass.casaglass_backend.service.CorteIndiceService.Entrada;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,8 +18,6 @@ import java.text.Normalizer;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.Objects;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -29,18 +29,21 @@ public class CorteService {
     private final com.casaglass.casaglass_backend.service.SedeService sedeService;
     private final com.casaglass.casaglass_backend.repository.ProductoRepository productoRepository;
     private final com.casaglass.casaglass_backend.service.InventarioService inventarioService;
+    private final CorteIndiceService corteIndiceService;
 
     public CorteService(CorteRepository repository, CategoriaRepository categoriaRepository,
                         com.casaglass.casaglass_backend.service.InventarioCorteService inventarioCorteService,
                         com.casaglass.casaglass_backend.service.SedeService sedeService,
                         com.casaglass.casaglass_backend.repository.ProductoRepository productoRepository,
-                        com.casaglass.casaglass_backend.service.InventarioService inventarioService) {
+                        com.casaglass.casaglass_backend.service.InventarioService inventarioService,
+                        CorteIndiceService corteIndiceService) {
         this.repository = repository;
         this.categoriaRepository = categoriaRepository;
         this.inventarioCorteService = inventarioCorteService;
         this.sedeService = sedeService;
         this.productoRepository = productoRepository;
         this.inventarioService = inventarioService;
+        this.corteIndiceService = corteIndiceService;
     }
 
     private final CorteRepository repository;
@@ -107,83 +110,108 @@ public class CorteService {
     /**
      * Misma semántica que {@link com.casaglass.casaglass_backend.service.OrdenService#crearCorteIndividual} paso 0,
      * más tolerancia para no duplicar filas (mismo código + medida × color + categoría).
+     * Los candidatos salen de {@link CorteIndiceService}; solo se lee de BD el corte elegido.
      */
     private Corte buscarCorteReutilizableParaTraslado(
             Producto p, String codigo, int medidaCm, double largoBuscado) {
-        if (p.getCategoria() != null && p.getColor() != null) {
-            List<Corte> priorizados = repository.findExistingByCodigoAndSpecsPrioritizedBySede(
-                    codigo, largoBuscado, p.getCategoria().getId(), p.getColor(), SEDE_INSULA_RESOLVER_REF);
-            if (priorizados != null && !priorizados.isEmpty()) {
-                return priorizados.get(0);
-            }
-            List<Corte> exact = repository.findByCodigoAndColorAndCategoria_IdAndLargoCm(
-                    codigo, p.getColor(), p.getCategoria().getId(), largoBuscado);
-            if (exact != null && !exact.isEmpty()) {
-                return exact.get(0);
+        Long categoriaId = p.getCategoria() != null ? p.getCategoria().getId() : null;
+        if (categoriaId != null && p.getColor() != null) {
+            Corte exacto = buscarExistentePorEspecificaciones(
+                    codigo, largoBuscado, categoriaId, p.getColor(), SEDE_INSULA_RESOLVER_REF);
+            if (exacto != null) {
+                return exacto;
             }
         }
-        List<Corte> candidatos = repository.findByCodigoAndLargoCmOrderByIdDesc(codigo, largoBuscado);
-        if (candidatos == null || candidatos.isEmpty()) {
+        List<Entrada> candidatos = corteIndiceService.buscarPorLargo(codigo, largoBuscado);
+        if (candidatos.isEmpty()) {
             double tol = 0.5;
-            List<Corte> porRango = repository.findByLargoCmBetween(medidaCm - tol, medidaCm + tol).stream()
-                    .filter(c -> codigo.equals(c.getCodigo()))
-                    .collect(Collectors.toList());
-            if (porRango != null && !porRango.isEmpty()) {
-                if (p.getColor() != null) {
-                    Optional<Corte> m = porRango.stream()
-                            .filter(c -> c.getColor() != null && p.getColor().equals(c.getColor()))
-                            .min(Comparator.comparing(Corte::getId));
-                    if (m.isPresent()) {
-                        return m.get();
-                    }
-                }
-                if (p.getCategoria() != null) {
-                    Optional<Corte> m = porRango.stream()
-                            .filter(c -> c.getCategoria() != null
-                                    && p.getCategoria().getId().equals(c.getCategoria().getId()))
-                            .min(Comparator.comparing(Corte::getId));
-                    if (m.isPresent()) {
-                        return m.get();
-                    }
-                }
-                if (porRango.size() == 1) {
-                    return porRango.get(0);
-                }
-                return porRango.stream().min(Comparator.comparing(Corte::getId)).orElse(null);
-            }
-        } else {
-            if (p.getColor() != null) {
-                List<Corte> conColor = candidatos.stream()
-                        .filter(c -> c.getColor() != null && p.getColor().equals(c.getColor()))
-                        .toList();
-                if (!conColor.isEmpty()) {
-                    if (p.getCategoria() != null) {
-                        Optional<Corte> c = conColor.stream()
-                                .filter(x -> x.getCategoria() != null
-                                        && p.getCategoria().getId().equals(x.getCategoria().getId()))
-                                .min(Comparator.comparing(Corte::getId));
-                        if (c.isPresent()) {
-                            return c.get();
-                        }
+            candidatos = corteIndiceService.buscarEnRango(codigo, medidaCm - tol, medidaCm + tol);
+        }
+        Entrada elegido = elegirCandidato(candidatos, p.getColor(), categoriaId);
+        return elegido != null ? cargarDesdeIndice(codigo, elegido) : null;
+    }
+
+    /**
+     * Prioridad: mismo color (y dentro de él misma categoría), luego misma categoría, luego el más antiguo
+     */
+    private Entrada elegirCandidato(List<Entrada> candidatos, ColorProducto color, Long categoriaId) {
+        if (candidatos.isEmpty()) {
+            return null;
+        }
+        Comparator<Entrada> porId = Comparator.comparing(Entrada::id);
+        if (color != null) {
+            List<Entrada> conColor = candidatos.stream()
+                    .filter(c -> color.equals(c.color()))
+                    .toList();
+            if (!conColor.isEmpty()) {
+                if (categoriaId != null) {
+                    Optional<Entrada> c = conColor.stream()
+                            .filter(x -> categoriaId.equals(x.categoriaId()))
+                            .min(porId);
+                    if (c.isPresent()) {
+                        return c.get();
                     }
-                    return conColor.stream().min(Comparator.comparing(Corte::getId)).orElse(null);
-                }
-            }
-            if (p.getCategoria() != null) {
-                Optional<Corte> byCat = candidatos.stream()
-                        .filter(c -> c.getCategoria() != null
-                                && Objects.equals(p.getCategoria().getId(), c.getCategoria().getId()))
-                        .min(Comparator.comparing(Corte::getId));
-                if (byCat.isPresent()) {
-                    return byCat.get();
                 }
+                return conColor.stream().min(porId).orElse(null);
             }
-            if (candidatos.size() == 1) {
-                return candidatos.get(0);
+        }
+        if (categoriaId != null) {
+            Optional<Entrada> byCat = candidatos.stream()
+                    .filter(c -> categoriaId.equals(c.categoriaId()))
+                    .min(porId);
+            if (byCat.isPresent()) {
+                return byCat.get();
             }
-            return candidatos.stream().min(Comparator.comparing(Corte::getId)).orElse(null);
         }
-        return null;
+        return candidatos.stream().min(porId).orElse(null);
+    }
+
+    /**
+     * 📏 CORTE EXISTENTE CON MISMO (código, largo, categoría, color)
+     * Se resuelve en {@link CorteIndiceService}: con una sola coincidencia la lee por id y solo
+     * con duplicados legacy se consulta la prioridad por sede en BD (el que ya tiene fila de
+     * inventario en {@code sedeId}, luego el más reciente). Si el índice no tiene el corte se
+     * confirma en BD, porque otra instancia pudo crearlo después de cargar el código.
+     *
+     * @return el corte a reutilizar o null si no existe
+     */
+    public Corte buscarExistentePorEspecificaciones(String codigo, double largoCm, Long categoriaId,
+                                                    ColorProducto color, Long sedeId) {
+        List<Entrada> exactos = corteIndiceService.buscarExactos(codigo, largoCm, color, categoriaId);
+        if (exactos.isEmpty()) {
+            return buscarExistenteEnBd(codigo, largoCm, categoriaId, color);
+        }
+        if (exactos.size() == 1) {
+            Corte corte = cargarDesdeIndice(codigo, exactos.get(0));
+            return corte != null ? corte : buscarExistenteEnBd(codigo, largoCm, categoriaId, color);
+        }
+        List<Corte> priorizados = repository.findExistingByCodigoAndSpecsPrioritizedBySede(
+                codigo, largoCm, categoriaId, color, sedeId);
+        return !priorizados.isEmpty() ? priorizados.get(0) : buscarExistenteEnBd(codigo, largoCm, categoriaId, color);
+    }
+
+    /**
+     * Fallo del índice: consulta directa y, si la BD sí tiene el corte, recarga el código
+     */
+    private Corte buscarExistenteEnBd(String codigo, double largoCm, Long categoriaId, ColorProducto color) {
+        List<Corte> existentes = repository.findExistingByCodigoAndSpecs(codigo, largoCm, categoriaId, color);
+        if (existentes.isEmpty()) {
+            return null;
+        }
+        corteIndiceService.invalidar(codigo);
+        return existentes.get(0);
+    }
+
+    /**
+     * Lee el corte elegido en el índice; si ya no existe (eliminado por otra vía) recarga el código
+     */
+    private Corte cargarDesdeIndice(String codigo, Entrada entrada) {
+        Optional<Corte> corte = repository.findById(entrada.id());
+        if (corte.isEmpty()) {
+            corteIndiceService.invalidar(codigo);
+            return null;
+        }
+        return corte.get();
     }
 
     public Optional<Corte> obtenerPorCodigo(String codigo) {
@@ -228,6 +256,7 @@ public class CorteService {
             // ...existing code...
             
             Corte saved = repository.save(corte);
+            corteIndiceService.registrar(saved);
             return saved;
             
         } catch (Exception e) {
@@ -301,6 +330,7 @@ public class CorteService {
                         }
 
                         Corte saved = repository.save(corteExistente);
+                        corteIndiceService.registrar(saved);
                         return saved;
                         
                     } catch (Exception e) {
@@ -368,7 +398,9 @@ public class CorteService {
                             corteExistente.setLargoCm(dto.getLargoCm());
                         }
 
-                        return repository.save(corteExistente);
+                        Corte saved = repository.save(corteExistente);
+                        corteIndiceService.registrar(saved);
+                        return saved;
                     } catch (Exception e) {
                         throw new RuntimeException("Error al actualizar corte completo: " + e.getMessage(), e);
                     }
@@ -453,6 +485,7 @@ public class CorteService {
             throw new RuntimeException("Corte no encontrado con ID: " + id);
         }
         repository.deleteById(id);
+        corteIndiceService.quitar(id);
     }
 
     // Búsquedas especializadas
@@ -577,31 +610,18 @@ public class CorteService {
                 .findFirst()
                 .orElseThrow(() -> new IllegalArgumentException("No se encontró el producto base equivalente para sumar inventario."));
 
-            var inventarioOpt = inventarioService.obtenerPorProductoYSede(productoBase.getId(), sedeId);
-            if (inventarioOpt.isPresent()) {
-                var inventario = inventarioOpt.get();
-                inventario.setCantidad(inventario.getCantidad() + 1.0);
-                inventarioService.actualizar(inventario.getId(), inventario);
-            } else {
-                var nuevoInventario = new com.casaglass.casaglass_backend.model.Inventario();
-                nuevoInventario.setProducto(productoBase);
-                nuevoInventario.setSede(inv1.getSede());
-                nuevoInventario.setCantidad(1.0);
-                inventarioService.guardar(nuevoInventario);
-            }
+            inventarioService.aplicarDelta(productoBase.getId(), sedeId, 1.0);
         } else {
             // Caso: NO suman 600cm → buscar o crear corte resultante y sumar inventario
             // Buscar si ya existe un corte con mismo código, color, categoría y largo = suma
-            var cortesCoincidentes = repository.findByCodigoAndColorAndCategoria_IdAndLargoCm(
+            Corte corteResultante = buscarExistentePorEspecificaciones(
                 corte1.getCodigo(),
-                corte1.getColor(),
+                suma,
                 corte1.getCategoria() != null ? corte1.getCategoria().getId() : null,
-                suma
+                corte1.getColor(),
+                sedeId
             );
-            Corte corteResultante;
-            if (cortesCoincidentes != null && !cortesCoincidentes.isEmpty()) {
-                corteResultante = cortesCoincidentes.get(0);
-            } else {
+            if (corteResultante == null) {
                 // Crear nuevo corte resultante
                 corteResultante = new Corte();
                 corteResultante.setCodigo(corte1.getCodigo());
@@ -620,6 +640,7 @@ public class CorteService {
                 corteResultante.setNombre(nombreBase + " Corte de " + medidaStr + " CMS");
                 corteResultante.setCantidad(0.0);
                 corteResultante = repository.save(corteResultante);
+                corteIndiceService.registrar(corteResultante);
             }
             // Sumar 1 al inventario del corte resultante en la sede
             var invResultOpt = inventarioCorteService.obtenerPorCorteYSede(corteResultante.getId(), sedeId);
@@ -0,0 +1,154 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.ProductoCostoHistorial;
+import com.casaglass.casaglass_backend.repository.ProductoCostoHistorialRepository;
+import com.casaglass.casaglass_backend.repository.ProductoRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 💲 COSTO PROMEDIO PONDERADO DE PRODUCTOS
+ *
+ * El costo de cada producto se calcula en el servidor al procesar un ingreso:
+ *   costoNuevo = (stockTotal * costoActual + valorIngresado) / (stockTotal + cantidadIngresada)
+ * donde stockTotal es la suma del inventario de todas las sedes ANTES del ingreso. Si no hay
+ * stock (o el producto no tenía costo) el costo nuevo es el del ingreso.
+ *
+ * Costo y stock de todos los productos del ingreso se leen en una sola consulta que bloquea
+ * sus filas (FOR UPDATE) hasta el commit, así dos ingresos simultáneos del mismo producto no
+ * promedian sobre el mismo stock. Cada cambio queda en producto_costos_historial para que los
+ * reportes de margen tomen el costo vigente a una fecha sin recalcular.
+ */
+@Service
+@Transactional
+public class CostoPromedioService {
+
+    private static final String SQL_ACTUALIZAR_COSTO =
+        "UPDATE productos SET costo = ?, version = COALESCE(version, 0) + 1 WHERE id = ?";
+
+    private static final String SQL_INSERTAR_HISTORIAL =
+        "INSERT INTO producto_costos_historial (producto_id, ingreso_id, fecha, origen, stock_anterior, " +
+        "costo_anterior, cantidad_ingresada, costo_ingreso, costo_nuevo) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /** Lo que entra de un producto en un ingreso: unidades y valor total (cantidad * costo unitario) */
+    public record Entrada(double cantidad, double valor) {
+    }
+
+    /**
+     * Costos resultantes: el costo nuevo de cada producto y los IDs cuyo costo cambió
+     * (esas filas de productos se escribieron por SQL y su versión subió)
+     */
+    public record Resultado(Map<Long, Double> costos, Set<Long> actualizados) {
+    }
+
+    private final ProductoRepository productoRepository;
+    private final ProductoCostoHistorialRepository historialRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public CostoPromedioService(ProductoRepository productoRepository,
+                                ProductoCostoHistorialRepository historialRepository,
+                                JdbcTemplate jdbcTemplate) {
+        this.productoRepository = productoRepository;
+        this.historialRepository = historialRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Aplica el promedio ponderado de un ingreso. Debe llamarse ANTES de sumar las cantidades
+     * al inventario: el stock que se promedia es el previo al ingreso.
+     */
+    public Resultado aplicarEntradas(Long ingresoId, Map<Long, Entrada> entradas) {
+        if (entradas == null || entradas.isEmpty()) {
+            return new Resultado(Map.of(), Set.of());
+        }
+
+        List<Long> ids = new ArrayList<>(new TreeMap<>(entradas).keySet());
+        Map<Long, Object[]> actuales = new HashMap<>();
+        for (Object[] fila : productoRepository.bloquearCostoYStockTotal(ids)) {
+            actuales.put(((Number) fila[0]).longValue(), fila);
+        }
+
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        Map<Long, Double> costos = new HashMap<>();
+        Set<Long> actualizados = new HashSet<>();
+        List<Object[]> cambiosCosto = new ArrayList<>();
+        List<Object[]> historial = new ArrayList<>();
+        for (Long productoId : ids) {
+            Object[] actual = actuales.get(productoId);
+            if (actual == null) {
+                throw new IllegalArgumentException("Producto con ID " + productoId + " no encontrado");
+            }
+            Entrada entrada = entradas.get(productoId);
+            if (entrada.cantidad() <= 0) {
+                throw new IllegalArgumentException("La cantidad ingresada debe ser mayor a 0 para el producto ID: " + productoId);
+            }
+            Double costoAnterior = actual[1] != null ? ((Number) actual[1]).doubleValue() : null;
+            double stockAnterior = ((Number) actual[2]).doubleValue();
+            double costoIngreso = redondear(entrada.valor() / entrada.cantidad());
+            double costoNuevo = promedioPonderado(stockAnterior, costoAnterior, entrada.cantidad(), entrada.valor());
+
+            costos.put(productoId, costoNuevo);
+            if (costoAnterior == null || costoAnterior != costoNuevo) {
+                actualizados.add(productoId);
+                cambiosCosto.add(new Object[] { costoNuevo, productoId });
+            }
+            historial.add(new Object[] {
+                productoId, ingresoId, ahora, ProductoCostoHistorial.Origen.INGRESO.name(),
+                stockAnterior, costoAnterior, entrada.cantidad(), costoIngreso, costoNuevo
+            });
+        }
+
+        if (!cambiosCosto.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ACTUALIZAR_COSTO, cambiosCosto);
+        }
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_HISTORIAL, historial);
+        return new Resultado(costos, actualizados);
+    }
+
+    /**
+     * Registra en el historial un cambio manual del costo (el producto ya se guardó)
+     */
+    public void registrarAjusteManual(Long productoId, Double costoAnterior, Double costoNuevo) {
+        if (costoNuevo == null || costoNuevo.equals(costoAnterior)) {
+            return;
+        }
+        ProductoCostoHistorial ajuste = new ProductoCostoHistorial();
+        ajuste.setProductoId(productoId);
+        ajuste.setFecha(LocalDateTime.now());
+        ajuste.setOrigen(ProductoCostoHistorial.Origen.AJUSTE);
+        ajuste.setCostoAnterior(costoAnterior);
+        ajuste.setCantidadIngresada(0.0);
+        ajuste.setCostoNuevo(costoNuevo);
+        historialRepository.save(ajuste);
+    }
+
+    /**
+     * Historial de costos de un producto (más reciente primero)
+     */
+    @Transactional(readOnly = true)
+    public List<ProductoCostoHistorial> historial(Long productoId) {
+        return historialRepository.findByProductoIdOrderByFechaDescIdDesc(productoId);
+    }
+
+    static double promedioPonderado(double stockAnterior, Double costoAnterior, double cantidad, double valor) {
+        if (stockAnterior <= 0 || costoAnterior == null) {
+            return redondear(valor / cantidad);
+        }
+        return redondear((stockAnterior * costoAnterior + valor) / (stockAnterior + cantidad));
+    }
+
+    private static double redondear(double valor) {
+        return Math.round(valor * 100.0) / 100.0;
+    }
+}
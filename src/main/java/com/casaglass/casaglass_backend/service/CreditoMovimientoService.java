@@ -0,0 +1,387 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.Abono;
+import com.casaglass.casaglass_backend.model.Credito;
+import com.casaglass.casaglass_backend.model.CreditoCorteMes;
+import com.casaglass.casaglass_backend.model.CreditoMovimiento;
+import com.casaglass.casaglass_backend.model.CreditoMovimiento.TipoMovimiento;
+import com.casaglass.casaglass_backend.model.Orden;
+import com.casaglass.casaglass_backend.repository.CreditoCorteMesRepository;
+import com.casaglass.casaglass_backend.repository.CreditoMovimientoRepository;
+import com.casaglass.casaglass_backend.repository.CreditoRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 📒 LIBRO DE MOVIMIENTOS DE CRÉDITOS (saldo a una fecha)
+ *
+ * Cada crédito se representa como movimientos con fecha efectiva: APERTURA (+total),
+ * RETENCION (−retenciones), ABONO (−pago) y ANULACION (−saldo restante). El saldo de un
+ * crédito a una fecha es la suma de sus movimientos con fecha <= esa fecha, así que
+ * "créditos activos al fin del mes" es una sola consulta agregada sobre el índice.
+ *
+ * El libro solo crece: cuando un crédito cambia (abono editado, retención nueva, anulación,
+ * eliminación) se comparan los montos esperados con los ya registrados y se agregan filas
+ * compensatorias por la diferencia. Igual que VentasDiariasService, la sincronización se
+ * difiere al beforeCommit para hacerse una sola vez por crédito y transacción.
+ *
+ * Para no recorrer todo el libro en cada consulta, el saldo de cada crédito al cierre de cada
+ * mes ya terminado se guarda en credito_saldos_mes (se arma la primera vez que se consulta, a
+ * partir del cierre anterior). El saldo a una fecha es el cierre previo + los movimientos
+ * posteriores. Un movimiento con fecha atrasada borra los cierres desde su mes.
+ */
+@Service
+@Transactional
+public class CreditoMovimientoService {
+
+    private static final Logger log = LoggerFactory.getLogger(CreditoMovimientoService.class);
+
+    /** Clave del recurso de transacción con los créditos pendientes de sincronizar */
+    private static final Object CREDITOS_PENDIENTES = new Object();
+
+    private static final int CREDITOS_POR_LOTE = 200;
+    private static final double TOLERANCIA = 0.005;
+
+    private final CreditoMovimientoRepository movimientoRepository;
+    private final CreditoRepository creditoRepository;
+    private final CreditoCorteMesRepository corteRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transaccionNueva;
+
+    /** Evita que dos hilos de esta instancia armen cierres al mismo tiempo */
+    private final Object construccionCortes = new Object();
+
+    public CreditoMovimientoService(CreditoMovimientoRepository movimientoRepository,
+                                    CreditoRepository creditoRepository,
+                                    CreditoCorteMesRepository corteRepository,
+                                    EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager) {
+        this.movimientoRepository = movimientoRepository;
+        this.creditoRepository = creditoRepository;
+        this.corteRepository = corteRepository;
+        this.entityManager = entityManager;
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Marca un crédito como modificado
+     * Con transacción activa la sincronización se difiere al beforeCommit;
+     * sin transacción se sincroniza de inmediato
+     */
+    public void registrarCambio(Long creditoId) {
+        if (creditoId == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sincronizar(creditoId);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Long> pendientes = (Set<Long>) TransactionSynchronizationManager.getResource(CREDITOS_PENDIENTES);
+        if (pendientes == null) {
+            Set<Long> nuevos = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(CREDITOS_PENDIENTES, nuevos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Volcar cambios pendientes para leer el crédito y sus abonos ya actualizados
+                    entityManager.flush();
+                    for (Long id : new ArrayList<>(nuevos)) {
+                        sincronizar(id);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CREDITOS_PENDIENTES);
+                }
+            });
+            pendientes = nuevos;
+        }
+        pendientes.add(creditoId);
+    }
+
+    /**
+     * Total de los abonos que solo existen en el libro (sin fila en la tabla de abonos), según lo
+     * ya confirmado; nunca negativo
+     */
+    @Transactional(readOnly = true)
+    public double abonosSinRegistro(Long creditoId) {
+        Double monto = movimientoRepository.sumarAbonosSinRegistro(creditoId, TipoMovimiento.ABONO);
+        return Math.max(0.0, redondear(-valor(monto)));
+    }
+
+    /**
+     * 🔄 Alinea el libro con el estado actual del crédito (si ya no existe, lleva su saldo a 0)
+     *
+     * @return cantidad de movimientos agregados
+     */
+    public int sincronizar(Long creditoId) {
+        Credito credito = creditoRepository.findById(creditoId).orElse(null);
+        return sincronizar(creditoId, credito);
+    }
+
+    int sincronizar(Long creditoId, Credito credito) {
+        Map<Clave, Double> registrado = new LinkedHashMap<>();
+        for (Object[] fila : movimientoRepository.resumirPorCredito(creditoId)) {
+            TipoMovimiento tipo = (TipoMovimiento) fila[0];
+            Long abonoId = (Long) fila[1];
+            // Los abonos sin registro propio se comparan por total, sin importar su fecha
+            LocalDate fecha = (tipo == TipoMovimiento.ABONO && abonoId == null) ? null : (LocalDate) fila[2];
+            Clave clave = new Clave(tipo, abonoId, fecha, (Long) fila[3]);
+            registrado.merge(clave, ((Number) fila[4]).doubleValue(), Double::sum);
+        }
+
+        Map<Clave, Double> esperado = credito != null ? calcularEsperado(credito) : Map.of();
+
+        Set<Clave> claves = new LinkedHashSet<>(esperado.keySet());
+        claves.addAll(registrado.keySet());
+
+        double saldo = registrado.values().stream().mapToDouble(Double::doubleValue).sum();
+        LocalDateTime ahora = LocalDateTime.now();
+        List<CreditoMovimiento> nuevos = new ArrayList<>();
+        for (Clave clave : claves) {
+            double diferencia = redondear(esperado.getOrDefault(clave, 0.0) - registrado.getOrDefault(clave, 0.0));
+            if (Math.abs(diferencia) < TOLERANCIA) {
+                continue;
+            }
+            saldo = redondear(saldo + diferencia);
+            LocalDate fecha = clave.fecha() != null ? clave.fecha() : fechaAbonoSinRegistro(credito);
+            nuevos.add(new CreditoMovimiento(null, creditoId, clave.sedeId(), fecha, clave.tipo(),
+                clave.abonoId(), diferencia, saldo, ahora));
+        }
+
+        if (!nuevos.isEmpty()) {
+            // Antes de insertar: quien arma cierres bloquea primero credito_cortes_mes y luego lee el libro
+            nuevos.stream().map(CreditoMovimiento::getFecha).min(LocalDate::compareTo)
+                .ifPresent(this::invalidarCortesDesde);
+            movimientoRepository.saveAll(nuevos);
+        }
+        return nuevos.size();
+    }
+
+    /**
+     * Montos que el libro debería tener para el crédito en su estado actual
+     */
+    private Map<Clave, Double> calcularEsperado(Credito credito) {
+        Orden orden = credito.getOrden();
+        Long sedeId = (orden != null && orden.getSede() != null) ? orden.getSede().getId() : null;
+        LocalDate inicio = credito.getFechaInicio() != null ? credito.getFechaInicio() : LocalDate.now();
+
+        Map<Clave, Double> esperado = new LinkedHashMap<>();
+        double total = valor(credito.getTotalCredito());
+        esperado.merge(new Clave(TipoMovimiento.APERTURA, null, inicio, sedeId), total, Double::sum);
+
+        double retenciones = 0.0;
+        if (orden != null) {
+            if (orden.isTieneRetencionFuente()) {
+                retenciones += valor(orden.getRetencionFuente());
+            }
+            if (orden.isTieneRetencionIca()) {
+                retenciones += valor(orden.getRetencionIca());
+            }
+        }
+        esperado.merge(new Clave(TipoMovimiento.RETENCION, null, inicio, sedeId), -retenciones, Double::sum);
+
+        double totalAbonos = 0.0;
+        if (credito.getAbonos() != null) {
+            for (Abono abono : credito.getAbonos()) {
+                if (abono.getId() == null || abono.getFecha() == null) {
+                    continue;
+                }
+                double monto = valor(abono.getTotal());
+                totalAbonos += monto;
+                esperado.merge(new Clave(TipoMovimiento.ABONO, abono.getId(), abono.getFecha(), sedeId), -monto, Double::sum);
+            }
+        }
+
+        // Abonos registrados solo en totalAbonado (registrarAbono, pago del cliente especial)
+        double sinRegistro = redondear(valor(credito.getTotalAbonado()) - totalAbonos);
+        esperado.merge(new Clave(TipoMovimiento.ABONO, null, null, sedeId), -sinRegistro, Double::sum);
+
+        if (credito.getEstado() == Credito.EstadoCredito.ANULADO) {
+            double restante = esperado.values().stream().mapToDouble(Double::doubleValue).sum();
+            LocalDate cierre = credito.getFechaCierre() != null ? credito.getFechaCierre() : LocalDate.now();
+            esperado.merge(new Clave(TipoMovimiento.ANULACION, null, cierre, sedeId), -restante, Double::sum);
+        }
+        return esperado;
+    }
+
+    /**
+     * Los abonos sin registro propio no tienen fecha: se toman al cierre si el crédito
+     * ya se cerró, o al día de hoy
+     */
+    private LocalDate fechaAbonoSinRegistro(Credito credito) {
+        if (credito != null && credito.getEstado() == Credito.EstadoCredito.CERRADO && credito.getFechaCierre() != null) {
+            return credito.getFechaCierre();
+        }
+        return LocalDate.now();
+    }
+
+    /**
+     * 📊 Suma de saldos pendientes (> 0) de los créditos a una fecha
+     * Lee el último cierre de mes anterior a la fecha + los movimientos posteriores;
+     * si el cierre no se puede usar, suma todo el libro
+     *
+     * @param sedeId sede de la orden del crédito (null = todas)
+     */
+    @Transactional(readOnly = true)
+    public double saldoPendienteAFecha(Long sedeId, LocalDate fecha) {
+        Objects.requireNonNull(fecha, "fecha");
+        LocalDate corte = corteAplicable(fecha, LocalDate.now());
+        Double total = null;
+        try {
+            total = saldoDesdeCorte(sedeId, corte, fecha);
+            if (total == null) {
+                construirCortesHasta(corte);
+                total = saldoDesdeCorte(sedeId, corte, fecha);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo usar el cierre de créditos de {}: {}", corte, e.getMessage());
+        }
+        if (total == null) {
+            total = sedeId != null
+                ? movimientoRepository.saldoPendienteAFechaPorSede(sedeId, fecha)
+                : movimientoRepository.saldoPendienteAFecha(fecha);
+        }
+        return total != null ? total : 0.0;
+    }
+
+    /**
+     * Último fin de mes <= fecha que ya terminó (los cierres solo se arman para meses pasados)
+     */
+    static LocalDate corteAplicable(LocalDate fecha, LocalDate hoy) {
+        LocalDate corte = fecha.with(TemporalAdjusters.lastDayOfMonth());
+        if (corte.isAfter(fecha)) {
+            corte = fecha.withDayOfMonth(1).minusDays(1);
+        }
+        while (!corte.isBefore(hoy)) {
+            corte = corte.withDayOfMonth(1).minusDays(1);
+        }
+        return corte;
+    }
+
+    /**
+     * Saldo pendiente desde el cierre, o null si el cierre no existe
+     * Transacción propia: el bloqueo compartido del cierre impide que se borre durante la suma,
+     * y la lectura ve los cierres recién confirmados aunque quien llama ya tenga su snapshot
+     */
+    private Double saldoDesdeCorte(Long sedeId, LocalDate corte, LocalDate fecha) {
+        return transaccionNueva.execute(status -> {
+            if (corteRepository.bloquearCorte(corte).isEmpty()) {
+                return null;
+            }
+            return sedeId != null
+                ? movimientoRepository.saldoPendienteDesdeCortePorSede(sedeId, corte, fecha)
+                : movimientoRepository.saldoPendienteDesdeCorte(corte, fecha);
+        });
+    }
+
+    /**
+     * 🗓️ Arma los cierres que falten hasta el mes indicado, cada uno desde el anterior
+     * (solo el primero de todos suma el libro completo)
+     */
+    private void construirCortesHasta(LocalDate corte) {
+        synchronized (construccionCortes) {
+            transaccionNueva.executeWithoutResult(status -> {
+                corteRepository.bloquearTodos();
+                LocalDate anterior = corteRepository.ultimoCorteHasta(corte);
+                if (corte.equals(anterior)) {
+                    return;
+                }
+                LocalDateTime ahora = LocalDateTime.now();
+                if (anterior == null) {
+                    corteRepository.insertarSaldosDesdeLibro(corte);
+                    corteRepository.save(new CreditoCorteMes(corte, ahora));
+                    return;
+                }
+                while (anterior.isBefore(corte)) {
+                    LocalDate mes = anterior.plusDays(1).with(TemporalAdjusters.lastDayOfMonth());
+                    corteRepository.insertarSaldosDesdeCorte(anterior, mes);
+                    corteRepository.save(new CreditoCorteMes(mes, ahora));
+                    anterior = mes;
+                }
+                log.debug("Cierres de créditos armados hasta {}", corte);
+            });
+        }
+    }
+
+    /**
+     * Borra los cierres que incluyen un movimiento con esta fecha (se vuelven a armar al consultarlos)
+     * Los cierres son siempre de meses ya terminados: un movimiento de hoy en adelante no toca ninguno
+     */
+    private void invalidarCortesDesde(LocalDate fecha) {
+        if (!fecha.isBefore(LocalDate.now())) {
+            return;
+        }
+        corteRepository.eliminarCortesDesde(fecha);
+        corteRepository.eliminarSaldosDesde(fecha);
+    }
+
+    /**
+     * Al arrancar, si el libro está vacío (primera vez), lo arma con todos los créditos existentes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarSiVacio() {
+        try {
+            if (movimientoRepository.count() > 0) {
+                return;
+            }
+            int pagina = 0;
+            long procesados = 0;
+            Page<Credito> lote;
+            do {
+                lote = creditoRepository.findAll(PageRequest.of(pagina++, CREDITOS_POR_LOTE, Sort.by("id")));
+                for (Credito credito : lote.getContent()) {
+                    sincronizar(credito.getId(), credito);
+                }
+                procesados += lote.getNumberOfElements();
+                entityManager.flush();
+                entityManager.clear();
+            } while (lote.hasNext());
+            if (procesados > 0) {
+                log.info("Libro de movimientos de créditos inicializado con {} créditos", procesados);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudo inicializar el libro de movimientos de créditos: {}", e.getMessage());
+        }
+    }
+
+    private static double valor(Double v) {
+        return v != null ? v : 0.0;
+    }
+
+    private static double redondear(double v) {
+        return Math.round(v * 100.0) / 100.0;
+    }
+
+    /** Agrupación de movimientos: tipo + abono + fecha efectiva + sede */
+    private record Clave(TipoMovimiento tipo, Long abonoId, LocalDate fecha, Long sedeId) {
+    }
+}
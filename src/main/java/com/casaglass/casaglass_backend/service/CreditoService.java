@@ -16,7 +16,9 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -28,19 +30,27 @@ public class CreditoService {
     private final FacturaRepository facturaRepository;
     private final EntregaClienteEspecialService entregaClienteEspecialService;
     private final SedeRepository sedeRepository;
+    private final CreditoMovimientoService creditoMovimientoService;
 
     public CreditoService(CreditoRepository creditoRepo,
                           EntityManager entityManager,
                           FacturaRepository facturaRepository,
                           EntregaClienteEspecialService entregaClienteEspecialService,
-                          SedeRepository sedeRepository) {
+                          SedeRepository sedeRepository,
+                          CreditoMovimientoService creditoMovimientoService) {
         this.creditoRepo = creditoRepo;
         this.entityManager = entityManager;
         this.facturaRepository = facturaRepository;
         this.entregaClienteEspecialService = entregaClienteEspecialService;
         this.sedeRepository = sedeRepository;
+        this.creditoMovimientoService = creditoMovimientoService;
     }
 
+    /** Orden cronológico de los abonos de un crédito: fecha y luego ID */
+    private static final Comparator<Abono> ORDEN_ABONOS = Comparator
+            .comparing(Abono::getFecha, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Abono::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
     /* ---------- Helpers de dinero (redondeado a 2 decimales) ---------- */
 
     private Double normalize(Double v) {
@@ -414,6 +424,7 @@ public class CreditoService {
             orden.setCreditoDetalle(credito);
 
             Credito creditoGuardado = creditoRepo.save(credito);
+            creditoMovimientoService.registrarCambio(creditoGuardado.getId());
             return creditoGuardado;
 
         } catch (Exception e) {
@@ -475,6 +486,7 @@ public class CreditoService {
             }
 
             Credito creditoActualizado = creditoRepo.save(credito);
+            creditoMovimientoService.registrarCambio(creditoActualizado.getId());
             return creditoActualizado;
 
         } catch (Exception e) {
@@ -516,12 +528,17 @@ public class CreditoService {
         credito.setTotalAbonado(normalize(credito.getTotalAbonado() + montoNormalizado));
         credito.actualizarSaldo();
 
+        creditoMovimientoService.registrarCambio(creditoId);
         return creditoRepo.save(credito);
     }
 
     /**
-     * 🔄 RECALCULAR TOTALES DE UN CRÉDITO
-     * Útil para sincronizar después de cambios en abonos
+     * 🔄 RECALCULAR TOTALES DE UN CRÉDITO (reparación completa)
+     * El total abonado sale de la tabla de abonos más los abonos que solo registra el libro de
+     * movimientos (credito_movimientos), y reescribe el saldo de cada abono.
+     * Los cambios de un solo abono usan aplicarCambioAbonos; este método queda para
+     * cambios que afectan el saldo inicial (total, retenciones) y para reparar un crédito.
+     * También alinea el libro de movimientos del crédito (saldo a una fecha).
      */
     @Transactional
     public Credito recalcularTotales(Long creditoId) {
@@ -532,13 +549,99 @@ public class CreditoService {
         Double totalAbonos = credito.getAbonos().stream()
                 .mapToDouble(abono -> abono.getTotal() != null ? abono.getTotal() : 0.0)
                 .sum();
+        totalAbonos += creditoMovimientoService.abonosSinRegistro(creditoId);
 
         credito.setTotalAbonado(normalize(totalAbonos));
         credito.actualizarSaldo();
         sincronizarSaldoPosteriorEnAbonos(credito);
+        creditoMovimientoService.registrarCambio(creditoId);
+        return creditoRepo.save(credito);
+    }
+
+    /**
+     * ⚡ APLICAR CAMBIO DE ABONOS (incremental)
+     * Para editar o eliminar un abono: ajusta totalAbonado con la diferencia y reescribe el
+     * saldo posterior solo de los abonos desde el punto de cambio (fecha, id) en adelante;
+     * los anteriores no se tocan. Para reconstruir todo desde los abonos usar recalcularTotales.
+     *
+     * @param deltaAbonado diferencia en el total abonado (negativa si se eliminó o redujo un abono)
+     * @param desdeFecha fecha del primer abono afectado (si el abono cambió de fecha, la menor de las dos)
+     * @param desdeAbonoId ID de ese abono
+     */
+    @Transactional
+    public Credito aplicarCambioAbonos(Credito credito, double deltaAbonado, LocalDate desdeFecha, Long desdeAbonoId) {
+        credito.setTotalAbonado(normalize(normalize(credito.getTotalAbonado()) + deltaAbonado));
+        credito.actualizarSaldo();
+        reescribirSaldosDesde(credito, desdeFecha, desdeAbonoId);
+        creditoMovimientoService.registrarCambio(credito.getId());
         return creditoRepo.save(credito);
     }
 
+    /**
+     * Reescribe {@link Abono#getSaldo()} de los abonos ubicados en (fecha, id) o después,
+     * partiendo del saldo del último abono anterior a ese punto (o del saldo inicial si no hay).
+     * Un abono nuevo con la fecha de hoy no mueve a ningún otro.
+     */
+    public void reescribirSaldosDesde(Credito credito, LocalDate desdeFecha, Long desdeAbonoId) {
+        if (credito.getAbonos() == null || credito.getAbonos().isEmpty()) {
+            return;
+        }
+        Abono anterior = null;
+        List<Abono> posteriores = new ArrayList<>();
+        for (Abono a : credito.getAbonos()) {
+            if (compararPosicion(a, desdeFecha, desdeAbonoId) >= 0) {
+                posteriores.add(a);
+            } else if (anterior == null || ORDEN_ABONOS.compare(a, anterior) > 0) {
+                anterior = a;
+            }
+        }
+        if (posteriores.isEmpty()) {
+            return;
+        }
+        double running = (anterior != null && anterior.getSaldo() != null) ? anterior.getSaldo() : saldoInicial(credito);
+        posteriores.sort(ORDEN_ABONOS);
+        for (Abono a : posteriores) {
+            running = normalize(running - normalize(a.getTotal()));
+            a.setSaldo(running);
+        }
+    }
+
+    /**
+     * 🔍 VERIFICAR TOTALES DE UN CRÉDITO (sin modificar nada)
+     * Compara los totales y los saldos por abono guardados contra un recálculo completo.
+     * Si no es consistente, POST /api/creditos/{id}/recalcular lo repara.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> verificarTotales(Long creditoId) {
+        Credito credito = creditoRepo.findById(creditoId)
+                .orElseThrow(() -> new IllegalArgumentException("Crédito no encontrado"));
+
+        double totalAbonos = normalize(credito.getAbonos().stream()
+                .mapToDouble(abono -> abono.getTotal() != null ? abono.getTotal() : 0.0)
+                .sum());
+
+        List<Long> abonosDesactualizados = new ArrayList<>();
+        double running = saldoInicial(credito);
+        List<Abono> ordenados = new ArrayList<>(credito.getAbonos());
+        ordenados.sort(ORDEN_ABONOS);
+        for (Abono a : ordenados) {
+            running = normalize(running - normalize(a.getTotal()));
+            if (a.getSaldo() == null || Math.abs(a.getSaldo() - running) > 0.005) {
+                abonosDesactualizados.add(a.getId());
+            }
+        }
+
+        boolean totalCorrecto = Math.abs(normalize(credito.getTotalAbonado()) - totalAbonos) <= 0.005;
+
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        resultado.put("creditoId", creditoId);
+        resultado.put("totalAbonadoGuardado", credito.getTotalAbonado());
+        resultado.put("totalAbonadoCalculado", totalAbonos);
+        resultado.put("abonosConSaldoDesactualizado", abonosDesactualizados);
+        resultado.put("consistente", totalCorrecto && abonosDesactualizados.isEmpty());
+        return resultado;
+    }
+
     /**
      * Reescribe {@link Abono#getSaldo()} en cada abono del crédito: es el saldo pendiente
      * justo después de aplicar ese abono, en orden cronológico (fecha, id).
@@ -548,6 +651,22 @@ public class CreditoService {
         if (credito.getAbonos() == null || credito.getAbonos().isEmpty()) {
             return;
         }
+        double running = saldoInicial(credito);
+
+        List<Abono> ordenados = new ArrayList<>(credito.getAbonos());
+        ordenados.sort(ORDEN_ABONOS);
+
+        for (Abono a : ordenados) {
+            double monto = normalize(a.getTotal() != null ? a.getTotal() : 0.0);
+            running = normalize(running - monto);
+            a.setSaldo(running);
+        }
+    }
+
+    /**
+     * Saldo del crédito antes de cualquier abono: total − retenciones (fuente, ICA, IVA)
+     */
+    private double saldoInicial(Credito credito) {
         double retFuente = 0.0;
         double retIca = 0.0;
         double retIva = 0.0;
@@ -564,18 +683,16 @@ public class CreditoService {
             }
         }
         double totalCredito = credito.getTotalCredito() != null ? credito.getTotalCredito() : 0.0;
-        double running = normalize(totalCredito - retFuente - retIca - retIva);
-
-        List<Abono> ordenados = new ArrayList<>(credito.getAbonos());
-        ordenados.sort(Comparator
-                .comparing(Abono::getFecha, Comparator.nullsLast(Comparator.naturalOrder()))
-                .thenComparing(Abono::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return normalize(totalCredito - retFuente - retIca - retIva);
+    }
 
-        for (Abono a : ordenados) {
-            double monto = normalize(a.getTotal() != null ? a.getTotal() : 0.0);
-            running = normalize(running - monto);
-            a.setSaldo(running);
+    /** Compara la posición cronológica (fecha, id) de un abono contra un punto dado */
+    private static int compararPosicion(Abono a, LocalDate fecha, Long id) {
+        int porFecha = Comparator.nullsLast(Comparator.<LocalDate>naturalOrder()).compare(a.getFecha(), fecha);
+        if (porFecha != 0) {
+            return porFecha;
         }
+        return Comparator.nullsLast(Comparator.<Long>naturalOrder()).compare(a.getId(), id);
     }
 
     /**
@@ -590,6 +707,7 @@ public class CreditoService {
         credito.setEstado(Credito.EstadoCredito.ANULADO);
         credito.setFechaCierre(LocalDate.now());
 
+        creditoMovimientoService.registrarCambio(creditoId);
         return creditoRepo.save(credito);
     }
 
@@ -613,6 +731,8 @@ public class CreditoService {
     @Transactional
     public void eliminar(Long creditoId) {
         creditoRepo.deleteById(creditoId);
+        // El libro no se borra: se compensa hasta dejar el saldo del crédito en 0
+        creditoMovimientoService.registrarCambio(creditoId);
     }
 
     /**
@@ -809,6 +929,7 @@ public class CreditoService {
             credito.setFechaCierre(LocalDate.now());
 
             creditoRepo.save(credito);
+            creditoMovimientoService.registrarCambio(creditoId);
 
             registros.add(new EntregaClienteEspecialService.DetalleRegistro(credito, saldoAnterior));
         }
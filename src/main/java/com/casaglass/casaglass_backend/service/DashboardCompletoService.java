@@ -1,8 +1,10 @@
 package com.casaglass.casaglass_backend.service;
 
+import com.casaglass.casaglass_backend.config.DashboardConfig;
 import com.casaglass.casaglass_backend.dto.DashboardCompletoDTO;
 import com.casaglass.casaglass_backend.model.*;
 import com.casaglass.casaglass_backend.repository.*;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,28 +15,26 @@ import java.util.stream.Collectors;
 @Service
 public class DashboardCompletoService {
 
-        private static final Set<Long> TRABAJADORES_MONITOREADOS_DASHBOARD = Set.of(12L, 13L, 14L, 15L);
-
-    private final OrdenRepository ordenRepository;
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final VentaDiariaProductoRepository ventaDiariaProductoRepository;
+    private final VentaDiariaClienteRepository ventaDiariaClienteRepository;
     private final FacturaRepository facturaRepository;
     private final CreditoRepository creditoRepository;
-    private final ClienteRepository clienteRepository;
-    private final SedeRepository sedeRepository;
-    private final ProductoRepository productoRepository;
+    private final DashboardConfig dashboardConfig;
 
     public DashboardCompletoService(
-            OrdenRepository ordenRepository,
+            VentaDiariaRepository ventaDiariaRepository,
+            VentaDiariaProductoRepository ventaDiariaProductoRepository,
+            VentaDiariaClienteRepository ventaDiariaClienteRepository,
             FacturaRepository facturaRepository,
             CreditoRepository creditoRepository,
-            ClienteRepository clienteRepository,
-            SedeRepository sedeRepository,
-            ProductoRepository productoRepository) {
-        this.ordenRepository = ordenRepository;
+            DashboardConfig dashboardConfig) {
+        this.ventaDiariaRepository = ventaDiariaRepository;
+        this.ventaDiariaProductoRepository = ventaDiariaProductoRepository;
+        this.ventaDiariaClienteRepository = ventaDiariaClienteRepository;
         this.facturaRepository = facturaRepository;
         this.creditoRepository = creditoRepository;
-        this.clienteRepository = clienteRepository;
-        this.sedeRepository = sedeRepository;
-        this.productoRepository = productoRepository;
+        this.dashboardConfig = dashboardConfig;
     }
 
     /**
@@ -57,14 +57,22 @@ public class DashboardCompletoService {
 
         DashboardCompletoDTO dashboard = new DashboardCompletoDTO();
 
+        // Las secciones de órdenes leen los acumulados diarios (ventas_diarias*),
+        // facturas y créditos se agregan en BD: ninguna sección hidrata entidades Orden
+        List<DashboardCompletoDTO.VentaPorSede> ventasPorSede = obtenerVentasPorSede(desde, hasta);
+        Map<Factura.EstadoFactura, Object[]> facturasPorEstado = indexarPorEstado(
+                facturaRepository.resumirPorEstado(desde, hasta, dashboardConfig.getTrabajadoresMonitoreados()));
+        Map<Credito.EstadoCredito, Object[]> creditosPorEstado = indexarPorEstado(
+                creditoRepository.resumirPorEstado(dashboardConfig.getTrabajadoresMonitoreados()));
+
         // 1. RESUMEN GENERAL
-        dashboard.setResumenGeneral(obtenerResumenGeneral(desde, hasta));
+        dashboard.setResumenGeneral(obtenerResumenGeneral(desde, hasta, facturasPorEstado, creditosPorEstado));
 
         // 2. VENTAS POR DÍA
         dashboard.setVentasPorDia(obtenerVentasPorDia(desde, hasta));
 
         // 3. VENTAS POR SEDE
-        dashboard.setVentasPorSede(obtenerVentasPorSede(desde, hasta));
+        dashboard.setVentasPorSede(ventasPorSede);
 
         // 4. TOP PRODUCTOS
         dashboard.setTopProductos(obtenerTopProductos(desde, hasta, 10));
@@ -73,242 +81,143 @@ public class DashboardCompletoService {
         dashboard.setTopClientes(obtenerTopClientes(desde, hasta, 10));
 
         // 6. RESUMEN CRÉDITOS
-        dashboard.setResumenCreditos(obtenerResumenCreditos());
+        dashboard.setResumenCreditos(obtenerResumenCreditos(creditosPorEstado));
 
         // 7. FACTURACIÓN POR ESTADO
-        dashboard.setFacturacionPorEstado(obtenerFacturacionPorEstado(desde, hasta));
+        dashboard.setFacturacionPorEstado(obtenerFacturacionPorEstado(facturasPorEstado));
 
         // 8. TICKET PROMEDIO POR SEDE
-        dashboard.setTicketPromedioPorSede(obtenerTicketPromedioPorSede(desde, hasta));
+        dashboard.setTicketPromedioPorSede(obtenerTicketPromedioPorSede(ventasPorSede));
 
         return dashboard;
     }
 
-    private DashboardCompletoDTO.ResumenGeneral obtenerResumenGeneral(LocalDate desde, LocalDate hasta) {
-        List<Orden> todasOrdenes = ordenRepository.findByFechaBetween(desde, hasta).stream()
-                .filter(this::esOrdenDeTrabajadorMonitoreado)
-                .collect(Collectors.toList());
-        List<Orden> ventas = todasOrdenes.stream().filter(Orden::isVenta).collect(Collectors.toList());
-        List<Orden> cotizaciones = todasOrdenes.stream().filter(o -> !o.isVenta()).collect(Collectors.toList());
-
-        Double montoVentas = ventas.stream().mapToDouble(Orden::getTotal).sum();
-        Double montoCotizaciones = cotizaciones.stream().mapToDouble(Orden::getTotal).sum();
+    private DashboardCompletoDTO.ResumenGeneral obtenerResumenGeneral(LocalDate desde, LocalDate hasta,
+                                                                      Map<Factura.EstadoFactura, Object[]> facturasPorEstado,
+                                                                      Map<Credito.EstadoCredito, Object[]> creditosPorEstado) {
+        long totalVentas = 0;
+        long totalCotizaciones = 0;
+        double montoVentas = 0.0;
+        double montoCotizaciones = 0.0;
+        for (Object[] fila : ventaDiariaRepository.resumirPorTipo(desde, hasta, dashboardConfig.getTrabajadoresMonitoreados())) {
+            if (Boolean.TRUE.equals(fila[0])) {
+                totalVentas = aLong(fila[1]);
+                montoVentas = aDouble(fila[2]);
+            } else {
+                totalCotizaciones = aLong(fila[1]);
+                montoCotizaciones = aDouble(fila[2]);
+            }
+        }
 
-        List<Factura> facturas = facturaRepository.findByFechaBetween(desde, hasta).stream()
-                .filter(this::esFacturaDeTrabajadorMonitoreado)
-                .collect(Collectors.toList());
-        Double montoFacturado = facturas.stream().mapToDouble(Factura::getTotal).sum();
+        long totalFacturas = 0;
+        double montoFacturado = 0.0;
+        for (Object[] fila : facturasPorEstado.values()) {
+            totalFacturas += aLong(fila[1]);
+            montoFacturado += aDouble(fila[2]);
+        }
 
-        List<Credito> creditosAbiertos = creditoRepository.findByEstado(Credito.EstadoCredito.ABIERTO).stream()
-                .filter(this::esCreditoDeTrabajadorMonitoreado)
-                .collect(Collectors.toList());
-        Double montoCreditosPendiente = creditosAbiertos.stream()
-                .mapToDouble(c -> c.getSaldoPendiente() != null ? c.getSaldoPendiente() : 0.0)
-                .sum();
+        Object[] abiertos = creditosPorEstado.get(Credito.EstadoCredito.ABIERTO);
 
         return new DashboardCompletoDTO.ResumenGeneral(
-                (long) todasOrdenes.size(),
-                (long) ventas.size(),
-                (long) cotizaciones.size(),
+                totalVentas + totalCotizaciones,
+                totalVentas,
+                totalCotizaciones,
                 montoVentas,
                 montoCotizaciones,
-                (long) facturas.size(),
+                totalFacturas,
                 montoFacturado,
-                (long) creditosAbiertos.size(),
-                montoCreditosPendiente
+                abiertos != null ? aLong(abiertos[1]) : 0L,
+                abiertos != null ? aDouble(abiertos[2]) : 0.0
         );
     }
 
     private List<DashboardCompletoDTO.VentaPorDia> obtenerVentasPorDia(LocalDate desde, LocalDate hasta) {
-        List<Orden> ventas = ordenRepository.findByFechaBetween(desde, hasta).stream()
-                .filter(this::esOrdenDeTrabajadorMonitoreado)
-                .filter(Orden::isVenta)
-                .collect(Collectors.toList());
-
-        Map<LocalDate, List<Orden>> ventasPorFecha = ventas.stream()
-                .collect(Collectors.groupingBy(Orden::getFecha));
-
-        return ventasPorFecha.entrySet().stream()
-                .map(entry -> {
-                    LocalDate fecha = entry.getKey();
-                    List<Orden> ordenes = entry.getValue();
-                    Double monto = ordenes.stream().mapToDouble(Orden::getTotal).sum();
-                    return new DashboardCompletoDTO.VentaPorDia(fecha, (long) ordenes.size(), monto);
-                })
-                .sorted(Comparator.comparing(DashboardCompletoDTO.VentaPorDia::getFecha))
+        return ventaDiariaRepository.ventasPorDia(desde, hasta, dashboardConfig.getTrabajadoresMonitoreados()).stream()
+                .map(fila -> new DashboardCompletoDTO.VentaPorDia((LocalDate) fila[0], aLong(fila[1]), aDouble(fila[2])))
                 .collect(Collectors.toList());
     }
 
     private List<DashboardCompletoDTO.VentaPorSede> obtenerVentasPorSede(LocalDate desde, LocalDate hasta) {
-        List<Orden> ventas = ordenRepository.findByFechaBetween(desde, hasta).stream()
-                .filter(this::esOrdenDeTrabajadorMonitoreado)
-                .filter(Orden::isVenta)
-                .filter(o -> o.getSede() != null)
-                .collect(Collectors.toList());
-
-        Map<Long, List<Orden>> ventasPorSede = ventas.stream()
-                .collect(Collectors.groupingBy(o -> o.getSede().getId()));
-
-        return ventasPorSede.entrySet().stream()
-                .map(entry -> {
-                    Long sedeId = entry.getKey();
-                    List<Orden> ordenes = entry.getValue();
-                    String nombreSede = ordenes.get(0).getSede().getNombre();
-                    Double monto = ordenes.stream().mapToDouble(Orden::getTotal).sum();
-                    return new DashboardCompletoDTO.VentaPorSede(sedeId, nombreSede, (long) ordenes.size(), monto);
-                })
+        return ventaDiariaRepository.ventasPorSede(desde, hasta, dashboardConfig.getTrabajadoresMonitoreados()).stream()
+                .map(fila -> new DashboardCompletoDTO.VentaPorSede(
+                        (Long) fila[0], (String) fila[1], aLong(fila[2]), aDouble(fila[3])))
                 .sorted(Comparator.comparing(DashboardCompletoDTO.VentaPorSede::getMontoTotal).reversed())
                 .collect(Collectors.toList());
     }
 
     private List<DashboardCompletoDTO.TopProducto> obtenerTopProductos(LocalDate desde, LocalDate hasta, int limite) {
-        List<Orden> ventas = ordenRepository.findByFechaBetween(desde, hasta).stream()
-                .filter(this::esOrdenDeTrabajadorMonitoreado)
-                .filter(Orden::isVenta)
-                .collect(Collectors.toList());
-
-        Map<Long, List<OrdenItem>> itemsPorProducto = new HashMap<>();
-        for (Orden venta : ventas) {
-            if (venta.getItems() != null) {
-                for (OrdenItem item : venta.getItems()) {
-                    if (item.getProducto() != null && !(item.getProducto() instanceof Corte)) {
-                        Long productoId = item.getProducto().getId();
-                        itemsPorProducto.computeIfAbsent(productoId, k -> new ArrayList<>()).add(item);
-                    }
-                }
-            }
-        }
-
-        return itemsPorProducto.entrySet().stream()
-                .map(entry -> {
-                    Long productoId = entry.getKey();
-                    List<OrdenItem> items = entry.getValue();
-                    OrdenItem primerItem = items.get(0);
-                    Producto producto = primerItem.getProducto();
-                    Double cantidad = items.stream().mapToDouble(i -> i.getCantidad() != null ? i.getCantidad() : 0.0).sum();
-                    Double monto = items.stream().mapToDouble(i -> i.getTotalLinea() != null ? i.getTotalLinea() : 0.0).sum();
-                    return new DashboardCompletoDTO.TopProducto(
-                            productoId,
-                            producto.getNombre(),
-                            producto.getCodigo(),
-                            cantidad,
-                            monto
-                    );
-                })
-                .sorted(Comparator.comparing(DashboardCompletoDTO.TopProducto::getMontoTotal).reversed())
-                .limit(limite)
+        return ventaDiariaProductoRepository.topProductos(desde, hasta, dashboardConfig.getTrabajadoresMonitoreados(), PageRequest.of(0, limite)).stream()
+                .map(fila -> new DashboardCompletoDTO.TopProducto(
+                        (Long) fila[0], (String) fila[1], (String) fila[2], aDouble(fila[3]), aDouble(fila[4])))
                 .collect(Collectors.toList());
     }
 
     private List<DashboardCompletoDTO.TopCliente> obtenerTopClientes(LocalDate desde, LocalDate hasta, int limite) {
-        List<Orden> ventas = ordenRepository.findByFechaBetween(desde, hasta).stream()
-                .filter(this::esOrdenDeTrabajadorMonitoreado)
-                .filter(Orden::isVenta)
-                .filter(o -> o.getCliente() != null)
-                .collect(Collectors.toList());
-
-        Map<Long, List<Orden>> ventasPorCliente = ventas.stream()
-                .collect(Collectors.groupingBy(o -> o.getCliente().getId()));
-
-        return ventasPorCliente.entrySet().stream()
-                .map(entry -> {
-                    Long clienteId = entry.getKey();
-                    List<Orden> ordenes = entry.getValue();
-                    Cliente cliente = ordenes.get(0).getCliente();
-                    Double monto = ordenes.stream().mapToDouble(Orden::getTotal).sum();
-                    return new DashboardCompletoDTO.TopCliente(
-                            clienteId,
-                            cliente.getNombre(),
-                            cliente.getNit(),
-                            (long) ordenes.size(),
-                            monto
-                    );
-                })
-                .sorted(Comparator.comparing(DashboardCompletoDTO.TopCliente::getMontoTotal).reversed())
-                .limit(limite)
+        return ventaDiariaClienteRepository.topClientes(desde, hasta, dashboardConfig.getTrabajadoresMonitoreados(), PageRequest.of(0, limite)).stream()
+                .map(fila -> new DashboardCompletoDTO.TopCliente(
+                        (Long) fila[0], (String) fila[1], (String) fila[2], aLong(fila[3]), aDouble(fila[4])))
                 .collect(Collectors.toList());
     }
 
-    private DashboardCompletoDTO.ResumenCreditos obtenerResumenCreditos() {
-        List<Credito> todosCreditos = creditoRepository.findAll().stream()
-                .filter(this::esCreditoDeTrabajadorMonitoreado)
-                .collect(Collectors.toList());
-
-        long abiertos = todosCreditos.stream().filter(c -> c.getEstado() == Credito.EstadoCredito.ABIERTO).count();
-        long cerrados = todosCreditos.stream().filter(c -> c.getEstado() == Credito.EstadoCredito.CERRADO).count();
-        long vencidos = todosCreditos.stream().filter(c -> c.getEstado() == Credito.EstadoCredito.VENCIDO).count();
-        long anulados = todosCreditos.stream().filter(c -> c.getEstado() == Credito.EstadoCredito.ANULADO).count();
-
-        Double montoPendiente = todosCreditos.stream()
-                .filter(c -> c.getEstado() == Credito.EstadoCredito.ABIERTO)
-                .mapToDouble(c -> c.getSaldoPendiente() != null ? c.getSaldoPendiente() : 0.0)
-                .sum();
-
-        Double montoAbonado = todosCreditos.stream()
-                .mapToDouble(c -> c.getTotalAbonado() != null ? c.getTotalAbonado() : 0.0)
+    private DashboardCompletoDTO.ResumenCreditos obtenerResumenCreditos(Map<Credito.EstadoCredito, Object[]> creditosPorEstado) {
+        double montoAbonado = creditosPorEstado.values().stream()
+                .mapToDouble(fila -> aDouble(fila[3]))
                 .sum();
-
-        return new DashboardCompletoDTO.ResumenCreditos(abiertos, cerrados, vencidos, anulados, montoPendiente, montoAbonado);
+        Object[] abiertos = creditosPorEstado.get(Credito.EstadoCredito.ABIERTO);
+
+        return new DashboardCompletoDTO.ResumenCreditos(
+                contar(creditosPorEstado, Credito.EstadoCredito.ABIERTO),
+                contar(creditosPorEstado, Credito.EstadoCredito.CERRADO),
+                contar(creditosPorEstado, Credito.EstadoCredito.VENCIDO),
+                contar(creditosPorEstado, Credito.EstadoCredito.ANULADO),
+                abiertos != null ? aDouble(abiertos[2]) : 0.0,
+                montoAbonado
+        );
     }
 
-    private DashboardCompletoDTO.FacturacionPorEstado obtenerFacturacionPorEstado(LocalDate desde, LocalDate hasta) {
-        List<Factura> facturas = facturaRepository.findByFechaBetween(desde, hasta).stream()
-                .filter(this::esFacturaDeTrabajadorMonitoreado)
-                .collect(Collectors.toList());
-
-        long pendientes = facturas.stream().filter(f -> f.getEstado() == Factura.EstadoFactura.PENDIENTE).count();
-        long pagadas = facturas.stream().filter(f -> f.getEstado() == Factura.EstadoFactura.PAGADA).count();
-        long anuladas = facturas.stream().filter(f -> f.getEstado() == Factura.EstadoFactura.ANULADA).count();
-
-        Double montoPendiente = facturas.stream()
-                .filter(f -> f.getEstado() == Factura.EstadoFactura.PENDIENTE)
-                .mapToDouble(Factura::getTotal)
-                .sum();
-
-        Double montoPagado = facturas.stream()
-                .filter(f -> f.getEstado() == Factura.EstadoFactura.PAGADA)
-                .mapToDouble(Factura::getTotal)
-                .sum();
+    private DashboardCompletoDTO.FacturacionPorEstado obtenerFacturacionPorEstado(Map<Factura.EstadoFactura, Object[]> facturasPorEstado) {
+        Object[] pendientes = facturasPorEstado.get(Factura.EstadoFactura.PENDIENTE);
+        Object[] pagadas = facturasPorEstado.get(Factura.EstadoFactura.PAGADA);
 
-        return new DashboardCompletoDTO.FacturacionPorEstado(pendientes, pagadas, anuladas, montoPendiente, montoPagado);
+        return new DashboardCompletoDTO.FacturacionPorEstado(
+                contar(facturasPorEstado, Factura.EstadoFactura.PENDIENTE),
+                contar(facturasPorEstado, Factura.EstadoFactura.PAGADA),
+                contar(facturasPorEstado, Factura.EstadoFactura.ANULADA),
+                pendientes != null ? aDouble(pendientes[2]) : 0.0,
+                pagadas != null ? aDouble(pagadas[2]) : 0.0
+        );
     }
 
-    private List<DashboardCompletoDTO.TicketPromedioSede> obtenerTicketPromedioPorSede(LocalDate desde, LocalDate hasta) {
-        List<Orden> ventas = ordenRepository.findByFechaBetween(desde, hasta).stream()
-                .filter(this::esOrdenDeTrabajadorMonitoreado)
-                .filter(Orden::isVenta)
-                .filter(o -> o.getSede() != null)
-                .collect(Collectors.toList());
-
-        Map<Long, List<Orden>> ventasPorSede = ventas.stream()
-                .collect(Collectors.groupingBy(o -> o.getSede().getId()));
-
-        return ventasPorSede.entrySet().stream()
-                .map(entry -> {
-                    Long sedeId = entry.getKey();
-                    List<Orden> ordenes = entry.getValue();
-                    String nombreSede = ordenes.get(0).getSede().getNombre();
-                    Double montoTotal = ordenes.stream().mapToDouble(Orden::getTotal).sum();
-                    Double promedio = ordenes.isEmpty() ? 0.0 : montoTotal / ordenes.size();
-                    return new DashboardCompletoDTO.TicketPromedioSede(sedeId, nombreSede, promedio, (long) ordenes.size());
-                })
+    private List<DashboardCompletoDTO.TicketPromedioSede> obtenerTicketPromedioPorSede(List<DashboardCompletoDTO.VentaPorSede> ventasPorSede) {
+        return ventasPorSede.stream()
+                .map(v -> new DashboardCompletoDTO.TicketPromedioSede(
+                        v.getSedeId(),
+                        v.getNombreSede(),
+                        v.getCantidadOrdenes() > 0 ? v.getMontoTotal() / v.getCantidadOrdenes() : 0.0,
+                        v.getCantidadOrdenes()))
                 .sorted(Comparator.comparing(DashboardCompletoDTO.TicketPromedioSede::getTicketPromedio).reversed())
                 .collect(Collectors.toList());
     }
 
-        private boolean esOrdenDeTrabajadorMonitoreado(Orden orden) {
-                if (orden == null || orden.getTrabajador() == null || orden.getTrabajador().getId() == null) {
-                        return false;
-                }
-                return TRABAJADORES_MONITOREADOS_DASHBOARD.contains(orden.getTrabajador().getId());
+    @SuppressWarnings("unchecked")
+    private <E> Map<E, Object[]> indexarPorEstado(List<Object[]> filas) {
+        Map<E, Object[]> porEstado = new HashMap<>();
+        for (Object[] fila : filas) {
+            porEstado.put((E) fila[0], fila);
         }
+        return porEstado;
+    }
 
-        private boolean esFacturaDeTrabajadorMonitoreado(Factura factura) {
-                return factura != null && factura.getOrden() != null && esOrdenDeTrabajadorMonitoreado(factura.getOrden());
-        }
+    private <E> long contar(Map<E, Object[]> porEstado, E estado) {
+        Object[] fila = porEstado.get(estado);
+        return fila != null ? aLong(fila[1]) : 0L;
+    }
 
-        private boolean esCreditoDeTrabajadorMonitoreado(Credito credito) {
-                return credito != null && credito.getOrden() != null && esOrdenDeTrabajadorMonitoreado(credito.getOrden());
-        }
-}
+    private long aLong(Object valor) {
+        return valor != null ? ((Number) valor).longValue() : 0L;
+    }
 
+    private double aDouble(Object valor) {
+        return valor != null ? ((Number) valor).doubleValue() : 0.0;
+    }
+}
@@ -4,14 +4,26 @@ import com.casaglass.casaglass_backend.model.EntregaDetalle;
 import com.casaglass.casaglass_backend.model.EntregaDinero;
 import com.casaglass.casaglass_backend.model.Orden;
 import com.casaglass.casaglass_backend.model.Abono;
+import com.casaglass.casaglass_backend.model.Credito;
+import com.casaglass.casaglass_backend.model.ReembolsoVenta;
 import com.casaglass.casaglass_backend.repository.EntregaDetalleRepository;
 import com.casaglass.casaglass_backend.repository.OrdenRepository;
 import com.casaglass.casaglass_backend.repository.AbonoRepository;
+import com.casaglass.casaglass_backend.repository.ReembolsoVentaRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class EntregaDetalleService {
@@ -22,6 +34,13 @@ public class EntregaDetalleService {
         EntregaDinero.EstadoEntrega.VERIFICADA
     );
 
+    private static final Long CLIENTE_ESPECIAL_ID = 499L;
+
+    private static final String SQL_INSERTAR_DETALLE =
+        "INSERT INTO entrega_detalles (entrega_id, orden_id, abono_id, reembolso_venta_id, tipo_movimiento, " +
+        "monto_orden, numero_orden, fecha_orden, venta_credito, cliente_nombre, observaciones) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
     @Autowired
     private EntregaDetalleRepository entregaDetalleRepository;
 
@@ -34,6 +53,15 @@ public class EntregaDetalleService {
     @Autowired
     private AbonoRepository abonoRepository;
 
+    @Autowired
+    private ReembolsoVentaRepository reembolsoVentaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PendienteEntregaService pendienteEntregaService;
+
     public List<EntregaDetalle> obtenerTodos() {
         return entregaDetalleRepository.findAll();
     }
@@ -167,6 +195,7 @@ public class EntregaDetalleService {
             orden.setIncluidaEntrega(true);
             ordenRepository.save(orden);
         }
+        pendienteEntregaService.registrarCambio(orden);
 
         return detalleCreado;
     }
@@ -229,10 +258,170 @@ public class EntregaDetalleService {
         EntregaDetalle detalleCreado = entregaDetalleRepository.save(detalle);
         
         // ✅ NO marcar la orden como incluida - permite agregar otros abonos de la misma orden
+        pendienteEntregaService.registrarCambio(orden);
         
         return detalleCreado;
     }
 
+    /**
+     * 📦 PREPARA EN LOTE LOS DETALLES DE UNA ENTREGA NUEVA
+     * Valida todas las órdenes, abonos y reembolsos con una consulta IN por tipo (existencia,
+     * cliente especial, crédito cerrado, ya incluido en otra entrega vigente) y devuelve los
+     * detalles inicializados en memoria, sin entrega asignada.
+     * Aplica las mismas reglas que crearDetalle / crearDetalleDesdeAbono para una entrega sin detalles.
+     */
+    public List<EntregaDetalle> prepararDetallesEnLote(List<Long> ordenIds, List<Long> abonoIds, List<Long> reembolsoIds) {
+        List<EntregaDetalle> detalles = new ArrayList<>();
+
+        // Órdenes (contado, o crédito abierto sin abono específico)
+        List<Long> idsOrdenes = sinDuplicados(ordenIds, "La orden ya está incluida en esta entrega");
+        if (!idsOrdenes.isEmpty()) {
+            Map<Long, Orden> ordenes = porId(ordenRepository.findByIdIn(idsOrdenes), Orden::getId);
+            Set<Long> yaEntregadas = new HashSet<>(
+                entregaDetalleRepository.findOrdenIdsEnEntregas(idsOrdenes, ESTADOS_ENTREGA_BLOQUEO_EDICION));
+
+            for (Long ordenId : idsOrdenes) {
+                Orden orden = ordenes.get(ordenId);
+                if (orden == null) {
+                    throw new RuntimeException("Orden no encontrada con ID " + ordenId);
+                }
+                if (orden.getCliente() != null && CLIENTE_ESPECIAL_ID.equals(orden.getCliente().getId())) {
+                    throw new RuntimeException("No se pueden crear entregas de dinero para el cliente especial. Las órdenes de JAIRO JAVIER VELANDIA se manejan de forma independiente.");
+                }
+                if (yaEntregadas.contains(ordenId)) {
+                    throw new RuntimeException("La orden con ID " + ordenId + " ya está incluida en otra entrega de dinero vigente");
+                }
+                if (orden.isCredito() && (orden.getCreditoDetalle() == null
+                        || orden.getCreditoDetalle().getEstado() == Credito.EstadoCredito.CERRADO)) {
+                    throw new RuntimeException("La orden con ID " + ordenId + " no es válida para entrega");
+                }
+
+                EntregaDetalle detalle = new EntregaDetalle();
+                detalle.setOrden(orden);
+                detalle.inicializarDesdeOrden();
+                detalles.add(detalle);
+            }
+        }
+
+        // Abonos (órdenes a crédito): varios abonos de la misma orden pueden ir en la misma entrega
+        List<Long> idsAbonos = sinDuplicados(abonoIds, "Este abono ya está incluido en esta entrega");
+        if (!idsAbonos.isEmpty()) {
+            Map<Long, Abono> abonos = porId(abonoRepository.findByIdInParaEntrega(idsAbonos), Abono::getId);
+            Set<Long> yaEntregados = new HashSet<>(
+                entregaDetalleRepository.findAbonoIdsEnEntregas(idsAbonos, ESTADOS_ENTREGA_BLOQUEO_EDICION));
+
+            for (Long abonoId : idsAbonos) {
+                Abono abono = abonos.get(abonoId);
+                if (abono == null) {
+                    throw new RuntimeException("Abono no encontrado con ID " + abonoId);
+                }
+                if (abono.getCliente() != null && CLIENTE_ESPECIAL_ID.equals(abono.getCliente().getId())) {
+                    throw new RuntimeException("No se pueden crear entregas de dinero para el cliente especial. Los abonos de JAIRO JAVIER VELANDIA se manejan de forma independiente.");
+                }
+                if (abono.getOrden() == null) {
+                    throw new RuntimeException("El abono no tiene una orden asociada");
+                }
+                if (abono.getOrden().getCreditoDetalle() == null) {
+                    throw new RuntimeException("La orden no tiene un crédito asociado");
+                }
+                if (yaEntregados.contains(abonoId)) {
+                    throw new RuntimeException("El abono #" + abonoId + " ya está incluido en otra entrega de dinero vigente");
+                }
+
+                EntregaDetalle detalle = new EntregaDetalle();
+                detalle.inicializarDesdeAbono(abono);
+                detalles.add(detalle);
+            }
+        }
+
+        // Reembolsos (egresos)
+        List<Long> idsReembolsos = sinDuplicados(reembolsoIds, "Este reembolso ya está incluido en esta entrega");
+        if (!idsReembolsos.isEmpty()) {
+            Map<Long, ReembolsoVenta> reembolsos = porId(reembolsoVentaRepository.findAllById(idsReembolsos), ReembolsoVenta::getId);
+            Set<Long> yaEntregados = new HashSet<>(entregaDetalleRepository.findReembolsoIdsEnEntregas(idsReembolsos));
+
+            for (Long reembolsoId : idsReembolsos) {
+                ReembolsoVenta reembolso = reembolsos.get(reembolsoId);
+                if (reembolso == null) {
+                    throw new RuntimeException("Reembolso no encontrado con ID: " + reembolsoId);
+                }
+                if (!Boolean.TRUE.equals(reembolso.getProcesado())
+                        || reembolso.getEstado() != ReembolsoVenta.EstadoReembolso.PROCESADO) {
+                    throw new RuntimeException("El reembolso #" + reembolsoId + " no está procesado");
+                }
+                if (yaEntregados.contains(reembolsoId)) {
+                    throw new RuntimeException("Este reembolso ya está incluido en otra entrega de dinero");
+                }
+
+                EntregaDetalle detalle = new EntregaDetalle();
+                detalle.inicializarDesdeReembolso(reembolso);
+                detalles.add(detalle);
+            }
+        }
+
+        return detalles;
+    }
+
+    /**
+     * 💾 INSERTA EN UN SOLO BATCH JDBC LOS DETALLES PREPARADOS
+     * La entrega ya debe estar persistida. Marca incluidaEntrega con un único UPDATE para las
+     * órdenes a contado (solo filas de INGRESO sin abono, igual que crearDetalle).
+     * Los detalles en memoria quedan sin ID: sirven para calcular totales, no para volver a guardarse.
+     */
+    public void insertarDetallesEnLote(EntregaDinero entrega, List<EntregaDetalle> detalles) {
+        if (entrega == null || entrega.getId() == null) {
+            throw new RuntimeException("La entrega es obligatoria para el detalle");
+        }
+        if (detalles.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> filas = new ArrayList<>(detalles.size());
+        Set<Long> ordenesContado = new LinkedHashSet<>();
+        for (EntregaDetalle detalle : detalles) {
+            detalle.setEntrega(entrega);
+            filas.add(new Object[] {
+                entrega.getId(),
+                detalle.getOrden().getId(),
+                detalle.getAbono() != null ? detalle.getAbono().getId() : null,
+                detalle.getReembolsoVenta() != null ? detalle.getReembolsoVenta().getId() : null,
+                detalle.getTipoMovimiento().name(),
+                detalle.getMontoOrden() != null ? detalle.getMontoOrden() : 0.0,
+                detalle.getNumeroOrden(),
+                detalle.getFechaOrden() != null ? Date.valueOf(detalle.getFechaOrden()) : null,
+                detalle.getVentaCredito(),
+                detalle.getClienteNombre(),
+                detalle.getObservaciones()
+            });
+            if (detalle.getAbono() == null && detalle.getReembolsoVenta() == null && !detalle.getOrden().isCredito()) {
+                ordenesContado.add(detalle.getOrden().getId());
+            }
+        }
+
+        jdbcTemplate.batchUpdate(SQL_INSERTAR_DETALLE, filas);
+
+        if (!ordenesContado.isEmpty()) {
+            ordenRepository.marcarIncluidasEnEntrega(new ArrayList<>(ordenesContado));
+        }
+        pendienteEntregaService.registrarCambioOrdenes(
+            detalles.stream().map(d -> d.getOrden().getId()).collect(Collectors.toSet()));
+    }
+
+    private List<Long> sinDuplicados(List<Long> ids, String mensajeDuplicado) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> unicos = new LinkedHashSet<>(ids);
+        if (unicos.size() != ids.size()) {
+            throw new RuntimeException(mensajeDuplicado);
+        }
+        return new ArrayList<>(unicos);
+    }
+
+    private <T> Map<Long, T> porId(List<T> entidades, Function<T, Long> id) {
+        return entidades.stream().collect(Collectors.toMap(id, Function.identity(), (a, b) -> a));
+    }
+
     public EntregaDetalle actualizarDetalle(Long id, EntregaDetalle detalleActualizado) {
         return entregaDetalleRepository.findById(id)
                 .map(detalle -> {
@@ -259,6 +448,9 @@ public class EntregaDetalleService {
         }
 
         entregaDetalleRepository.deleteById(id);
+        if (detalle.getOrden() != null) {
+            pendienteEntregaService.registrarCambioOrden(detalle.getOrden().getId());
+        }
     }
 
     public void eliminarDetallesPorEntrega(Long entregaId) {
@@ -275,6 +467,10 @@ public class EntregaDetalleService {
         }
 
         entregaDetalleRepository.deleteByEntregaId(entregaId);
+        pendienteEntregaService.registrarCambioOrdenes(detalles.stream()
+            .filter(d -> d.getOrden() != null)
+            .map(d -> d.getOrden().getId())
+            .collect(Collectors.toSet()));
     }
 
     public boolean validarOrdenParaEntrega(Long ordenId) {
@@ -317,7 +513,13 @@ public class EntregaDetalleService {
      * - EGRESO: resta la magnitud (filas antiguas pueden tener montoOrden negativo; nuevas, positivo + {@link TipoMovimiento#EGRESO})
      */
     public Double calcularDineroRealEntrega(Long entregaId) {
-        List<EntregaDetalle> detalles = entregaDetalleRepository.findByEntregaId(entregaId);
+        return calcularDineroReal(entregaDetalleRepository.findByEntregaId(entregaId));
+    }
+
+    /**
+     * Misma regla que {@link #calcularDineroRealEntrega(Long)} sobre detalles ya cargados en memoria
+     */
+    public Double calcularDineroReal(List<EntregaDetalle> detalles) {
         double total = 0.0;
 
         for (EntregaDetalle detalle : detalles) {
@@ -3,17 +3,14 @@ package com.casaglass.casaglass_backend.service;
 import com.casaglass.casaglass_backend.dto.ResumenMesDTO;
 import com.casaglass.casaglass_backend.dto.EntregaDetalleSimpleDTO;
 import com.casaglass.casaglass_backend.dto.TotalesEntregaPorMedioDTO;
-import com.casaglass.casaglass_backend.model.Abono;
 import com.casaglass.casaglass_backend.model.Credito;
 import com.casaglass.casaglass_backend.model.EntregaDinero;
 import com.casaglass.casaglass_backend.model.EntregaDetalle;
 import com.casaglass.casaglass_backend.model.Orden;
-import com.casaglass.casaglass_backend.model.ReembolsoVenta;
-import com.casaglass.casaglass_backend.repository.AbonoRepository;
+import com.casaglass.casaglass_backend.model.PendienteEntrega;
 import com.casaglass.casaglass_backend.repository.CreditoRepository;
 import com.casaglass.casaglass_backend.repository.EntregaDineroRepository;
 import com.casaglass.casaglass_backend.repository.OrdenRepository;
-import com.casaglass.casaglass_backend.repository.ReembolsoVentaRepository;
 import com.casaglass.casaglass_backend.repository.SedeRepository;
 import com.casaglass.casaglass_backend.repository.TrabajadorRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,20 +40,17 @@ public class EntregaDineroService {
     @Autowired
     private TrabajadorRepository trabajadorRepository;
 
-    @Autowired
-    private ReembolsoVentaRepository reembolsoVentaRepository;
-
     @Autowired
     private OrdenRepository ordenRepository;
 
     @Autowired
-    private AbonoRepository abonoRepository;
+    private CreditoRepository creditoRepository;
 
     @Autowired
-    private AbonoService abonoService;
+    private CreditoMovimientoService creditoMovimientoService;
 
     @Autowired
-    private CreditoRepository creditoRepository;
+    private PendienteEntregaService pendienteEntregaService;
 
     @Transactional(readOnly = true)
     public List<EntregaDinero> obtenerTodas() {
@@ -244,42 +238,27 @@ public class EntregaDineroService {
             entrega.setEstado(EntregaDinero.EstadoEntrega.PENDIENTE);
         }
 
-        // Si no llegan IDs desde frontend, resolver automáticamente pendientes desde
-        // la última entrega de la sede hasta la fecha de esta entrega.
+        // Si no llegan IDs desde frontend, tomar las órdenes a contado y abonos pendientes de la sede
+        // (las consultas de disponibles ya no filtran por fecha; los reembolsos se eligen a mano)
         boolean sinOrdenes = ordenIds == null || ordenIds.isEmpty();
         boolean sinAbonos = abonoIds == null || abonoIds.isEmpty();
         boolean sinReembolsos = reembolsoIds == null || reembolsoIds.isEmpty();
         if (sinOrdenes && sinAbonos && sinReembolsos) {
-            LocalDate[] rango = resolverRangoDesdeUltimaEntrega(entrega.getSede().getId(), entrega.getFechaEntrega());
-            LocalDate fechaDesde = rango[0];
-            LocalDate fechaHasta = rango[1];
-
-            List<Orden> ordenesDisponibles = entregaDetalleService
-                .obtenerOrdenesContadoDisponibles(entrega.getSede().getId(), fechaDesde, fechaHasta);
-            List<Abono> abonosDisponibles = abonoService
-                .obtenerAbonosDisponiblesParaEntrega(entrega.getSede().getId(), fechaDesde, fechaHasta);
-
-            ordenIds = ordenesDisponibles.stream().map(Orden::getId).toList();
-            abonoIds = abonosDisponibles.stream().map(Abono::getId).toList();
+            List<PendienteEntrega> pendientes = pendienteEntregaService.listarPorSede(entrega.getSede().getId());
+
+            ordenIds = pendientes.stream()
+                .filter(p -> p.getTipo() == PendienteEntrega.TipoPendiente.ORDEN)
+                .map(PendienteEntrega::getReferenciaId)
+                .toList();
+            abonoIds = pendientes.stream()
+                .filter(p -> p.getTipo() == PendienteEntrega.TipoPendiente.ABONO)
+                .map(PendienteEntrega::getReferenciaId)
+                .toList();
             reembolsoIds = new ArrayList<>();
         }
 
-        // Validar órdenes
-        if (ordenIds != null && !ordenIds.isEmpty()) {
-            for (Long ordenId : ordenIds) {
-                // ⚠️ VALIDAR: No permitir órdenes del cliente especial (ID 499)
-                Orden orden = ordenRepository.findById(ordenId)
-                    .orElseThrow(() -> new RuntimeException("Orden no encontrada con ID " + ordenId));
-                
-                if (orden.getCliente() != null && orden.getCliente().getId().equals(499L)) {
-                    throw new RuntimeException("No se pueden crear entregas de dinero para el cliente especial. Las órdenes de JAIRO JAVIER VELANDIA se manejan de forma independiente.");
-                }
-                
-                if (!entregaDetalleService.validarOrdenParaEntrega(ordenId)) {
-                    throw new RuntimeException("La orden con ID " + ordenId + " no es válida para entrega");
-                }
-            }
-        }
+        // Validar en lote órdenes, abonos y reembolsos (una consulta IN por tipo) antes de guardar nada
+        List<EntregaDetalle> detalles = entregaDetalleService.prepararDetallesEnLote(ordenIds, abonoIds, reembolsoIds);
 
         // Normalizar desgloses
         entrega.setMontoEfectivo(entrega.getMontoEfectivo() != null ? entrega.getMontoEfectivo() : 0.0);
@@ -304,74 +283,19 @@ public class EntregaDineroService {
         // Guardar la entrega primero
         EntregaDinero entregaGuardada = entregaDineroRepository.save(entrega);
 
-        // Crear detalles de entrega para cada orden A CONTADO
-        if (ordenIds != null && !ordenIds.isEmpty()) {
-            for (Long ordenId : ordenIds) {
-                EntregaDetalle detalle = new EntregaDetalle();
-                detalle.setEntrega(entregaGuardada);
-                
-                // Buscar la orden y asignarla
-                Orden orden = new Orden();
-                orden.setId(ordenId);
-                detalle.setOrden(orden);
-                
-                entregaDetalleService.crearDetalle(detalle);
-            }
-        }
-        
-        // Crear detalles de entrega para cada ABONO (órdenes a crédito)
-        if (abonoIds != null && !abonoIds.isEmpty()) {
-            for (Long abonoId : abonoIds) {
-                // ⚠️ VALIDAR: No permitir abonos del cliente especial (ID 499)
-                Abono abono = abonoRepository.findById(abonoId)
-                    .orElseThrow(() -> new RuntimeException("Abono no encontrado con ID " + abonoId));
-                
-                if (abono.getCliente() != null && abono.getCliente().getId().equals(499L)) {
-                    throw new RuntimeException("No se pueden crear entregas de dinero para el cliente especial. Los abonos de JAIRO JAVIER VELANDIA se manejan de forma independiente.");
-                }
-                
-                EntregaDetalle detalle = new EntregaDetalle();
-                detalle.setEntrega(entregaGuardada);
-                
-                entregaDetalleService.crearDetalleDesdeAbono(detalle, abonoId);
-            }
-        }
-        
-        // 🆕 Crear detalles de entrega para cada REEMBOLSO (egresos)
-        if (reembolsoIds != null && !reembolsoIds.isEmpty()) {
-            for (Long reembolsoId : reembolsoIds) {
-                ReembolsoVenta reembolso = reembolsoVentaRepository.findById(reembolsoId)
-                    .orElseThrow(() -> new RuntimeException("Reembolso no encontrado con ID: " + reembolsoId));
-                
-                // Validar que el reembolso esté procesado
-                if (!reembolso.getProcesado() || reembolso.getEstado() != ReembolsoVenta.EstadoReembolso.PROCESADO) {
-                    throw new RuntimeException("El reembolso #" + reembolsoId + " no está procesado");
-                }
-                
-                EntregaDetalle detalle = new EntregaDetalle();
-                detalle.setEntrega(entregaGuardada);
-                detalle.inicializarDesdeReembolso(reembolso);
-                
-                entregaDetalleService.crearDetalle(detalle);
-            }
-        }
-        
-        // Recalcular monto desde las órdenes/abonos/reembolsos
-        if ((ordenIds != null && !ordenIds.isEmpty()) || 
-            (abonoIds != null && !abonoIds.isEmpty()) || 
-            (reembolsoIds != null && !reembolsoIds.isEmpty())) {
-            Double montoCalculado = entregaDetalleService.calcularMontoTotalEntrega(
-                entregaGuardada.getId()
-            );
+        // Insertar todos los detalles en un solo batch JDBC
+        entregaDetalleService.insertarDetallesEnLote(entregaGuardada, detalles);
+
+        // Recalcular monto y desglose real desde los detalles en memoria (sin releerlos)
+        if (!detalles.isEmpty()) {
+            Double montoCalculado = entregaDetalleService.calcularDineroReal(detalles);
             entregaGuardada.setMonto(montoCalculado != null ? montoCalculado : 0.0);
-            
-            // Calcular desglose real basado en los detalles asociados y actualizar la cabecera
-            List<EntregaDetalle> detallesGuardados = entregaDetalleService.obtenerPorEntrega(entregaGuardada.getId());
-            List<EntregaDetalleSimpleDTO> dtos = detallesGuardados.stream()
+
+            List<EntregaDetalleSimpleDTO> dtos = detalles.stream()
                     .map(EntregaDetalleSimpleDTO::new)
                     .collect(Collectors.toList());
             TotalesEntregaPorMedioDTO totales = TotalesEntregaPorMedioDTO.desdeDetalles(dtos);
-            
+
             entregaGuardada.setMontoEfectivo(totales.getEfectivo() != null ? totales.getEfectivo() : 0.0);
             entregaGuardada.setMontoTransferencia(totales.getTransferencia() != null ? totales.getTransferencia() : 0.0);
             entregaGuardada.setMontoCheque(totales.getCheque() != null ? totales.getCheque() : 0.0);
@@ -500,39 +424,6 @@ public class EntregaDineroService {
                entrega.getEstado() == EntregaDinero.EstadoEntrega.ENTREGADA;
     }
     
-    /**
-     * Calcula el saldo pendiente de un crédito a una fecha determinada.
-     */
-    private double calcularSaldoCreditoAFecha(Credito c, LocalDate fechaMax) {
-        if (c.getFechaInicio() != null && c.getFechaInicio().isAfter(fechaMax)) {
-            return 0.0;
-        }
-        
-        Double totalCred = c.getTotalCredito() != null ? c.getTotalCredito() : 0.0;
-        
-        // Obtener retenciones de la orden
-        Double retencionFuente = 0.0;
-        if (c.getOrden() != null && c.getOrden().isTieneRetencionFuente() && c.getOrden().getRetencionFuente() != null) {
-            retencionFuente = c.getOrden().getRetencionFuente();
-        }
-        Double retencionIca = 0.0;
-        if (c.getOrden() != null && c.getOrden().isTieneRetencionIca() && c.getOrden().getRetencionIca() != null) {
-            retencionIca = c.getOrden().getRetencionIca();
-        }
-        
-        // Sumar abonos realizados en o antes de la fechaMax
-        double totalAbonadoAFecha = 0.0;
-        if (c.getAbonos() != null) {
-            totalAbonadoAFecha = c.getAbonos().stream()
-                .filter(a -> a.getFecha() != null && !a.getFecha().isAfter(fechaMax))
-                .mapToDouble(a -> a.getTotal() != null ? a.getTotal() : 0.0)
-                .sum();
-        }
-        
-        double saldo = totalCred - totalAbonadoAFecha - retencionFuente - retencionIca;
-        return saldo > 0.0 ? saldo : 0.0;
-    }
-
     /**
      * Calcula el resumen del mes de una entrega específica
      * @param entrega La entrega para determinar el mes y la sede a analizar
@@ -578,11 +469,8 @@ public class EntregaDineroService {
                 .mapToDouble(c -> c.getTotalCredito() != null ? c.getTotalCredito() : 0.0)
                 .sum();
 
-            // Créditos activos al fin del mes (con saldo pendiente > 0 en esa fecha)
-            List<Credito> todosCreditosSede = creditoRepository.findByOrdenSedeId(entrega.getSede().getId());
-            totalCreditosActivosHistorico = todosCreditosSede.stream()
-                .mapToDouble(c -> calcularSaldoCreditoAFecha(c, finMes))
-                .sum();
+            // Créditos activos al fin del mes (con saldo pendiente > 0 en esa fecha), desde el libro de movimientos
+            totalCreditosActivosHistorico = creditoMovimientoService.saldoPendienteAFecha(entrega.getSede().getId(), finMes);
         } else {
             // Nuevas deudas generadas en el mes (global)
             List<Credito> creditosDelMes = creditoRepository.findByFechaInicioBetween(inicioMes, finMes);
@@ -591,10 +479,7 @@ public class EntregaDineroService {
                 .sum();
 
             // Créditos activos al fin del mes (global)
-            List<Credito> todosCreditos = creditoRepository.findAll();
-            totalCreditosActivosHistorico = todosCreditos.stream()
-                .mapToDouble(c -> calcularSaldoCreditoAFecha(c, finMes))
-                .sum();
+            totalCreditosActivosHistorico = creditoMovimientoService.saldoPendienteAFecha(null, finMes);
         }
 
         // 3. Generar nombre del mes en formato ISO "2026-04"
@@ -647,10 +532,7 @@ public class EntregaDineroService {
                 .mapToDouble(c -> c.getTotalCredito() != null ? c.getTotalCredito() : 0.0)
                 .sum();
                 
-        List<Credito> todosCreditos = creditoRepository.findAll();
-        Double totalCreditosActivosHistorico = todosCreditos.stream()
-                .mapToDouble(c -> calcularSaldoCreditoAFecha(c, finMes))
-                .sum();
+        Double totalCreditosActivosHistorico = creditoMovimientoService.saldoPendienteAFecha(null, finMes);
 
         // 3. Generar nombre del mes en formato ISO "2026-04"
         String mesISO = String.format("%04d-%02d", fechaEntrega.getYear(), fechaEntrega.getMonthValue());
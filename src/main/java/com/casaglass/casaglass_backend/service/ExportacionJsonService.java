@@ -0,0 +1,104 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 📤 EXPORTACIÓN JSON EN STREAMING
+ *
+ * Escribe un arreglo JSON fila por fila a medida que se leen de la base de datos,
+ * sin armar la lista completa en memoria. Cada cierto número de filas vacía el
+ * buffer de salida y limpia el EntityManager para que las entidades ya escritas
+ * no se acumulen en el contexto de persistencia.
+ *
+ * escribirArreglo consume un Stream de proyecciones planas (sin consultas por fila);
+ * para entidades con relaciones usar escribirArregloPorBloques (keyset).
+ * Debe llamarse dentro de una transacción.
+ */
+@Service
+public class ExportacionJsonService {
+
+    /** Filas por bloque (y tamaño del LIMIT en la lectura por keyset) */
+    public static final int FILAS_POR_LOTE = 200;
+
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public ExportacionJsonService(ObjectMapper objectMapper, EntityManager entityManager) {
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Consume el Stream (y lo cierra) escribiendo cada fila convertida como elemento del arreglo
+     *
+     * @return cantidad de filas escritas
+     */
+    public <T, R> long escribirArreglo(Stream<T> filas, Function<T, R> conversor, OutputStream salida) throws IOException {
+        try (Stream<T> stream = filas;
+             JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+            // La respuesta HTTP la cierra el contenedor, no el generador
+            generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            generador.writeStartArray();
+            long escritas = 0;
+            Iterator<T> iterador = stream.iterator();
+            while (iterador.hasNext()) {
+                generador.writeObject(conversor.apply(iterador.next()));
+                if (++escritas % FILAS_POR_LOTE == 0) {
+                    generador.flush();
+                    entityManager.clear();
+                }
+            }
+            generador.writeEndArray();
+            generador.flush();
+            return escritas;
+        }
+    }
+
+    /**
+     * Recorre la tabla por keyset: pide bloques de FILAS_POR_LOTE filas con id mayor al último
+     * escrito (cada bloque es una consulta cerrada), los convierte de a uno (el conversor puede
+     * completar el bloque con consultas IN), escribe, vacía la salida y limpia el EntityManager.
+     * Ningún resultado queda abierto mientras se hacen las consultas secundarias, así el driver
+     * no tiene que guardar en memoria el resto de la tabla.
+     *
+     * @param siguienteBloque recibe el último id escrito (0 al empezar) y devuelve hasta FILAS_POR_LOTE filas ordenadas por id
+     * @return cantidad de filas escritas
+     */
+    public <T, R> long escribirArregloPorBloques(Function<Long, List<T>> siguienteBloque, Function<T, Long> id,
+                                                Function<List<T>, List<R>> conversor,
+                                                OutputStream salida) throws IOException {
+        try (JsonGenerator generador = objectMapper.getFactory().createGenerator(salida)) {
+            generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            generador.writeStartArray();
+            long escritas = 0;
+            long ultimoId = 0L;
+            List<T> bloque = siguienteBloque.apply(ultimoId);
+            while (!bloque.isEmpty()) {
+                for (R fila : conversor.apply(bloque)) {
+                    generador.writeObject(fila);
+                }
+                escritas += bloque.size();
+                ultimoId = id.apply(bloque.get(bloque.size() - 1));
+                boolean ultimo = bloque.size() < FILAS_POR_LOTE;
+                generador.flush();
+                entityManager.clear();
+                bloque = ultimo ? List.of() : siguienteBloque.apply(ultimoId);
+            }
+            generador.writeEndArray();
+            generador.flush();
+            return escritas;
+        }
+    }
+}
@@ -27,7 +27,8 @@ public class FacturaService {
     private final SedeRepository sedeRepository;
     private final TrabajadorRepository trabajadorRepository;
     private final EntityManager entityManager;
-    private final BusinessSettingsRepository businessSettingsRepository;
+    private final BusinessSettingsService businessSettingsService;
+    private final NumeracionService numeracionService;
 
     public FacturaService(
             FacturaRepository facturaRepo,
@@ -36,14 +37,16 @@ public class FacturaService {
             SedeRepository sedeRepository,
             TrabajadorRepository trabajadorRepository,
             EntityManager entityManager,
-            BusinessSettingsRepository businessSettingsRepository) {
+            BusinessSettingsService businessSettingsService,
+            NumeracionService numeracionService) {
         this.facturaRepo = facturaRepo;
         this.ordenRepository = ordenRepository;
         this.clienteRepository = clienteRepository;
         this.sedeRepository = sedeRepository;
         this.trabajadorRepository = trabajadorRepository;
         this.entityManager = entityManager;
-        this.businessSettingsRepository = businessSettingsRepository;
+        this.businessSettingsService = businessSettingsService;
+        this.numeracionService = numeracionService;
     }
 
     /**
@@ -203,21 +206,10 @@ public class FacturaService {
 
     /**
      * 💰 OBTENER TASA DE IVA DESDE CONFIGURACIÓN
-     * Obtiene el IVA rate desde BusinessSettings, con fallback a 19% si no existe
+     * Obtiene el IVA rate desde BusinessSettings (19% por defecto si no existe)
      */
     private Double obtenerIvaRate() {
-        try {
-            // Buscar la primera configuración (debería haber solo una)
-            List<BusinessSettings> settings = businessSettingsRepository.findAll();
-            if (!settings.isEmpty() && settings.get(0).getIvaRate() != null) {
-                Double ivaRate = settings.get(0).getIvaRate();
-                return ivaRate;
-            }
-        } catch (Exception e) {
-            // ...existing code...
-        }
-        // Fallback a 19% por defecto
-        return 19.0;
+        return businessSettingsService.obtenerParametros().getIvaRate();
     }
 
     /**
@@ -246,30 +238,7 @@ public class FacturaService {
      * Formato automático: FAC + consecutivo (ej: FAC10, FAC5468).
      */
     private String generarNumeroFactura() {
-        int maxIntentos = 5;
-        int intento = 0;
-
-        while (intento < maxIntentos) {
-            try {
-                Long siguienteNumero = facturaRepo.obtenerSiguienteNumero();
-                String numeroGenerado = PREFIJO_FACTURA_AUTOMATICA + siguienteNumero;
-
-                if (!facturaRepo.findByNumeroFactura(numeroGenerado).isPresent()) {
-                    return numeroGenerado;
-                }
-
-                intento++;
-                Thread.sleep(10);
-
-            } catch (Exception e) {
-                intento++;
-                if (intento >= maxIntentos) {
-                    throw new RuntimeException("Error generando número de factura después de " + maxIntentos + " intentos", e);
-                }
-            }
-        }
-
-        throw new RuntimeException("No se pudo generar un número de factura único después de " + maxIntentos + " intentos");
+        return PREFIJO_FACTURA_AUTOMATICA + numeracionService.siguiente(NumeracionService.SECUENCIA_FACTURA);
     }
 
     /**
@@ -851,9 +820,9 @@ public class FacturaService {
         
         // ✅ VALIDACIÓN DEL UMBRAL DE RETEFUENTE
         // Obtener configuración de retención
-        BusinessSettings config = obtenerConfiguracionRetencion();
-        Double reteRate = config.getReteRate() != null ? config.getReteRate() : 2.5;
-        Long reteThreshold = config.getReteThreshold() != null ? config.getReteThreshold() : 1_000_000L;
+        ParametrosTributarios config = obtenerConfiguracionRetencion();
+        Double reteRate = config.getReteRate();
+        Long reteThreshold = config.getReteThreshold();
         
         // Verificar si supera el umbral antes de aplicar retención
         // Esto puede pasar si el umbral cambió después de marcar la orden
@@ -942,11 +911,11 @@ public class FacturaService {
         
         // ✅ VALIDACIÓN DEL UMBRAL DE ICA
         // Obtener configuración de retención ICA
-        BusinessSettings config = obtenerConfiguracionRetencion();
+        ParametrosTributarios config = obtenerConfiguracionRetencion();
         // Usar porcentajeIca de la orden si está presente, sino usar el de BusinessSettings
         Double icaRate = orden.getPorcentajeIca() != null ? orden.getPorcentajeIca() : 
-                         (config.getIcaRate() != null ? config.getIcaRate() : 1.0);
-        Long icaThreshold = config.getIcaThreshold() != null ? config.getIcaThreshold() : 1_000_000L;
+                         config.getIcaRate();
+        Long icaThreshold = config.getIcaThreshold();
         
         // Verificar si supera el umbral antes de aplicar retención
         if (subtotalSinIva >= icaThreshold) {
@@ -998,9 +967,9 @@ public class FacturaService {
         
         // ✅ VALIDACIÓN DEL UMBRAL DE RETEIVA
         // Obtener configuración de retención IVA
-        BusinessSettings config = obtenerConfiguracionRetencion();
-        Double reteivaRate = config.getReteivaRate() != null ? config.getReteivaRate() : 15.0;
-        Long reteivaThreshold = config.getReteivaThreshold() != null ? config.getReteivaThreshold() : 1_000_000L;
+        ParametrosTributarios config = obtenerConfiguracionRetencion();
+        Double reteivaRate = config.getReteivaRate();
+        Long reteivaThreshold = config.getReteivaThreshold();
         
         // Verificar si supera el umbral antes de aplicar retención
         if (subtotalSinIva >= reteivaThreshold) {
@@ -1015,22 +984,8 @@ public class FacturaService {
      * 💰 OBTENER CONFIGURACIÓN DE RETENCIÓN DESDE BUSINESS SETTINGS
      * Obtiene la tasa y umbral de retención desde BusinessSettings
      */
-    private BusinessSettings obtenerConfiguracionRetencion() {
-        try {
-            List<BusinessSettings> settings = businessSettingsRepository.findAll();
-            if (!settings.isEmpty()) {
-                return settings.get(0);
-            }
-        } catch (Exception e) {
-            // ...existing code...
-        }
-        // Fallback a valores por defecto
-        BusinessSettings defaultSettings = new BusinessSettings();
-        defaultSettings.setReteRate(2.5);
-        defaultSettings.setReteThreshold(1_000_000L);
-        defaultSettings.setReteivaRate(15.0);
-        defaultSettings.setReteivaThreshold(1_000_000L);
-        return defaultSettings;
+    private ParametrosTributarios obtenerConfiguracionRetencion() {
+        return businessSettingsService.obtenerParametros();
     }
 }
 
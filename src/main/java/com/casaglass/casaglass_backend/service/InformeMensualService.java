@@ -2,31 +2,45 @@ package com.casaglass.casaglass_backend.service;
 
 import com.casaglass.casaglass_backend.dto.*;
 import com.casaglass.casaglass_backend.model.CierreInformeMensualSede;
-import com.casaglass.casaglass_backend.model.EntregaDinero;
-import com.casaglass.casaglass_backend.model.Inventario;
-import com.casaglass.casaglass_backend.model.InventarioCorte;
-import com.casaglass.casaglass_backend.model.Orden;
 import com.casaglass.casaglass_backend.model.Sede;
 import com.casaglass.casaglass_backend.repository.CierreInformeMensualSedeRepository;
+import com.casaglass.casaglass_backend.repository.CreditoRepository;
 import com.casaglass.casaglass_backend.repository.InventarioRepository;
 import com.casaglass.casaglass_backend.repository.InventarioCorteRepository;
 import com.casaglass.casaglass_backend.repository.OrdenRepository;
 import com.casaglass.casaglass_backend.repository.SedeRepository;
 import com.casaglass.casaglass_backend.repository.AbonoRepository;
 import com.casaglass.casaglass_backend.repository.ReembolsoVentaRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
-import java.util.Objects;
-import java.util.OptionalLong;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+/**
+ * 📊 INFORME MENSUAL POR SEDE
+ *
+ * Cada cifra del informe (ventas, dinero recogido, deudas, rango de órdenes y valor de
+ * inventario) sale de una consulta agregada (SUM/MIN/MAX/COUNT), sin cargar entidades.
+ * Los previews de varias sedes (un mes o un año completo) calculan cada sede en paralelo,
+ * cada una en su propia transacción de solo lectura, sobre el pool informeMensualExecutor
+ * (casaglass.informes.hilos hilos, ver EjecutoresConfig) para no acaparar el pool de conexiones.
+ */
 @Service
 public class InformeMensualService {
 
@@ -38,9 +52,12 @@ public class InformeMensualService {
     private final InventarioRepository inventarioRepository;
     private final InventarioCorteRepository inventarioCorteRepository;
     private final CierreInformeMensualSedeRepository cierreInformeRepository;
-    private final EntregaDineroService entregaDineroService;
+    private final CreditoRepository creditoRepository;
+    private final CreditoMovimientoService creditoMovimientoService;
     private final AbonoRepository abonoRepository;
     private final ReembolsoVentaRepository reembolsoVentaRepository;
+    private final TransactionTemplate transaccionLectura;
+    private final AsyncTaskExecutor executor;
 
     public InformeMensualService(
             SedeRepository sedeRepository,
@@ -48,17 +65,24 @@ public class InformeMensualService {
             InventarioRepository inventarioRepository,
             InventarioCorteRepository inventarioCorteRepository,
             CierreInformeMensualSedeRepository cierreInformeRepository,
-            EntregaDineroService entregaDineroService,
+            CreditoRepository creditoRepository,
+            CreditoMovimientoService creditoMovimientoService,
             AbonoRepository abonoRepository,
-            ReembolsoVentaRepository reembolsoVentaRepository) {
+            ReembolsoVentaRepository reembolsoVentaRepository,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("informeMensualExecutor") AsyncTaskExecutor executor) {
         this.sedeRepository = sedeRepository;
         this.ordenRepository = ordenRepository;
         this.inventarioRepository = inventarioRepository;
         this.inventarioCorteRepository = inventarioCorteRepository;
         this.cierreInformeRepository = cierreInformeRepository;
-        this.entregaDineroService = entregaDineroService;
+        this.creditoRepository = creditoRepository;
+        this.creditoMovimientoService = creditoMovimientoService;
         this.abonoRepository = abonoRepository;
         this.reembolsoVentaRepository = reembolsoVentaRepository;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.executor = executor;
     }
 
     private static void validarMes(int anio, int mesVal) {
@@ -77,66 +101,96 @@ public class InformeMensualService {
 
     /**
      * Misma agregación que el módulo de entregas en periodo {@link EntregaDineroService#obtenerTotalEntregadoPorSedeEnPeriodo(Long, LocalDate, LocalDate)}:
-     * {@code SUM(entregas_dinero.monto)} sobre la sede y fechas (inclusive), todos los estados de entrega registrados así en BD.
+     * ventas a contado + abonos − reembolsos de la sede en las fechas (inclusive).
      */
-    private double calcularDineroRecogidoMes(Long sedeId, LocalDate inicio, LocalDate fin) {
-        Double ventasContado = ordenRepository.sumTotalVentasContadoPorSedeEnPeriodo(sedeId, inicio, fin);
+    private double calcularDineroRecogidoMes(Long sedeId, LocalDate inicio, LocalDate fin, double ventasContado) {
         Double abonos = abonoRepository.sumTotalAbonosPorSedeEnPeriodo(sedeId, inicio, fin);
         Double reembolsos = reembolsoVentaRepository.sumTotalReembolsosPorSedeEnPeriodo(sedeId, inicio, fin);
 
-        double total = nz(ventasContado) + nz(abonos) - nz(reembolsos);
+        double total = ventasContado + nz(abonos) - nz(reembolsos);
         return round2(total);
     }
 
-    private InformeMensualRangoOrdenesDTO calcularRangoOrdenes(Long sedeId, LocalDate inicio, LocalDate fin) {
-        List<Orden> ventas = ordenRepository.findBySedeIdAndFechaBetweenAndVentaTrue(sedeId, inicio, fin);
-        int cantidad = ventas.size();
-        OptionalLong min = ventas.stream()
-                .map(Orden::getNumero)
-                .filter(Objects::nonNull)
-                .mapToLong(Long::longValue)
-                .min();
-        OptionalLong max = ventas.stream()
-                .map(Orden::getNumero)
-                .filter(Objects::nonNull)
-                .mapToLong(Long::longValue)
-                .max();
-        Long nmin = min.isPresent() ? min.getAsLong() : null;
-        Long nmax = max.isPresent() ? max.getAsLong() : null;
-        return new InformeMensualRangoOrdenesDTO(nmin, nmax, cantidad, CRITERIO_RANGO_ORDENES);
+    /**
+     * Valor inventario: Σ cantidad × precioVenta de productos enteros y de cortes.
+     * Usa `precio1` como precio de venta preferido; si es NULL, cae a `costo`.
+     * Es el valor actual (no hay histórico de inventario), igual para cualquier mes consultado.
+     */
+    private double valorInventarioPorSede(Long sedeId) {
+        Double vNormal = inventarioRepository.valorInventarioPorSede(sedeId);
+        Double vCortes = inventarioCorteRepository.valorInventarioPorSede(sedeId);
+        return round2(nz(vNormal) + nz(vCortes));
     }
 
     /**
-     * Valor inventario productos: Σ cantidad × precioVenta.
-     * Ahora usa `Producto.precio1` como precio de venta preferido; si es NULL, cae a `Producto.costo`.
-     * Nota: no incluye cortes en v1.
+     * Cifras de un mes de una sede con consultas agregadas:
+     * ventas (contado + crédito) y rango de números en una sola consulta, deudas del mes,
+     * créditos activos al cierre del mes y dinero recogido.
      */
-    private Double valorInventarioPorSede(Long sedeId) {
-        // 1) Valor de productos enteros en inventario normal
-        List<Inventario> rows = inventarioRepository.findBySedeId(sedeId);
-        double vNormal = rows.stream()
-                .mapToDouble(inv -> {
-                    Double precio = null;
-                    if (inv.getProducto() != null) {
-                        precio = inv.getProducto().getPrecio1() != null ? inv.getProducto().getPrecio1() : inv.getProducto().getCosto();
-                    }
-                    return nz(inv.getCantidad()) * nz(precio);
-                })
-                .sum();
-
-        // 2) Valor de productos que son cortes en inventario de cortes
-        List<InventarioCorte> rowsCortes = inventarioCorteRepository.findBySedeId(sedeId);
-        double vCortes = rowsCortes.stream()
-                .mapToDouble(inv -> {
-                    Double precio = null;
-                    if (inv.getCorte() != null) {
-                        precio = inv.getCorte().getPrecio1() != null ? inv.getCorte().getPrecio1() : inv.getCorte().getCosto();
-                    }
-                    return nz(inv.getCantidad()) * nz(precio);
-                })
-                .sum();
-
-        return round2(vNormal + vCortes);
+    private InformeMensualResponseDTO calcularInforme(Sede sede, int anio, int mesVal, double valorInventario) {
+        LocalDate inicio = LocalDate.of(anio, mesVal, 1);
+        LocalDate fin = inicio.withDayOfMonth(inicio.lengthOfMonth());
+        Long sedeId = sede.getId();
+
+        List<Object[]> filas = ordenRepository.resumenVentasPorSedeEnPeriodo(sedeId, inicio, fin);
+        Object[] fila = filas.isEmpty() ? new Object[5] : filas.get(0);
+        double ventas = fila[0] != null ? ((Number) fila[0]).doubleValue() : 0.0;
+        double ventasContado = fila[1] != null ? ((Number) fila[1]).doubleValue() : 0.0;
+        Long nmin = fila[2] != null ? ((Number) fila[2]).longValue() : null;
+        Long nmax = fila[3] != null ? ((Number) fila[3]).longValue() : null;
+        int cantidad = fila[4] != null ? ((Number) fila[4]).intValue() : 0;
+
+        Double deudasMes = creditoRepository.sumTotalCreditoPorSedeEnPeriodo(sedeId, inicio, fin);
+        double deudasActivas = creditoMovimientoService.saldoPendienteAFecha(sedeId, fin);
+
+        return InformeMensualResponseDTO.builder()
+                .origen("PREVIEW")
+                .sede(new SedeSimpleDTO(sede))
+                .periodo(crearPeriodoDto(anio, mesVal))
+                .ventasMes(round2(ventas))
+                .dineroRecogidoMes(calcularDineroRecogidoMes(sedeId, inicio, fin, ventasContado))
+                .deudasMes(round2(nz(deudasMes)))
+                .deudasActivasTotales(round2(deudasActivas))
+                .valorInventario(valorInventario)
+                .ordenesVentasMes(new InformeMensualRangoOrdenesDTO(nmin, nmax, cantidad, CRITERIO_RANGO_ORDENES))
+                .build();
+    }
+
+    /**
+     * Ejecuta el cálculo de cada sede en el pool, cada una en su transacción de solo lectura,
+     * y devuelve los resultados en el orden de las sedes. Si una sede falla se interrumpen las demás
+     */
+    private <T> List<T> calcularPorSede(List<Sede> sedes, Function<Sede, T> calculo) {
+        List<Future<T>> tareas = new ArrayList<>(sedes.size());
+        List<T> resultados = new ArrayList<>(sedes.size());
+        try {
+            for (Sede sede : sedes) {
+                tareas.add(executor.submit(() -> transaccionLectura.execute(status -> calculo.apply(sede))));
+            }
+            for (Future<T> tarea : tareas) {
+                resultados.add(tarea.get());
+            }
+        } catch (ExecutionException e) {
+            tareas.forEach(t -> t.cancel(true));
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new RuntimeException("Error calculando el informe mensual: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            tareas.forEach(t -> t.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Cálculo del informe mensual interrumpido", e);
+        } catch (RuntimeException e) {
+            tareas.forEach(t -> t.cancel(true));
+            throw e;
+        }
+        return resultados;
+    }
+
+    private List<Sede> sedesOrdenadas() {
+        List<Sede> sedes = new ArrayList<>(sedeRepository.findAll());
+        sedes.sort(Comparator.comparing(Sede::getId));
+        return sedes;
     }
 
     private InformeMensualCierreListItemDTO aItemLista(CierreInformeMensualSede c) {
@@ -171,31 +225,42 @@ public class InformeMensualService {
         Sede sede = sedeRepository.findById(sedeId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Sede no encontrada"));
 
-        LocalDate inicio = LocalDate.of(anio, mesVal, 1);
-        LocalDate fin = inicio.withDayOfMonth(inicio.lengthOfMonth());
-
-        EntregaDinero marco = new EntregaDinero();
-        marco.setSede(sede);
-        marco.setFechaEntrega(inicio);
-        ResumenMesDTO resumenMes = entregaDineroService.calcularResumenMes(marco);
-
-        InformeMensualMesPeriodoDTO periodo = crearPeriodoDto(anio, mesVal);
+        return calcularInforme(sede, anio, mesVal, valorInventarioPorSede(sedeId));
+    }
 
-        double dineroRecogido = calcularDineroRecogidoMes(sedeId, inicio, fin);
-        Double valorInv = valorInventarioPorSede(sedeId);
-        InformeMensualRangoOrdenesDTO rango = calcularRangoOrdenes(sedeId, inicio, fin);
+    /**
+     * 📊 PREVIEW DE UN MES PARA TODAS LAS SEDES (una tarea por sede en paralelo)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<InformeMensualResponseDTO> calcularPreviewTodasLasSedes(int anio, int mesVal) {
+        validarMes(anio, mesVal);
+        return calcularPorSede(sedesOrdenadas(),
+                sede -> calcularInforme(sede, anio, mesVal, valorInventarioPorSede(sede.getId())));
+    }
 
-        return InformeMensualResponseDTO.builder()
-                .origen("PREVIEW")
-                .sede(new SedeSimpleDTO(sede))
-                .periodo(periodo)
-                .ventasMes(round2Nz(resumenMes != null ? resumenMes.getTotalDelMes() : null))
-                .dineroRecogidoMes(round2Nz(dineroRecogido))
-                .deudasMes(round2Nz(resumenMes != null ? resumenMes.getTotalDeudasMensuales() : null))
-                .deudasActivasTotales(round2Nz(resumenMes != null ? resumenMes.getTotalCreditosActivosHistorico() : null))
-                .valorInventario(round2Nz(valorInv))
-                .ordenesVentasMes(rango)
-                .build();
+    /**
+     * 📊 PREVIEW DE UN AÑO PARA TODAS LAS SEDES
+     * Una tarea por sede en paralelo; cada una calcula sus meses en secuencia (hasta el mes actual
+     * si el año es el corriente) y el valor de inventario una sola vez.
+     * Resultado ordenado por sede y mes.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<InformeMensualResponseDTO> calcularPreviewAnioTodasLasSedes(int anio) {
+        validarMes(anio, 1);
+        LocalDate hoy = LocalDate.now();
+        if (anio > hoy.getYear()) {
+            return List.of();
+        }
+        int ultimoMes = anio == hoy.getYear() ? hoy.getMonthValue() : 12;
+        List<List<InformeMensualResponseDTO>> porSede = calcularPorSede(sedesOrdenadas(), sede -> {
+            double valorInventario = valorInventarioPorSede(sede.getId());
+            List<InformeMensualResponseDTO> meses = new ArrayList<>(ultimoMes);
+            for (int mes = 1; mes <= ultimoMes; mes++) {
+                meses.add(calcularInforme(sede, anio, mes, valorInventario));
+            }
+            return meses;
+        });
+        return porSede.stream().flatMap(List::stream).collect(Collectors.toList());
     }
 
     @Transactional(readOnly = true)
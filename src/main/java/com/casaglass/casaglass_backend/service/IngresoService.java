@@ -4,15 +4,32 @@ import com.casaglass.casaglass_backend.model.*;
 import com.casaglass.casaglass_backend.repository.*;
 import com.casaglass.casaglass_backend.dto.IngresoCreateDTO;
 import com.casaglass.casaglass_backend.dto.IngresoTablaDTO;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,23 +44,47 @@ public class IngresoService {
     private final SedeRepository sedeRepository;
     private final ProductoRepository productoRepository;
     private final ProveedorRepository proveedorRepository;
+    private final CostoPromedioService costoPromedioService;
+    private final EntityManager entityManager;
+    private final TaskExecutor taskExecutor;
+    private final TransactionTemplate transaccion;
+    private final TransactionTemplate transaccionNueva;
+    private final String instanciaId;
+    private final int latidoVencidoMinutos;
 
     // ID de la sede principal donde llegan todos los ingresos
     private static final Long SEDE_PRINCIPAL_ID = 1L;
 
+    private static final List<Ingreso.EstadoProcesamiento> ESTADOS_ACTIVOS =
+        List.of(Ingreso.EstadoProcesamiento.EN_COLA, Ingreso.EstadoProcesamiento.EN_PROCESO);
+
     @Autowired
     public IngresoService(IngresoRepository ingresoRepository,
                          IngresoDetalleRepository ingresoDetalleRepository,
                          InventarioService inventarioService,
                          SedeRepository sedeRepository,
                          ProductoRepository productoRepository,
-                         ProveedorRepository proveedorRepository) {
+                         ProveedorRepository proveedorRepository,
+                         CostoPromedioService costoPromedioService,
+                         EntityManager entityManager,
+                         TaskExecutor taskExecutor,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${casaglass.instancia.id:${HOSTNAME:local}}") String instanciaId,
+                         @Value("${casaglass.ingresos.latido-vencido-minutos:10}") int latidoVencidoMinutos) {
         this.ingresoRepository = ingresoRepository;
         this.ingresoDetalleRepository = ingresoDetalleRepository;
         this.inventarioService = inventarioService;
         this.sedeRepository = sedeRepository;
         this.productoRepository = productoRepository;
         this.proveedorRepository = proveedorRepository;
+        this.costoPromedioService = costoPromedioService;
+        this.entityManager = entityManager;
+        this.taskExecutor = taskExecutor;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.instanciaId = instanciaId;
+        this.latidoVencidoMinutos = latidoVencidoMinutos;
     }
 
     @Transactional(readOnly = true)
@@ -148,6 +189,7 @@ public class IngresoService {
         dto.setObservaciones(ingreso.getObservaciones());
         dto.setTotalCosto(ingreso.getTotalCosto());
         dto.setProcesado(ingreso.getProcesado());
+        dto.setEstadoProcesamiento(ingreso.getEstadoProcesamiento() != null ? ingreso.getEstadoProcesamiento().name() : null);
         
         // � CANTIDAD TOTAL (suma de cantidades de detalles)
         Integer cantidadTotal = ingresoRepository.calcularCantidadTotal(ingreso.getId());
@@ -318,7 +360,7 @@ public class IngresoService {
                     detalle.setProducto(productoCompleto);
                     detalle.setCantidad(detalleDTO.getCantidad());
                     detalle.setCostoUnitario(detalleDTO.getCostoUnitario()); // Costo original (para totalCosto y trazabilidad)
-                    detalle.setCostoUnitarioPonderado(detalleDTO.getCostoUnitarioPonderado()); // Costo ponderado calculado por el frontend
+                    // costoUnitarioPonderado lo calcula el servidor al procesar el ingreso (CostoPromedioService)
                     // totalLinea se calcula automáticamente con @PrePersist usando costoUnitario
                     // Pero si viene del frontend, lo respetamos
                     if (detalleDTO.getTotalLinea() != null) {
@@ -348,6 +390,7 @@ public class IngresoService {
     }
 
     public Ingreso actualizarIngreso(Long id, Ingreso ingresoActualizado) {
+        bloquearSinProcesamientoActivo(id);
         // Usar consulta con FETCH para evitar proxies lazy
         Ingreso ingresoExistente = ingresoRepository.findByIdWithDetalles(id);
         if (ingresoExistente == null) {
@@ -418,26 +461,15 @@ public class IngresoService {
             System.out.println("🔁 Reaplicando inventario por edición de ingreso procesado");
             Sede sedePrincipal = sedeRepository.findById(SEDE_PRINCIPAL_ID)
                 .orElseThrow(() -> new RuntimeException("Sede principal no encontrada (ID: " + SEDE_PRINCIPAL_ID + ")"));
+            Map<Long, Double> cantidades = new LinkedHashMap<>();
             for (IngresoDetalle detalleNuevo : ingresoExistente.getDetalles()) {
                 Producto producto = detalleNuevo.getProducto();
-                Double cantidadNueva = detalleNuevo.getCantidad();
-                if (producto != null && producto.getId() != null) {
-                    Optional<Inventario> inventarioOpt = inventarioService.obtenerPorProductoYSede(producto.getId(), sedePrincipal.getId());
-                    if (inventarioOpt.isPresent()) {
-                        Inventario inventario = inventarioOpt.get();
-                        double nuevaCantidad = inventario.getCantidad() + cantidadNueva;
-                        inventario.setCantidad(nuevaCantidad);
-                        inventarioService.actualizar(inventario.getId(), inventario);
-                    } else {
-                        // Si no existe inventario, crearlo
-                        Inventario nuevoInventario = new Inventario();
-                        nuevoInventario.setProducto(producto);
-                        nuevoInventario.setSede(sedePrincipal);
-                        nuevoInventario.setCantidad(cantidadNueva);
-                        inventarioService.guardar(nuevoInventario);
-                    }
+                if (producto != null && producto.getId() != null && detalleNuevo.getCantidad() != null) {
+                    cantidades.merge(producto.getId(), detalleNuevo.getCantidad(), Double::sum);
                 }
             }
+            // Sumar (o crear el inventario si no existe) en un solo upsert
+            inventarioService.sumarEnLoteOCrear(sedePrincipal.getId(), cantidades, null);
         }
 
         // Forzar inicialización del proveedor para evitar proxy lazy en serialización
@@ -448,8 +480,7 @@ public class IngresoService {
     }
 
     public void eliminarIngreso(Long id) {
-        Ingreso ingreso = ingresoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Ingreso no encontrado"));
+        Ingreso ingreso = bloquearSinProcesamientoActivo(id);
 
         if (ingreso.getProcesado()) {
             throw new RuntimeException("No se puede eliminar un ingreso ya procesado");
@@ -458,10 +489,155 @@ public class IngresoService {
         ingresoRepository.deleteById(id);
     }
 
+    /**
+     * 🔒 Bloquea el ingreso para un cambio dentro de la petición (procesar, reprocesar, marcar,
+     * editar o eliminar). Si está EN_COLA/EN_PROCESO el procesamiento en segundo plano es su
+     * dueño y se rechaza con 409; el bloqueo hace esperar a un encolado simultáneo
+     */
+    private Ingreso bloquearSinProcesamientoActivo(Long ingresoId) {
+        Ingreso ingreso = ingresoRepository.bloquearPorId(ingresoId)
+            .orElseThrow(() -> new RuntimeException("Ingreso no encontrado"));
+        if (ESTADOS_ACTIVOS.contains(ingreso.getEstadoProcesamiento())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "El ingreso se está procesando en segundo plano, espere a que termine");
+        }
+        return ingreso;
+    }
+
     /**
      * Procesa el ingreso actualizando automáticamente el inventario en la sede principal
+     *
+     * Pipeline en lote: las líneas se agrupan por producto, el inventario se suma con un upsert
+     * multifila (InventarioService.sumarEnLoteOCrear) y los costos ponderados se escriben con un
+     * único batch JDBC. Sin lectura previa ni comparación de versión por producto, una venta o
+     * edición simultánea ya no aborta el ingreso completo.
      */
     public void procesarInventario(Ingreso ingreso) {
+        aplicarIngreso(ingreso, null, true);
+    }
+
+    /**
+     * Igual que {@link #procesarInventario(Ingreso)} pero cargando el ingreso dentro de la transacción
+     */
+    public void procesarInventarioPorId(Long ingresoId) {
+        bloquearSinProcesamientoActivo(ingresoId);
+        Ingreso ingreso = ingresoRepository.findByIdWithDetalles(ingresoId);
+        if (ingreso == null) {
+            throw new RuntimeException("Ingreso no encontrado");
+        }
+        aplicarIngreso(ingreso, null, true);
+    }
+
+    /**
+     * ⏳ PROCESAMIENTO EN SEGUNDO PLANO
+     *
+     * Marca el ingreso EN_COLA a nombre de esta instancia (transacción propia, ya confirmada al
+     * retornar) y lo procesa en el ejecutor de tareas de la aplicación; cada avance renueva el latido. El avance queda en lineasProcesadas/lineasTotales
+     * y el resultado en estadoProcesamiento (COMPLETADO o ERROR con mensajeProcesamiento).
+     * Todo el inventario se aplica en una sola transacción: si falla, no queda nada a medias.
+     *
+     * @return estado inicial del procesamiento (ver {@link #obtenerEstadoProcesamiento(Long)})
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Object> procesarInventarioEnSegundoPlano(Long ingresoId) {
+        Integer encolados = transaccionNueva.execute(status ->
+            ingresoRepository.encolarProcesamiento(ingresoId, Ingreso.EstadoProcesamiento.EN_COLA, ESTADOS_ACTIVOS,
+                instanciaId, LocalDateTime.now()));
+        if (encolados == null || encolados == 0) {
+            Ingreso ingreso = ingresoRepository.findById(ingresoId)
+                .orElseThrow(() -> new RuntimeException("Ingreso no encontrado"));
+            if (Boolean.TRUE.equals(ingreso.getProcesado())) {
+                throw new RuntimeException("El ingreso ya ha sido procesado");
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "El ingreso ya se está procesando");
+        }
+
+        try {
+            taskExecutor.execute(() -> ejecutarEnSegundoPlano(ingresoId));
+        } catch (TaskRejectedException e) {
+            registrarProcesamiento(ingresoId, Ingreso.EstadoProcesamiento.ERROR, 0, null,
+                "No se pudo encolar el procesamiento, intente nuevamente");
+            throw new RuntimeException("No se pudo encolar el procesamiento del ingreso, intente nuevamente");
+        }
+        return obtenerEstadoProcesamiento(ingresoId);
+    }
+
+    /**
+     * ⏳ Estado y avance del procesamiento de un ingreso
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> obtenerEstadoProcesamiento(Long ingresoId) {
+        Ingreso ingreso = ingresoRepository.findById(ingresoId)
+            .orElseThrow(() -> new RuntimeException("Ingreso no encontrado"));
+        Map<String, Object> estado = new LinkedHashMap<>();
+        estado.put("ingresoId", ingreso.getId());
+        estado.put("procesado", ingreso.getProcesado());
+        estado.put("estadoProcesamiento", ingreso.getEstadoProcesamiento());
+        estado.put("lineasProcesadas", ingreso.getLineasProcesadas());
+        estado.put("lineasTotales", ingreso.getLineasTotales());
+        estado.put("mensajeProcesamiento", ingreso.getMensajeProcesamiento());
+        return estado;
+    }
+
+    /**
+     * Al arrancar, los procesamientos EN_COLA/EN_PROCESO de esta instancia se perdieron con el
+     * reinicio (su transacción se revirtió): se marcan ERROR para poder reintentarlos. De otras
+     * instancias solo los que llevan más de casaglass.ingresos.latido-vencido-minutos sin avance.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void marcarProcesamientosInterrumpidos() {
+        try {
+            int interrumpidos = ingresoRepository.marcarInterrumpidos(
+                Ingreso.EstadoProcesamiento.ERROR, ESTADOS_ACTIVOS,
+                "Procesamiento interrumpido por reinicio del servidor, intente nuevamente",
+                instanciaId, LocalDateTime.now().minusMinutes(latidoVencidoMinutos));
+            if (interrumpidos > 0) {
+                log.warn("{} ingreso(s) con procesamiento interrumpido quedaron en ERROR", interrumpidos);
+            }
+        } catch (Exception e) {
+            log.warn("No se pudieron revisar los procesamientos de ingresos interrumpidos: {}", e.getMessage());
+        }
+    }
+
+    private void ejecutarEnSegundoPlano(Long ingresoId) {
+        try {
+            transaccion.executeWithoutResult(status -> {
+                Ingreso ingreso = ingresoRepository.findByIdWithDetalles(ingresoId);
+                if (ingreso == null) {
+                    throw new RuntimeException("Ingreso no encontrado");
+                }
+                aplicarIngreso(ingreso, (procesadas, totales) ->
+                    registrarProcesamiento(ingresoId, Ingreso.EstadoProcesamiento.EN_PROCESO, procesadas, totales, null), true);
+            });
+        } catch (RuntimeException e) {
+            log.error("Error procesando en segundo plano el ingreso {}: {}", ingresoId, e.getMessage(), e);
+            String mensaje = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            registrarProcesamiento(ingresoId, Ingreso.EstadoProcesamiento.ERROR, 0, null,
+                mensaje.length() > 500 ? mensaje.substring(0, 500) : mensaje);
+        }
+    }
+
+    /**
+     * Escribe el estado en una transacción propia para que se vea mientras la principal sigue abierta
+     * (la principal no toca la fila del ingreso hasta el final, así no se bloquean entre sí)
+     */
+    private void registrarProcesamiento(Long ingresoId, Ingreso.EstadoProcesamiento estado,
+                                        Integer procesadas, Integer totales, String mensaje) {
+        transaccionNueva.executeWithoutResult(status ->
+            ingresoRepository.actualizarProcesamiento(ingresoId, estado, procesadas, totales, mensaje, LocalDateTime.now()));
+    }
+
+    /** Recibe el avance del pipeline: productos aplicados y total de productos del ingreso */
+    @FunctionalInterface
+    private interface AvanceIngreso {
+        void registrar(int procesadas, int totales);
+    }
+
+    /**
+     * @param aplicarCostos false al reprocesar un ingreso ya procesado: su entrada ya está en el
+     *                      costo promedio y en el historial, promediarla otra vez correría el costo
+     */
+    private void aplicarIngreso(Ingreso ingreso, AvanceIngreso avance, boolean aplicarCostos) {
         if (ingreso.getProcesado()) {
             throw new RuntimeException("El ingreso ya ha sido procesado");
         }
@@ -470,64 +646,61 @@ public class IngresoService {
         Sede sedePrincipal = sedeRepository.findById(SEDE_PRINCIPAL_ID)
                 .orElseThrow(() -> new RuntimeException("Sede principal no encontrada (ID: " + SEDE_PRINCIPAL_ID + "). Verifique que exista una sede con ID 1 en la base de datos."));
 
-        // Procesar cada detalle del ingreso
+        // 1) Validar y agrupar las líneas por producto (cantidad y valor pagado)
+        Map<Long, Double> cantidades = new LinkedHashMap<>();
+        Map<Long, Double> valores = new LinkedHashMap<>();
+        Map<Long, Producto> productos = new LinkedHashMap<>();
         for (IngresoDetalle detalle : ingreso.getDetalles()) {
             Producto producto = detalle.getProducto();
-            Double cantidadIngresada = detalle.getCantidad();
-
             if (producto == null || producto.getId() == null) {
                 throw new RuntimeException("Detalle de ingreso sin producto válido");
             }
-
-            // Buscar o crear registro de inventario para este producto en la sede principal
-            Optional<Inventario> inventarioExistente = inventarioService
-                    .obtenerPorProductoYSede(producto.getId(), sedePrincipal.getId());
-
-            if (inventarioExistente.isPresent()) {
-                // Actualizar cantidad existente
-                Inventario inventario = inventarioExistente.get();
-                inventario.setCantidad(inventario.getCantidad() + cantidadIngresada);
-                inventarioService.actualizar(inventario.getId(), inventario);
-            } else {
-                // Crear nuevo registro de inventario
-                Inventario nuevoInventario = new Inventario();
-                nuevoInventario.setProducto(producto);
-                nuevoInventario.setSede(sedePrincipal);
-                nuevoInventario.setCantidad(cantidadIngresada);
-                inventarioService.guardar(nuevoInventario);
+            if (detalle.getCantidad() == null || detalle.getCostoUnitario() == null) {
+                throw new RuntimeException("Cantidad y costo unitario son obligatorios para el producto ID: " + producto.getId());
             }
+            cantidades.merge(producto.getId(), detalle.getCantidad(), Double::sum);
+            valores.merge(producto.getId(), detalle.getCantidad() * detalle.getCostoUnitario(), Double::sum);
+            productos.put(producto.getId(), producto);
+        }
+        int totales = cantidades.size();
+        if (avance != null) {
+            avance.registrar(0, totales);
+        }
 
-            // Actualizar el costo del producto usando costoUnitarioPonderado (calculado por el frontend)
-            // El frontend ya calculó el promedio ponderado antes de enviar el ingreso
-            Double costoActual = producto.getCosto();
-            Double costoPonderado = detalle.getCostoUnitarioPonderado(); // Viene calculado del frontend
-            
-            if (costoPonderado == null) {
-                throw new RuntimeException("El campo costoUnitarioPonderado es obligatorio para el producto ID: " + producto.getId());
-            }
-            
-            // Actualizar el costo del producto con el costoUnitarioPonderado recibido del frontend
-            if (costoActual == null || !costoActual.equals(costoPonderado)) {
-                try {
-                    producto.setCosto(costoPonderado);
-                    productoRepository.save(producto);
-                    // ...existing code...
-                } catch (jakarta.persistence.OptimisticLockException e) {
-                    // ...existing code...
-                    throw new RuntimeException(
-                        String.format("⚠️ Otro usuario modificó el producto ID %d. Por favor, intente nuevamente.", producto.getId())
-                    );
-                } catch (org.springframework.orm.ObjectOptimisticLockingFailureException e) {
-                    // ...existing code...
-                    throw new RuntimeException(
-                        String.format("⚠️ Otro usuario modificó el producto ID %d. Por favor, intente nuevamente.", producto.getId())
-                    );
+        // 2) Costo promedio ponderado con el stock de todas las sedes ANTES de sumar el ingreso
+        // (bloquea las filas de los productos hasta el commit y deja el historial)
+        if (aplicarCostos) {
+            Map<Long, CostoPromedioService.Entrada> entradas = new LinkedHashMap<>();
+            cantidades.forEach((productoId, cantidad) ->
+                entradas.put(productoId, new CostoPromedioService.Entrada(cantidad, valores.get(productoId))));
+            CostoPromedioService.Resultado costos = costoPromedioService.aplicarEntradas(ingreso.getId(), entradas);
+
+            // Las entidades en memoria quedaron con costo y versión viejos: se sueltan del contexto
+            // (no deben volver a escribirse) y solo se refleja el costo nuevo para la respuesta
+            for (Long productoId : costos.actualizados()) {
+                Producto producto = productos.get(productoId);
+                if (entityManager.contains(producto)) {
+                    entityManager.detach(producto);
+                }
+                if (Hibernate.isInitialized(producto)) {
+                    producto.setCosto(costos.costos().get(productoId));
                 }
             }
+            for (IngresoDetalle detalle : ingreso.getDetalles()) {
+                detalle.setCostoUnitarioPonderado(costos.costos().get(detalle.getProducto().getId()));
+            }
         }
 
-        // Marcar el ingreso como procesado
+        // 3) Sumar al inventario de la sede principal (crea los registros que no existan)
+        IntConsumer avanceInventario = avance != null ? procesadas -> avance.registrar(procesadas, totales) : null;
+        inventarioService.sumarEnLoteOCrear(sedePrincipal.getId(), cantidades, avanceInventario);
+
+        // 4) Marcar el ingreso como procesado
         ingreso.setProcesado(true);
+        ingreso.setEstadoProcesamiento(Ingreso.EstadoProcesamiento.COMPLETADO);
+        ingreso.setLineasProcesadas(totales);
+        ingreso.setLineasTotales(totales);
+        ingreso.setMensajeProcesamiento(null);
         ingresoRepository.save(ingreso);
     }
 
@@ -535,28 +708,31 @@ public class IngresoService {
      * Reprocesa un ingreso (útil para correcciones)
      */
     public void reprocesarInventario(Long ingresoId) {
+        bloquearSinProcesamientoActivo(ingresoId);
         Ingreso ingreso = ingresoRepository.findByIdWithDetalles(ingresoId);
         if (ingreso == null) {
             throw new RuntimeException("Ingreso no encontrado");
         }
 
-        // Marcar como no procesado temporalmente para poder reprocesar
+        // Si ya estaba procesado su entrada ya está en el costo promedio y en el historial:
+        // solo se vuelve a sumar el inventario
+        boolean aplicarCostos = !Boolean.TRUE.equals(ingreso.getProcesado());
         ingreso.setProcesado(false);
-        procesarInventario(ingreso);
+        aplicarIngreso(ingreso, null, aplicarCostos);
     }
 
     /**
      * Marca un ingreso como procesado sin actualizar el inventario
      */
     public Ingreso marcarComoProcesado(Long ingresoId) {
-        Ingreso ingreso = ingresoRepository.findById(ingresoId)
-                .orElseThrow(() -> new RuntimeException("Ingreso no encontrado"));
+        Ingreso ingreso = bloquearSinProcesamientoActivo(ingresoId);
 
         if (ingreso.getProcesado()) {
             throw new RuntimeException("El ingreso ya está marcado como procesado");
         }
 
         ingreso.setProcesado(true);
+        ingreso.setEstadoProcesamiento(Ingreso.EstadoProcesamiento.COMPLETADO);
         return ingresoRepository.save(ingreso);
     }
 }
\ No newline at end of file
@@ -1,17 +1,25 @@
 package com.casaglass.casaglass_backend.service;
 
+import com.casaglass.casaglass_backend.dto.CategoriaDTO;
+import com.casaglass.casaglass_backend.dto.PageResponse;
 import com.casaglass.casaglass_backend.dto.ProductoInventarioCompletoDTO;
 import com.casaglass.casaglass_backend.model.Inventario;
 import com.casaglass.casaglass_backend.model.Producto;
 import com.casaglass.casaglass_backend.model.ProductoVidrio;
 import com.casaglass.casaglass_backend.model.TipoProducto;
 import com.casaglass.casaglass_backend.model.ColorProducto;
+import com.casaglass.casaglass_backend.repository.InventarioCompletoProjection;
 import com.casaglass.casaglass_backend.repository.InventarioRepository;
 import com.casaglass.casaglass_backend.repository.ProductoRepository;
 import com.casaglass.casaglass_backend.repository.ProductoVidrioRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -23,120 +31,50 @@ public class InventarioCompletoService {
     private final ProductoRepository productoRepository;
     private final InventarioRepository inventarioRepository;
     private final ProductoVidrioRepository productoVidrioRepository;
+    private final ExportacionJsonService exportacionJsonService;
 
     public InventarioCompletoService(ProductoRepository productoRepository, 
                                    InventarioRepository inventarioRepository,
-                                   ProductoVidrioRepository productoVidrioRepository) {
+                                   ProductoVidrioRepository productoVidrioRepository,
+                                   ExportacionJsonService exportacionJsonService) {
         this.productoRepository = productoRepository;
         this.inventarioRepository = inventarioRepository;
         this.productoVidrioRepository = productoVidrioRepository;
+        this.exportacionJsonService = exportacionJsonService;
     }
 
     public List<ProductoInventarioCompletoDTO> obtenerInventarioCompleto() {
-        // 🔧 OBTENER TODOS LOS PRODUCTOS (incluyendo ProductoVidrio)
-        // findAll() con herencia JOINED debería cargar automáticamente ProductoVidrio
-        List<Producto> todosLosProductos = productoRepository.findAll();
-        
-        // ...existing code...
-        
-        // 🔧 FILTRAR CORTES MANUALMENTE EN JAVA (mantener ProductoVidrio)
-        List<Producto> productos = todosLosProductos.stream()
-            .filter(p -> !(p instanceof com.casaglass.casaglass_backend.model.Corte))
-            .collect(Collectors.toList());
-        
-        // 🔧 USAR MÉTODO CON FETCH JOINS para evitar lazy loading
-        Map<Long, Map<Long, Double>> inventariosPorProductoYSede = 
-            inventarioRepository.findAllWithDetails().stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getProducto().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        Inventario::getCantidad,
-                        Double::sum // En caso de duplicados, sumar
-                    )
-                ));
-
-        // 🐛 DEBUG: Logging para verificar los datos
-        // ...existing code...
-        
-        // Contar productos vidrio
-        long cantidadVidrios = productos.stream()
-            .filter(p -> p instanceof ProductoVidrio)
-            .count();
-        // ...existing code...
-        
-        // Listar IDs de productos vidrio
-        List<Long> idsVidrios = productos.stream()
-            .filter(p -> p instanceof ProductoVidrio)
-            .map(Producto::getId)
-            .collect(Collectors.toList());
-        // ...existing code...
-        
-        // ...existing code...
+        // 🔧 Una sola consulta pivotada (excluye cortes, incluye ProductoVidrio)
+        return consultarMatriz(null, null, null, null, null, null, null, null, null);
+    }
 
-        // Convertir a DTOs (incluir TODOS los productos, incluso sin inventario)
-        return productos.stream()
-            .map(producto -> {
-                Map<Long, Double> inventarios = inventariosPorProductoYSede.get(producto.getId());
-                ProductoInventarioCompletoDTO dto = convertirADTO(producto, inventarios);
-                
-                // 🐛 DEBUG: Log específico para productos vidrio
-                if (producto instanceof ProductoVidrio) {
-                    // ...existing code...
-                }
-                
-                return dto;
-            })
-            .collect(Collectors.toList());
+    /**
+     * 📤 EXPORTACIÓN EN STREAMING (mismo contenido que obtenerInventarioCompleto())
+     * Las filas se leen por lotes y se escriben directamente en la salida
+     *
+     * @return cantidad de productos escritos
+     */
+    public long exportarInventarioCompleto(OutputStream salida) throws IOException {
+        return exportacionJsonService.escribirArreglo(
+            productoRepository.streamInventarioCompleto(null, null, null, null, null, null, null, null, null),
+            this::convertirADTO,
+            salida
+        );
     }
 
     public List<ProductoInventarioCompletoDTO> obtenerInventarioCompletoPorCategoria(Long categoriaId) {
-        // 🔧 OBTENER PRODUCTOS DE CATEGORÍA ESPECÍFICA (excluir cortes)
-        List<Producto> productos = productoRepository.findByCategoria_IdSinCortes(categoriaId);
-        
-        // Obtener inventarios para esos productos
-        List<Long> productosIds = productos.stream().map(Producto::getId).collect(Collectors.toList());
-        Map<Long, Map<Long, Double>> inventariosPorProductoYSede = 
-            inventarioRepository.findByProductoIdIn(productosIds).stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getProducto().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        Inventario::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return productos.stream()
-            .map(producto -> convertirADTO(producto, inventariosPorProductoYSede.get(producto.getId())))
-            .collect(Collectors.toList());
+        return consultarMatriz(categoriaId, null, null, null, null, null, null, null, null);
     }
 
     public List<ProductoInventarioCompletoDTO> buscarInventarioCompleto(String query) {
         // 🔧 BÚSQUEDA POR NOMBRE O CÓDIGO (excluir cortes)
-        List<Producto> productos = productoRepository.findByNombreOrCodigoSinCortes(query, query);
-        
-        // Obtener inventarios para esos productos
-        List<Long> productosIds = productos.stream().map(Producto::getId).collect(Collectors.toList());
-        Map<Long, Map<Long, Double>> inventariosPorProductoYSede = 
-            inventarioRepository.findByProductoIdIn(productosIds).stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getProducto().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        Inventario::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return productos.stream()
-            .map(producto -> convertirADTO(producto, inventariosPorProductoYSede.get(producto.getId())))
-            .collect(Collectors.toList());
+        return consultarMatriz(null, null, null, null, null, null, query, null, null);
     }
 
     /**
      * 🚀 LISTADO DE INVENTARIO COMPLETO CON FILTROS COMPLETOS
      * Acepta múltiples filtros opcionales y retorna lista o respuesta paginada
+     * Filtros, conStock/sinStock y paginación se resuelven en la base de datos
      */
     @Transactional(readOnly = true)
     public Object obtenerInventarioCompletoConFiltros(
@@ -171,45 +109,14 @@ public class InventarioCompletoService {
             }
         }
         
-        // Buscar productos con filtros (excluye cortes)
-        List<Producto> productos = productoRepository.buscarConFiltros(
-            categoriaId, categoriaNombre, tipoEnum, colorEnum, codigo, nombre
-        );
-        
-        // Obtener inventarios para esos productos
-        List<Long> productosIds = productos.stream().map(Producto::getId).collect(Collectors.toList());
-        Map<Long, Map<Long, Double>> inventariosPorProductoYSede = 
-            inventarioRepository.findByProductoIdIn(productosIds).stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getProducto().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        Inventario::getCantidad,
-                        Double::sum
-                    )
-                ));
-        
-        // Convertir a DTOs
-        List<ProductoInventarioCompletoDTO> dtos = productos.stream()
-            .map(producto -> convertirADTO(producto, inventariosPorProductoYSede.get(producto.getId())))
-            .collect(Collectors.toList());
-        
-        // Filtrar por stock si se solicita
+        // Filtro de stock por sede (conStock tiene prioridad sobre sinStock)
+        Long conStockSedeId = null;
+        Long sinStockSedeId = null;
         if (sedeId != null) {
             if (conStock != null && conStock) {
-                dtos = dtos.stream()
-                    .filter(dto -> {
-                        Double cantidad = obtenerCantidadPorSede(dto, sedeId);
-                        return cantidad != null && cantidad > 0;
-                    })
-                    .collect(Collectors.toList());
+                conStockSedeId = sedeId;
             } else if (sinStock != null && sinStock) {
-                dtos = dtos.stream()
-                    .filter(dto -> {
-                        Double cantidad = obtenerCantidadPorSede(dto, sedeId);
-                        return cantidad == null || cantidad == 0.0;
-                    })
-                    .collect(Collectors.toList());
+                sinStockSedeId = sedeId;
             }
         }
         
@@ -220,38 +127,40 @@ public class InventarioCompletoService {
             if (size < 1) size = 100;
             if (size > 500) size = 500; // Límite máximo para inventario
             
-            long totalElements = dtos.size();
-            
-            // Calcular índices para paginación
-            int fromIndex = (page - 1) * size;
-            int toIndex = Math.min(fromIndex + size, dtos.size());
-            
-            if (fromIndex >= dtos.size()) {
-                // Página fuera de rango, retornar lista vacía
-                return com.casaglass.casaglass_backend.dto.PageResponse.of(
-                    new java.util.ArrayList<>(), totalElements, page, size
-                );
-            }
+            Page<InventarioCompletoProjection> pagina = productoRepository.buscarInventarioCompleto(
+                categoriaId, vacioANull(categoriaNombre), tipoEnum, colorEnum, vacioANull(codigo), vacioANull(nombre),
+                null, conStockSedeId, sinStockSedeId, PageRequest.of(page - 1, size)
+            );
             
-            // Obtener solo la página solicitada
-            List<ProductoInventarioCompletoDTO> contenido = dtos.subList(fromIndex, toIndex);
+            List<ProductoInventarioCompletoDTO> contenido = pagina.getContent().stream()
+                .map(this::convertirADTO)
+                .collect(Collectors.toList());
             
-            return com.casaglass.casaglass_backend.dto.PageResponse.of(contenido, totalElements, page, size);
+            return PageResponse.of(contenido, pagina.getTotalElements(), page, size);
         }
         
         // Sin paginación: retornar lista completa
-        return dtos;
+        return consultarMatriz(categoriaId, categoriaNombre, tipoEnum, colorEnum, codigo, nombre,
+                null, conStockSedeId, sinStockSedeId);
     }
     
     /**
-     * Obtiene la cantidad de un producto en una sede específica desde el DTO
+     * Ejecuta la consulta pivotada sin paginar y convierte cada fila a DTO
      */
-    private Double obtenerCantidadPorSede(ProductoInventarioCompletoDTO dto, Long sedeId) {
-        // IDs de sedes: Insula=1, Centro=2, Patios=3
-        if (sedeId == 1L) return dto.getCantidadInsula();
-        if (sedeId == 2L) return dto.getCantidadCentro();
-        if (sedeId == 3L) return dto.getCantidadPatios();
-        return null;
+    private List<ProductoInventarioCompletoDTO> consultarMatriz(Long categoriaId, String categoriaNombre,
+                                                                TipoProducto tipo, ColorProducto color,
+                                                                String codigo, String nombre, String q,
+                                                                Long conStockSedeId, Long sinStockSedeId) {
+        return productoRepository.buscarInventarioCompleto(
+                categoriaId, vacioANull(categoriaNombre), tipo, color, vacioANull(codigo), vacioANull(nombre),
+                vacioANull(q), conStockSedeId, sinStockSedeId, Pageable.unpaged()
+            ).getContent().stream()
+            .map(this::convertirADTO)
+            .collect(Collectors.toList());
+    }
+
+    private String vacioANull(String valor) {
+        return valor == null || valor.trim().isEmpty() ? null : valor.trim();
     }
 
     public List<ProductoInventarioCompletoDTO> obtenerInventarioCompletoPorTipo(String tipoStr) {
@@ -264,24 +173,7 @@ public class InventarioCompletoService {
         }
 
         // 🔧 OBTENER PRODUCTOS DE UN TIPO ESPECÍFICO (excluir cortes)
-        List<Producto> productos = productoRepository.findByTipoSinCortes(tipo);
-        
-        // Obtener inventarios para esos productos
-        List<Long> productosIds = productos.stream().map(Producto::getId).collect(Collectors.toList());
-        Map<Long, Map<Long, Double>> inventariosPorProductoYSede = 
-            inventarioRepository.findByProductoIdIn(productosIds).stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getProducto().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        Inventario::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return productos.stream()
-            .map(producto -> convertirADTO(producto, inventariosPorProductoYSede.get(producto.getId())))
-            .collect(Collectors.toList());
+        return consultarMatriz(null, null, tipo, null, null, null, null, null, null);
     }
 
     public List<ProductoInventarioCompletoDTO> obtenerInventarioCompletoPorColor(String colorStr) {
@@ -294,24 +186,7 @@ public class InventarioCompletoService {
         }
 
         // 🔧 OBTENER PRODUCTOS DE UN COLOR ESPECÍFICO (excluir cortes)
-        List<Producto> productos = productoRepository.findByColorSinCortes(color);
-        
-        // Obtener inventarios para esos productos
-        List<Long> productosIds = productos.stream().map(Producto::getId).collect(Collectors.toList());
-        Map<Long, Map<Long, Double>> inventariosPorProductoYSede = 
-            inventarioRepository.findByProductoIdIn(productosIds).stream()
-                .collect(Collectors.groupingBy(
-                    inv -> inv.getProducto().getId(),
-                    Collectors.toMap(
-                        inv -> inv.getSede().getId(),
-                        Inventario::getCantidad,
-                        Double::sum
-                    )
-                ));
-
-        return productos.stream()
-            .map(producto -> convertirADTO(producto, inventariosPorProductoYSede.get(producto.getId())))
-            .collect(Collectors.toList());
+        return consultarMatriz(null, null, null, color, null, null, null, null, null);
     }
 
     public List<ProductoInventarioCompletoDTO> obtenerInventarioCompletoPorSede(Long sedeId) {
@@ -344,6 +219,37 @@ public class InventarioCompletoService {
             .collect(Collectors.toList());
     }
 
+    /**
+     * Convierte una fila de la consulta pivotada al DTO (sin pasar por entidades)
+     */
+    private ProductoInventarioCompletoDTO convertirADTO(InventarioCompletoProjection fila) {
+        CategoriaDTO categoriaDTO = fila.getCategoriaId() != null
+            ? new CategoriaDTO(fila.getCategoriaId(), fila.getCategoriaNombre())
+            : null;
+
+        return new ProductoInventarioCompletoDTO(
+            fila.getId(),
+            fila.getCodigo(),
+            fila.getNombre(),
+            fila.getDescripcion(),
+            categoriaDTO,
+            fila.getTipo() != null ? fila.getTipo().name() : null,
+            fila.getColor() != null ? fila.getColor().name() : null,
+            fila.getPosicion(),
+            Boolean.TRUE.equals(fila.getEsVidrio()),
+            fila.getMm(),
+            fila.getM1(),
+            fila.getM2(),
+            fila.getCantidadInsula(),
+            fila.getCantidadCentro(),
+            fila.getCantidadPatios(),
+            fila.getCosto(),
+            fila.getPrecio1(),
+            fila.getPrecio2(),
+            fila.getPrecio3()
+        );
+    }
+
     private ProductoInventarioCompletoDTO convertirADTO(Producto producto, Map<Long, Double> inventariosPorSede) {
         // 🔧 USAR IDS ESPECÍFICOS DE LAS SEDES (según los datos reales)
         Long insulaId = 1L;  // Sede ID 1 = Insula  
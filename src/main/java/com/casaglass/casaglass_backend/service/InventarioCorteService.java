@@ -1,10 +1,13 @@
 package com.casaglass.casaglass_backend.service;
 
+import com.casaglass.casaglass_backend.dto.DeltaInventarioDTO;
 import com.casaglass.casaglass_backend.dto.InventarioCorteDTO;
+import com.casaglass.casaglass_backend.exception.InventarioInsuficienteException;
 import com.casaglass.casaglass_backend.model.Corte;
 import com.casaglass.casaglass_backend.model.InventarioCorte;
 import com.casaglass.casaglass_backend.model.Sede;
 import com.casaglass.casaglass_backend.repository.InventarioCorteRepository;
+import com.casaglass.casaglass_backend.repository.UpsertSumaRepository;
 import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,10 +15,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class InventarioCorteService {
@@ -24,10 +30,13 @@ public class InventarioCorteService {
 
     private final InventarioCorteRepository repository;
     private final EntityManager entityManager;
+    private final UpsertSumaRepository upsertSuma;
 
-    public InventarioCorteService(InventarioCorteRepository repository, EntityManager entityManager) {
+    public InventarioCorteService(InventarioCorteRepository repository, EntityManager entityManager,
+                                  UpsertSumaRepository upsertSuma) {
         this.repository = repository;
         this.entityManager = entityManager;
+        this.upsertSuma = upsertSuma;
     }
 
     // Operaciones básicas CRUD
@@ -201,6 +210,63 @@ public class InventarioCorteService {
             return repository.save(nuevoInventario);
         }
     }
+
+    /**
+     * 📦 VARIACIONES NETAS DE VARIOS CORTES EN VARIAS SEDES (edición de traslados)
+     * Valida las que exigen stock con un único SELECT ... FOR UPDATE (sin fila = 0 disponible)
+     * y aplica todas con un upsert multifila sobre uk_inventario_corte_sede.
+     *
+     * @throws InventarioInsuficienteException si una variación que exige stock no alcanza
+     */
+    @Transactional
+    public void aplicarDeltasNetos(List<DeltaInventarioDTO> deltas) {
+        List<DeltaInventarioDTO> filas = new ArrayList<>();
+        if (deltas != null) {
+            for (DeltaInventarioDTO d : deltas) {
+                if (d.getProductoId() != null && d.getSedeId() != null && d.getDelta() != null && d.getDelta() != 0) {
+                    filas.add(d);
+                }
+            }
+        }
+        if (filas.isEmpty()) {
+            return;
+        }
+        filas.sort(Comparator.comparing(DeltaInventarioDTO::getSedeId).thenComparing(DeltaInventarioDTO::getProductoId));
+
+        // Cambios JPA pendientes antes del SQL directo
+        entityManager.flush();
+
+        if (filas.stream().anyMatch(d -> d.isExigirStock() && d.getDelta() < 0)) {
+            Set<Long> corteIds = new HashSet<>();
+            Set<Long> sedeIds = new HashSet<>();
+            for (DeltaInventarioDTO d : filas) {
+                corteIds.add(d.getProductoId());
+                sedeIds.add(d.getSedeId());
+            }
+            Map<String, Double> disponibles = new HashMap<>();
+            for (Object[] fila : repository.bloquearCantidades(sedeIds, corteIds)) {
+                disponibles.putIfAbsent(fila[0] + ":" + fila[1], fila[2] != null ? ((Number) fila[2]).doubleValue() : 0.0);
+            }
+            for (DeltaInventarioDTO d : filas) {
+                if (!d.isExigirStock() || d.getDelta() >= 0) {
+                    continue;
+                }
+                double disponible = disponibles.getOrDefault(d.getProductoId() + ":" + d.getSedeId(), 0.0);
+                double requerido = -d.getDelta();
+                if (disponible < requerido) {
+                    throw new InventarioInsuficienteException(
+                        "No hay suficiente stock del corte ID " + d.getProductoId() + " en sede ID " + d.getSedeId()
+                            + ". Disponible: " + disponible + ", requerido: " + requerido,
+                        disponible, requerido, d.getProductoId(), d.getSedeId());
+                }
+            }
+        }
+
+        upsertSuma.sumar("inventario_cortes", List.of("corte_id", "sede_id"), List.of("cantidad"), null,
+                filas.stream().map(d -> new Object[] {d.getProductoId(), d.getSedeId(), d.getDelta()}).toList(),
+                UpsertSumaRepository.FILAS_POR_SENTENCIA, null);
+        log.info("[InventarioCorteService.aplicarDeltasNetos] {} variaciones aplicadas", filas.size());
+    }
     
 @Transactional
 public List<InventarioCorteDTO> listarInventarioCortesAgrupado() {
@@ -1,36 +1,50 @@
 package com.casaglass.casaglass_backend.service;
 
+import com.casaglass.casaglass_backend.dto.DeltaInventarioDTO;
 import com.casaglass.casaglass_backend.dto.InventarioActualizarDTO;
 import com.casaglass.casaglass_backend.dto.InventarioProductoDTO;
+import com.casaglass.casaglass_backend.exception.InventarioInsuficienteException;
 import com.casaglass.casaglass_backend.model.Inventario;
 import com.casaglass.casaglass_backend.model.Producto;
 import com.casaglass.casaglass_backend.model.Sede;
 import com.casaglass.casaglass_backend.repository.CorteRepository;
 import com.casaglass.casaglass_backend.repository.InventarioRepository;
 import com.casaglass.casaglass_backend.repository.SedeRepository;
+import com.casaglass.casaglass_backend.repository.UpsertSumaRepository;
 import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
 
 @Service
 public class InventarioService {
 
+    private static final List<String> CLAVE_INVENTARIO = List.of("producto_id", "sede_id");
+    private static final List<String> SUMA_INVENTARIO = List.of("cantidad");
+
     private final InventarioRepository repo;
     private final EntityManager em;
     private final SedeRepository sedeRepo;
     private final CorteRepository corteRepository;
+    private final UpsertSumaRepository upsertSuma;
 
-    public InventarioService(InventarioRepository repo, EntityManager em, SedeRepository sedeRepo, CorteRepository corteRepository) {
+    public InventarioService(InventarioRepository repo, EntityManager em, SedeRepository sedeRepo,
+                             CorteRepository corteRepository, UpsertSumaRepository upsertSuma) {
         this.repo = repo;
         this.em = em;
         this.sedeRepo = sedeRepo;
         this.corteRepository = corteRepository;
+        this.upsertSuma = upsertSuma;
     }
 
     private void validarNoEsCorte(Long productoId, String contexto) {
@@ -169,6 +183,213 @@ public class InventarioService {
         }
     }
 
+    /**
+     * ➕ APLICAR VARIACIÓN ATÓMICA (ventas, anulaciones, traslados, ingresos, reembolsos)
+     *
+     * Ejecuta UPDATE inventario SET cantidad = cantidad + delta en una sola sentencia
+     * (crea la fila si no existe). No hay lectura previa ni comparación de versión,
+     * así que dos operaciones simultáneas sobre el mismo producto no se rechazan:
+     * la base de datos las aplica una detrás de otra. Permite cantidades negativas.
+     */
+    @Transactional
+    public void aplicarDelta(Long productoId, Long sedeId, double delta) {
+        if (productoId == null || sedeId == null) {
+            throw new IllegalArgumentException("Se requieren producto ID y sede ID");
+        }
+        validarNoEsCorte(productoId, "aplicarDelta");
+        if (delta == 0) {
+            return;
+        }
+        repo.sumarCantidadOCrear(productoId, sedeId, delta);
+    }
+
+    /**
+     * ➕ APLICAR VARIACIÓN ATÓMICA SOLO SI EXISTE LA FILA
+     *
+     * @param exigirStock si es true y el delta es negativo, no descuenta cuando la cantidad quedaría negativa
+     * @return false si no existe inventario del producto en la sede o no alcanza el stock exigido
+     */
+    @Transactional
+    public boolean aplicarDeltaExistente(Long productoId, Long sedeId, double delta, boolean exigirStock) {
+        if (productoId == null || sedeId == null) {
+            throw new IllegalArgumentException("Se requieren producto ID y sede ID");
+        }
+        return repo.sumarCantidad(productoId, sedeId, delta, exigirStock && delta < 0) > 0;
+    }
+
+    /**
+     * 📦 MOVIMIENTO DE INVENTARIO EN LOTE (varias líneas de una misma sede)
+     *
+     * Recibe la variación por producto (negativa = descuento, positiva = ingreso), ya
+     * agregada por el llamador. Bloquea todas las filas afectadas con un único
+     * SELECT ... IN ... FOR UPDATE en orden de ID y las actualiza en memoria; el flush
+     * las envía como un batch JDBC (hibernate.jdbc.batch_size). Al estar bloqueadas,
+     * no hay conflictos de versión mientras dura la transacción.
+     *
+     * Permite cantidades negativas (ventas anticipadas). Los cortes no aplican.
+     *
+     * @throws IllegalArgumentException si algún producto no tiene inventario en la sede
+     */
+    @Transactional
+    public void aplicarMovimientosEnLote(Long sedeId, Map<Long, Double> deltasPorProducto) {
+        if (sedeId == null) {
+            throw new IllegalArgumentException("Se requiere sede ID");
+        }
+        if (deltasPorProducto == null || deltasPorProducto.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Double> deltas = new HashMap<>();
+        deltasPorProducto.forEach((productoId, delta) -> {
+            if (productoId != null && delta != null && delta != 0) {
+                deltas.merge(productoId, delta, Double::sum);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Inventario> inventarios = repo.bloquearPorSedeYProductos(sedeId, deltas.keySet());
+        if (inventarios.size() != deltas.size()) {
+            Set<Long> encontrados = new HashSet<>();
+            for (Inventario inventario : inventarios) {
+                encontrados.add(inventario.getProducto().getId());
+            }
+            Long faltante = deltas.keySet().stream()
+                .filter(productoId -> !encontrados.contains(productoId))
+                .sorted()
+                .findFirst()
+                .orElse(null);
+            throw new IllegalArgumentException(
+                String.format("❌ No existe inventario para producto ID %d en sede ID %d", faltante, sedeId)
+            );
+        }
+
+        for (Inventario inventario : inventarios) {
+            double actual = inventario.getCantidad() != null ? inventario.getCantidad() : 0.0;
+            inventario.setCantidad(actual + deltas.get(inventario.getProducto().getId()));
+        }
+        em.flush();
+    }
+
+    /**
+     * 📥 SUMA EN LOTE CREANDO LAS FILAS QUE FALTEN (ingresos de mercancía)
+     *
+     * Un solo INSERT ... VALUES (...), (...) ON DUPLICATE KEY UPDATE sobre
+     * uk_inventario_producto_sede por cada bloque de productos (UpsertSumaRepository), en lugar de
+     * leer y guardar fila por fila. Como la suma la hace la base de datos, no hay conflictos
+     * de versión con ventas o traslados simultáneos. Los productos van en orden de ID para
+     * que dos lotes concurrentes bloqueen las filas en el mismo orden.
+     *
+     * @param avance opcional; recibe la cantidad de productos aplicados tras cada bloque
+     * @throws IllegalArgumentException si algún producto es un corte
+     */
+    @Transactional
+    public void sumarEnLoteOCrear(Long sedeId, Map<Long, Double> deltasPorProducto, IntConsumer avance) {
+        if (sedeId == null) {
+            throw new IllegalArgumentException("Se requiere sede ID");
+        }
+        if (deltasPorProducto == null || deltasPorProducto.isEmpty()) {
+            return;
+        }
+
+        TreeMap<Long, Double> deltas = new TreeMap<>();
+        deltasPorProducto.forEach((productoId, delta) -> {
+            if (productoId != null && delta != null && delta != 0) {
+                deltas.merge(productoId, delta, Double::sum);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        List<Long> cortes = corteRepository.findIdsByIdIn(new ArrayList<>(deltas.keySet()));
+        if (!cortes.isEmpty()) {
+            throw new IllegalArgumentException(
+                "El producto ID " + cortes.get(0) + " es un corte y no debe gestionarse en inventario normal (sumarEnLoteOCrear). Use inventario_cortes."
+            );
+        }
+
+        // Cambios JPA pendientes (p. ej. filas de inventario recién creadas) antes del SQL directo
+        em.flush();
+
+        List<Object[]> filas = new ArrayList<>(deltas.size());
+        deltas.forEach((productoId, delta) -> filas.add(new Object[] {productoId, sedeId, delta}));
+        upsertSuma.sumar("inventario", CLAVE_INVENTARIO, SUMA_INVENTARIO, "version",
+                filas, UpsertSumaRepository.FILAS_POR_SENTENCIA, avance);
+    }
+
+    /**
+     * 📦 VARIACIONES NETAS EN VARIAS SEDES (edición de traslados)
+     *
+     * Valida todas las variaciones que exigen stock con un único SELECT ... FOR UPDATE y las
+     * aplica con el mismo upsert multifila de sumarEnLoteOCrear (crea la fila si no existe).
+     * Si alguna no alcanza, lanza la excepción antes de modificar nada.
+     *
+     * @throws InventarioInsuficienteException si una variación que exige stock no alcanza
+     * @throws IllegalArgumentException si algún producto es un corte
+     */
+    @Transactional
+    public void aplicarDeltasNetos(List<DeltaInventarioDTO> deltas) {
+        List<DeltaInventarioDTO> filas = new ArrayList<>();
+        if (deltas != null) {
+            for (DeltaInventarioDTO d : deltas) {
+                if (d.getProductoId() != null && d.getSedeId() != null && d.getDelta() != null && d.getDelta() != 0) {
+                    filas.add(d);
+                }
+            }
+        }
+        if (filas.isEmpty()) {
+            return;
+        }
+        filas.sort(Comparator.comparing(DeltaInventarioDTO::getSedeId).thenComparing(DeltaInventarioDTO::getProductoId));
+
+        Set<Long> productoIds = new HashSet<>();
+        Set<Long> sedeIds = new HashSet<>();
+        for (DeltaInventarioDTO d : filas) {
+            productoIds.add(d.getProductoId());
+            sedeIds.add(d.getSedeId());
+        }
+        List<Long> cortes = corteRepository.findIdsByIdIn(new ArrayList<>(productoIds));
+        if (!cortes.isEmpty()) {
+            throw new IllegalArgumentException(
+                "El producto ID " + cortes.get(0) + " es un corte y no debe gestionarse en inventario normal (aplicarDeltasNetos). Use inventario_cortes."
+            );
+        }
+
+        // Cambios JPA pendientes antes del SQL directo
+        em.flush();
+
+        if (filas.stream().anyMatch(d -> d.isExigirStock() && d.getDelta() < 0)) {
+            Map<String, Double> disponibles = new HashMap<>();
+            for (Object[] fila : repo.bloquearCantidades(sedeIds, productoIds)) {
+                disponibles.put(fila[0] + ":" + fila[1], fila[2] != null ? ((Number) fila[2]).doubleValue() : 0.0);
+            }
+            for (DeltaInventarioDTO d : filas) {
+                if (!d.isExigirStock() || d.getDelta() >= 0) {
+                    continue;
+                }
+                Double disponible = disponibles.get(d.getProductoId() + ":" + d.getSedeId());
+                double requerido = -d.getDelta();
+                if (disponible == null) {
+                    throw new InventarioInsuficienteException(
+                        "No existe inventario del producto ID " + d.getProductoId() + " en sede ID " + d.getSedeId(),
+                        0.0, requerido, d.getProductoId(), d.getSedeId());
+                }
+                if (disponible < requerido) {
+                    throw new InventarioInsuficienteException(
+                        "Stock insuficiente del producto ID " + d.getProductoId() + " en sede ID " + d.getSedeId()
+                            + ". Disponible: " + disponible + ", requerido: " + requerido,
+                        disponible, requerido, d.getProductoId(), d.getSedeId());
+                }
+            }
+        }
+
+        upsertSuma.sumar("inventario", CLAVE_INVENTARIO, SUMA_INVENTARIO, "version",
+                filas.stream().map(d -> new Object[] {d.getProductoId(), d.getSedeId(), d.getDelta()}).toList(),
+                UpsertSumaRepository.FILAS_POR_SENTENCIA, null);
+    }
+
     @Transactional
     public Inventario actualizar(Long id, Inventario payload) {
         try {
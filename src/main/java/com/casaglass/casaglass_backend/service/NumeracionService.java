@@ -0,0 +1,258 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.dto.AuditoriaNumeracionDTO;
+import com.casaglass.casaglass_backend.model.SecuenciaNumeracion;
+import com.casaglass.casaglass_backend.repository.FacturaRepository;
+import com.casaglass.casaglass_backend.repository.OrdenRepository;
+import com.casaglass.casaglass_backend.repository.SecuenciaNumeracionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 🔢 NUMERACIÓN CONSECUTIVA DE ÓRDENES Y FACTURAS
+ *
+ * Cada instancia reserva en la tabla secuencias_numeracion un bloque de números
+ * (un único SELECT ... FOR UPDATE + UPDATE en transacción propia) y los entrega
+ * desde memoria con un AtomicLong. Mientras quede bloque, emitir un número no
+ * consulta la base de datos.
+ *
+ * Los números entregados a transacciones que luego hacen rollback, y el sobrante
+ * del bloque si la aplicación se detiene de forma abrupta, quedan como huecos:
+ * ver auditarHuecos(). Con tamaño de bloque 1 la numeración es estrictamente
+ * consecutiva a costa de un bloqueo por número.
+ */
+@Service
+public class NumeracionService {
+
+    private static final Logger log = LoggerFactory.getLogger(NumeracionService.class);
+
+    public static final String SECUENCIA_ORDEN = "ORDEN";
+    public static final String SECUENCIA_FACTURA = "FACTURA";
+
+    private final SecuenciaNumeracionRepository secuenciaRepository;
+    private final OrdenRepository ordenRepository;
+    private final FacturaRepository facturaRepository;
+    private final TransactionTemplate transaccionNueva;
+    private final Map<String, Integer> tamanoBloque;
+
+    private final Map<String, RangoNumeros> rangos = new ConcurrentHashMap<>();
+    private final Object reservaLock = new Object();
+
+    /**
+     * Bloque de números reservado por esta instancia: [siguiente, limite)
+     */
+    private static final class RangoNumeros {
+        private final AtomicLong siguiente;
+        private final long limite;
+
+        private RangoNumeros(long desde, long limite) {
+            this.siguiente = new AtomicLong(desde);
+            this.limite = limite;
+        }
+
+        /** Retorna el siguiente número o -1 si el bloque se agotó */
+        private long tomar() {
+            long valor = siguiente.getAndIncrement();
+            return valor < limite ? valor : -1;
+        }
+
+        private boolean tieneDisponibles() {
+            return siguiente.get() < limite;
+        }
+    }
+
+    public NumeracionService(SecuenciaNumeracionRepository secuenciaRepository,
+                             OrdenRepository ordenRepository,
+                             FacturaRepository facturaRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${casaglass.numeracion.bloque.orden:50}") int bloqueOrden,
+                             @Value("${casaglass.numeracion.bloque.factura:20}") int bloqueFactura) {
+        this.secuenciaRepository = secuenciaRepository;
+        this.ordenRepository = ordenRepository;
+        this.facturaRepository = facturaRepository;
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.tamanoBloque = Map.of(
+            SECUENCIA_ORDEN, Math.max(1, bloqueOrden),
+            SECUENCIA_FACTURA, Math.max(1, bloqueFactura)
+        );
+    }
+
+    /**
+     * Entrega el siguiente número de la secuencia
+     * Solo toca la base de datos cuando el bloque en memoria se agota
+     */
+    public long siguiente(String secuencia) {
+        String nombre = normalizarSecuencia(secuencia);
+        while (true) {
+            RangoNumeros rango = rangos.get(nombre);
+            if (rango != null) {
+                long valor = rango.tomar();
+                if (valor >= 0) {
+                    return valor;
+                }
+            }
+            synchronized (reservaLock) {
+                // Otro hilo pudo haber reservado mientras esperábamos
+                if (rangos.get(nombre) == rango) {
+                    rangos.put(nombre, reservarBloque(nombre));
+                }
+            }
+        }
+    }
+
+    /**
+     * Próximo número que se entregaría (referencia para el frontend, no lo consume)
+     */
+    @Transactional(readOnly = true)
+    public long consultarSiguiente(String secuencia) {
+        String nombre = normalizarSecuencia(secuencia);
+        RangoNumeros rango = rangos.get(nombre);
+        if (rango != null && rango.tieneDisponibles()) {
+            return rango.siguiente.get();
+        }
+        long reservado = secuenciaRepository.findById(nombre)
+                .map(SecuenciaNumeracion::getSiguienteValor)
+                .orElse(1L);
+        return Math.max(reservado, siguienteSegunDatos(nombre));
+    }
+
+    /**
+     * 🔍 AUDITORÍA DE HUECOS
+     * Los huecos se calculan en la base de datos (LAG sobre el número) y el resumen
+     * con un solo agregado: no se cargan todos los números emitidos
+     */
+    @Transactional(readOnly = true)
+    public AuditoriaNumeracionDTO auditarHuecos(String secuencia) {
+        String nombre = normalizarSecuencia(secuencia);
+        boolean esOrden = SECUENCIA_ORDEN.equals(nombre);
+
+        List<Object[]> resumen = esOrden
+                ? ordenRepository.resumenNumeracion()
+                : facturaRepository.resumenConsecutivosAutomaticos();
+        Object[] fila = resumen.isEmpty() ? new Object[3] : resumen.get(0);
+        Long minimo = fila[0] != null ? ((Number) fila[0]).longValue() : null;
+        Long maximo = fila[1] != null ? ((Number) fila[1]).longValue() : null;
+        long emitidos = fila[2] != null ? ((Number) fila[2]).longValue() : 0L;
+
+        List<AuditoriaNumeracionDTO.HuecoDTO> huecos = new ArrayList<>();
+        List<Object[]> filasHuecos = esOrden
+                ? ordenRepository.listarHuecosNumeracion()
+                : facturaRepository.listarHuecosConsecutivosAutomaticos();
+        for (Object[] hueco : filasHuecos) {
+            long desde = ((Number) hueco[0]).longValue();
+            long hasta = ((Number) hueco[1]).longValue();
+            huecos.add(new AuditoriaNumeracionDTO.HuecoDTO(desde, hasta, hasta - desde + 1));
+        }
+        long totalFaltantes = minimo != null ? maximo - minimo + 1 - emitidos : 0L;
+
+        Long siguienteReservado = secuenciaRepository.findById(nombre)
+                .map(SecuenciaNumeracion::getSiguienteValor)
+                .orElse(null);
+
+        RangoNumeros rango = rangos.get(nombre);
+        Long memoriaDesde = null;
+        Long memoriaHasta = null;
+        if (rango != null && rango.tieneDisponibles()) {
+            memoriaDesde = rango.siguiente.get();
+            memoriaHasta = rango.limite - 1;
+        }
+
+        return new AuditoriaNumeracionDTO(
+            nombre,
+            minimo,
+            maximo,
+            emitidos,
+            totalFaltantes,
+            siguienteReservado,
+            memoriaDesde,
+            memoriaHasta,
+            huecos
+        );
+    }
+
+    /**
+     * Al apagar la aplicación devuelve el sobrante de cada bloque,
+     * siempre que ninguna otra instancia haya reservado después
+     */
+    @PreDestroy
+    public void liberarBloques() {
+        rangos.forEach((nombre, rango) -> {
+            long pendiente = rango.siguiente.get();
+            if (pendiente >= rango.limite) {
+                return;
+            }
+            try {
+                transaccionNueva.executeWithoutResult(status ->
+                    secuenciaRepository.findByNombreForUpdate(nombre).ifPresent(fila -> {
+                        if (fila.getSiguienteValor() == rango.limite) {
+                            fila.setSiguienteValor(pendiente);
+                            secuenciaRepository.save(fila);
+                        }
+                    })
+                );
+            } catch (RuntimeException e) {
+                log.warn("No se pudo devolver el sobrante de la secuencia {}: {}", nombre, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reserva un bloque nuevo en transacción independiente
+     * (el bloque queda reservado aunque la transacción que pidió el número haga rollback)
+     */
+    private RangoNumeros reservarBloque(String nombre) {
+        int tamano = tamanoBloque.get(nombre);
+
+        if (!secuenciaRepository.existsById(nombre)) {
+            try {
+                transaccionNueva.executeWithoutResult(status ->
+                    secuenciaRepository.saveAndFlush(new SecuenciaNumeracion(nombre, 1L)));
+            } catch (DataIntegrityViolationException e) {
+                // Otra instancia creó la secuencia al mismo tiempo
+            }
+        }
+
+        return transaccionNueva.execute(status -> {
+            SecuenciaNumeracion fila = secuenciaRepository.findByNombreForUpdate(nombre)
+                    .orElseThrow(() -> new IllegalStateException("Secuencia no encontrada: " + nombre));
+
+            // Nunca por debajo de lo que ya existe en la tabla (datos históricos o numeración manual)
+            long desde = Math.max(fila.getSiguienteValor(), siguienteSegunDatos(nombre));
+            fila.setSiguienteValor(desde + tamano);
+            secuenciaRepository.save(fila);
+
+            log.debug("Secuencia {}: bloque reservado [{}, {})", nombre, desde, desde + tamano);
+            return new RangoNumeros(desde, desde + tamano);
+        });
+    }
+
+    private long siguienteSegunDatos(String nombre) {
+        Long siguiente = SECUENCIA_ORDEN.equals(nombre)
+                ? ordenRepository.obtenerSiguienteNumero()
+                : facturaRepository.obtenerSiguienteNumero();
+        return siguiente != null ? siguiente : 1L;
+    }
+
+    private String normalizarSecuencia(String secuencia) {
+        String nombre = secuencia != null ? secuencia.trim().toUpperCase() : "";
+        if (!tamanoBloque.containsKey(nombre)) {
+            throw new IllegalArgumentException("Secuencia inválida: " + secuencia + ". Valores válidos: ORDEN, FACTURA");
+        }
+        return nombre;
+    }
+}
@@ -19,13 +19,19 @@ public class OrdenItemService {
     private final OrdenItemRepository itemRepo;
     private final OrdenRepository ordenRepo;
     private final EntityManager em;
+    private final VentasDiariasService ventasDiariasService;
+    private final PendienteEntregaService pendienteEntregaService;
 
     public OrdenItemService(OrdenItemRepository itemRepo,
                             OrdenRepository ordenRepo,
-                            EntityManager em) {
+                            EntityManager em,
+                            VentasDiariasService ventasDiariasService,
+                            PendienteEntregaService pendienteEntregaService) {
         this.itemRepo = itemRepo;
         this.ordenRepo = ordenRepo;
         this.em = em;
+        this.ventasDiariasService = ventasDiariasService;
+        this.pendienteEntregaService = pendienteEntregaService;
     }
 
     public List<OrdenItem> listarPorOrden(Long ordenId) {
@@ -130,5 +136,7 @@ public class OrdenItemService {
         orden.setSubtotal(subtotal);
         orden.setTotal(subtotal); // impuestos/desc. podrían sumarse aquí más adelante
         ordenRepo.save(orden);
+        ventasDiariasService.registrarCambioOrden(orden.getId());
+        pendienteEntregaService.registrarCambio(orden);
     }
 }
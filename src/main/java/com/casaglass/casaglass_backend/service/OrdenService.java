@@ -6,7 +6,6 @@ import com.casaglass.casaglass_backend.model.Sede;
 import com.casaglass.casaglass_backend.model.Trabajador;
 import com.casaglass.casaglass_backend.model.Cliente;
 import com.casaglass.casaglass_backend.model.Producto;
-import com.casaglass.casaglass_backend.model.Inventario;
 import com.casaglass.casaglass_backend.model.Corte;
 import com.casaglass.casaglass_backend.model.EntregaDetalle;
 import com.casaglass.casaglass_backend.model.EntregaDinero;
@@ -31,14 +30,21 @@ import com.casaglass.casaglass_backend.repository.ProductoRepository;
 import com.casaglass.casaglass_backend.repository.CorteRepository;
 import com.casaglass.casaglass_backend.repository.EntregaDetalleRepository;
 import com.casaglass.casaglass_backend.repository.OrdenCortePlanRepository;
-import com.casaglass.casaglass_backend.repository.BusinessSettingsRepository;
-import com.casaglass.casaglass_backend.model.BusinessSettings;
+import com.casaglass.casaglass_backend.model.ParametrosTributarios;
+import com.casaglass.casaglass_backend.dto.CursorToken;
+import com.casaglass.casaglass_backend.dto.PageResponse;
 import jakarta.persistence.EntityManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDate;
 // no need for LocalDateTime/LocalTime
 import java.util.ArrayDeque;
@@ -71,7 +77,12 @@ public class OrdenService {
     private final CorteRepository corteRepository;
     private final EntregaDetalleRepository entregaDetalleRepository;
     private final OrdenCortePlanRepository ordenCortePlanRepository;
-    private final BusinessSettingsRepository businessSettingsRepository;
+    private final BusinessSettingsService businessSettingsService;
+    private final NumeracionService numeracionService;
+    private final VentasDiariasService ventasDiariasService;
+    private final ExportacionJsonService exportacionJsonService;
+    private final ClienteBusquedaService clienteBusquedaService;
+    private final PendienteEntregaService pendienteEntregaService;
 
     private static final List<EntregaDinero.EstadoEntrega> ESTADOS_ENTREGA_BLOQUEO_EDICION = List.of(
         EntregaDinero.EstadoEntrega.PENDIENTE,
@@ -80,8 +91,10 @@ public class OrdenService {
     );
 
     private static final Long SEDE_SIN_CONTROL_CORTES_ID = 1L;
+    private static final int ORDENES_POR_CONSULTA = 1000;
     private static final String META_SEPARATOR = " ##META:";
     private static final Set<String> TIPOS_UNIDAD_VALIDOS = Set.of("UNID", "PERFIL", "MT", "CM");
+    private static final Set<String> CAMPOS_ORDEN_TABLA = Set.of("fecha", "numero", "total");
 
     public OrdenService(OrdenRepository repo, 
                        ClienteRepository clienteRepository,
@@ -97,7 +110,12 @@ public class OrdenService {
                        CorteRepository corteRepository,
                        EntregaDetalleRepository entregaDetalleRepository,
                        OrdenCortePlanRepository ordenCortePlanRepository,
-                       BusinessSettingsRepository businessSettingsRepository) { 
+                       BusinessSettingsService businessSettingsService,
+                       NumeracionService numeracionService,
+                       VentasDiariasService ventasDiariasService,
+                       ExportacionJsonService exportacionJsonService,
+                       ClienteBusquedaService clienteBusquedaService,
+                       PendienteEntregaService pendienteEntregaService) { 
         this.repo = repo; 
         this.clienteRepository = clienteRepository;
         this.sedeRepository = sedeRepository;
@@ -112,7 +130,12 @@ public class OrdenService {
         this.corteRepository = corteRepository;
         this.entregaDetalleRepository = entregaDetalleRepository;
         this.ordenCortePlanRepository = ordenCortePlanRepository;
-        this.businessSettingsRepository = businessSettingsRepository;
+        this.businessSettingsService = businessSettingsService;
+        this.numeracionService = numeracionService;
+        this.ventasDiariasService = ventasDiariasService;
+        this.exportacionJsonService = exportacionJsonService;
+        this.clienteBusquedaService = clienteBusquedaService;
+        this.pendienteEntregaService = pendienteEntregaService;
     }
 
     private double normalizarMonto(double valor) {
@@ -153,19 +176,30 @@ public class OrdenService {
         boolean puedeEditar
     ) {}
 
+    private static final OrdenEntregaEstadoInfo SIN_ENTREGA = new OrdenEntregaEstadoInfo(false, null, "NINGUNA", true);
+
+    /** Número de factura y estado de entrega de un grupo de órdenes (ver cargarDatosTabla) */
+    private record DatosTablaOrdenes(
+        Map<Long, String> numerosFactura,
+        Map<Long, OrdenEntregaEstadoInfo> entregas
+    ) {}
+
     @Transactional(readOnly = true)
     public OrdenEntregaEstadoInfo obtenerEstadoEntregaOrden(Long ordenId) {
         Optional<EntregaDetalle> detalleOpt = entregaDetalleRepository
             .findFirstByOrdenIdAndEntregaEstadoInOrderByIdDesc(ordenId, ESTADOS_ENTREGA_BLOQUEO_EDICION);
 
         if (detalleOpt.isEmpty()) {
-            return new OrdenEntregaEstadoInfo(false, null, "NINGUNA", true);
+            return SIN_ENTREGA;
         }
 
         EntregaDetalle detalle = detalleOpt.get();
         Long entregaId = detalle.getEntrega() != null ? detalle.getEntrega().getId() : null;
         EntregaDinero.EstadoEntrega estado = detalle.getEntrega() != null ? detalle.getEntrega().getEstado() : null;
+        return estadoEntregaInfo(entregaId, estado);
+    }
 
+    private static OrdenEntregaEstadoInfo estadoEntregaInfo(Long entregaId, EntregaDinero.EstadoEntrega estado) {
         String estadoEntrega = "EN_ENTREGA";
         if (estado == EntregaDinero.EstadoEntrega.ENTREGADA || estado == EntregaDinero.EstadoEntrega.VERIFICADA) {
             estadoEntrega = "CERRADA";
@@ -250,6 +284,8 @@ public class OrdenService {
         
         // Guardar la orden primero
         Orden ordenGuardada = repo.save(orden);
+        ventasDiariasService.registrarCambioOrden(ordenGuardada.getId());
+        pendienteEntregaService.registrarCambio(ordenGuardada);
         
         // ⚠️ SOLO descontar inventario si es una VENTA confirmada
         // Las cotizaciones (venta=false) NO afectan el stock
@@ -357,6 +393,8 @@ public class OrdenService {
         
         // 💾 GUARDAR ORDEN
         Orden ordenGuardada = repo.save(orden);
+        ventasDiariasService.registrarCambioOrden(ordenGuardada.getId());
+        pendienteEntregaService.registrarCambio(ordenGuardada);
 
         boolean usaFlujoSinCortes = esSedeSinControlCortes(ventaDTO.getSedeId());
         if (usaFlujoSinCortes) {
@@ -400,10 +438,9 @@ public class OrdenService {
     @Transactional(readOnly = true)
     public List<OrdenTablaDTO> ventasDelDiaPorSede(Long sedeId, LocalDate fecha) {
         List<Orden> ordenes = repo.findBySedeIdAndFechaBetween(sedeId, fecha, fecha);
-        return ordenes.stream()
+        return convertirAOrdenesTablaDTO(ordenes.stream()
             .filter(Orden::isVenta)
-            .map(this::convertirAOrdenTablaDTO)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
     }
 
     /**
@@ -413,10 +450,9 @@ public class OrdenService {
     @Transactional(readOnly = true)
     public List<OrdenTablaDTO> ventasDelDiaTodasLasSedes(LocalDate fecha) {
         List<Orden> ordenes = repo.findByFechaBetween(fecha, fecha);
-        return ordenes.stream()
+        return convertirAOrdenesTablaDTO(ordenes.stream()
             .filter(Orden::isVenta)
-            .map(this::convertirAOrdenTablaDTO)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
     }
 
     /**
@@ -458,6 +494,7 @@ public class OrdenService {
             // ...existing code...
             cliente.setCredito(true);
             clienteRepository.save(cliente);
+            clienteBusquedaService.registrarCambio(cliente);
         }
         
         orden.setCliente(cliente);
@@ -528,6 +565,8 @@ public class OrdenService {
         
         // 💾 GUARDAR ORDEN PRIMERO
         Orden ordenGuardada = repo.save(orden);
+        ventasDiariasService.registrarCambioOrden(ordenGuardada.getId());
+        pendienteEntregaService.registrarCambio(ordenGuardada);
 
         boolean usaFlujoSinCortes = esSedeSinControlCortes(ventaDTO.getSedeId());
         if (usaFlujoSinCortes) {
@@ -641,6 +680,7 @@ public class OrdenService {
             // ...existing code...
             cliente.setCredito(true);
             clienteRepository.save(cliente);
+            clienteBusquedaService.registrarCambio(cliente);
         }
         
         ordenExistente.setCliente(cliente);
@@ -708,6 +748,8 @@ public class OrdenService {
         
         // 💾 GUARDAR ORDEN ACTUALIZADA
         Orden ordenActualizada = repo.save(ordenExistente);
+        ventasDiariasService.registrarCambioOrden(ordenActualizada.getId());
+        pendienteEntregaService.registrarCambio(ordenActualizada);
 
         if (ordenActualizada.isVenta()) {
             // Si se confirman ventas desde una cotización, ejecutar primero plan pendiente.
@@ -784,6 +826,7 @@ public class OrdenService {
             // ...existing code...
             cliente.setCredito(true);
             clienteRepository.save(cliente);
+            clienteBusquedaService.registrarCambio(cliente);
         }
         
         ordenExistente.setCliente(cliente);
@@ -851,6 +894,8 @@ public class OrdenService {
         
         // 💾 GUARDAR ORDEN ACTUALIZADA PRIMERO
         Orden ordenActualizada = repo.save(ordenExistente);
+        ventasDiariasService.registrarCambioOrden(ordenActualizada.getId());
+        pendienteEntregaService.registrarCambio(ordenActualizada);
         
         // 💳 ACTUALIZAR CRÉDITO SI ES NECESARIO
         if (ventaDTO.isCredito()) {
@@ -910,21 +955,10 @@ public class OrdenService {
 
     /**
      * 💰 OBTENER TASA DE IVA DESDE CONFIGURACIÓN
-     * Obtiene el IVA rate desde BusinessSettings, con fallback a 19% si no existe
+     * Obtiene el IVA rate desde BusinessSettings (19% por defecto si no existe)
      */
     private Double obtenerIvaRate() {
-        try {
-            // Buscar la primera configuración (debería haber solo una)
-            List<BusinessSettings> settings = businessSettingsRepository.findAll();
-            if (!settings.isEmpty() && settings.get(0).getIvaRate() != null) {
-                Double ivaRate = settings.get(0).getIvaRate();
-                return ivaRate;
-            }
-        } catch (Exception e) {
-            // ...existing code...
-        }
-        // Fallback a 19% por defecto
-        return 19.0;
+        return businessSettingsService.obtenerParametros().getIvaRate();
     }
 
     /**
@@ -984,9 +1018,9 @@ public class OrdenService {
         // Paso 4: Calcular retención de fuente (sobre subtotal sin IVA)
         Double retencionFuente = 0.0;
         if (tieneRetencionFuente) {
-            BusinessSettings config = obtenerConfiguracionRetencion();
-            Double reteRate = config.getReteRate() != null ? config.getReteRate() : 2.5;
-            Long reteThreshold = config.getReteThreshold() != null ? config.getReteThreshold() : 1_000_000L;
+            ParametrosTributarios config = obtenerConfiguracionRetencion();
+            Double reteRate = config.getReteRate();
+            Long reteThreshold = config.getReteThreshold();
             
             // Verificar si supera el umbral
             if (subtotalSinIva >= reteThreshold) {
@@ -998,11 +1032,11 @@ public class OrdenService {
         // Paso 5: Calcular retención ICA (sobre subtotal sin IVA)
         Double retencionIca = 0.0;
         if (tieneRetencionIca) {
-            BusinessSettings config = obtenerConfiguracionRetencion();
+            ParametrosTributarios config = obtenerConfiguracionRetencion();
             // Usar porcentajeIca del parámetro si está presente, sino usar el de BusinessSettings
             Double icaRate = porcentajeIca != null ? porcentajeIca : 
-                             (config.getIcaRate() != null ? config.getIcaRate() : 1.0);
-            Long icaThreshold = config.getIcaThreshold() != null ? config.getIcaThreshold() : 1_000_000L;
+                             config.getIcaRate();
+            Long icaThreshold = config.getIcaThreshold();
             
             // Verificar si supera el umbral
             if (subtotalSinIva >= icaThreshold) {
@@ -1014,9 +1048,9 @@ public class OrdenService {
         // Paso 5.5: Calcular retención de IVA (sobre valor de IVA)
         Double retencionIva = 0.0;
         if (tieneRetencionIva) {
-            BusinessSettings config = obtenerConfiguracionRetencion();
-            Double reteivaRate = config.getReteivaRate() != null ? config.getReteivaRate() : 15.0;
-            Long reteivaThreshold = config.getReteivaThreshold() != null ? config.getReteivaThreshold() : 1_000_000L;
+            ParametrosTributarios config = obtenerConfiguracionRetencion();
+            Double reteivaRate = config.getReteivaRate();
+            Long reteivaThreshold = config.getReteivaThreshold();
             
             // Verificar si supera el umbral
             if (subtotalSinIva >= reteivaThreshold) {
@@ -1051,22 +1085,8 @@ public class OrdenService {
      * 💰 OBTENER CONFIGURACIÓN DE RETENCIÓN DESDE BUSINESS SETTINGS
      * Obtiene la tasa y umbral de retención desde BusinessSettings
      */
-    private BusinessSettings obtenerConfiguracionRetencion() {
-        try {
-            List<BusinessSettings> settings = businessSettingsRepository.findAll();
-            if (!settings.isEmpty()) {
-                return settings.get(0);
-            }
-        } catch (Exception e) {
-            // ...existing code...
-        }
-        // Fallback a valores por defecto
-        BusinessSettings defaultSettings = new BusinessSettings();
-        defaultSettings.setReteRate(2.5);
-        defaultSettings.setReteThreshold(1_000_000L);
-        defaultSettings.setReteivaRate(15.0);
-        defaultSettings.setReteivaThreshold(1_000_000L);
-        return defaultSettings;
+    private ParametrosTributarios obtenerConfiguracionRetencion() {
+        return businessSettingsService.obtenerParametros();
     }
 
     /**
@@ -1090,9 +1110,9 @@ public class OrdenService {
         }
         
         // Obtener configuración de retención
-        BusinessSettings config = obtenerConfiguracionRetencion();
-        Double reteRate = config.getReteRate() != null ? config.getReteRate() : 2.5;
-        Long reteThreshold = config.getReteThreshold() != null ? config.getReteThreshold() : 1_000_000L;
+        ParametrosTributarios config = obtenerConfiguracionRetencion();
+        Double reteRate = config.getReteRate();
+        Long reteThreshold = config.getReteThreshold();
         
         // Verificar si supera el umbral
         if (baseImponible < reteThreshold) {
@@ -1167,35 +1187,10 @@ public class OrdenService {
 
     /**
      * Genera el siguiente número de orden de forma thread-safe
-     * Maneja automáticamente la concurrencia entre múltiples usuarios
+     * Se toma del bloque reservado en memoria por NumeracionService (sin consultas en la mayoría de los casos)
      */
     private Long generarNumeroOrden() {
-        int maxIntentos = 5;
-        int intento = 0;
-        
-        while (intento < maxIntentos) {
-            try {
-                // Obtener el siguiente número disponible
-                Long siguienteNumero = repo.obtenerSiguienteNumero();
-                
-                // Verificar que no exista (por si hubo concurrencia)
-                if (!repo.findByNumero(siguienteNumero).isPresent()) {
-                    return siguienteNumero;
-                }
-                
-                // Si existe, incrementar y volver a intentar
-                intento++;
-                Thread.sleep(10); // Pausa muy breve para evitar colisiones
-                
-            } catch (Exception e) {
-                intento++;
-                if (intento >= maxIntentos) {
-                    throw new RuntimeException("Error generando número de orden después de " + maxIntentos + " intentos", e);
-                }
-            }
-        }
-        
-        throw new RuntimeException("No se pudo generar un número de orden único después de " + maxIntentos + " intentos");
+        return numeracionService.siguiente(NumeracionService.SECUENCIA_ORDEN);
     }
 
     @Transactional(readOnly = true)
@@ -1240,7 +1235,8 @@ public class OrdenService {
             Integer page,
             Integer size,
             String sortBy,
-            String sortOrder) {
+            String sortOrder,
+            String cursor) {
         
         // Validar fechas
         if (fechaDesde != null && fechaHasta != null && fechaDesde.isAfter(fechaHasta)) {
@@ -1259,13 +1255,14 @@ public class OrdenService {
             sortOrder = "DESC";
         }
         
-        // Buscar órdenes con filtros
-        List<Orden> ordenes = repo.buscarConFiltros(
-            clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada
-        );
-        
-        // Aplicar ordenamiento
-        ordenes = aplicarOrdenamiento(ordenes, sortBy, sortOrder);
+        // Modo cursor (keyset): filtro, orden y límite se resuelven en SQL
+        if (cursor != null) {
+            PaginaKeyset pagina = buscarPaginaKeyset(
+                clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada,
+                size, sortBy, sortOrder, cursor
+            );
+            return PageResponse.ofCursor(pagina.ordenes(), pagina.size(), pagina.nextCursor(), pagina.hasPrevious());
+        }
         
         // Si se solicita paginación
         if (page != null && size != null) {
@@ -1274,25 +1271,23 @@ public class OrdenService {
             if (size < 1) size = 20;
             if (size > 100) size = 100; // Límite máximo
             
-            long totalElements = ordenes.size();
-            
-            // Calcular índices para paginación
-            int fromIndex = (page - 1) * size;
-            int toIndex = Math.min(fromIndex + size, ordenes.size());
-            
-            if (fromIndex >= ordenes.size()) {
-                // Página fuera de rango, retornar lista vacía
-                return com.casaglass.casaglass_backend.dto.PageResponse.of(
-                    new ArrayList<>(), totalElements, page, size
-                );
-            }
-            
-            // Obtener solo la página solicitada
-            List<Orden> ordenesPagina = ordenes.subList(fromIndex, toIndex);
+            // Orden, LIMIT/OFFSET y COUNT se resuelven en base de datos
+            Page<Orden> resultado = repo.buscarConFiltrosPaginado(
+                clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada,
+                PageRequest.of(page - 1, size, construirSortOrdenes(sortBy, sortOrder))
+            );
             
-            return com.casaglass.casaglass_backend.dto.PageResponse.of(ordenesPagina, totalElements, page, size);
+            return PageResponse.of(resultado.getContent(), resultado.getTotalElements(), page, size);
         }
         
+        // Buscar órdenes con filtros
+        List<Orden> ordenes = repo.buscarConFiltros(
+            clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada
+        );
+        
+        // Aplicar ordenamiento
+        ordenes = aplicarOrdenamiento(ordenes, sortBy, sortOrder);
+        
         // Sin paginación: retornar lista completa
         return ordenes;
     }
@@ -1400,7 +1395,7 @@ public class OrdenService {
      */
     @Transactional(readOnly = true)
     public Long obtenerProximoNumero() {
-        return repo.obtenerSiguienteNumero();
+        return numeracionService.consultarSiguiente(NumeracionService.SECUENCIA_ORDEN);
     }
 
     // 🎯 ================================
@@ -1413,9 +1408,37 @@ public class OrdenService {
      */
     @Transactional(readOnly = true)
     public List<OrdenTablaDTO> listarParaTabla() {
-        return repo.findAll().stream()
-                .map(this::convertirAOrdenTablaDTO)
-                .collect(Collectors.toList());
+        return convertirAOrdenesTablaDTO(repo.findAll());
+    }
+
+    /**
+     * 📤 EXPORTACIÓN COMPLETA EN STREAMING (mismo JSON que listar())
+     * Lee las órdenes en bloques por keyset (id > último, LIMIT) y las escribe en la salida;
+     * los items de cada bloque llegan con IN (@BatchSize): memoria acotada sin importar
+     * el tamaño del histórico
+     *
+     * @return cantidad de órdenes escritas
+     */
+    @Transactional(readOnly = true)
+    public long exportarOrdenes(OutputStream salida) throws IOException {
+        return exportacionJsonService.escribirArregloPorBloques(
+            this::bloqueExportacion, Orden::getId, bloque -> bloque, salida);
+    }
+
+    /**
+     * 📤 EXPORTACIÓN COMPLETA EN STREAMING (mismo JSON que listarParaTabla())
+     * Mismos bloques por keyset; facturas y entregas de cada bloque en consultas IN
+     *
+     * @return cantidad de órdenes escritas
+     */
+    @Transactional(readOnly = true)
+    public long exportarParaTabla(OutputStream salida) throws IOException {
+        return exportacionJsonService.escribirArregloPorBloques(
+            this::bloqueExportacion, Orden::getId, this::convertirAOrdenesTablaDTO, salida);
+    }
+
+    private List<Orden> bloqueExportacion(Long despuesDeId) {
+        return repo.bloqueExportacion(despuesDeId, PageRequest.of(0, ExportacionJsonService.FILAS_POR_LOTE));
     }
 
     /**
@@ -1445,9 +1468,7 @@ public class OrdenService {
         List<Orden> ordenesPagina = todasLasOrdenes.subList(fromIndex, toIndex);
         
         // Convertir a DTOs
-        List<OrdenTablaDTO> contenido = ordenesPagina.stream()
-                .map(this::convertirAOrdenTablaDTO)
-                .collect(Collectors.toList());
+        List<OrdenTablaDTO> contenido = convertirAOrdenesTablaDTO(ordenesPagina);
         
         return com.casaglass.casaglass_backend.dto.PageResponse.of(contenido, totalElements, page, size);
     }
@@ -1469,7 +1490,8 @@ public class OrdenService {
             Integer page,
             Integer size,
             String sortBy,
-            String sortOrder) {
+            String sortOrder,
+            String cursor) {
         
         // Validar fechas
         if (fechaDesde != null && fechaHasta != null && fechaDesde.isAfter(fechaHasta)) {
@@ -1488,13 +1510,15 @@ public class OrdenService {
             sortOrder = "DESC";
         }
         
-        // Buscar órdenes con filtros
-        List<Orden> ordenes = repo.buscarConFiltros(
-            clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada
-        );
-        
-        // Aplicar ordenamiento
-        ordenes = aplicarOrdenamiento(ordenes, sortBy, sortOrder);
+        // Modo cursor (keyset): filtro, orden y límite se resuelven en SQL
+        if (cursor != null) {
+            PaginaKeyset pagina = buscarPaginaKeyset(
+                clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada,
+                size, sortBy, sortOrder, cursor
+            );
+            List<OrdenTablaDTO> contenido = convertirAOrdenesTablaDTO(pagina.ordenes());
+            return PageResponse.ofCursor(contenido, pagina.size(), pagina.nextCursor(), pagina.hasPrevious());
+        }
         
         // Si se solicita paginación
         if (page != null && size != null) {
@@ -1503,34 +1527,28 @@ public class OrdenService {
             if (size < 1) size = 20;
             if (size > 100) size = 100; // Límite máximo
             
-            long totalElements = ordenes.size();
-            
-            // Calcular índices para paginación
-            int fromIndex = (page - 1) * size;
-            int toIndex = Math.min(fromIndex + size, ordenes.size());
-            
-            if (fromIndex >= ordenes.size()) {
-                // Página fuera de rango, retornar lista vacía
-                return com.casaglass.casaglass_backend.dto.PageResponse.of(
-                    new ArrayList<>(), totalElements, page, size
-                );
-            }
-            
-            // Obtener solo la página solicitada
-            List<Orden> ordenesPagina = ordenes.subList(fromIndex, toIndex);
+            // Orden, LIMIT/OFFSET y COUNT se resuelven en base de datos
+            Page<Orden> resultado = repo.buscarConFiltrosPaginado(
+                clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada,
+                PageRequest.of(page - 1, size, construirSortOrdenes(sortBy, sortOrder))
+            );
             
             // Convertir a DTOs
-            List<OrdenTablaDTO> contenido = ordenesPagina.stream()
-                    .map(this::convertirAOrdenTablaDTO)
-                    .collect(Collectors.toList());
+            List<OrdenTablaDTO> contenido = convertirAOrdenesTablaDTO(resultado.getContent());
             
-            return com.casaglass.casaglass_backend.dto.PageResponse.of(contenido, totalElements, page, size);
+            return PageResponse.of(contenido, resultado.getTotalElements(), page, size);
         }
         
+        // Buscar órdenes con filtros
+        List<Orden> ordenes = repo.buscarConFiltros(
+            clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada
+        );
+        
+        // Aplicar ordenamiento
+        ordenes = aplicarOrdenamiento(ordenes, sortBy, sortOrder);
+        
         // Sin paginación: retornar lista completa
-        return ordenes.stream()
-                .map(this::convertirAOrdenTablaDTO)
-                .collect(Collectors.toList());
+        return convertirAOrdenesTablaDTO(ordenes);
     }
     
     /**
@@ -1567,14 +1585,120 @@ public class OrdenService {
         return ordenes;
     }
 
+    /**
+     * Construye el Sort de base de datos equivalente a aplicarOrdenamiento,
+     * con el id como desempate para que el orden sea determinista entre páginas
+     */
+    private Sort construirSortOrdenes(String sortBy, String sortOrder) {
+        String campo = sortBy.toLowerCase();
+        Sort.Direction direccion = "ASC".equals(sortOrder) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        if (!CAMPOS_ORDEN_TABLA.contains(campo)) {
+            // Por defecto ordenar por fecha DESC
+            campo = "fecha";
+            direccion = Sort.Direction.DESC;
+        }
+        return Sort.by(direccion, campo).and(Sort.by(direccion, "id"));
+    }
+
+    /**
+     * Página obtenida por cursor: filas, tamaño efectivo y token de la siguiente página (null si no hay más)
+     */
+    private record PaginaKeyset(List<Orden> ordenes, int size, String nextCursor, boolean hasPrevious) {}
+
+    /**
+     * 🔑 PAGINACIÓN POR CURSOR (keyset) SOBRE fecha/numero/total + id
+     * Pide size + 1 filas para saber si hay siguiente página sin hacer COUNT.
+     * Un cursor vacío ("") pide la primera página.
+     */
+    private PaginaKeyset buscarPaginaKeyset(
+            Long clienteId,
+            Long sedeId,
+            Orden.EstadoOrden estado,
+            LocalDate fechaDesde,
+            LocalDate fechaHasta,
+            Boolean venta,
+            Boolean credito,
+            Boolean facturada,
+            Integer size,
+            String sortBy,
+            String sortOrder,
+            String cursor) {
+        
+        int tamano = (size == null || size < 1) ? 20 : Math.min(size, 100);
+        
+        Sort sort = construirSortOrdenes(sortBy, sortOrder);
+        Sort.Order principal = sort.iterator().next();
+        String campo = principal.getProperty();
+        boolean asc = principal.isAscending();
+        String direccion = asc ? "ASC" : "DESC";
+        
+        String valorCursor = null;
+        Long idCursor = null;
+        if (!cursor.isBlank()) {
+            String[] partes = CursorToken.decode(cursor, 4);
+            if (!campo.equals(partes[0]) || !direccion.equals(partes[1])) {
+                throw new IllegalArgumentException("El cursor no corresponde al ordenamiento solicitado (" + campo + " " + direccion + ")");
+            }
+            valorCursor = partes[2];
+            try {
+                idCursor = Long.valueOf(partes[3]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
+        }
+        
+        Pageable limite = PageRequest.of(0, tamano + 1, sort);
+        List<Orden> filas;
+        try {
+            switch (campo) {
+                case "numero":
+                    filas = repo.buscarConFiltrosKeysetPorNumero(
+                        clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada,
+                        asc, valorCursor != null ? Long.valueOf(valorCursor) : null, idCursor, limite);
+                    break;
+                case "total":
+                    filas = repo.buscarConFiltrosKeysetPorTotal(
+                        clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada,
+                        asc, valorCursor != null ? Double.valueOf(valorCursor) : null, idCursor, limite);
+                    break;
+                default:
+                    filas = repo.buscarConFiltrosKeysetPorFecha(
+                        clienteId, sedeId, estado, fechaDesde, fechaHasta, venta, credito, facturada,
+                        asc, valorCursor != null ? LocalDate.parse(valorCursor) : null, idCursor, limite);
+            }
+        } catch (NumberFormatException | java.time.format.DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido: " + cursor);
+        }
+        
+        boolean hayMas = filas.size() > tamano;
+        List<Orden> pagina = hayMas ? new ArrayList<>(filas.subList(0, tamano)) : filas;
+        
+        String nextCursor = null;
+        if (hayMas) {
+            Orden ultima = pagina.get(pagina.size() - 1);
+            String valor;
+            switch (campo) {
+                case "numero":
+                    valor = String.valueOf(ultima.getNumero());
+                    break;
+                case "total":
+                    valor = String.valueOf(ultima.getTotal());
+                    break;
+                default:
+                    valor = ultima.getFecha().toString();
+            }
+            nextCursor = CursorToken.encode(campo, direccion, valor, String.valueOf(ultima.getId()));
+        }
+        
+        return new PaginaKeyset(pagina, tamano, nextCursor, idCursor != null);
+    }
+
     /**
      * 🚀 LISTADO OPTIMIZADO POR SEDE PARA TABLA
      */
     @Transactional(readOnly = true)
     public List<OrdenTablaDTO> listarPorSedeParaTabla(Long sedeId) {
-        return repo.findBySedeId(sedeId).stream()
-                .map(this::convertirAOrdenTablaDTO)
-                .collect(Collectors.toList());
+        return convertirAOrdenesTablaDTO(repo.findBySedeId(sedeId));
     }
 
     /**
@@ -1604,9 +1728,7 @@ public class OrdenService {
         List<Orden> ordenesPagina = todasLasOrdenes.subList(fromIndex, toIndex);
         
         // Convertir a DTOs
-        List<OrdenTablaDTO> contenido = ordenesPagina.stream()
-                .map(this::convertirAOrdenTablaDTO)
-                .collect(Collectors.toList());
+        List<OrdenTablaDTO> contenido = convertirAOrdenesTablaDTO(ordenesPagina);
         
         return com.casaglass.casaglass_backend.dto.PageResponse.of(contenido, totalElements, page, size);
     }
@@ -1616,9 +1738,7 @@ public class OrdenService {
      */
     @Transactional(readOnly = true)
     public List<OrdenTablaDTO> listarPorTrabajadorParaTabla(Long trabajadorId) {
-        return repo.findByTrabajadorId(trabajadorId).stream()
-                .map(this::convertirAOrdenTablaDTO)
-                .collect(Collectors.toList());
+        return convertirAOrdenesTablaDTO(repo.findByTrabajadorId(trabajadorId));
     }
 
     /**
@@ -1626,9 +1746,7 @@ public class OrdenService {
      */
     @Transactional(readOnly = true)
     public List<OrdenTablaDTO> listarPorClienteParaTabla(Long clienteId) {
-        return repo.findByClienteId(clienteId).stream()
-                .map(this::convertirAOrdenTablaDTO)
-                .collect(Collectors.toList());
+        return convertirAOrdenesTablaDTO(repo.findByClienteId(clienteId));
     }
 
     /**
@@ -1764,11 +1882,53 @@ public class OrdenService {
         return dto;
     }
 
+    /**
+     * 🔄 CONVERSOR EN LOTE: Orden Entity → OrdenTablaDTO
+     * Facturas y estado de entrega de todas las órdenes se leen con una consulta IN cada uno;
+     * cliente, sede, trabajador y crédito ya vienen en el SELECT de las órdenes (Orden.tabla)
+     */
+    private List<OrdenTablaDTO> convertirAOrdenesTablaDTO(List<Orden> ordenes) {
+        DatosTablaOrdenes datos = cargarDatosTabla(ordenes);
+        List<OrdenTablaDTO> dtos = new ArrayList<>(ordenes.size());
+        for (Orden orden : ordenes) {
+            dtos.add(convertirAOrdenTablaDTO(orden, datos));
+        }
+        return dtos;
+    }
+
+    private OrdenTablaDTO convertirAOrdenTablaDTO(Orden orden) {
+        return convertirAOrdenTablaDTO(orden, cargarDatosTabla(List.of(orden)));
+    }
+
+    /**
+     * Números de factura y entregas vigentes de las órdenes, en bloques de ORDENES_POR_CONSULTA IDs
+     */
+    private DatosTablaOrdenes cargarDatosTabla(List<Orden> ordenes) {
+        List<Long> ids = ordenes.stream()
+            .map(Orden::getId)
+            .filter(id -> id != null)
+            .distinct()
+            .collect(Collectors.toList());
+        Map<Long, String> numerosFactura = new HashMap<>();
+        Map<Long, OrdenEntregaEstadoInfo> entregas = new HashMap<>();
+        for (int desde = 0; desde < ids.size(); desde += ORDENES_POR_CONSULTA) {
+            List<Long> bloque = ids.subList(desde, Math.min(desde + ORDENES_POR_CONSULTA, ids.size()));
+            for (Object[] fila : facturaRepository.findNumerosFacturaPorOrdenIds(bloque)) {
+                numerosFactura.put((Long) fila[0], (String) fila[1]);
+            }
+            // Vienen del detalle más reciente al más antiguo: se queda el primero de cada orden
+            for (Object[] fila : entregaDetalleRepository.findEntregasPorOrdenIds(bloque, ESTADOS_ENTREGA_BLOQUEO_EDICION)) {
+                entregas.putIfAbsent((Long) fila[0], estadoEntregaInfo((Long) fila[1], (EntregaDinero.EstadoEntrega) fila[2]));
+            }
+        }
+        return new DatosTablaOrdenes(numerosFactura, entregas);
+    }
+
     /**
      * 🔄 CONVERSOR: Orden Entity → OrdenTablaDTO optimizado
      * Extrae solo los campos necesarios para la tabla
      */
-    private OrdenTablaDTO convertirAOrdenTablaDTO(Orden orden) {
+    private OrdenTablaDTO convertirAOrdenTablaDTO(Orden orden, DatosTablaOrdenes datos) {
         OrdenTablaDTO dto = new OrdenTablaDTO();
         
         // 📝 CAMPOS PRINCIPALES DE LA ORDEN
@@ -1793,22 +1953,17 @@ public class OrdenService {
         dto.setSubtotal(orden.getSubtotal());
         dto.setIva(orden.getIva() != null ? orden.getIva() : 0.0);
         dto.setTotal(orden.getTotal());
-        // Facturada si existe relación en memoria o en BD
-        boolean tieneFactura = (orden.getFactura() != null);
-        String numeroFactura = null;
-        if (!tieneFactura && orden.getId() != null) {
-            Optional<com.casaglass.casaglass_backend.model.Factura> facturaOpt = facturaRepository.findByOrdenId(orden.getId());
-            tieneFactura = facturaOpt.isPresent();
-            if (tieneFactura) {
-                numeroFactura = facturaOpt.get().getNumeroFactura();
-            }
-        } else if (tieneFactura) {
+        // Facturada si existe factura en BD (consulta en lote) o relación en memoria
+        boolean tieneFactura = datos.numerosFactura().containsKey(orden.getId());
+        String numeroFactura = datos.numerosFactura().get(orden.getId());
+        if (!tieneFactura && orden.getFactura() != null) {
+            tieneFactura = true;
             numeroFactura = orden.getFactura().getNumeroFactura();
         }
         dto.setFacturada(tieneFactura);
         dto.setNumeroFactura(numeroFactura != null ? numeroFactura : "-");
 
-        OrdenEntregaEstadoInfo estadoEntrega = obtenerEstadoEntregaOrden(orden.getId());
+        OrdenEntregaEstadoInfo estadoEntrega = datos.entregas().getOrDefault(orden.getId(), SIN_ENTREGA);
         dto.setEstaEnEntregaDinero(estadoEntrega.estaEnEntregaDinero());
         dto.setEntregaDineroId(estadoEntrega.entregaDineroId());
         dto.setEstadoEntrega(estadoEntrega.estadoEntrega());
@@ -2035,6 +2190,8 @@ public class OrdenService {
 
         // 6️⃣ Guardar orden actualizada PRIMERO
         Orden ordenActualizada = repo.save(orden);
+        ventasDiariasService.registrarCambioOrden(ordenActualizada.getId());
+        pendienteEntregaService.registrarCambio(ordenActualizada);
         log.info("[actualizarOrden] Orden guardada ordenId={} ventaAntes={} ventaDespues={} sedeId={} subtotal={} total={}",
             ordenActualizada.getId(),
             eraVentaAntes,
@@ -2074,6 +2231,7 @@ public class OrdenService {
                     // ...existing code...
                     cliente.setCredito(true);
                     clienteRepository.save(cliente);
+                    clienteBusquedaService.registrarCambio(cliente);
                 }
             }
             
@@ -2426,6 +2584,7 @@ public class OrdenService {
     private void actualizarInventarioPorVentaSedeSinCortes(Orden orden, OrdenVentaDTO ventaDTO) {
         if (ventaDTO != null && ventaDTO.getItems() != null) {
             Long sedeId = orden.getSede().getId();
+            Map<Long, Double> cantidadesPorProducto = new HashMap<>();
             for (OrdenVentaDTO.OrdenItemVentaDTO itemDTO : ventaDTO.getItems()) {
                 if (itemDTO == null || itemDTO.getProductoId() == null || itemDTO.getCantidad() == null || itemDTO.getCantidad() <= 0) {
                     continue;
@@ -2437,12 +2596,13 @@ public class OrdenService {
                         throw new IllegalArgumentException("CM base es obligatorio para confirmar ventas CM en sede principal");
                     }
                     if (cmBase == 600) {
-                        descontarInventarioCompat(itemDTO.getProductoId(), sedeId, 1.0);
+                        cantidadesPorProducto.merge(itemDTO.getProductoId(), 1.0, Double::sum);
                     }
                     continue;
                 }
-                descontarInventarioCompat(itemDTO.getProductoId(), sedeId, itemDTO.getCantidad());
+                cantidadesPorProducto.merge(itemDTO.getProductoId(), itemDTO.getCantidad(), Double::sum);
             }
+            descontarInventarioCompatEnLote(orden.getId(), sedeId, cantidadesPorProducto);
             return;
         }
 
@@ -2455,6 +2615,7 @@ public class OrdenService {
             return;
         }
         Long sedeId = orden.getSede().getId();
+        Map<Long, Double> cantidadesPorProducto = new HashMap<>();
         for (OrdenItem item : orden.getItems()) {
             if (item == null || item.getProducto() == null || item.getCantidad() == null || item.getCantidad() <= 0) {
                 continue;
@@ -2466,12 +2627,13 @@ public class OrdenService {
                     throw new IllegalArgumentException("CM base es obligatorio para confirmar ventas CM en sede principal");
                 }
                 if (cmBase == 600) {
-                    descontarInventarioCompat(item.getProducto().getId(), sedeId, 1.0);
+                    cantidadesPorProducto.merge(item.getProducto().getId(), 1.0, Double::sum);
                 }
                 continue;
             }
-            descontarInventarioCompat(item.getProducto().getId(), sedeId, item.getCantidad());
+            cantidadesPorProducto.merge(item.getProducto().getId(), item.getCantidad(), Double::sum);
         }
+        descontarInventarioCompatEnLote(orden.getId(), sedeId, cantidadesPorProducto);
     }
 
     private void restaurarInventarioPorAnulacionSedeSinCortes(Orden orden) {
@@ -2498,17 +2660,20 @@ public class OrdenService {
         }
     }
 
-    private void descontarInventarioCompat(Long productoId, Long sedeId, Double cantidad) {
-        if (productoId == null || sedeId == null || cantidad == null || cantidad <= 0) {
-            return;
-        }
-
-        if (esProductoCorte(productoId)) {
-            inventarioCorteService.decrementarStock(productoId, sedeId, cantidad);
-            return;
+    /**
+     * Descuenta todas las líneas de una orden en sede sin control de cortes:
+     * los cortes se descuentan uno a uno en inventario_cortes y los productos normales en un solo lote
+     */
+    private void descontarInventarioCompatEnLote(Long ordenId, Long sedeId, Map<Long, Double> cantidadesPorProducto) {
+        Map<Long, Double> productosNormales = new HashMap<>();
+        for (Map.Entry<Long, Double> entry : cantidadesPorProducto.entrySet()) {
+            if (esProductoCorte(entry.getKey())) {
+                inventarioCorteService.decrementarStock(entry.getKey(), sedeId, entry.getValue());
+            } else {
+                productosNormales.put(entry.getKey(), entry.getValue());
+            }
         }
-
-        actualizarInventarioConcurrente(productoId, sedeId, cantidad);
+        descontarInventarioEnLote(ordenId, sedeId, productosNormales);
     }
 
     private void restaurarInventarioCompat(Long productoId, Long sedeId, Double cantidad) {
@@ -2525,14 +2690,7 @@ public class OrdenService {
     }
 
     private void restaurarInventarioProducto(Long productoId, Long sedeId, Double cantidad) {
-        Optional<Inventario> inventarioOpt = inventarioService.obtenerPorProductoYSede(productoId, sedeId);
-        if (inventarioOpt.isPresent()) {
-            Inventario inventario = inventarioOpt.get();
-            double cantidadActual = inventario.getCantidad();
-            inventarioService.actualizarInventarioVenta(productoId, sedeId, cantidadActual + cantidad);
-        } else {
-            inventarioService.actualizarInventarioVenta(productoId, sedeId, cantidad);
-        }
+        inventarioService.aplicarDelta(productoId, sedeId, cantidad);
     }
 
     private void aplicarCortesAItems(Orden orden, List<CorteCreacionDTO> cortesCreados) {
@@ -2932,17 +3090,7 @@ public class OrdenService {
             }
         }
 
-        for (Map.Entry<Long, Double> entry : cantidadesProductosEnteros.entrySet()) {
-            Long productoId = entry.getKey();
-            Double cantidad = entry.getValue();
-            if (cantidad == null || cantidad <= 0) {
-                continue;
-            }
-
-            log.info("[actualizarInventarioPorVenta] Descontando producto entero ordenId={} productoId={} sedeId={} cantidad={}",
-                orden.getId(), productoId, sedeId, cantidad);
-            actualizarInventarioConcurrente(productoId, sedeId, cantidad);
-        }
+        descontarInventarioEnLote(orden.getId(), sedeId, cantidadesProductosEnteros);
 
         // 2) Descontar inventario de cortes vendidos (solo cuando el item final ya es un corte).
         for (OrdenItem item : orden.getItems()) {
@@ -2977,93 +3125,68 @@ public class OrdenService {
     }
 
     /**
-     * 🔒 ACTUALIZAR INVENTARIO CON MANEJO DE CONCURRENCIA
+     * 📦 DESCONTAR INVENTARIO DE VARIAS LÍNEAS EN UN SOLO LOTE
+     *
+     * Las cantidades ya vienen agregadas por producto. Un único SELECT ... FOR UPDATE
+     * carga las filas (en orden de ID) y las actualizaciones salen en un batch JDBC,
+     * en lugar de un SELECT + UPDATE por línea.
+     * Permite valores negativos (ventas anticipadas).
+     */
+    private void descontarInventarioEnLote(Long ordenId, Long sedeId, Map<Long, Double> cantidadesPorProducto) {
+        Map<Long, Double> deltas = new HashMap<>();
+        cantidadesPorProducto.forEach((productoId, cantidad) -> {
+            if (productoId != null && cantidad != null && cantidad > 0) {
+                deltas.put(productoId, -cantidad);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            inventarioService.aplicarMovimientosEnLote(sedeId, deltas);
+            log.info("[descontarInventarioEnLote] OK ordenId={} sedeId={} productos={}", ordenId, sedeId, deltas.size());
+        } catch (IllegalArgumentException e) {
+            log.error("[descontarInventarioEnLote] Validación fallida ordenId={} sedeId={} causa={}",
+                ordenId, sedeId, e.getMessage());
+            throw e;
+        } catch (jakarta.persistence.OptimisticLockException
+                 | org.springframework.orm.ObjectOptimisticLockingFailureException e) {
+            log.error("[descontarInventarioEnLote] Conflicto de versión ordenId={} sedeId={}", ordenId, sedeId, e);
+            throw new RuntimeException("⚠️ Otro usuario modificó el inventario. Por favor, intente nuevamente.", e);
+        } catch (org.springframework.dao.DataAccessException e) {
+            log.error("[descontarInventarioEnLote] DataAccessException ordenId={} sedeId={}", ordenId, sedeId, e);
+            throw new RuntimeException("❌ Error de base de datos al actualizar inventario. Intente nuevamente.", e);
+        }
+    }
+
+    /**
+     * 🔒 DESCONTAR INVENTARIO DE UN PRODUCTO (variación atómica)
      * 
-     * Implementa:
-     * - Lock pesimista para evitar race conditions
-     * - Permite valores negativos (ventas anticipadas)
-     * - Manejo de errores específicos
+     * Resta la cantidad con un único UPDATE cantidad = cantidad - x: dos ventas
+     * simultáneas del mismo producto ya no chocan por versión, la base de datos
+     * las aplica en serie.
      * 
      * Nota: Se permiten valores negativos en el inventario para manejar ventas
      * anticipadas (productos vendidos antes de tenerlos en tienda)
      */
-    @Transactional
     private void actualizarInventarioConcurrente(Long productoId, Long sedeId, Double cantidadVendida) {
         try {
-            log.info("[actualizarInventarioConcurrente] Inicio productoId={} sedeId={} cantidadVendida={}",
-                productoId, sedeId, cantidadVendida);
-
-            // 🔍 BUSCAR INVENTARIO (usa lock optimista vía @Version en la entidad)
-            Optional<Inventario> inventarioOpt = inventarioService.obtenerPorProductoYSede(productoId, sedeId);
-            
-            if (!inventarioOpt.isPresent()) {
+            if (!inventarioService.aplicarDeltaExistente(productoId, sedeId, -cantidadVendida, false)) {
                 log.error("[actualizarInventarioConcurrente] Inventario no encontrado productoId={} sedeId={}", productoId, sedeId);
                 throw new IllegalArgumentException(
                     String.format("❌ No existe inventario para producto ID %d en sede ID %d", productoId, sedeId)
                 );
             }
-            
-            Inventario inventario = inventarioOpt.get();
-            
-            // ➖ ACTUALIZAR CANTIDAD (permite valores negativos para ventas anticipadas)
-            double nuevaCantidad = inventario.getCantidad() - cantidadVendida;
-
-            log.info("[actualizarInventarioConcurrente] Update inventarioId={} productoId={} sedeId={} version={} cantidadAnterior={} cantidadVendida={} cantidadNueva={}",
-                inventario.getId(),
-                productoId,
-                sedeId,
-                inventario.getVersion(),
-                inventario.getCantidad(),
-                cantidadVendida,
-                nuevaCantidad);
-            
-            inventario.setCantidad(nuevaCantidad);
-            inventarioService.actualizar(inventario.getId(), inventario);
-
-            log.info("[actualizarInventarioConcurrente] OK inventarioId={} productoId={} sedeId={} cantidadNueva={}",
-                inventario.getId(), productoId, sedeId, nuevaCantidad);
-            
-        } catch (IllegalArgumentException e) {
-            log.error("[actualizarInventarioConcurrente] Validación fallida productoId={} sedeId={} cantidad={} causa={}",
-                productoId, sedeId, cantidadVendida, e.getMessage(), e);
-            // Re-lanzar errores de validación
-            throw e;
-        } catch (jakarta.persistence.OptimisticLockException e) {
-            // 🔒 Lock optimista: Otro proceso modificó el inventario (muy raro)
-            log.error("[actualizarInventarioConcurrente] OptimisticLockException productoId={} sedeId={} cantidad={}",
-                productoId, sedeId, cantidadVendida, e);
-            throw new RuntimeException(
-                String.format("⚠️ Otro usuario modificó el inventario del producto ID %d. Por favor, intente nuevamente.", productoId),
-                e
-            );
-        } catch (org.springframework.orm.ObjectOptimisticLockingFailureException e) {
-            // 🔒 Variante de Spring para OptimisticLockException
-            log.error("[actualizarInventarioConcurrente] ObjectOptimisticLockingFailureException productoId={} sedeId={} cantidad={}",
-                productoId, sedeId, cantidadVendida, e);
-            throw new RuntimeException(
-                String.format("⚠️ Otro usuario modificó el inventario del producto ID %d. Por favor, intente nuevamente.", productoId),
-                e
-            );
+            log.debug("[actualizarInventarioConcurrente] OK productoId={} sedeId={} cantidadVendida={}",
+                productoId, sedeId, cantidadVendida);
         } catch (org.springframework.dao.DataAccessException e) {
-            // Otros errores de base de datos
             log.error("[actualizarInventarioConcurrente] DataAccessException productoId={} sedeId={} cantidad={}",
                 productoId, sedeId, cantidadVendida, e);
             throw new RuntimeException(
                 String.format("❌ Error de base de datos al actualizar inventario del producto ID %d. Intente nuevamente.", productoId),
                 e
             );
-        } catch (RuntimeException e) {
-            log.error("[actualizarInventarioConcurrente] RuntimeException productoId={} sedeId={} cantidad={} causa={}",
-                productoId, sedeId, cantidadVendida, e.getMessage(), e);
-            throw e;
-        } catch (Exception e) {
-            // Manejar otros errores inesperados
-            log.error("[actualizarInventarioConcurrente] Exception inesperada productoId={} sedeId={} cantidad={}",
-                productoId, sedeId, cantidadVendida, e);
-            throw new RuntimeException(
-                String.format("❌ Error inesperado al actualizar inventario del producto ID %d. Intente nuevamente.", productoId),
-                e
-            );
         }
     }
 
@@ -3141,19 +3264,8 @@ public class OrdenService {
                     continue;
                 }
                 
-                // Buscar inventario del producto en la sede
-                Optional<Inventario> inventarioOpt = inventarioService.obtenerPorProductoYSede(productoId, sedeId);
-                
-                if (inventarioOpt.isPresent()) {
-                    Inventario inventario = inventarioOpt.get();
-                    double cantidadActual = inventario.getCantidad();
-                    
-                    // Sumar cantidad restaurada usando método seguro
-                    inventarioService.actualizarInventarioVenta(productoId, sedeId, cantidadActual + cantidadARestaurar);
-                } else {
-                    // Si no existe inventario, crearlo con la cantidad restaurada usando método seguro
-                    inventarioService.actualizarInventarioVenta(productoId, sedeId, cantidadARestaurar);
-                }
+                // Sumar la cantidad restaurada (crea el inventario si no existe)
+                inventarioService.aplicarDelta(productoId, sedeId, cantidadARestaurar);
             }
         }
     }
@@ -3217,7 +3329,10 @@ public class OrdenService {
             ordenCortePlanRepository.save(plan);
         }
         
-        return repo.save(orden);
+        Orden ordenAnulada = repo.save(orden);
+        ventasDiariasService.registrarCambioOrden(ordenAnulada.getId());
+        pendienteEntregaService.registrarCambio(ordenAnulada);
+        return ordenAnulada;
     }
 
     /**
@@ -3253,6 +3368,8 @@ public class OrdenService {
 
         ordenCortePlanRepository.deleteByOrdenId(id);
         repo.delete(orden);
+        ventasDiariasService.registrarCambioOrden(id);
+        pendienteEntregaService.registrarCambioOrden(id);
     }
     
     /**
@@ -3479,11 +3596,10 @@ public class OrdenService {
         var color = productoOriginal.getColor();
 
         if (categoriaId != null && color != null) {
-            var existentes = corteRepository
-                .findExistingByCodigoAndSpecsPrioritizedBySede(codigoBase, medida.doubleValue(), categoriaId, color, sedeId);
-            if (existentes != null && !existentes.isEmpty()) {
-                // Si hay duplicados legacy, tomar el más reciente de forma determinística.
-                Corte corteExistente = existentes.get(0);
+            // 📏 Resuelto en el índice en memoria de cortes (duplicados legacy: prioridad por sede en BD)
+            Corte corteExistente = corteService
+                .buscarExistentePorEspecificaciones(codigoBase, medida.doubleValue(), categoriaId, color, sedeId);
+            if (corteExistente != null) {
                 boolean requiereActualizacion = false;
 
                 // Asegurarse de que el nombre esté correcto (no concatenado)
@@ -3710,6 +3826,8 @@ public class OrdenService {
         
         // 7️⃣ GUARDAR ORDEN
         Orden ordenActualizada = repo.save(orden);
+        ventasDiariasService.registrarCambioOrden(ordenActualizada.getId());
+        pendienteEntregaService.registrarCambio(ordenActualizada);
         
         // 8️⃣ ACTUALIZAR CRÉDITO SI EXISTE
         if (orden.isCredito() && orden.getCreditoDetalle() != null) {
@@ -3790,6 +3908,8 @@ public class OrdenService {
         
         // 7️⃣ GUARDAR ORDEN
         Orden ordenActualizada = repo.save(orden);
+        ventasDiariasService.registrarCambioOrden(ordenActualizada.getId());
+        pendienteEntregaService.registrarCambio(ordenActualizada);
         
         // 8️⃣ ACTUALIZAR CRÉDITO SI EXISTE
         if (orden.isCredito() && orden.getCreditoDetalle() != null) {
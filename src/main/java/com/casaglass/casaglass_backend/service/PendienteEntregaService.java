@@ -0,0 +1,362 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.dto.EntregaDetalleSimpleDTO;
+import com.casaglass.casaglass_backend.dto.TotalesEntregaPorMedioDTO;
+import com.casaglass.casaglass_backend.model.Abono;
+import com.casaglass.casaglass_backend.model.Cliente;
+import com.casaglass.casaglass_backend.model.EntregaDetalle;
+import com.casaglass.casaglass_backend.model.Orden;
+import com.casaglass.casaglass_backend.model.PendienteEntrega;
+import com.casaglass.casaglass_backend.model.PendienteEntrega.TipoPendiente;
+import com.casaglass.casaglass_backend.model.ReembolsoVenta;
+import com.casaglass.casaglass_backend.model.Sede;
+import com.casaglass.casaglass_backend.repository.AbonoRepository;
+import com.casaglass.casaglass_backend.repository.OrdenRepository;
+import com.casaglass.casaglass_backend.repository.PendienteEntregaRepository;
+import com.casaglass.casaglass_backend.repository.ReembolsoVentaRepository;
+import com.casaglass.casaglass_backend.repository.SedeRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 💵 PENDIENTES DE ENTREGA DE DINERO POR SEDE
+ *
+ * Mantiene en pendientes_entrega las órdenes a contado, abonos y reembolsos que todavía no
+ * salen en una entrega, con el mismo criterio que las consultas "disponibles para entrega" y
+ * el aporte por medio de pago ya calculado. La pantalla de preparación lee la lista y los
+ * totales con una sola consulta por sede.
+ *
+ * Todo se sincroniza por orden: al cambiar una orden, sus abonos, sus reembolsos o sus detalles
+ * de entrega se borran las filas de esa orden y se vuelven a generar las que sigan pendientes.
+ * Igual que CreditoMovimientoService, la sincronización se difiere al beforeCommit para hacerse
+ * una sola vez por orden y transacción.
+ */
+@Service
+@Transactional
+public class PendienteEntregaService {
+
+    private static final Logger log = LoggerFactory.getLogger(PendienteEntregaService.class);
+
+    /** Clave del recurso de transacción con las órdenes pendientes de sincronizar */
+    private static final Object ORDENES_PENDIENTES = new Object();
+
+    private static final int ORDENES_POR_CONSULTA = 500;
+
+    private final PendienteEntregaRepository pendienteRepository;
+    private final OrdenRepository ordenRepository;
+    private final AbonoRepository abonoRepository;
+    private final ReembolsoVentaRepository reembolsoVentaRepository;
+    private final SedeRepository sedeRepository;
+    private final EntityManager entityManager;
+
+    public PendienteEntregaService(PendienteEntregaRepository pendienteRepository,
+                                   OrdenRepository ordenRepository,
+                                   AbonoRepository abonoRepository,
+                                   ReembolsoVentaRepository reembolsoVentaRepository,
+                                   SedeRepository sedeRepository,
+                                   EntityManager entityManager) {
+        this.pendienteRepository = pendienteRepository;
+        this.ordenRepository = ordenRepository;
+        this.abonoRepository = abonoRepository;
+        this.reembolsoVentaRepository = reembolsoVentaRepository;
+        this.sedeRepository = sedeRepository;
+        this.entityManager = entityManager;
+    }
+
+    public void registrarCambio(Orden orden) {
+        if (orden != null) {
+            registrarCambioOrden(orden.getId());
+        }
+    }
+
+    public void registrarCambioOrden(Long ordenId) {
+        if (ordenId != null) {
+            registrarCambioOrdenes(List.of(ordenId));
+        }
+    }
+
+    /**
+     * Marca órdenes como modificadas
+     * Con transacción activa la sincronización se difiere al beforeCommit;
+     * sin transacción se sincroniza de inmediato
+     */
+    public void registrarCambioOrdenes(Collection<Long> ordenIds) {
+        if (ordenIds == null || ordenIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            sincronizarOrdenes(ordenIds);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Long> pendientes = (Set<Long>) TransactionSynchronizationManager.getResource(ORDENES_PENDIENTES);
+        if (pendientes == null) {
+            Set<Long> nuevas = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(ORDENES_PENDIENTES, nuevas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Volcar cambios pendientes para evaluar las órdenes ya actualizadas
+                    entityManager.flush();
+                    sincronizarOrdenes(new ArrayList<>(nuevas));
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ORDENES_PENDIENTES);
+                }
+            });
+            pendientes = nuevas;
+        }
+        for (Long ordenId : ordenIds) {
+            if (ordenId != null) {
+                pendientes.add(ordenId);
+            }
+        }
+    }
+
+    /**
+     * 🔄 Rehace las filas de unas órdenes (la orden a contado, sus abonos y sus reembolsos)
+     *
+     * @return cantidad de filas pendientes que quedaron para esas órdenes
+     */
+    public int sincronizarOrdenes(Collection<Long> ordenIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(ordenIds));
+        ids.removeIf(Objects::isNull);
+
+        int filas = 0;
+        for (int desde = 0; desde < ids.size(); desde += ORDENES_POR_CONSULTA) {
+            List<Long> lote = ids.subList(desde, Math.min(desde + ORDENES_POR_CONSULTA, ids.size()));
+            pendienteRepository.eliminarPorOrdenes(lote);
+
+            List<PendienteEntrega> nuevas = new ArrayList<>();
+            LocalDateTime ahora = LocalDateTime.now();
+            for (Orden orden : ordenRepository.findOrdenesContadoDisponiblesParaEntregaPorIds(lote)) {
+                agregar(nuevas, desdeOrden(orden, ahora));
+            }
+            for (Abono abono : abonoRepository.findAbonosDisponiblesParaEntregaPorOrdenes(lote)) {
+                agregar(nuevas, desdeAbono(abono, ahora));
+            }
+            for (ReembolsoVenta reembolso : reembolsoVentaRepository.findReembolsosDisponiblesParaEntregaPorOrdenes(lote)) {
+                agregar(nuevas, desdeReembolso(reembolso, ahora));
+            }
+            pendienteRepository.saveAll(nuevas);
+            filas += nuevas.size();
+        }
+        return filas;
+    }
+
+    /**
+     * 🔁 Reconstruye los pendientes de una sede (null = todas) con las consultas "disponibles para entrega"
+     *
+     * @return cantidad de filas generadas
+     */
+    public int reconstruir(Long sedeId) {
+        List<Long> sedes = sedeId != null
+            ? List.of(sedeId)
+            : sedeRepository.findAll().stream().map(Sede::getId).toList();
+
+        int filas = 0;
+        LocalDateTime ahora = LocalDateTime.now();
+        for (Long id : sedes) {
+            pendienteRepository.eliminarPorSede(id);
+
+            List<PendienteEntrega> nuevas = new ArrayList<>();
+            for (Orden orden : ordenRepository.findOrdenesContadoDisponiblesParaEntregaSinFecha(id)) {
+                agregar(nuevas, desdeOrden(orden, ahora));
+            }
+            for (Abono abono : abonoRepository.findAbonosDisponiblesParaEntregaSinFecha(id)) {
+                agregar(nuevas, desdeAbono(abono, ahora));
+            }
+            for (ReembolsoVenta reembolso : reembolsoVentaRepository.findReembolsosDisponiblesParaEntregaSinFecha(id)) {
+                agregar(nuevas, desdeReembolso(reembolso, ahora));
+            }
+            pendienteRepository.saveAll(nuevas);
+            filas += nuevas.size();
+        }
+        return filas;
+    }
+
+    /**
+     * Al arrancar, si la tabla está vacía (primera vez), la arma con todas las sedes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarSiVacio() {
+        try {
+            if (pendienteRepository.count() > 0) {
+                return;
+            }
+            int filas = reconstruir(null);
+            if (filas > 0) {
+                log.info("Pendientes de entrega inicializados con {} filas", filas);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron inicializar los pendientes de entrega: {}", e.getMessage());
+        }
+    }
+
+    /* ========== CONSULTAS ========== */
+
+    @Transactional(readOnly = true)
+    public List<PendienteEntrega> listarPorSede(Long sedeId) {
+        if (sedeId == null) {
+            throw new IllegalArgumentException("La sede es obligatoria");
+        }
+        return pendienteRepository.findBySedeIdOrderByFechaAscIdAsc(sedeId);
+    }
+
+    /**
+     * 📋 Pendientes de la sede con sus totales por medio de pago y conteos por tipo
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> resumenPorSede(Long sedeId) {
+        List<PendienteEntrega> pendientes = listarPorSede(sedeId);
+
+        long contado = 0;
+        long credito = 0;
+        long reembolsos = 0;
+        double monto = 0.0;
+        for (PendienteEntrega p : pendientes) {
+            switch (p.getTipo()) {
+                case ORDEN -> contado++;
+                case ABONO -> credito++;
+                case REEMBOLSO -> reembolsos++;
+            }
+            double valor = valor(p.getMonto());
+            monto += p.getTipoMovimiento() == EntregaDetalle.TipoMovimiento.EGRESO ? -valor : valor;
+        }
+
+        Map<String, Object> totales = new LinkedHashMap<>();
+        totales.put("contado", contado);
+        totales.put("credito", credito);
+        totales.put("reembolsos", reembolsos);
+        totales.put("total", pendientes.size());
+        totales.put("monto", redondear(monto));
+
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("sedeId", sedeId);
+        resumen.put("pendientes", pendientes);
+        resumen.put("totalesPorMedio", totalesPorMedio(pendientes));
+        resumen.put("totales", totales);
+        return resumen;
+    }
+
+    /**
+     * Suma de los aportes por medio de pago (los egresos ya vienen con signo negativo)
+     */
+    public static TotalesEntregaPorMedioDTO totalesPorMedio(List<PendienteEntrega> pendientes) {
+        double efectivo = 0.0;
+        double transferencia = 0.0;
+        double cheque = 0.0;
+        double deposito = 0.0;
+        for (PendienteEntrega p : pendientes) {
+            efectivo += valor(p.getMontoEfectivo());
+            transferencia += valor(p.getMontoTransferencia());
+            cheque += valor(p.getMontoCheque());
+            deposito += valor(p.getMontoDeposito());
+        }
+        return new TotalesEntregaPorMedioDTO(redondear(efectivo), redondear(transferencia),
+            redondear(cheque), redondear(deposito));
+    }
+
+    /* ========== CONSTRUCCIÓN DE FILAS ========== */
+
+    private PendienteEntrega desdeOrden(Orden orden, LocalDateTime ahora) {
+        EntregaDetalle detalle = new EntregaDetalle();
+        detalle.setOrden(orden);
+        detalle.inicializarDesdeOrden();
+        return fila(TipoPendiente.ORDEN, orden.getId(), sedeId(orden.getSede()), orden, orden.getCliente(),
+            orden.getFecha(), orden.getDescripcion(), detalle, ahora);
+    }
+
+    private PendienteEntrega desdeAbono(Abono abono, LocalDateTime ahora) {
+        EntregaDetalle detalle = new EntregaDetalle();
+        detalle.inicializarDesdeAbono(abono);
+        // La sede del abono es donde se recibió el pago
+        return fila(TipoPendiente.ABONO, abono.getId(), sedeId(abono.getSede()), abono.getOrden(), abono.getCliente(),
+            abono.getFecha(), abono.getMetodoPago(), detalle, ahora);
+    }
+
+    private PendienteEntrega desdeReembolso(ReembolsoVenta reembolso, LocalDateTime ahora) {
+        EntregaDetalle detalle = new EntregaDetalle();
+        detalle.inicializarDesdeReembolso(reembolso);
+        Orden orden = reembolso.getOrdenOriginal();
+        return fila(TipoPendiente.REEMBOLSO, reembolso.getId(), sedeId(orden.getSede()), orden, reembolso.getCliente(),
+            reembolso.getFecha(),
+            reembolso.getFormaReembolso() != null ? reembolso.getFormaReembolso().name() : null,
+            detalle, ahora);
+    }
+
+    /**
+     * El aporte por medio sale de la misma regla que usa la entrega al guardarse
+     * (TotalesEntregaPorMedioDTO sobre el detalle que se crearía)
+     */
+    private PendienteEntrega fila(TipoPendiente tipo, Long referenciaId, Long sedeId, Orden orden, Cliente cliente,
+                                  LocalDate fecha, String metodoPago, EntregaDetalle detalle,
+                                  LocalDateTime ahora) {
+        TotalesEntregaPorMedioDTO aporte = TotalesEntregaPorMedioDTO.desdeDetalles(
+            List.of(new EntregaDetalleSimpleDTO(detalle)));
+
+        PendienteEntrega p = new PendienteEntrega();
+        p.setSedeId(sedeId);
+        p.setTipo(tipo);
+        p.setReferenciaId(referenciaId);
+        p.setOrdenId(orden.getId());
+        p.setNumeroOrden(detalle.getNumeroOrden());
+        p.setFecha(fecha);
+        p.setClienteNombre(recortar(cliente != null ? cliente.getNombre() : null, 100));
+        p.setClienteNit(recortar(cliente != null ? cliente.getNit() : null, 50));
+        p.setObra(recortar(orden.getObra(), 255));
+        p.setMetodoPago(recortar(metodoPago, 255));
+        p.setTipoMovimiento(detalle.getTipoMovimiento());
+        p.setMonto(Math.abs(valor(detalle.getMontoOrden())));
+        p.setMontoEfectivo(valor(aporte.getEfectivo()));
+        p.setMontoTransferencia(valor(aporte.getTransferencia()));
+        p.setMontoCheque(valor(aporte.getCheque()));
+        p.setMontoDeposito(valor(aporte.getDeposito()));
+        p.setFechaActualizacion(ahora);
+        return p;
+    }
+
+    /** Filas sin sede (datos históricos incompletos) no se pueden listar por sede: se omiten */
+    private static void agregar(List<PendienteEntrega> filas, PendienteEntrega fila) {
+        if (fila.getSedeId() != null) {
+            filas.add(fila);
+        }
+    }
+
+    private static Long sedeId(Sede sede) {
+        return sede != null ? sede.getId() : null;
+    }
+
+    private static String recortar(String texto, int largo) {
+        return texto != null && texto.length() > largo ? texto.substring(0, largo) : texto;
+    }
+
+    private static double valor(Double v) {
+        return v != null ? v : 0.0;
+    }
+
+    private static double redondear(double v) {
+        return Math.round(v * 100.0) / 100.0;
+    }
+}
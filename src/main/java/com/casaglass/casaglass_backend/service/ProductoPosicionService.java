@@ -0,0 +1,185 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.Producto;
+import com.casaglass.casaglass_backend.repository.ProductoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 📍 POSICIONES DE PRODUCTOS (lista ordenada)
+ *
+ * Centraliza el manejo de posiciones que antes estaba duplicado en ProductoService
+ * y ProductoVidrioService. Correr posiciones ya no carga ni guarda producto por
+ * producto: se hace con un único UPDATE sobre la columna numérica posicion_num.
+ *
+ * Aplica a productos base y ProductoVidrio; los Cortes no participan.
+ */
+@Service
+@Transactional
+public class ProductoPosicionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductoPosicionService.class);
+
+    private static final int MAX_REORDENAR = 5000;
+
+    private static final String SQL_ASIGNAR_POSICION =
+        "UPDATE productos SET posicion = ?, posicion_num = ?, version = COALESCE(version, 0) + 1 WHERE id = ?";
+
+    private final ProductoRepository repo;
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductoPosicionService(ProductoRepository repo, JdbcTemplate jdbcTemplate) {
+        this.repo = repo;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Al arrancar completa posicion_num en productos creados antes de existir la columna
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sincronizarAlIniciar() {
+        try {
+            int filas = repo.sincronizarPosicionesNumericas();
+            if (filas > 0) {
+                log.info("Posiciones numéricas sincronizadas: {} productos", filas);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron sincronizar las posiciones numéricas: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 💾 POSICIÓN PARA UN PRODUCTO NUEVO
+     *
+     * Con posición solicitada: corre los productos con posición >= a esa (+1) y la retorna.
+     * Sin posición: retorna la última posición + 1.
+     *
+     * @throws IllegalArgumentException si la posición no es un número positivo
+     */
+    public Long reservarPosicionNueva(String posicionSolicitada) {
+        if (posicionSolicitada == null || posicionSolicitada.trim().isEmpty()) {
+            Long maximaPosicion = repo.obtenerMaximaPosicion();
+            return (maximaPosicion != null) ? maximaPosicion + 1 : 1L;
+        }
+
+        Long posicion = validarPosicion(posicionSolicitada);
+        repo.desplazarPosiciones(posicion, Long.MAX_VALUE, 1, null);
+        return posicion;
+    }
+
+    /**
+     * 🔄 MOVER UN PRODUCTO EXISTENTE
+     *
+     * Solo corre el tramo entre la posición anterior y la nueva:
+     * - Sube (nueva < anterior): [nueva, anterior - 1] pasan a +1
+     * - Baja (nueva > anterior): [anterior + 1, nueva] pasan a -1
+     * Si no tenía posición numérica, se inserta como producto nuevo en esa posición.
+     *
+     * @return posición final del producto
+     * @throws IllegalArgumentException si la posición no es un número positivo
+     */
+    public Long moverPosicion(Long productoId, String posicionAnterior, String posicionSolicitada) {
+        Long nueva = validarPosicion(posicionSolicitada);
+        Long anterior = Producto.parsearPosicion(posicionAnterior);
+
+        if (anterior == null) {
+            repo.desplazarPosiciones(nueva, Long.MAX_VALUE, 1, productoId);
+        } else if (nueva < anterior) {
+            repo.desplazarPosiciones(nueva, anterior - 1, 1, productoId);
+        } else if (nueva > anterior) {
+            repo.desplazarPosiciones(anterior + 1, nueva, -1, productoId);
+        }
+        return nueva;
+    }
+
+    /**
+     * 🔃 REORDENAMIENTO MASIVO
+     *
+     * Recibe los IDs en el nuevo orden y les reparte, en ese orden, las mismas
+     * posiciones que ya ocupaban entre ellos (los demás productos no se tocan).
+     * Los productos sin posición reciben posiciones nuevas al final.
+     * Todas las actualizaciones van en un solo batch JDBC.
+     *
+     * @return cantidad de productos cuya posición cambió
+     * @throws IllegalArgumentException si la lista está vacía, repite IDs o contiene IDs inválidos
+     */
+    public int reordenar(List<Long> idsEnOrden) {
+        if (idsEnOrden == null || idsEnOrden.isEmpty()) {
+            throw new IllegalArgumentException("Debe enviar al menos un producto para reordenar");
+        }
+        if (idsEnOrden.size() > MAX_REORDENAR) {
+            throw new IllegalArgumentException("No se pueden reordenar más de " + MAX_REORDENAR + " productos a la vez");
+        }
+        // List.of(...) lanza NullPointerException con contains(null): se revisa con stream
+        if (idsEnOrden.stream().anyMatch(Objects::isNull) || new HashSet<>(idsEnOrden).size() != idsEnOrden.size()) {
+            throw new IllegalArgumentException("La lista de productos contiene IDs repetidos o vacíos");
+        }
+
+        Map<Long, Long> posicionActual = new HashMap<>();
+        for (Object[] fila : repo.obtenerPosicionesPorIds(idsEnOrden)) {
+            posicionActual.put((Long) fila[0], (Long) fila[1]);
+        }
+        if (posicionActual.size() != idsEnOrden.size()) {
+            List<Long> faltantes = new ArrayList<>(idsEnOrden);
+            faltantes.removeAll(posicionActual.keySet());
+            throw new IllegalArgumentException("Productos no encontrados (o son cortes): " + faltantes);
+        }
+
+        // Posiciones disponibles: las que ya ocupaba el grupo, más nuevas al final para los que no tenían
+        List<Long> posiciones = new ArrayList<>();
+        long sinPosicion = 0;
+        for (Long posicion : posicionActual.values()) {
+            if (posicion != null) {
+                posiciones.add(posicion);
+            } else {
+                sinPosicion++;
+            }
+        }
+        posiciones.sort(null);
+        if (sinPosicion > 0) {
+            Long maxima = repo.obtenerMaximaPosicion();
+            long siguiente = (maxima != null ? maxima : 0L) + 1;
+            for (long i = 0; i < sinPosicion; i++) {
+                posiciones.add(siguiente + i);
+            }
+        }
+
+        List<Object[]> cambios = new ArrayList<>();
+        for (int i = 0; i < idsEnOrden.size(); i++) {
+            Long id = idsEnOrden.get(i);
+            Long posicion = posiciones.get(i);
+            if (!posicion.equals(posicionActual.get(id))) {
+                cambios.add(new Object[] { String.valueOf(posicion), posicion, id });
+            }
+        }
+
+        if (!cambios.isEmpty()) {
+            jdbcTemplate.batchUpdate(SQL_ASIGNAR_POSICION, cambios);
+        }
+        return cambios.size();
+    }
+
+    private Long validarPosicion(String posicionSolicitada) {
+        try {
+            long posicion = Long.parseLong(posicionSolicitada.trim());
+            if (posicion <= 0) {
+                throw new IllegalArgumentException("La posición debe ser un número positivo mayor a 0");
+            }
+            return posicion;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("La posición debe ser un número válido. Valor recibido: " + posicionSolicitada);
+        }
+    }
+}
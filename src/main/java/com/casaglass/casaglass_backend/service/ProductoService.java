@@ -33,11 +33,16 @@ public class ProductoService {
     private final CategoriaRepository categoriaRepo;
     private final InventarioRepository inventarioRepo;
     private final SedeRepository sedeRepo;
+    private final ProductoPosicionService posicionService;
+    private final CostoPromedioService costoPromedioService;
 
     public ProductoService(ProductoRepository repo, CategoriaRepository categoriaRepo,
                           InventarioRepository inventarioRepo, SedeRepository sedeRepo,
-                          IngresoDetalleRepository ingresoDetalleRepo, TrasladoDetalleRepository trasladoDetalleRepo) {
+                          IngresoDetalleRepository ingresoDetalleRepo, TrasladoDetalleRepository trasladoDetalleRepo,
+                          ProductoPosicionService posicionService, CostoPromedioService costoPromedioService) {
         this.repo = repo;
+        this.posicionService = posicionService;
+        this.costoPromedioService = costoPromedioService;
         this.categoriaRepo = categoriaRepo;
         this.inventarioRepo = inventarioRepo;
         this.sedeRepo = sedeRepo;
@@ -259,34 +264,8 @@ public class ProductoService {
             p.setCategoria(null);
         }
         
-        // 📍 MANEJO DE POSICIÓN
-        String posicionSolicitada = p.getPosicion();
-        
-        if (posicionSolicitada != null && !posicionSolicitada.trim().isEmpty()) {
-            // Intentar parsear la posición como número
-            try {
-                Long posicionNumerica = Long.parseLong(posicionSolicitada.trim());
-                
-                // Validar que la posición sea positiva
-                if (posicionNumerica <= 0) {
-                    throw new IllegalArgumentException("La posición debe ser un número positivo mayor a 0");
-                }
-                
-                // Correr todos los productos con posición >= a la solicitada
-                correrPosicionesProductos(posicionNumerica);
-                
-                // Asignar la posición al nuevo producto
-                p.setPosicion(String.valueOf(posicionNumerica));
-                
-            } catch (NumberFormatException e) {
-                throw new IllegalArgumentException("La posición debe ser un número válido. Valor recibido: " + posicionSolicitada);
-            }
-        } else {
-            // Si no viene posición, asignar la última posición + 1
-            Long maximaPosicion = repo.obtenerMaximaPosicion();
-            Long nuevaPosicion = (maximaPosicion != null) ? maximaPosicion + 1 : 1;
-            p.setPosicion(String.valueOf(nuevaPosicion));
-        }
+        // 📍 MANEJO DE POSICIÓN (corre los posteriores con un solo UPDATE)
+        p.setPosicion(String.valueOf(posicionService.reservarPosicionNueva(p.getPosicion())));
         
         // Guardar el producto
         Producto productoGuardado = repo.save(p);
@@ -297,59 +276,6 @@ public class ProductoService {
         return productoGuardado;
     }
 
-    /**
-     * 🔄 CORRER POSICIONES DE PRODUCTOS
-     * 
-     * Cuando se inserta un producto en una posición específica, todos los productos
-     * con posición >= a esa posición deben correrse hacia abajo (sumar 1).
-     * 
-     * Ejemplo:
-     * - Si insertas en posición 5, los productos en posición 5, 6, 7, 8... pasan a 6, 7, 8, 9...
-     * 
-     * @param posicionInicial Posición desde la cual correr los productos
-     */
-    private void correrPosicionesProductos(Long posicionInicial) {
-        // Obtener todos los productos con posición (excluye Cortes)
-        List<Producto> todosLosProductosConPosicion = repo.encontrarProductosConPosicion();
-        
-        // Filtrar en Java: solo productos con posición >= posicionInicial
-        List<Producto> productosACorrer = todosLosProductosConPosicion.stream()
-                .filter(p -> {
-                    try {
-                        Long posicion = Long.parseLong(p.getPosicion());
-                        return posicion >= posicionInicial;
-                    } catch (NumberFormatException e) {
-                        return false; // Si no se puede parsear, excluir
-                    }
-                })
-                .collect(Collectors.toList());
-        
-        // Ordenar por posición descendente para evitar conflictos al actualizar
-        productosACorrer.sort((a, b) -> {
-            try {
-                Long posA = Long.parseLong(a.getPosicion());
-                Long posB = Long.parseLong(b.getPosicion());
-                return posB.compareTo(posA); // Orden descendente
-            } catch (NumberFormatException e) {
-                return 0;
-            }
-        });
-        
-        // Correr cada producto sumando 1 a su posición
-        for (Producto producto : productosACorrer) {
-            try {
-                Long posicionActual = Long.parseLong(producto.getPosicion());
-                Long nuevaPosicion = posicionActual + 1;
-                producto.setPosicion(String.valueOf(nuevaPosicion));
-                repo.save(producto);
-            } catch (NumberFormatException e) {
-                // Si hay un error al parsear, saltar este producto
-                // (no debería pasar si la consulta funciona correctamente)
-                continue;
-            }
-        }
-    }
-
     public Producto actualizar(Long id, ProductoActualizarDTO dto) {
         return repo.findById(id).map(actual -> {
             try {
@@ -369,7 +295,8 @@ public class ProductoService {
                 }
                 
                 actual.setCantidad(dto.getCantidad());
-                // ✅ Actualizar costo explícitamente (permite null y 0)
+                // ✅ Actualizar costo explícitamente (permite null y 0); el cambio queda como AJUSTE en el historial
+                Double costoAnterior = actual.getCosto();
                 actual.setCosto(dto.getCosto());
                 actual.setPrecio1(dto.getPrecio1());
                 actual.setPrecio2(dto.getPrecio2());
@@ -387,6 +314,7 @@ public class ProductoService {
 
                 // ✅ Usar saveAndFlush para forzar la persistencia inmediata
                 Producto saved = repo.saveAndFlush(actual);
+                costoPromedioService.registrarAjusteManual(saved.getId(), costoAnterior, dto.getCosto());
                 
                 // 📦 ACTUALIZAR INVENTARIO EN LAS 3 SEDES si se enviaron las cantidades
                 if (dto.getCantidadInsula() != null || dto.getCantidadCentro() != null || dto.getCantidadPatios() != null) {
@@ -442,8 +370,10 @@ public class ProductoService {
         Producto producto = repo.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("Producto no encontrado con id: " + id));
         
+        Double costoAnterior = producto.getCosto();
         producto.setCosto(nuevoCosto);
         Producto saved = repo.saveAndFlush(producto);
+        costoPromedioService.registrarAjusteManual(id, costoAnterior, nuevoCosto);
         
         return saved;
     }
@@ -551,52 +481,18 @@ public class ProductoService {
      */
     @Transactional(readOnly = true)
     public List<ProductoPosicionDTO> listarProductosParaPosiciones(Long categoriaId) {
-        // Obtener todos los productos (incluyendo ProductoVidrio)
-        List<Producto> todosLosProductos = repo.findAll();
-        
-        // Filtrar Cortes (excluir)
-        List<Producto> productos = todosLosProductos.stream()
-                .filter(p -> !(p instanceof com.casaglass.casaglass_backend.model.Corte))
-                .collect(Collectors.toList());
-        
-        // Filtrar por categoría si se especifica
-        if (categoriaId != null) {
-            productos = productos.stream()
-                    .filter(p -> p.getCategoria() != null && p.getCategoria().getId().equals(categoriaId))
-                    .collect(Collectors.toList());
-        }
-        
-        // Convertir a DTO
-        List<ProductoPosicionDTO> dtos = productos.stream()
+        // Filtro de categoría, exclusión de Cortes y orden por posición resueltos en BD
+        return repo.listarParaPosiciones(categoriaId).stream()
                 .map(this::convertirAProductoPosicionDTO)
                 .collect(Collectors.toList());
-        
-        // Ordenar: productos con posición primero (por posición numérica), luego sin posición
-        dtos.sort((a, b) -> {
-            // Si ambos tienen posición, ordenar numéricamente
-            if (a.getPosicion() != null && b.getPosicion() != null) {
-                try {
-                    Long posA = Long.parseLong(a.getPosicion());
-                    Long posB = Long.parseLong(b.getPosicion());
-                    return posA.compareTo(posB);
-                } catch (NumberFormatException e) {
-                    // Si hay error al parsear, mantener orden original
-                    return 0;
-                }
-            }
-            // Si solo 'a' tiene posición, va primero
-            if (a.getPosicion() != null && b.getPosicion() == null) {
-                return -1;
-            }
-            // Si solo 'b' tiene posición, va primero
-            if (a.getPosicion() == null && b.getPosicion() != null) {
-                return 1;
-            }
-            // Si ninguno tiene posición, mantener orden original
-            return 0;
-        });
-        
-        return dtos;
+    }
+
+    /**
+     * 🔃 REORDENAR POSICIONES EN BLOQUE
+     * Ver ProductoPosicionService.reordenar
+     */
+    public int reordenarPosiciones(List<Long> idsEnOrden) {
+        return posicionService.reordenar(idsEnOrden);
     }
 
     /**
@@ -288,22 +288,8 @@ public class ReembolsoIngresoService {
             Producto producto = detalle.getProducto();
             Double cantidad = detalle.getCantidad();
 
-            // Restar del inventario
-            Optional<Inventario> inventarioOpt = inventarioService.obtenerPorProductoYSede(
-                    producto.getId(), sedePrincipal.getId());
-
-            if (inventarioOpt.isPresent()) {
-                Inventario inventario = inventarioOpt.get();
-                inventario.setCantidad(inventario.getCantidad() - cantidad);
-                inventarioService.actualizar(inventario.getId(), inventario);
-            } else {
-                // Si no existe inventario, crear uno con cantidad negativa
-                Inventario nuevoInventario = new Inventario();
-                nuevoInventario.setProducto(producto);
-                nuevoInventario.setSede(sedePrincipal);
-                nuevoInventario.setCantidad((double)-cantidad);
-                inventarioService.guardar(nuevoInventario);
-            }
+            // Restar del inventario (si no existe, queda creado con cantidad negativa)
+            inventarioService.aplicarDelta(producto.getId(), sedePrincipal.getId(), -cantidad);
             productosActualizados++;
         }
 
@@ -31,6 +31,8 @@ public class ReembolsoVentaService {
     private final CreditoRepository creditoRepository;
     private final CorteRepository corteRepository;
     private final InventarioCorteService inventarioCorteService;
+    private final CreditoMovimientoService creditoMovimientoService;
+    private final PendienteEntregaService pendienteEntregaService;
 
     @Autowired
     public ReembolsoVentaService(
@@ -45,7 +47,9 @@ public class ReembolsoVentaService {
             CreditoService creditoService,
             CreditoRepository creditoRepository,
             CorteRepository corteRepository,
-            InventarioCorteService inventarioCorteService) {
+            InventarioCorteService inventarioCorteService,
+            CreditoMovimientoService creditoMovimientoService,
+            PendienteEntregaService pendienteEntregaService) {
         this.reembolsoVentaRepository = reembolsoVentaRepository;
         this.reembolsoVentaDetalleRepository = reembolsoVentaDetalleRepository;
         this.ordenRepository = ordenRepository;
@@ -58,6 +62,8 @@ public class ReembolsoVentaService {
         this.creditoRepository = creditoRepository;
         this.corteRepository = corteRepository;
         this.inventarioCorteService = inventarioCorteService;
+        this.creditoMovimientoService = creditoMovimientoService;
+        this.pendienteEntregaService = pendienteEntregaService;
     }
 
     @Transactional(readOnly = true)
@@ -320,22 +326,8 @@ public class ReembolsoVentaService {
             if (producto != null && corteRepository.existsById(producto.getId())) {
                 inventarioCorteService.incrementarStock(producto.getId(), sede.getId(), cantidad);
             } else {
-                // Sumar al inventario normal
-                Optional<Inventario> inventarioOpt = inventarioService.obtenerPorProductoYSede(
-                        producto.getId(), sede.getId());
-
-                if (inventarioOpt.isPresent()) {
-                    Inventario inventario = inventarioOpt.get();
-                    inventario.setCantidad(inventario.getCantidad() + cantidad);
-                    inventarioService.actualizar(inventario.getId(), inventario);
-                } else {
-                    // Si no existe inventario, crear uno
-                    Inventario nuevoInventario = new Inventario();
-                    nuevoInventario.setProducto(producto);
-                    nuevoInventario.setSede(sede);
-                    nuevoInventario.setCantidad(cantidad);
-                    inventarioService.guardar(nuevoInventario);
-                }
+                // Sumar al inventario normal (crea el registro si no existe)
+                inventarioService.aplicarDelta(producto.getId(), sede.getId(), cantidad);
             }
             productosActualizados++;
         }
@@ -370,12 +362,14 @@ public class ReembolsoVentaService {
             
             // Guardar cambios del crédito
             creditoRepository.save(credito);
+            creditoMovimientoService.registrarCambio(credito.getId());
         }
 
         // Marcar como procesado
         reembolso.setProcesado(true);
         reembolso.setEstado(ReembolsoVenta.EstadoReembolso.PROCESADO);
         reembolsoVentaRepository.save(reembolso);
+        pendienteEntregaService.registrarCambio(reembolso.getOrdenOriginal());
 
         // Construir respuesta
         Map<String, Object> respuesta = new java.util.HashMap<>();
@@ -1,12 +1,13 @@
 package com.casaglass.casaglass_backend.service;
 
+import com.casaglass.casaglass_backend.config.DashboardConfig;
 import com.casaglass.casaglass_backend.dto.TrabajadorDashboardDTO;
-import com.casaglass.casaglass_backend.model.Corte;
-import com.casaglass.casaglass_backend.model.Orden;
-import com.casaglass.casaglass_backend.model.OrdenItem;
 import com.casaglass.casaglass_backend.model.Trabajador;
-import com.casaglass.casaglass_backend.repository.OrdenRepository;
 import com.casaglass.casaglass_backend.repository.TrabajadorRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaClienteRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaProductoRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -14,17 +15,41 @@ import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * 📊 DASHBOARD DE VENTAS POR TRABAJADOR
+ *
+ * Todas las secciones salen de los acumulados diarios (ventas_diarias*) filtrados por
+ * el trabajador: el costo depende de los días del rango, no del historial de órdenes,
+ * y no se hidrata ninguna entidad Orden.
+ */
 @Service
 public class TrabajadorDashboardService {
 
-        private static final Set<Long> TRABAJADORES_MONITOREADOS_DASHBOARD = Set.of(12L, 13L, 14L, 15L);
+    private static final int LIMITE_TOP = 10;
 
-    private final OrdenRepository ordenRepository;
     private final TrabajadorRepository trabajadorRepository;
-
-    public TrabajadorDashboardService(OrdenRepository ordenRepository, TrabajadorRepository trabajadorRepository) {
-        this.ordenRepository = ordenRepository;
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final VentaDiariaProductoRepository ventaDiariaProductoRepository;
+    private final VentaDiariaClienteRepository ventaDiariaClienteRepository;
+    private final DashboardConfig dashboardConfig;
+
+    public TrabajadorDashboardService(TrabajadorRepository trabajadorRepository,
+                                      VentaDiariaRepository ventaDiariaRepository,
+                                      VentaDiariaProductoRepository ventaDiariaProductoRepository,
+                                      VentaDiariaClienteRepository ventaDiariaClienteRepository,
+                                      DashboardConfig dashboardConfig) {
         this.trabajadorRepository = trabajadorRepository;
+        this.ventaDiariaRepository = ventaDiariaRepository;
+        this.ventaDiariaProductoRepository = ventaDiariaProductoRepository;
+        this.ventaDiariaClienteRepository = ventaDiariaClienteRepository;
+        this.dashboardConfig = dashboardConfig;
+    }
+
+    /**
+     * Indica si el trabajador aparece en los dashboards (casaglass.dashboard.trabajadores)
+     */
+    public boolean esTrabajadorMonitoreado(Long trabajadorId) {
+        return dashboardConfig.esTrabajadorMonitoreado(trabajadorId);
     }
 
     @Transactional(readOnly = true)
@@ -32,93 +57,72 @@ public class TrabajadorDashboardService {
         if (desde == null) desde = LocalDate.now().minusDays(30);
         if (hasta == null) hasta = LocalDate.now();
 
-                if (trabajadorId == null || !TRABAJADORES_MONITOREADOS_DASHBOARD.contains(trabajadorId)) {
-                        throw new IllegalArgumentException("Trabajador no habilitado para dashboard de ventas: " + trabajadorId);
-                }
+        if (!dashboardConfig.esTrabajadorMonitoreado(trabajadorId)) {
+            throw new IllegalArgumentException("Trabajador no habilitado para dashboard de ventas: " + trabajadorId);
+        }
 
         Trabajador trabajador = trabajadorRepository.findById(trabajadorId)
                 .orElseThrow(() -> new IllegalArgumentException("Trabajador no encontrado"));
 
-        List<Orden> ordenes = ordenRepository.findByTrabajadorIdAndFechaBetween(trabajadorId, desde, hasta)
-                .stream()
-                .filter(Orden::isVenta)
-                .collect(Collectors.toList());
+        Set<Long> trabajadores = Set.of(trabajadorId);
 
         // Resumen contado vs crédito
-        List<Orden> contado = ordenes.stream().filter(o -> !o.isCredito()).collect(Collectors.toList());
-        List<Orden> credito = ordenes.stream().filter(Orden::isCredito).collect(Collectors.toList());
-
-        double contadoMonto = contado.stream().mapToDouble(Orden::getTotal).sum();
-        double creditoMonto = credito.stream().mapToDouble(Orden::getTotal).sum();
+        long contadoCantidad = 0;
+        double contadoMonto = 0.0;
+        long creditoCantidad = 0;
+        double creditoMonto = 0.0;
+        for (Object[] fila : ventaDiariaRepository.resumirVentasPorCredito(desde, hasta, trabajadores)) {
+            if (Boolean.TRUE.equals(fila[0])) {
+                creditoCantidad = aLong(fila[1]);
+                creditoMonto = aDouble(fila[2]);
+            } else {
+                contadoCantidad = aLong(fila[1]);
+                contadoMonto = aDouble(fila[2]);
+            }
+        }
         double totalMonto = contadoMonto + creditoMonto;
-        long totalOrdenes = ordenes.size();
+        long totalOrdenes = contadoCantidad + creditoCantidad;
         double ticketPromedio = totalOrdenes == 0 ? 0.0 : totalMonto / totalOrdenes;
 
         TrabajadorDashboardDTO.Resumen resumen = new TrabajadorDashboardDTO.Resumen(
                 trabajadorId,
                 trabajador.getNombre(),
                 totalOrdenes,
-                (long) contado.size(),
+                contadoCantidad,
                 contadoMonto,
-                (long) credito.size(),
+                creditoCantidad,
                 creditoMonto,
                 totalMonto,
                 ticketPromedio
         );
 
         // Ventas por día
-        Map<LocalDate, List<Orden>> porDia = ordenes.stream().collect(Collectors.groupingBy(Orden::getFecha));
-        List<TrabajadorDashboardDTO.VentaPorDia> ventasPorDia = porDia.entrySet().stream()
-                .map(e -> new TrabajadorDashboardDTO.VentaPorDia(
-                        e.getKey(),
-                        (long) e.getValue().size(),
-                        e.getValue().stream().mapToDouble(Orden::getTotal).sum()
-                ))
-                .sorted(Comparator.comparing(TrabajadorDashboardDTO.VentaPorDia::getFecha))
+        List<TrabajadorDashboardDTO.VentaPorDia> ventasPorDia = ventaDiariaRepository.ventasPorDia(desde, hasta, trabajadores).stream()
+                .map(fila -> new TrabajadorDashboardDTO.VentaPorDia((LocalDate) fila[0], aLong(fila[1]), aDouble(fila[2])))
                 .collect(Collectors.toList());
 
-        // Top productos (excluye cortes)
-        Map<Long, List<OrdenItem>> itemsPorProducto = new HashMap<>();
-        for (Orden o : ordenes) {
-            if (o.getItems() == null) continue;
-            for (OrdenItem it : o.getItems()) {
-                if (it.getProducto() == null || (it.getProducto() instanceof Corte)) continue;
-                itemsPorProducto.computeIfAbsent(it.getProducto().getId(), k -> new ArrayList<>()).add(it);
-            }
-        }
-        List<TrabajadorDashboardDTO.TopProducto> topProductos = itemsPorProducto.entrySet().stream()
-                .map(entry -> {
-                    OrdenItem any = entry.getValue().get(0);
-                    long cant = (long) entry.getValue().stream().mapToDouble(i -> i.getCantidad() != null ? i.getCantidad() : 0.0).sum();
-                    double monto = entry.getValue().stream().mapToDouble(i -> i.getTotalLinea() != null ? i.getTotalLinea() : 0.0).sum();
-                    return new TrabajadorDashboardDTO.TopProducto(
-                            any.getProducto().getId(), any.getProducto().getNombre(), any.getProducto().getCodigo(), cant, monto
-                    );
-                })
-                .sorted(Comparator.comparing(TrabajadorDashboardDTO.TopProducto::getMonto).reversed())
-                .limit(10)
+        // Top productos (el acumulado ya excluye cortes)
+        List<TrabajadorDashboardDTO.TopProducto> topProductos = ventaDiariaProductoRepository
+                .topProductos(desde, hasta, trabajadores, PageRequest.of(0, LIMITE_TOP)).stream()
+                .map(fila -> new TrabajadorDashboardDTO.TopProducto(
+                        (Long) fila[0], (String) fila[1], (String) fila[2], (long) aDouble(fila[3]), aDouble(fila[4])))
                 .collect(Collectors.toList());
 
         // Top clientes
-        Map<Long, List<Orden>> porCliente = ordenes.stream()
-                .filter(o -> o.getCliente() != null)
-                .collect(Collectors.groupingBy(o -> o.getCliente().getId()));
-        List<TrabajadorDashboardDTO.TopCliente> topClientes = porCliente.entrySet().stream()
-                .map(entry -> {
-                    List<Orden> lista = entry.getValue();
-                    return new TrabajadorDashboardDTO.TopCliente(
-                            entry.getKey(),
-                            lista.get(0).getCliente().getNombre(),
-                            (long) lista.size(),
-                            lista.stream().mapToDouble(Orden::getTotal).sum()
-                    );
-                })
-                .sorted(Comparator.comparing(TrabajadorDashboardDTO.TopCliente::getMonto).reversed())
-                .limit(10)
+        List<TrabajadorDashboardDTO.TopCliente> topClientes = ventaDiariaClienteRepository
+                .topClientes(desde, hasta, trabajadores, PageRequest.of(0, LIMITE_TOP)).stream()
+                .map(fila -> new TrabajadorDashboardDTO.TopCliente(
+                        (Long) fila[0], (String) fila[1], aLong(fila[3]), aDouble(fila[4])))
                 .collect(Collectors.toList());
 
         return new TrabajadorDashboardDTO(resumen, ventasPorDia, topProductos, topClientes);
     }
-}
 
+    private long aLong(Object valor) {
+        return valor != null ? ((Number) valor).longValue() : 0L;
+    }
 
+    private double aDouble(Object valor) {
+        return valor != null ? ((Number) valor).doubleValue() : 0.0;
+    }
+}
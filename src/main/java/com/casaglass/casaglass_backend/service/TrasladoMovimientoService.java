@@ -1,14 +1,26 @@
 package com.casaglass.casaglass_backend.service;
 
+import com.casaglass.casaglass_backend.dto.CursorToken;
+import com.casaglass.casaglass_backend.dto.PageResponse;
 import com.casaglass.casaglass_backend.dto.TrasladoMovimientoDTO;
 import com.casaglass.casaglass_backend.model.Producto;
 import com.casaglass.casaglass_backend.model.Traslado;
+import com.casaglass.casaglass_backend.repository.TrasladoDetalleRepository;
+import com.casaglass.casaglass_backend.repository.TrasladoMovimientoProjection;
 import com.casaglass.casaglass_backend.repository.TrasladoRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -19,11 +31,18 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class TrasladoMovimientoService {
 
+    /** Traslados por consulta al cargar detalles (acota el tamaño del IN) */
+    private static final int TRASLADOS_POR_CONSULTA = 1000;
+
     private final TrasladoRepository trasladoRepository;
+    private final TrasladoDetalleRepository trasladoDetalleRepository;
     private final TrasladoService trasladoService;
 
-    public TrasladoMovimientoService(TrasladoRepository trasladoRepository, TrasladoService trasladoService) {
+    public TrasladoMovimientoService(TrasladoRepository trasladoRepository,
+                                     TrasladoDetalleRepository trasladoDetalleRepository,
+                                     TrasladoService trasladoService) {
         this.trasladoRepository = trasladoRepository;
+        this.trasladoDetalleRepository = trasladoDetalleRepository;
         this.trasladoService = trasladoService;
     }
 
@@ -39,7 +58,9 @@ public class TrasladoMovimientoService {
 
     /**
      * 🚀 LISTADO DE TRASLADOS CON FILTROS COMPLETOS
-     * Acepta múltiples filtros opcionales y retorna lista o respuesta paginada
+     * Acepta múltiples filtros opcionales y retorna lista, respuesta paginada o página por cursor.
+     * Filtro, orden y límite se resuelven en SQL sobre una proyección de la cabecera; los
+     * detalles se cargan después solo para los traslados devueltos.
      */
     @Transactional(readOnly = true)
     public Object obtenerMovimientosConFiltros(
@@ -54,7 +75,8 @@ public class TrasladoMovimientoService {
             Integer page,
             Integer size,
             String sortBy,
-            String sortOrder) {
+            String sortOrder,
+            String cursor) {
         
         // Validar fechas
         if (fechaDesde != null && fechaHasta != null && fechaDesde.isAfter(fechaHasta)) {
@@ -75,33 +97,17 @@ public class TrasladoMovimientoService {
             // CANCELADO no se maneja actualmente en el modelo
         }
         
-        // Validar y normalizar ordenamiento
-        if (sortBy == null || sortBy.isEmpty()) {
-            sortBy = "fecha";
-        }
-        if (sortOrder == null || sortOrder.isEmpty()) {
-            sortOrder = "DESC";
-        }
-        sortOrder = sortOrder.toUpperCase();
-        if (!sortOrder.equals("ASC") && !sortOrder.equals("DESC")) {
-            sortOrder = "DESC";
-        }
+        Sort sort = construirSortMovimientos(sortBy, sortOrder);
         
-        // Buscar traslados con filtros
-        List<Traslado> traslados = trasladoRepository.buscarConFiltros(
-            sedeOrigenId, sedeDestinoId, sedeId, fechaDesde, fechaHasta, confirmado, trabajadorId
-        );
-        
-        // Aplicar ordenamiento adicional si es necesario (el query ya ordena por fecha DESC)
-        if (!sortBy.equals("fecha") || !sortOrder.equals("DESC")) {
-            traslados = aplicarOrdenamientoTraslados(traslados, sortBy, sortOrder);
+        // Modo cursor (keyset): filtro, orden y límite se resuelven en SQL
+        if (cursor != null) {
+            PaginaKeyset pagina = buscarPaginaKeyset(
+                sedeOrigenId, sedeDestinoId, sedeId, fechaDesde, fechaHasta, confirmado, trabajadorId,
+                size, sort, cursor
+            );
+            return PageResponse.ofCursor(conDetalles(pagina.movimientos()), pagina.size(), pagina.nextCursor(), pagina.hasPrevious());
         }
         
-        // Convertir a DTOs
-        List<TrasladoMovimientoDTO> dtos = traslados.stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
-        
         // Si se solicita paginación
         if (page != null && size != null) {
             // Validar y ajustar parámetros
@@ -109,54 +115,141 @@ public class TrasladoMovimientoService {
             if (size < 1) size = 20;
             if (size > 100) size = 100; // Límite máximo
             
-            long totalElements = dtos.size();
-            
-            // Calcular índices para paginación
-            int fromIndex = (page - 1) * size;
-            int toIndex = Math.min(fromIndex + size, dtos.size());
-            
-            if (fromIndex >= dtos.size()) {
-                // Página fuera de rango, retornar lista vacía
-                return com.casaglass.casaglass_backend.dto.PageResponse.of(
-                    new java.util.ArrayList<>(), totalElements, page, size
-                );
-            }
-            
-            // Obtener solo la página solicitada
-            List<TrasladoMovimientoDTO> contenido = dtos.subList(fromIndex, toIndex);
+            // Orden, LIMIT/OFFSET y COUNT se resuelven en base de datos
+            Page<TrasladoMovimientoProjection> resultado = trasladoRepository.buscarMovimientosPaginado(
+                sedeOrigenId, sedeDestinoId, sedeId, fechaDesde, fechaHasta, confirmado, trabajadorId,
+                PageRequest.of(page - 1, size, sort)
+            );
             
-            return com.casaglass.casaglass_backend.dto.PageResponse.of(contenido, totalElements, page, size);
+            return PageResponse.of(conDetalles(resultado.getContent()), resultado.getTotalElements(), page, size);
         }
         
         // Sin paginación: retornar lista completa
-        return dtos;
+        return conDetalles(trasladoRepository.buscarMovimientos(
+            sedeOrigenId, sedeDestinoId, sedeId, fechaDesde, fechaHasta, confirmado, trabajadorId, sort
+        ));
     }
     
     /**
-     * Aplica ordenamiento a la lista de traslados según sortBy y sortOrder
+     * Ordenamiento del listado: fecha o id, con id como desempate (default: fecha DESC)
+     */
+    private Sort construirSortMovimientos(String sortBy, String sortOrder) {
+        Sort.Direction direccion = "ASC".equalsIgnoreCase(sortOrder) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        String campo = sortBy != null ? sortBy.toLowerCase() : "fecha";
+        if ("id".equals(campo)) {
+            return Sort.by(direccion, "id");
+        }
+        if (!"fecha".equals(campo)) {
+            // Por defecto ordenar por fecha DESC
+            direccion = Sort.Direction.DESC;
+        }
+        return Sort.by(direccion, "fecha").and(Sort.by(direccion, "id"));
+    }
+
+    /**
+     * Página obtenida por cursor: filas, tamaño efectivo y token de la siguiente página (null si no hay más)
+     */
+    private record PaginaKeyset(List<TrasladoMovimientoProjection> movimientos, int size, String nextCursor, boolean hasPrevious) {}
+
+    /**
+     * 🔑 PAGINACIÓN POR CURSOR (keyset) SOBRE fecha + id o solo id
+     * Pide size + 1 filas para saber si hay siguiente página sin hacer COUNT.
+     * Un cursor vacío ("") pide la primera página.
      */
-    private List<Traslado> aplicarOrdenamientoTraslados(List<Traslado> traslados, String sortBy, String sortOrder) {
-        boolean ascendente = "ASC".equals(sortOrder);
+    private PaginaKeyset buscarPaginaKeyset(
+            Long sedeOrigenId,
+            Long sedeDestinoId,
+            Long sedeId,
+            LocalDate fechaDesde,
+            LocalDate fechaHasta,
+            Boolean confirmado,
+            Long trabajadorId,
+            Integer size,
+            Sort sort,
+            String cursor) {
+        
+        int tamano = (size == null || size < 1) ? 20 : Math.min(size, 100);
+        
+        Sort.Order principal = sort.iterator().next();
+        String campo = principal.getProperty();
+        boolean asc = principal.isAscending();
+        String direccion = asc ? "ASC" : "DESC";
         
-        switch (sortBy.toLowerCase()) {
-            case "fecha":
-                traslados.sort((a, b) -> {
-                    int cmp = a.getFecha().compareTo(b.getFecha());
-                    return ascendente ? cmp : -cmp;
-                });
-                break;
-            case "id":
-                traslados.sort((a, b) -> {
-                    int cmp = Long.compare(a.getId(), b.getId());
-                    return ascendente ? cmp : -cmp;
-                });
-                break;
-            default:
-                // Por defecto ordenar por fecha DESC
-                traslados.sort((a, b) -> b.getFecha().compareTo(a.getFecha()));
+        LocalDate fechaCursor = null;
+        Long idCursor = null;
+        if (!cursor.isBlank()) {
+            String[] partes = CursorToken.decode(cursor, 4);
+            if (!campo.equals(partes[0]) || !direccion.equals(partes[1])) {
+                throw new IllegalArgumentException("El cursor no corresponde al ordenamiento solicitado (" + campo + " " + direccion + ")");
+            }
+            try {
+                idCursor = Long.valueOf(partes[3]);
+                if ("fecha".equals(campo)) {
+                    fechaCursor = LocalDate.parse(partes[2]);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor inválido: " + cursor);
+            }
         }
         
-        return traslados;
+        Pageable limite = PageRequest.of(0, tamano + 1, sort);
+        List<TrasladoMovimientoProjection> filas = "id".equals(campo)
+            ? trasladoRepository.buscarMovimientosKeysetPorId(
+                sedeOrigenId, sedeDestinoId, sedeId, fechaDesde, fechaHasta, confirmado, trabajadorId,
+                asc, idCursor, limite)
+            : trasladoRepository.buscarMovimientosKeysetPorFecha(
+                sedeOrigenId, sedeDestinoId, sedeId, fechaDesde, fechaHasta, confirmado, trabajadorId,
+                asc, fechaCursor, idCursor, limite);
+        
+        boolean hayMas = filas.size() > tamano;
+        List<TrasladoMovimientoProjection> pagina = hayMas ? filas.subList(0, tamano) : filas;
+        
+        String nextCursor = null;
+        if (hayMas) {
+            TrasladoMovimientoProjection ultima = pagina.get(pagina.size() - 1);
+            String valor = "id".equals(campo) ? String.valueOf(ultima.getId()) : ultima.getFecha().toString();
+            nextCursor = CursorToken.encode(campo, direccion, valor, String.valueOf(ultima.getId()));
+        }
+        
+        return new PaginaKeyset(pagina, tamano, nextCursor, idCursor != null);
+    }
+
+    /**
+     * Arma los DTOs de las cabeceras dadas cargando sus detalles en una consulta por bloque de traslados
+     */
+    private List<TrasladoMovimientoDTO> conDetalles(List<TrasladoMovimientoProjection> movimientos) {
+        Map<Long, List<TrasladoMovimientoDTO.TrasladoDetalleSimpleDTO>> detallesPorTraslado = new HashMap<>();
+        List<Long> ids = movimientos.stream().map(TrasladoMovimientoProjection::getId).toList();
+        for (int i = 0; i < ids.size(); i += TRASLADOS_POR_CONSULTA) {
+            List<Long> bloque = ids.subList(i, Math.min(i + TRASLADOS_POR_CONSULTA, ids.size()));
+            for (Object[] fila : trasladoDetalleRepository.findDatosMovimientoPorTrasladoIds(bloque)) {
+                TrasladoMovimientoDTO.ProductoSimpleDTO producto = new TrasladoMovimientoDTO.ProductoSimpleDTO(
+                        (Long) fila[3], (String) fila[4], (String) fila[5], (String) fila[6]);
+                Long productoDesId = (Long) fila[7];
+                TrasladoMovimientoDTO.ProductoSimpleDTO productoDes = productoDesId == null ? null
+                        : new TrasladoMovimientoDTO.ProductoSimpleDTO(
+                                productoDesId, (String) fila[8], (String) fila[9], (String) fila[10]);
+                detallesPorTraslado.computeIfAbsent((Long) fila[0], k -> new ArrayList<>())
+                        .add(new TrasladoMovimientoDTO.TrasladoDetalleSimpleDTO(
+                                (Long) fila[1], (Double) fila[2], producto, productoDesId, productoDes));
+            }
+        }
+
+        List<TrasladoMovimientoDTO> dtos = new ArrayList<>(movimientos.size());
+        for (TrasladoMovimientoProjection m : movimientos) {
+            TrasladoMovimientoDTO.TrabajadorSimpleDTO trabajadorConfirmacion = m.getTrabajadorConfirmacionId() == null ? null
+                    : new TrasladoMovimientoDTO.TrabajadorSimpleDTO(m.getTrabajadorConfirmacionId(), m.getTrabajadorConfirmacionNombre());
+            dtos.add(new TrasladoMovimientoDTO(
+                    m.getId(),
+                    m.getFecha(),
+                    new TrasladoMovimientoDTO.SedeSimpleDTO(m.getSedeOrigenId(), m.getSedeOrigenNombre()),
+                    new TrasladoMovimientoDTO.SedeSimpleDTO(m.getSedeDestinoId(), m.getSedeDestinoNombre()),
+                    trabajadorConfirmacion,
+                    m.getFechaConfirmacion(),
+                    detallesPorTraslado.getOrDefault(m.getId(), new ArrayList<>())
+            ));
+        }
+        return dtos;
     }
 
     /**
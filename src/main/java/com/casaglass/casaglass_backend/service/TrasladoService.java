@@ -2,6 +2,7 @@ package com.casaglass.casaglass_backend.service;
 
 import com.casaglass.casaglass_backend.dto.CatalogoProductoTrasladoDTO;
 import com.casaglass.casaglass_backend.dto.CatalogoProductosTrasladoResponseDTO;
+import com.casaglass.casaglass_backend.dto.DeltaInventarioDTO;
 import com.casaglass.casaglass_backend.dto.TrasladoDetalleBatchDTO;
 import com.casaglass.casaglass_backend.exception.InventarioInsuficienteException;
 import com.casaglass.casaglass_backend.model.*;
@@ -13,6 +14,7 @@ import com.casaglass.casaglass_backend.repository.SedeRepository;
 import com.casaglass.casaglass_backend.repository.ProductoRepository;
 import com.casaglass.casaglass_backend.repository.TrabajadorRepository;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -22,6 +24,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 // no LocalDateTime/LocalTime needed
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * Traslados entre sedes. Entre <strong>Centro (2) y Patios (3)</strong>, las líneas cuyo
@@ -190,27 +193,34 @@ public class TrasladoService {
 
         if (payload.getFecha() == null) payload.setFecha(LocalDate.now());
 
-        // detalles (si vienen en el payload)
-        if (payload.getDetalles() != null) {
+        // detalles (si vienen en el payload): productos y cortes de todas las líneas en una consulta cada uno
+        Set<Long> cortes = Set.of();
+        if (payload.getDetalles() != null && !payload.getDetalles().isEmpty()) {
+            Set<Long> productoIds = new HashSet<>();
             for (TrasladoDetalle d : payload.getDetalles()) {
                 if (d.getProducto() == null || d.getProducto().getId() == null)
                     throw new IllegalArgumentException("Cada detalle requiere producto.id");
                 if (d.getCantidad() == null || d.getCantidad() < 1)
                     throw new IllegalArgumentException("Cada detalle requiere cantidad >= 1");
-                
-                // ARREGLO: Buscar producto completo en lugar de usar proxy
-                Producto producto = productoRepository.findById(d.getProducto().getId())
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + d.getProducto().getId()));
-                
+                productoIds.add(d.getProducto().getId());
+                if (d.getProductoInventarioADescontarSede1() != null
+                        && d.getProductoInventarioADescontarSede1().getId() != null) {
+                    productoIds.add(d.getProductoInventarioADescontarSede1().getId());
+                }
+            }
+            Map<Long, Producto> productos = new HashMap<>();
+            for (Producto p : productoRepository.findAllById(productoIds)) {
+                productos.put(p.getId(), p);
+            }
+            cortes = new HashSet<>(corteRepository.findIdsByIdIn(new ArrayList<>(productoIds)));
+
+            for (TrasladoDetalle d : payload.getDetalles()) {
                 d.setTraslado(payload);
-                d.setProducto(producto);
+                d.setProducto(productoCargado(productos, d.getProducto().getId(), "Producto no encontrado con ID: "));
                 if (d.getProductoInventarioADescontarSede1() != null
                         && d.getProductoInventarioADescontarSede1().getId() != null) {
-                    Producto aDescontar = productoRepository.findById(
-                                    d.getProductoInventarioADescontarSede1().getId())
-                            .orElseThrow(() -> new RuntimeException("Producto a descontar (sede 1) no encontrado: "
-                                    + d.getProductoInventarioADescontarSede1().getId()));
-                    d.setProductoInventarioADescontarSede1(aDescontar);
+                    d.setProductoInventarioADescontarSede1(productoCargado(productos,
+                            d.getProductoInventarioADescontarSede1().getId(), "Producto a descontar (sede 1) no encontrado: "));
                 } else {
                     d.setProductoInventarioADescontarSede1(null);
                 }
@@ -220,7 +230,7 @@ public class TrasladoService {
         Traslado resultado = repo.save(payload);
         
         // 🔄 ACTUALIZAR INVENTARIO: Restar de origen y sumar a destino
-        actualizarInventarioTraslado(resultado);
+        actualizarInventarioTraslado(resultado, cortes);
         
         return resultado;
     }
@@ -229,14 +239,42 @@ public class TrasladoService {
      * Actualiza el inventario cuando se crea un traslado:
      * - Resta la cantidad de la sede origen
      * - Suma la cantidad a la sede destino
+     * Las líneas se agregan por (producto, sede) y (corte, sede); el stock se valida con una
+     * lectura bloqueante y se escribe con un upsert en lote por tabla, sin importar cuántas
+     * líneas traiga el traslado.
+     *
+     * @param cortes IDs (de productos de las líneas) que son cortes
      */
-    private void actualizarInventarioTraslado(Traslado traslado) {
-        if (traslado.getDetalles() == null) {
+    private void actualizarInventarioTraslado(Traslado traslado, Set<Long> cortes) {
+        if (traslado.getDetalles() == null || traslado.getDetalles().isEmpty()) {
             return;
         }
+        BalanceTraslado balance = new BalanceTraslado(
+                traslado.getSedeOrigen().getId(), traslado.getSedeDestino().getId(), cortes);
         for (TrasladoDetalle detalle : traslado.getDetalles()) {
-            aplicarMovimientoLinea(traslado, detalle);
+            validarCombinacionDescuentoSede1(traslado, detalle, cortes::contains);
+            balance.aplicar(detalle);
+        }
+        inventarioService.aplicarDeltasNetos(balance.deltasProductos());
+        inventarioCorteService.aplicarDeltasNetos(balance.deltasCortes());
+        renombrarCortesInsulaADestino(traslado, traslado.getDetalles(), cortes);
+    }
+
+    /**
+     * IDs de los productos (línea y producto a descontar en sede 1) que son cortes, en una consulta
+     */
+    private Set<Long> cortesDe(List<TrasladoDetalle> detalles) {
+        if (detalles == null || detalles.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> productoIds = new HashSet<>();
+        for (TrasladoDetalle d : detalles) {
+            productoIds.add(d.getProducto().getId());
+            if (d.getProductoInventarioADescontarSede1() != null) {
+                productoIds.add(d.getProductoInventarioADescontarSede1().getId());
+            }
         }
+        return new HashSet<>(corteRepository.findIdsByIdIn(new ArrayList<>(productoIds)));
     }
 
     @Transactional
@@ -298,7 +336,7 @@ public class TrasladoService {
                 Traslado resultado = repo.save(t);
 
                 // Aplicar los nuevos movimientos de inventario
-                actualizarInventarioTraslado(resultado);
+                actualizarInventarioTraslado(resultado, cortesDe(resultado.getDetalles()));
 
                 return resultado;
             } else {
@@ -411,108 +449,249 @@ public class TrasladoService {
     /**
      * 🔄 ACTUALIZAR MÚLTIPLES DETALLES EN BATCH (ATÓMICO)
      * Permite crear, actualizar y eliminar detalles en una sola transacción.
-     * Esto evita problemas de concurrencia cuando se hacen múltiples cambios simultáneos.
-     * 
+     *
+     * En lugar de revertir y volver a aplicar el movimiento completo de cada línea, calcula la
+     * variación NETA por (producto, sede) y (corte, sede) de todos los cambios, la valida con
+     * una sola lectura bloqueante y aplica solo esa diferencia con un upsert en lote. Productos
+     * y detalles se cargan una vez para todo el batch.
+     *
      * @param trasladoId ID del traslado
      * @param batchDTO DTO con los cambios a aplicar
      * @return Lista de todos los detalles del traslado después de los cambios
      */
     @Transactional
     public List<TrasladoDetalle> actualizarDetallesBatch(Long trasladoId, TrasladoDetalleBatchDTO batchDTO) {
-        // 1️⃣ Validar que el traslado existe
+        // 1️⃣ Validar que el traslado existe y cargar lo que el batch necesita
         Traslado traslado = repo.findById(trasladoId)
                 .orElseThrow(() -> new RuntimeException("Traslado no encontrado con id " + trasladoId));
-        
-        // 2️⃣ ELIMINAR detalles (revertir inventario primero)
-        if (batchDTO.getEliminar() != null && !batchDTO.getEliminar().isEmpty()) {
-            for (Long detalleId : batchDTO.getEliminar()) {
-                TrasladoDetalle detalle = detalleRepo.findById(detalleId)
-                        .orElseThrow(() -> new RuntimeException("Detalle no encontrado con id " + detalleId));
-                
-                if (!Objects.equals(detalle.getTraslado().getId(), trasladoId)) {
-                    throw new IllegalArgumentException("El detalle " + detalleId + " no pertenece al traslado " + trasladoId);
-                }
-                
-                revertirMovimientoLinea(traslado, detalle);
-                
-                // ✅ Eliminar el detalle después de revertir el inventario
-                // Usar consulta nativa DELETE para asegurar ejecución inmediata
-                detalleRepo.deleteByIdNative(detalleId);
+        if (traslado.getDetalles() == null) {
+            traslado.setDetalles(new ArrayList<>());
+        }
+        List<Long> eliminar = batchDTO.getEliminar() != null ? batchDTO.getEliminar() : List.of();
+        List<TrasladoDetalleBatchDTO.DetalleActualizarDTO> actualizar =
+                batchDTO.getActualizar() != null ? batchDTO.getActualizar() : List.of();
+        List<TrasladoDetalleBatchDTO.DetalleCrearDTO> crear = batchDTO.getCrear() != null ? batchDTO.getCrear() : List.of();
+
+        Map<Long, TrasladoDetalle> detallesActuales = new HashMap<>();
+        Set<Long> productoIds = new HashSet<>();
+        for (TrasladoDetalle d : traslado.getDetalles()) {
+            detallesActuales.put(d.getId(), d);
+            productoIds.add(d.getProducto().getId());
+            if (d.getProductoInventarioADescontarSede1() != null) {
+                productoIds.add(d.getProductoInventarioADescontarSede1().getId());
             }
-            // Forzar flush de todas las eliminaciones juntas
-            detalleRepo.flush();
-            // Forzar flush a nivel de EntityManager para asegurar persistencia
-            em.flush();
         }
-        
-        if (batchDTO.getActualizar() != null && !batchDTO.getActualizar().isEmpty()) {
-            for (TrasladoDetalleBatchDTO.DetalleActualizarDTO dto : batchDTO.getActualizar()) {
-                TrasladoDetalle detalle = detalleRepo.findById(dto.getDetalleId())
-                        .orElseThrow(() -> new RuntimeException("Detalle no encontrado con id " + dto.getDetalleId()));
-                
-                if (!Objects.equals(detalle.getTraslado().getId(), trasladoId)) {
-                    throw new IllegalArgumentException("El detalle " + dto.getDetalleId() + " no pertenece al traslado " + trasladoId);
-                }
-                revertirMovimientoLinea(traslado, detalle);
-                if (dto.getProductoId() != null) {
-                    detalle.setProducto(productoRepository.findById(dto.getProductoId())
-                            .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + dto.getProductoId())));
-                }
-                if (dto.getCantidad() != null) {
-                    if (dto.getCantidad() < 1) {
-                        throw new IllegalArgumentException("La cantidad debe ser >= 1");
-                    }
-                    detalle.setCantidad(dto.getCantidad());
-                }
-                if (Boolean.TRUE.equals(dto.getLimpiarProductoInventarioADescontarSede1())) {
-                    detalle.setProductoInventarioADescontarSede1(null);
-                } else if (dto.getProductoInventarioADescontarSede1Id() != null) {
-                    detalle.setProductoInventarioADescontarSede1(productoRepository.findById(dto.getProductoInventarioADescontarSede1Id())
-                            .orElseThrow(() -> new RuntimeException("Producto a descontar (sede 1) no encontrado: "
-                                    + dto.getProductoInventarioADescontarSede1Id())));
-                }
-                detalle = detalleRepo.save(detalle);
-                aplicarMovimientoLinea(traslado, detalle);
+        Set<Long> productosPedidos = new HashSet<>();
+        for (TrasladoDetalleBatchDTO.DetalleActualizarDTO dto : actualizar) {
+            if (dto.getProductoId() != null) productosPedidos.add(dto.getProductoId());
+            if (dto.getProductoInventarioADescontarSede1Id() != null) productosPedidos.add(dto.getProductoInventarioADescontarSede1Id());
+        }
+        for (TrasladoDetalleBatchDTO.DetalleCrearDTO dto : crear) {
+            if (dto.getProductoId() != null) productosPedidos.add(dto.getProductoId());
+            if (dto.getProductoInventarioADescontarSede1Id() != null) productosPedidos.add(dto.getProductoInventarioADescontarSede1Id());
+        }
+        Map<Long, Producto> productos = new HashMap<>();
+        if (!productosPedidos.isEmpty()) {
+            for (Producto p : productoRepository.findAllById(productosPedidos)) {
+                productos.put(p.getId(), p);
             }
         }
-        
-        // 4️⃣ CREAR nuevos detalles
-        if (batchDTO.getCrear() != null && !batchDTO.getCrear().isEmpty()) {
-            for (TrasladoDetalleBatchDTO.DetalleCrearDTO dto : batchDTO.getCrear()) {
-                if (dto.getProductoId() == null) {
-                    throw new IllegalArgumentException("El producto es obligatorio para crear un detalle");
-                }
-                if (dto.getCantidad() == null || dto.getCantidad() < 1) {
+        productoIds.addAll(productosPedidos);
+        Set<Long> cortes = productoIds.isEmpty()
+                ? Set.of()
+                : new HashSet<>(corteRepository.findIdsByIdIn(new ArrayList<>(productoIds)));
+
+        BalanceTraslado balance = new BalanceTraslado(
+                traslado.getSedeOrigen().getId(), traslado.getSedeDestino().getId(), cortes);
+        Set<Long> tocados = new HashSet<>();
+
+        // 2️⃣ ELIMINAR detalles
+        List<TrasladoDetalle> eliminados = new ArrayList<>();
+        for (Long detalleId : eliminar) {
+            TrasladoDetalle detalle = detalleDelTraslado(detallesActuales, detalleId, trasladoId);
+            if (!tocados.add(detalleId)) {
+                throw new IllegalArgumentException("El detalle " + detalleId + " aparece más de una vez en el batch");
+            }
+            balance.revertir(detalle);
+            eliminados.add(detalle);
+        }
+
+        // 3️⃣ ACTUALIZAR detalles
+        List<TrasladoDetalle> aplicados = new ArrayList<>();
+        for (TrasladoDetalleBatchDTO.DetalleActualizarDTO dto : actualizar) {
+            TrasladoDetalle detalle = detalleDelTraslado(detallesActuales, dto.getDetalleId(), trasladoId);
+            if (!tocados.add(dto.getDetalleId())) {
+                throw new IllegalArgumentException("El detalle " + dto.getDetalleId() + " aparece más de una vez en el batch");
+            }
+            balance.revertir(detalle);
+            if (dto.getProductoId() != null) {
+                detalle.setProducto(productoCargado(productos, dto.getProductoId(), "Producto no encontrado con ID: "));
+            }
+            if (dto.getCantidad() != null) {
+                if (dto.getCantidad() < 1) {
                     throw new IllegalArgumentException("La cantidad debe ser >= 1");
                 }
-                
-                Producto producto = productoRepository.findById(dto.getProductoId())
-                        .orElseThrow(() -> new RuntimeException("Producto no encontrado con ID: " + dto.getProductoId()));
-                
-                TrasladoDetalle nuevoDetalle = new TrasladoDetalle();
-                nuevoDetalle.setTraslado(traslado);
-                nuevoDetalle.setProducto(producto);
-                nuevoDetalle.setCantidad(dto.getCantidad());
-                if (dto.getProductoInventarioADescontarSede1Id() != null) {
-                    nuevoDetalle.setProductoInventarioADescontarSede1(productoRepository
-                            .findById(dto.getProductoInventarioADescontarSede1Id())
-                            .orElseThrow(() -> new RuntimeException("Producto a descontar (sede 1) no encontrado: "
-                                    + dto.getProductoInventarioADescontarSede1Id())));
-                }
-                detalleRepo.save(nuevoDetalle);
-                aplicarMovimientoLinea(traslado, nuevoDetalle);
+                detalle.setCantidad(dto.getCantidad());
             }
+            if (Boolean.TRUE.equals(dto.getLimpiarProductoInventarioADescontarSede1())) {
+                detalle.setProductoInventarioADescontarSede1(null);
+            } else if (dto.getProductoInventarioADescontarSede1Id() != null) {
+                detalle.setProductoInventarioADescontarSede1(productoCargado(productos,
+                        dto.getProductoInventarioADescontarSede1Id(), "Producto a descontar (sede 1) no encontrado: "));
+            }
+            validarCombinacionDescuentoSede1(traslado, detalle, cortes::contains);
+            balance.aplicar(detalle);
+            aplicados.add(detalle);
         }
-        
-        // 5️⃣ Retornar todos los detalles actualizados del traslado
-        // Forzar flush final y limpiar caché antes de consultar para evitar problemas de caché
+
+        // 4️⃣ CREAR nuevos detalles
+        List<TrasladoDetalle> nuevos = new ArrayList<>();
+        for (TrasladoDetalleBatchDTO.DetalleCrearDTO dto : crear) {
+            if (dto.getProductoId() == null) {
+                throw new IllegalArgumentException("El producto es obligatorio para crear un detalle");
+            }
+            if (dto.getCantidad() == null || dto.getCantidad() < 1) {
+                throw new IllegalArgumentException("La cantidad debe ser >= 1");
+            }
+            TrasladoDetalle nuevoDetalle = new TrasladoDetalle();
+            nuevoDetalle.setTraslado(traslado);
+            nuevoDetalle.setProducto(productoCargado(productos, dto.getProductoId(), "Producto no encontrado con ID: "));
+            nuevoDetalle.setCantidad(dto.getCantidad());
+            if (dto.getProductoInventarioADescontarSede1Id() != null) {
+                nuevoDetalle.setProductoInventarioADescontarSede1(productoCargado(productos,
+                        dto.getProductoInventarioADescontarSede1Id(), "Producto a descontar (sede 1) no encontrado: "));
+            }
+            validarCombinacionDescuentoSede1(traslado, nuevoDetalle, cortes::contains);
+            balance.aplicar(nuevoDetalle);
+            nuevos.add(nuevoDetalle);
+        }
+
+        // 5️⃣ Guardar detalles (eliminaciones por orphanRemoval, updates e inserts en el mismo flush)
+        traslado.getDetalles().removeAll(eliminados);
+        traslado.getDetalles().addAll(nuevos);
+        detalleRepo.saveAll(nuevos);
         em.flush();
-        em.clear(); // Limpiar caché para forzar consulta fresca desde BD
-        
-        // Consultar detalles directamente desde BD (sin caché, después de limpiar)
+
+        // 6️⃣ Aplicar solo la variación neta de inventario (valida stock antes de escribir)
+        inventarioService.aplicarDeltasNetos(balance.deltasProductos());
+        inventarioCorteService.aplicarDeltasNetos(balance.deltasCortes());
+
+        // Nombre canónico de los cortes acreditados en destino (Insula → Centro/Patios)
+        aplicados.addAll(nuevos);
+        renombrarCortesInsulaADestino(traslado, aplicados, cortes);
+
+        // 7️⃣ Retornar todos los detalles actualizados del traslado (consulta fresca desde BD)
+        em.flush();
+        em.clear();
         return detalleRepo.findByTrasladoId(trasladoId);
     }
-    
+
+    private static TrasladoDetalle detalleDelTraslado(Map<Long, TrasladoDetalle> detalles, Long detalleId, Long trasladoId) {
+        if (detalleId == null) {
+            throw new IllegalArgumentException("El ID del detalle es obligatorio");
+        }
+        TrasladoDetalle detalle = detalles.get(detalleId);
+        if (detalle == null) {
+            throw new IllegalArgumentException("El detalle " + detalleId + " no pertenece al traslado " + trasladoId);
+        }
+        return detalle;
+    }
+
+    private static Producto productoCargado(Map<Long, Producto> productos, Long productoId, String mensaje) {
+        Producto producto = productos.get(productoId);
+        if (producto == null) {
+            throw new RuntimeException(mensaje + productoId);
+        }
+        return producto;
+    }
+
+    /**
+     * Variación neta de stock de una edición de traslado, por (producto, sede) en inventario y
+     * por (corte, sede) en inventario_cortes. Mismas reglas de movimiento que
+     * aplicarMovimientoLinea / revertirMovimientoLinea.
+     *
+     * Una variación neta negativa exige stock solo si viene de líneas aplicadas (como al crear);
+     * si solo la originan reversiones se aplica aunque la cantidad quede negativa.
+     */
+    private static final class BalanceTraslado {
+
+        private record Clave(Long id, Long sedeId) {
+        }
+
+        private final long origen;
+        private final long destino;
+        private final Set<Long> cortes;
+        // [variación neta, salidas de líneas aplicadas]
+        private final Map<Clave, double[]> productos = new LinkedHashMap<>();
+        private final Map<Clave, double[]> deCortes = new LinkedHashMap<>();
+
+        BalanceTraslado(long origen, long destino, Set<Long> cortes) {
+            this.origen = origen;
+            this.destino = destino;
+            this.cortes = cortes;
+        }
+
+        void aplicar(TrasladoDetalle d) {
+            mover(d, true);
+        }
+
+        void revertir(TrasladoDetalle d) {
+            mover(d, false);
+        }
+
+        private void mover(TrasladoDetalle d, boolean aplicar) {
+            Long pid = d.getProducto().getId();
+            double q = aplicar ? d.getCantidad() : -d.getCantidad();
+            boolean corte = cortes.contains(pid);
+
+            if (corte && esParCentroPatios(origen, destino)) {
+                sumar(deCortes, pid, origen, -q, aplicar);
+                sumar(deCortes, pid, destino, q, aplicar);
+                return;
+            }
+            if (corte && origen == SEDE_INSULA_ID && esSedeCentroOPatios(destino)) {
+                if (d.getProductoInventarioADescontarSede1() != null) {
+                    sumar(productos, d.getProductoInventarioADescontarSede1().getId(), SEDE_INSULA_ID, -q, aplicar);
+                }
+                sumar(deCortes, pid, destino, q, aplicar);
+                return;
+            }
+            if (corte && esSedeCentroOPatios(origen) && destino == SEDE_INSULA_ID) {
+                sumar(deCortes, pid, origen, -q, aplicar);
+                return;
+            }
+            sumar(productos, pid, origen, -q, aplicar);
+            sumar(productos, pid, destino, q, aplicar);
+        }
+
+        private static void sumar(Map<Clave, double[]> mapa, Long id, long sedeId, double delta, boolean aplicar) {
+            double[] acumulado = mapa.computeIfAbsent(new Clave(id, sedeId), k -> new double[2]);
+            acumulado[0] += delta;
+            if (aplicar && delta < 0) {
+                acumulado[1] -= delta;
+            }
+        }
+
+        List<DeltaInventarioDTO> deltasProductos() {
+            return aDeltas(productos);
+        }
+
+        List<DeltaInventarioDTO> deltasCortes() {
+            return aDeltas(deCortes);
+        }
+
+        private static List<DeltaInventarioDTO> aDeltas(Map<Clave, double[]> mapa) {
+            List<DeltaInventarioDTO> deltas = new ArrayList<>();
+            mapa.forEach((clave, acumulado) -> {
+                if (Math.abs(acumulado[0]) > 1e-9) {
+                    deltas.add(new DeltaInventarioDTO(clave.id(), clave.sedeId(), acumulado[0],
+                            acumulado[0] < 0 && acumulado[1] > 0));
+                }
+            });
+            return deltas;
+        }
+    }
+
     private static boolean esParCentroPatios(Long sedeA, Long sedeB) {
         if (sedeA == null || sedeB == null) {
             return false;
@@ -530,6 +709,33 @@ public class TrasladoService {
      * el producto a descontar no es corte y hay stock en sede 1. Si se envía en otro contexto, 400.
      */
     private void validarReglasProductoInventarioADescontarSede1(Traslado t, TrasladoDetalle d) {
+        if (d.getProductoInventarioADescontarSede1() == null) {
+            return;
+        }
+        validarCombinacionDescuentoSede1(t, d, corteRepository::existsById);
+        Long pDesc = d.getProductoInventarioADescontarSede1().getId();
+        double need = d.getCantidad() != null ? d.getCantidad() : 0.0;
+        if (need <= 0) {
+            return;
+        }
+        double disponible = inventarioService.obtenerPorProductoYSede(pDesc, SEDE_INSULA_ID)
+                .map(Inventario::getCantidad)
+                .orElse(0.0);
+        if (disponible < need) {
+            throw new InventarioInsuficienteException(
+                    "Stock insuficiente en Insula del producto a descontar (id " + pDesc
+                            + "). Disponible: " + disponible + ", requerido: " + need,
+                    disponible, need, pDesc, SEDE_INSULA_ID);
+        }
+    }
+
+    /**
+     * Reglas de combinación de {@code productoInventarioADescontarSede1} sin el stock (en el batch
+     * el stock lo valida la variación neta)
+     *
+     * @param esCorte indica si un ID de producto es un corte
+     */
+    private static void validarCombinacionDescuentoSede1(Traslado t, TrasladoDetalle d, Predicate<Long> esCorte) {
         if (d.getProductoInventarioADescontarSede1() == null) {
             return;
         }
@@ -544,28 +750,15 @@ public class TrasladoService {
         if (d.getProducto() == null || d.getProducto().getId() == null) {
             throw new IllegalArgumentException("La línea requiere producto para validar el descuento en sede 1.");
         }
-        if (!corteRepository.existsById(d.getProducto().getId())) {
+        if (!esCorte.test(d.getProducto().getId())) {
             throw new IllegalArgumentException(
                     "productoInventarioADescontarSede1 solo aplica cuando la línea traslada un corte (producto corte).");
         }
         Long pDesc = d.getProductoInventarioADescontarSede1().getId();
-        if (corteRepository.existsById(pDesc)) {
+        if (esCorte.test(pDesc)) {
             throw new IllegalArgumentException(
                     "El producto a descontar en Insula no puede ser un corte; use un producto entero (id=" + pDesc + ").");
         }
-        double need = d.getCantidad() != null ? d.getCantidad() : 0.0;
-        if (need <= 0) {
-            return;
-        }
-        double disponible = inventarioService.obtenerPorProductoYSede(pDesc, SEDE_INSULA_ID)
-                .map(Inventario::getCantidad)
-                .orElse(0.0);
-        if (disponible < need) {
-            throw new InventarioInsuficienteException(
-                    "Stock insuficiente en Insula del producto a descontar (id " + pDesc
-                            + "). Disponible: " + disponible + ", requerido: " + need,
-                    disponible, need, pDesc, SEDE_INSULA_ID);
-        }
     }
 
     /**
@@ -662,6 +855,30 @@ public class TrasladoService {
         if (entero == null) {
             return;
         }
+        renombrarCorte(corte, entero);
+    }
+
+    /**
+     * Igual que {@link #actualizarNombreCorteTrasladoInsulaADestino} para varias líneas, usando los
+     * productos ya cargados en las líneas (sin consultas por línea)
+     */
+    private void renombrarCortesInsulaADestino(Traslado t, Collection<TrasladoDetalle> lineas, Set<Long> cortes) {
+        if (t.getSedeOrigen().getId() != SEDE_INSULA_ID || !esSedeCentroOPatios(t.getSedeDestino().getId())) {
+            return;
+        }
+        for (TrasladoDetalle d : lineas) {
+            if (d.getProductoInventarioADescontarSede1() == null || !cortes.contains(d.getProducto().getId())) {
+                continue;
+            }
+            if (Hibernate.unproxy(d.getProducto()) instanceof Corte corte) {
+                renombrarCorte(corte, (Producto) Hibernate.unproxy(d.getProductoInventarioADescontarSede1()));
+            } else {
+                actualizarNombreCorteTrasladoInsulaADestino(d);
+            }
+        }
+    }
+
+    private void renombrarCorte(Corte corte, Producto entero) {
         String nombreEntero = entero.getNombre() != null ? entero.getNombre() : "";
         int idx = nombreEntero.indexOf(" Corte de ");
         String baseNombre = idx != -1 ? nombreEntero.substring(0, idx).trim() : nombreEntero.trim();
@@ -708,46 +925,31 @@ public class TrasladoService {
     }
 
     private void ajustarInventarioProductoNormal(Long productoId, Long sedeId, Double ajuste, String tipo) {
+        boolean esReversion = tipo != null && tipo.contains("revertir");
+
+        // Variación atómica: solo descuenta si alcanza el stock (salvo reversiones)
+        if (inventarioService.aplicarDeltaExistente(productoId, sedeId, ajuste, !esReversion)) {
+            return;
+        }
+
         Optional<Inventario> inventarioOpt = inventarioService.obtenerPorProductoYSede(productoId, sedeId);
-        
         if (inventarioOpt.isPresent()) {
-            Inventario inv = inventarioOpt.get();
-            double nuevaCantidad = inv.getCantidad() + ajuste;
-            
-            boolean esReversion = tipo != null && tipo.contains("revertir");
-            
-            if (ajuste < 0 && nuevaCantidad < 0 && !esReversion) {
-                throw new RuntimeException("Stock insuficiente en sede " + tipo + ". " +
-                    "Disponible: " + inv.getCantidad() + ", ajuste solicitado: " + ajuste);
+            throw new RuntimeException("Stock insuficiente en sede " + tipo + ". " +
+                "Disponible: " + inventarioOpt.get().getCantidad() + ", ajuste solicitado: " + ajuste);
+        }
+
+        if (ajuste > 0 || esReversion) {
+            if (!productoRepository.existsById(productoId)) {
+                throw new RuntimeException("Producto no encontrado");
             }
-            
-            inv.setCantidad(nuevaCantidad);
-            inventarioService.actualizar(inv.getId(), inv);
-        } else {
-            if (ajuste > 0) {
-                Inventario nuevoInventario = new Inventario();
-                nuevoInventario.setProducto(productoRepository.findById(productoId)
-                    .orElseThrow(() -> new RuntimeException("Producto no encontrado")));
-                nuevoInventario.setSede(sedeRepository.findById(sedeId)
-                    .orElseThrow(() -> new RuntimeException("Sede no encontrada")));
-                nuevoInventario.setCantidad(ajuste);
-                inventarioService.guardar(nuevoInventario);
-            } else {
-                boolean esReversion = tipo != null && tipo.contains("revertir");
-                if (esReversion) {
-                    Inventario nuevoInventario = new Inventario();
-                    nuevoInventario.setProducto(productoRepository.findById(productoId)
-                        .orElseThrow(() -> new RuntimeException("Producto no encontrado")));
-                    nuevoInventario.setSede(sedeRepository.findById(sedeId)
-                        .orElseThrow(() -> new RuntimeException("Sede no encontrada")));
-                    nuevoInventario.setCantidad(ajuste);
-                    inventarioService.guardar(nuevoInventario);
-                } else {
-                    throw new InventarioInsuficienteException(
-                        "No existe inventario del producto ID " + productoId + 
-                        " en sede " + tipo + " ID " + sedeId);
-                }
+            if (!sedeRepository.existsById(sedeId)) {
+                throw new RuntimeException("Sede no encontrada");
             }
+            inventarioService.aplicarDelta(productoId, sedeId, ajuste);
+        } else {
+            throw new InventarioInsuficienteException(
+                "No existe inventario del producto ID " + productoId + 
+                " en sede " + tipo + " ID " + sedeId);
         }
     }
 }
@@ -0,0 +1,372 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.repository.UpsertSumaRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaClienteRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaOrdenRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaProductoRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 📈 ACUMULADOS DIARIOS DE VENTAS (rollup para el dashboard)
+ *
+ * Las tablas ventas_diarias, ventas_diarias_producto y ventas_diarias_cliente son
+ * derivadas de ordenes/orden_items. ventas_diarias_orden guarda lo que cada orden
+ * aportó la última vez. Cuando una orden se crea, edita, anula o elimina se marca su id;
+ * justo antes del commit se bloquea su fila de aporte, se compara con la orden actual
+ * y solo la diferencia (restar lo anterior, sumar lo nuevo) se aplica con un
+ * INSERT ... ON DUPLICATE KEY UPDATE sobre la clave única de cada acumulado.
+ *
+ * Así una orden solo toca las filas de sus propias claves (nunca borra ni reinserta el
+ * día completo) y dos órdenes del mismo día no se bloquean por huecos del índice.
+ * recalcularRango queda como reparación/carga inicial explícita.
+ */
+@Service
+@Transactional
+public class VentasDiariasService {
+
+    private static final Logger log = LoggerFactory.getLogger(VentasDiariasService.class);
+
+    /** Clave del recurso de transacción con las órdenes pendientes de aplicar */
+    private static final Object ORDENES_PENDIENTES = new Object();
+
+    private static final List<String> CLAVE_VENTAS = List.of("fecha", "sede_id", "trabajador_id", "venta", "credito", "estado");
+    private static final List<String> CLAVE_PRODUCTO = List.of("fecha", "trabajador_id", "producto_id", "estado");
+    private static final List<String> CLAVE_CLIENTE = List.of("fecha", "trabajador_id", "cliente_id", "estado");
+    private static final List<String> SUMA_ORDENES = List.of("cantidad_ordenes", "monto_total");
+    private static final List<String> SUMA_PRODUCTO = List.of("cantidad", "monto_total");
+
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final VentaDiariaProductoRepository ventaDiariaProductoRepository;
+    private final VentaDiariaClienteRepository ventaDiariaClienteRepository;
+    private final VentaDiariaOrdenRepository ventaDiariaOrdenRepository;
+    private final UpsertSumaRepository upsertSuma;
+    private final EntityManager entityManager;
+
+    public VentasDiariasService(VentaDiariaRepository ventaDiariaRepository,
+                                VentaDiariaProductoRepository ventaDiariaProductoRepository,
+                                VentaDiariaClienteRepository ventaDiariaClienteRepository,
+                                VentaDiariaOrdenRepository ventaDiariaOrdenRepository,
+                                UpsertSumaRepository upsertSuma,
+                                EntityManager entityManager) {
+        this.ventaDiariaRepository = ventaDiariaRepository;
+        this.ventaDiariaProductoRepository = ventaDiariaProductoRepository;
+        this.ventaDiariaClienteRepository = ventaDiariaClienteRepository;
+        this.ventaDiariaOrdenRepository = ventaDiariaOrdenRepository;
+        this.upsertSuma = upsertSuma;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Marca una orden cuyo aporte a los acumulados pudo cambiar
+     */
+    public void registrarCambioOrden(Long ordenId) {
+        if (ordenId != null) {
+            registrarCambioOrdenes(List.of(ordenId));
+        }
+    }
+
+    /**
+     * Marca varias órdenes
+     * Con transacción activa la aplicación se difiere al beforeCommit (una vez por orden);
+     * sin transacción se aplica de inmediato
+     */
+    public void registrarCambioOrdenes(Collection<Long> ordenIds) {
+        if (ordenIds == null || ordenIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            aplicarCambios(ordenIds);
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<Long> pendientes = (Set<Long>) TransactionSynchronizationManager.getResource(ORDENES_PENDIENTES);
+        if (pendientes == null) {
+            Set<Long> nuevas = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(ORDENES_PENDIENTES, nuevas);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    // Volcar cambios pendientes para leer las órdenes ya actualizadas
+                    entityManager.flush();
+                    aplicarCambios(nuevas);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ORDENES_PENDIENTES);
+                }
+            });
+            pendientes = nuevas;
+        }
+        for (Long id : ordenIds) {
+            if (id != null) {
+                pendientes.add(id);
+            }
+        }
+    }
+
+    /**
+     * Resta el último aporte de cada orden, suma el actual y deja guardado el actual
+     * Órdenes eliminadas: solo se resta su aporte anterior
+     */
+    void aplicarCambios(Collection<Long> ordenIds) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(ordenIds));
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        ventaDiariaOrdenRepository.reservar(ids);
+        Map<Long, Aporte> anteriores = new HashMap<>();
+        for (Object[] fila : ventaDiariaOrdenRepository.bloquearAportes(ids)) {
+            Long ordenId = ((Number) fila[0]).longValue();
+            // fecha NULL: fila recién reservada, la orden aún no aportaba
+            anteriores.put(ordenId, fila[1] == null ? null : new Aporte(
+                    aLocalDate(fila[1]), aLong(fila[2]), aLong(fila[3]), aLong(fila[4]),
+                    aBoolean(fila[5]), aBoolean(fila[6]), (String) fila[7], aDouble(fila[8]),
+                    leerProductos((String) fila[9])));
+        }
+        Map<Long, Aporte> actuales = leerAportesActuales(ids);
+
+        Diferencias diferencias = new Diferencias();
+        anteriores.values().stream().filter(Objects::nonNull).forEach(a -> diferencias.sumar(a, -1));
+        actuales.values().forEach(a -> diferencias.sumar(a, 1));
+        diferencias.aplicar();
+
+        List<Long> eliminadas = new ArrayList<>();
+        for (Long id : ids) {
+            Aporte actual = actuales.get(id);
+            if (actual != null) {
+                ventaDiariaOrdenRepository.actualizarAporte(id, actual.fecha(), actual.sedeId(), actual.trabajadorId(),
+                        actual.clienteId(), actual.venta(), actual.credito(), actual.estado(), actual.total(),
+                        escribirProductos(actual.productos()));
+            } else if (anteriores.containsKey(id)) {
+                eliminadas.add(id);
+            }
+        }
+        if (!eliminadas.isEmpty()) {
+            ventaDiariaOrdenRepository.eliminarPorOrdenIds(eliminadas);
+        }
+    }
+
+    private Map<Long, Aporte> leerAportesActuales(List<Long> ids) {
+        Map<Long, Map<Long, double[]>> productosPorOrden = new HashMap<>();
+        for (Object[] fila : ventaDiariaOrdenRepository.aportesProductosActuales(ids)) {
+            productosPorOrden.computeIfAbsent(((Number) fila[0]).longValue(), k -> new TreeMap<>())
+                    .put(((Number) fila[1]).longValue(), new double[]{aDouble(fila[2]), aDouble(fila[3])});
+        }
+        Map<Long, Aporte> actuales = new HashMap<>();
+        for (Object[] fila : ventaDiariaOrdenRepository.aportesActuales(ids)) {
+            Long ordenId = ((Number) fila[0]).longValue();
+            boolean venta = aBoolean(fila[5]);
+            actuales.put(ordenId, new Aporte(
+                    aLocalDate(fila[1]), aLong(fila[2]), aLong(fila[3]), aLong(fila[4]),
+                    venta, aBoolean(fila[6]), fila[7].toString(), aDouble(fila[8]),
+                    venta ? productosPorOrden.getOrDefault(ordenId, Map.of()) : Map.of()));
+        }
+        return actuales;
+    }
+
+    /**
+     * 🔧 Reconstruye acumulados y aportes de un rango de fechas desde las órdenes
+     * Uso administrativo (carga inicial o corrección); el flujo normal aplica diferencias por orden
+     */
+    public void recalcularRango(LocalDate desde, LocalDate hasta) {
+        Objects.requireNonNull(desde, "desde");
+        Objects.requireNonNull(hasta, "hasta");
+        if (hasta.isBefore(desde)) {
+            throw new IllegalArgumentException("La fecha hasta no puede ser anterior a desde");
+        }
+        ventaDiariaOrdenRepository.eliminarRango(desde, hasta);
+        ventaDiariaRepository.eliminarRango(desde, hasta);
+        ventaDiariaProductoRepository.eliminarRango(desde, hasta);
+        ventaDiariaClienteRepository.eliminarRango(desde, hasta);
+
+        ventaDiariaRepository.insertarDesdeOrdenes(desde, hasta);
+        ventaDiariaProductoRepository.insertarDesdeOrdenes(desde, hasta);
+        ventaDiariaClienteRepository.insertarDesdeOrdenes(desde, hasta);
+        ventaDiariaOrdenRepository.ampliarGroupConcat();
+        ventaDiariaOrdenRepository.insertarDesdeOrdenes(desde, hasta);
+    }
+
+    /**
+     * Al arrancar, si no hay aportes guardados (primera vez o tras la migración), llena
+     * acumulados y aportes con todo el histórico de órdenes
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarSiVacio() {
+        try {
+            if (ventaDiariaOrdenRepository.count() > 0) {
+                return;
+            }
+            List<Object[]> rango = ventaDiariaRepository.obtenerRangoFechasOrdenes();
+            if (rango.isEmpty() || rango.get(0)[0] == null) {
+                return;
+            }
+            LocalDate desde = aLocalDate(rango.get(0)[0]);
+            LocalDate hasta = aLocalDate(rango.get(0)[1]);
+            recalcularRango(desde, hasta);
+            log.info("Acumulados diarios de ventas inicializados desde {} hasta {}", desde, hasta);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron inicializar los acumulados diarios de ventas: {}", e.getMessage());
+        }
+    }
+
+    /** Aporte de una orden; productos: productoId → [cantidad, monto] (vacío si no es venta) */
+    private record Aporte(LocalDate fecha, long sedeId, long trabajadorId, long clienteId,
+                          boolean venta, boolean credito, String estado, double total,
+                          Map<Long, double[]> productos) {
+    }
+
+    private record ClaveVenta(LocalDate fecha, long sedeId, long trabajadorId, boolean venta, boolean credito, String estado) {
+    }
+
+    private record ClaveDetalle(LocalDate fecha, long trabajadorId, long id, String estado) {
+    }
+
+    private static final Comparator<ClaveVenta> ORDEN_VENTA = Comparator.comparing(ClaveVenta::fecha)
+            .thenComparingLong(ClaveVenta::sedeId)
+            .thenComparingLong(ClaveVenta::trabajadorId)
+            .thenComparing(ClaveVenta::venta)
+            .thenComparing(ClaveVenta::credito)
+            .thenComparing(ClaveVenta::estado);
+
+    private static final Comparator<ClaveDetalle> ORDEN_DETALLE = Comparator.comparing(ClaveDetalle::fecha)
+            .thenComparingLong(ClaveDetalle::trabajadorId)
+            .thenComparingLong(ClaveDetalle::id)
+            .thenComparing(ClaveDetalle::estado);
+
+    /**
+     * Diferencias netas por clave de cada acumulado: [cantidad, monto]
+     * Ordenadas por clave para que transacciones concurrentes bloqueen en el mismo orden
+     */
+    private class Diferencias {
+        private final Map<ClaveVenta, double[]> ventas = new TreeMap<>(ORDEN_VENTA);
+        private final Map<ClaveDetalle, double[]> productos = new TreeMap<>(ORDEN_DETALLE);
+        private final Map<ClaveDetalle, double[]> clientes = new TreeMap<>(ORDEN_DETALLE);
+
+        void sumar(Aporte a, int signo) {
+            acumular(ventas, new ClaveVenta(a.fecha(), a.sedeId(), a.trabajadorId(), a.venta(), a.credito(), a.estado()),
+                    signo, signo * a.total());
+            if (!a.venta()) {
+                return;
+            }
+            acumular(clientes, new ClaveDetalle(a.fecha(), a.trabajadorId(), a.clienteId(), a.estado()),
+                    signo, signo * a.total());
+            a.productos().forEach((productoId, v) ->
+                    acumular(productos, new ClaveDetalle(a.fecha(), a.trabajadorId(), productoId, a.estado()),
+                            signo * v[0], signo * v[1]));
+        }
+
+        void aplicar() {
+            List<Object[]> filasVentas = new ArrayList<>();
+            ventas.forEach((k, v) -> {
+                if (v[0] != 0 || v[1] != 0) {
+                    filasVentas.add(new Object[]{k.fecha(), k.sedeId(), k.trabajadorId(), k.venta(), k.credito(), k.estado(),
+                            Math.round(v[0]), v[1]});
+                }
+            });
+            upsertSuma.sumar("ventas_diarias", CLAVE_VENTAS, SUMA_ORDENES, null,
+                    filasVentas, UpsertSumaRepository.FILAS_POR_SENTENCIA, null);
+            upsertSuma.sumar("ventas_diarias_producto", CLAVE_PRODUCTO, SUMA_PRODUCTO, null,
+                    filasDetalle(productos, false), UpsertSumaRepository.FILAS_POR_SENTENCIA, null);
+            upsertSuma.sumar("ventas_diarias_cliente", CLAVE_CLIENTE, SUMA_ORDENES, null,
+                    filasDetalle(clientes, true), UpsertSumaRepository.FILAS_POR_SENTENCIA, null);
+        }
+
+        private List<Object[]> filasDetalle(Map<ClaveDetalle, double[]> mapa, boolean cantidadEntera) {
+            List<Object[]> filas = new ArrayList<>();
+            mapa.forEach((k, v) -> {
+                if (v[0] != 0 || v[1] != 0) {
+                    filas.add(new Object[]{k.fecha(), k.trabajadorId(), k.id(), k.estado(),
+                            cantidadEntera ? (Object) Math.round(v[0]) : (Object) v[0], v[1]});
+                }
+            });
+            return filas;
+        }
+
+        private <K> void acumular(Map<K, double[]> mapa, K clave, double cantidad, double monto) {
+            double[] v = mapa.computeIfAbsent(clave, k -> new double[2]);
+            v[0] += cantidad;
+            v[1] += monto;
+        }
+    }
+
+    /** Formato de ventas_diarias_orden.productos: "productoId:cantidad:monto" separados por ';' */
+    private String escribirProductos(Map<Long, double[]> productos) {
+        if (productos.isEmpty()) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        productos.forEach((id, v) -> sb.append(sb.length() == 0 ? "" : ";")
+                .append(id).append(':').append(v[0]).append(':').append(v[1]));
+        return sb.toString();
+    }
+
+    private Map<Long, double[]> leerProductos(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return Map.of();
+        }
+        Map<Long, double[]> productos = new TreeMap<>();
+        for (String parte : texto.split(";")) {
+            String[] campos = parte.split(":");
+            productos.put(Long.parseLong(campos[0]),
+                    new double[]{Double.parseDouble(campos[1]), Double.parseDouble(campos[2])});
+        }
+        return productos;
+    }
+
+    private LocalDate aLocalDate(Object valor) {
+        if (valor instanceof LocalDate fecha) {
+            return fecha;
+        }
+        if (valor instanceof Date fecha) {
+            return fecha.toLocalDate();
+        }
+        return LocalDate.parse(valor.toString());
+    }
+
+    private long aLong(Object valor) {
+        return valor == null ? 0L : ((Number) valor).longValue();
+    }
+
+    private double aDouble(Object valor) {
+        return valor == null ? 0.0 : ((Number) valor).doubleValue();
+    }
+
+    private boolean aBoolean(Object valor) {
+        if (valor instanceof Boolean b) {
+            return b;
+        }
+        if (valor instanceof Number n) {
+            return n.intValue() != 0;
+        }
+        if (valor instanceof byte[] bytes) {
+            return bytes.length > 0 && bytes[0] != 0;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,21 @@
+-- Libro de movimientos de créditos (saldo de cada crédito a una fecha).
+-- Solo se agregan filas: la aplicación compensa cada cambio de crédito/abono/anulación y lo
+-- llena sola al arrancar si está vacío. "Créditos activos al fin del mes" del resumen de
+-- entregas de dinero se calcula con una sola consulta sobre estos índices.
+-- En dev Hibernate (ddl-auto=update) la crea; en producción (validate) ejecutar UNA VEZ.
+
+CREATE TABLE IF NOT EXISTS credito_movimientos (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  credito_id BIGINT NOT NULL,
+  sede_id BIGINT NULL,
+  fecha DATE NOT NULL,
+  tipo VARCHAR(20) NOT NULL,
+  abono_id BIGINT NULL,
+  monto DOUBLE NOT NULL,
+  saldo DOUBLE NOT NULL,
+  fecha_registro DATETIME(6) NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_credito_mov_credito (credito_id, id),
+  KEY idx_credito_mov_sede_fecha (sede_id, fecha, credito_id, monto),
+  KEY idx_credito_mov_fecha (fecha, credito_id, monto)
+);
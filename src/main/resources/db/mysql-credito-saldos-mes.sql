@@ -0,0 +1,21 @@
+-- Cierres de mes del libro de créditos: saldo de cada crédito al último día de cada mes cerrado.
+-- "Créditos activos a una fecha" lee el cierre anterior + los movimientos posteriores en vez de
+-- todo el libro. La aplicación arma los cierres a medida que se consultan y borra los afectados
+-- cuando se registra un movimiento con fecha atrasada; no hace falta llenarlas a mano.
+-- En dev Hibernate (ddl-auto=update) las crea; en producción (validate) ejecutar UNA VEZ.
+
+CREATE TABLE IF NOT EXISTS credito_cortes_mes (
+  mes DATE NOT NULL,
+  fecha_registro DATETIME(6) NOT NULL,
+  PRIMARY KEY (mes)
+);
+
+CREATE TABLE IF NOT EXISTS credito_saldos_mes (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  mes DATE NOT NULL,
+  credito_id BIGINT NOT NULL,
+  sede_id BIGINT NULL,
+  saldo DOUBLE NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_credito_saldo_mes (mes, sede_id, credito_id, saldo)
+);
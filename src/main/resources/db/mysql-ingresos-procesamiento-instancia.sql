@@ -0,0 +1,8 @@
+-- Dueño y latido del procesamiento en segundo plano de ingresos: al arrancar, cada instancia solo
+-- marca como interrumpidos sus propios ingresos EN_COLA/EN_PROCESO y los de otras instancias cuyo
+-- latido venció (casaglass.ingresos.latido-vencido-minutos), no los que otra instancia viva procesa.
+-- En dev Hibernate (ddl-auto=update) crea las columnas; en producción (validate) ejecutar UNA VEZ.
+
+ALTER TABLE ingresos
+  ADD COLUMN procesamiento_instancia VARCHAR(100) NULL,
+  ADD COLUMN procesamiento_latido DATETIME(6) NULL;
@@ -0,0 +1,12 @@
+-- Estado y avance del procesamiento de inventario de cada ingreso (PUT /api/ingresos/{id}/procesar,
+-- opcionalmente en segundo plano con ?segundoPlano=true; avance en GET /api/ingresos/{id}/procesamiento).
+-- Los ingresos anteriores quedan con estado NULL y se siguen rigiendo por la columna procesado.
+-- En dev Hibernate (ddl-auto=update) crea las columnas; en producción (validate) ejecutar UNA VEZ.
+
+ALTER TABLE ingresos
+  ADD COLUMN estado_procesamiento VARCHAR(20) NULL,
+  ADD COLUMN lineas_procesadas INT NULL,
+  ADD COLUMN lineas_totales INT NULL,
+  ADD COLUMN mensaje_procesamiento VARCHAR(500) NULL;
+
+UPDATE ingresos SET estado_procesamiento = 'COMPLETADO' WHERE procesado = 1;
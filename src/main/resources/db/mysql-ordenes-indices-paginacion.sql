@@ -0,0 +1,11 @@
+-- Índices para la paginación por cursor (keyset) de /api/ordenes y /api/ordenes/tabla.
+-- El ordenamiento es (campo, id): numero ya tiene índice único (idx_orden_numero).
+-- El cursor por total necesita total NOT NULL: con NULL la fila no cumple ni ">" ni "=" y la
+-- página siguiente la salta (o se queda en la misma si la última fila tenía total NULL).
+-- En dev Hibernate (ddl-auto=update) los crea solo; en producción (validate) ejecutar UNA VEZ.
+
+UPDATE ordenes SET total = 0 WHERE total IS NULL;
+ALTER TABLE ordenes MODIFY total DOUBLE NOT NULL DEFAULT 0;
+
+CREATE INDEX idx_orden_fecha ON ordenes (fecha, id);
+CREATE INDEX idx_orden_total ON ordenes (total, id);
@@ -0,0 +1,31 @@
+-- Pendientes de entrega de dinero por sede (órdenes a contado, abonos y reembolsos sin entrega).
+-- La aplicación rehace las filas de una orden cada vez que cambian la orden, sus abonos, sus
+-- reembolsos o sus detalles de entrega, y llena la tabla sola al arrancar si está vacía.
+-- La pantalla de preparación de entregas lee la lista y los totales por medio de pago con una
+-- sola consulta sobre idx_pendiente_sede_fecha.
+-- En dev Hibernate (ddl-auto=update) la crea; en producción (validate) ejecutar UNA VEZ.
+
+CREATE TABLE IF NOT EXISTS pendientes_entrega (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  sede_id BIGINT NOT NULL,
+  tipo VARCHAR(20) NOT NULL,
+  referencia_id BIGINT NOT NULL,
+  orden_id BIGINT NOT NULL,
+  numero_orden BIGINT NULL,
+  fecha DATE NULL,
+  cliente_nombre VARCHAR(100) NULL,
+  cliente_nit VARCHAR(50) NULL,
+  obra VARCHAR(255) NULL,
+  metodo_pago VARCHAR(255) NULL,
+  tipo_movimiento VARCHAR(20) NOT NULL,
+  monto DOUBLE NOT NULL,
+  monto_efectivo DOUBLE NOT NULL,
+  monto_transferencia DOUBLE NOT NULL,
+  monto_cheque DOUBLE NOT NULL,
+  monto_deposito DOUBLE NOT NULL,
+  fecha_actualizacion DATETIME(6) NOT NULL,
+  PRIMARY KEY (id),
+  UNIQUE KEY uk_pendiente_referencia (tipo, referencia_id),
+  KEY idx_pendiente_sede_fecha (sede_id, fecha, id),
+  KEY idx_pendiente_orden (orden_id)
+);
@@ -0,0 +1,22 @@
+-- Historial del costo promedio ponderado por producto.
+-- Al procesar un ingreso el servidor calcula el costo nuevo con el stock de todas las sedes
+-- previo al ingreso y deja una fila por producto; los cambios manuales de costo
+-- (PUT /api/productos/{id}/costo y la edición del producto) quedan con origen AJUSTE.
+-- El historial de cada producto se lee sobre idx_costo_historial_producto_fecha.
+-- En dev Hibernate (ddl-auto=update) la crea; en producción (validate) ejecutar UNA VEZ.
+
+CREATE TABLE IF NOT EXISTS producto_costos_historial (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  producto_id BIGINT NOT NULL,
+  ingreso_id BIGINT NULL,
+  fecha DATETIME(6) NOT NULL,
+  origen VARCHAR(20) NOT NULL,
+  stock_anterior DOUBLE NULL,
+  costo_anterior DOUBLE NULL,
+  cantidad_ingresada DOUBLE NOT NULL,
+  costo_ingreso DOUBLE NULL,
+  costo_nuevo DOUBLE NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_costo_historial_producto_fecha (producto_id, fecha, id),
+  KEY idx_costo_historial_ingreso (ingreso_id)
+);
@@ -0,0 +1,13 @@
+-- Columna numérica de posición para productos: permite correr posiciones con un solo UPDATE
+-- y ordenar la tabla de posiciones en BD (ver ProductoPosicionService).
+-- En dev Hibernate (ddl-auto=update) crea columna e índice; en producción (validate) ejecutar UNA VEZ.
+-- El relleno de posicion_num también lo hace la aplicación al arrancar (solo filas con NULL).
+
+ALTER TABLE productos ADD COLUMN posicion_num BIGINT NULL;
+
+UPDATE productos
+SET posicion_num = CAST(TRIM(posicion) AS UNSIGNED)
+WHERE TRIM(posicion) REGEXP '^[0-9]+$'
+  AND CAST(TRIM(posicion) AS UNSIGNED) > 0;
+
+CREATE INDEX idx_producto_posicion_num ON productos (posicion_num);
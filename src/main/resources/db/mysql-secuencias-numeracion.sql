@@ -0,0 +1,24 @@
+-- Tabla de secuencias para la numeración de órdenes y facturas (NumeracionService).
+-- Cada instancia reserva bloques de números actualizando siguiente_valor.
+-- En dev Hibernate (ddl-auto=update) la crea solo; en producción (validate) ejecutar UNA VEZ.
+-- Si no se siembran las filas, el backend las crea a partir de MAX(numero) + 1.
+
+CREATE TABLE IF NOT EXISTS secuencias_numeracion (
+    nombre VARCHAR(30) NOT NULL,
+    siguiente_valor BIGINT NOT NULL,
+    PRIMARY KEY (nombre)
+);
+
+-- Sembrar desde los datos actuales (opcional)
+INSERT INTO secuencias_numeracion (nombre, siguiente_valor)
+SELECT 'ORDEN', COALESCE(MAX(numero), 0) + 1 FROM ordenes
+ON DUPLICATE KEY UPDATE siguiente_valor = GREATEST(siguiente_valor, VALUES(siguiente_valor));
+
+INSERT INTO secuencias_numeracion (nombre, siguiente_valor)
+SELECT 'FACTURA', COALESCE(MAX(
+    CASE
+        WHEN numero_factura REGEXP '^FAC[0-9]+$' THEN CAST(SUBSTRING(numero_factura, 4) AS UNSIGNED)
+        WHEN numero_factura REGEXP '^[0-9]+$' THEN CAST(numero_factura AS UNSIGNED)
+        ELSE 0 END
+), 0) + 1 FROM facturas
+ON DUPLICATE KEY UPDATE siguiente_valor = GREATEST(siguiente_valor, VALUES(siguiente_valor));
@@ -0,0 +1,5 @@
+-- Índice para la paginación (offset y cursor/keyset) de /api/traslados-movimientos.
+-- El ordenamiento es (fecha, id) o solo id (clave primaria).
+-- En dev Hibernate (ddl-auto=update) lo crea solo; en producción (validate) ejecutar UNA VEZ.
+
+CREATE INDEX idx_traslado_fecha ON traslados (fecha, id);
@@ -0,0 +1,38 @@
+-- Acumulados diarios de ventas por diferencias: cada orden resta su aporte anterior y suma el
+-- actual con INSERT ... ON DUPLICATE KEY UPDATE, en vez de borrar y recalcular el día completo.
+-- Requiere una clave única por grano en cada acumulado (sede/trabajador sin dato = 0) y la tabla
+-- ventas_diarias_orden con el último aporte de cada orden.
+-- En dev Hibernate (ddl-auto=update) crea tabla y claves; en producción (validate) ejecutar UNA VEZ.
+-- Al arrancar, si ventas_diarias_orden está vacía, la aplicación reconstruye todo desde ordenes.
+
+TRUNCATE TABLE ventas_diarias;
+TRUNCATE TABLE ventas_diarias_producto;
+TRUNCATE TABLE ventas_diarias_cliente;
+
+ALTER TABLE ventas_diarias
+  MODIFY sede_id BIGINT NOT NULL DEFAULT 0,
+  MODIFY trabajador_id BIGINT NOT NULL DEFAULT 0,
+  ADD UNIQUE KEY uk_ventas_diarias_clave (fecha, sede_id, trabajador_id, venta, credito, estado);
+
+ALTER TABLE ventas_diarias_producto
+  MODIFY trabajador_id BIGINT NOT NULL DEFAULT 0,
+  ADD UNIQUE KEY uk_ventas_diarias_producto_clave (fecha, trabajador_id, producto_id, estado);
+
+ALTER TABLE ventas_diarias_cliente
+  MODIFY trabajador_id BIGINT NOT NULL DEFAULT 0,
+  ADD UNIQUE KEY uk_ventas_diarias_cliente_clave (fecha, trabajador_id, cliente_id, estado);
+
+CREATE TABLE IF NOT EXISTS ventas_diarias_orden (
+  orden_id BIGINT NOT NULL,
+  fecha DATE NULL,
+  sede_id BIGINT NULL,
+  trabajador_id BIGINT NULL,
+  cliente_id BIGINT NULL,
+  venta BIT(1) NULL,
+  credito BIT(1) NULL,
+  estado VARCHAR(20) NULL,
+  total DOUBLE NULL,
+  productos MEDIUMTEXT NULL,
+  PRIMARY KEY (orden_id),
+  KEY idx_ventas_diarias_orden_fecha (fecha)
+);
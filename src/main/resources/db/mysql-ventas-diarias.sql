@@ -0,0 +1,43 @@
+-- Acumulados diarios de ventas que alimentan GET /api/dashboard/completo.
+-- Son tablas derivadas de ordenes/orden_items: la aplicación las mantiene al crear, editar
+-- o anular órdenes y las llena sola al arrancar si están vacías.
+-- En dev Hibernate (ddl-auto=update) las crea; en producción (validate) ejecutar UNA VEZ.
+-- Para reconstruir un rango: POST /api/dashboard/ventas-diarias/recalcular?desde=...&hasta=...
+
+CREATE TABLE IF NOT EXISTS ventas_diarias (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  fecha DATE NOT NULL,
+  sede_id BIGINT NULL,
+  trabajador_id BIGINT NULL,
+  venta BIT(1) NOT NULL,
+  credito BIT(1) NOT NULL,
+  estado VARCHAR(20) NOT NULL,
+  cantidad_ordenes BIGINT NOT NULL,
+  monto_total DOUBLE NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_ventas_diarias_fecha (fecha, trabajador_id)
+);
+
+CREATE TABLE IF NOT EXISTS ventas_diarias_producto (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  fecha DATE NOT NULL,
+  trabajador_id BIGINT NULL,
+  producto_id BIGINT NOT NULL,
+  estado VARCHAR(20) NOT NULL,
+  cantidad DOUBLE NOT NULL,
+  monto_total DOUBLE NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_ventas_diarias_producto_fecha (fecha, trabajador_id)
+);
+
+CREATE TABLE IF NOT EXISTS ventas_diarias_cliente (
+  id BIGINT NOT NULL AUTO_INCREMENT,
+  fecha DATE NOT NULL,
+  trabajador_id BIGINT NULL,
+  cliente_id BIGINT NOT NULL,
+  estado VARCHAR(20) NOT NULL,
+  cantidad_ordenes BIGINT NOT NULL,
+  monto_total DOUBLE NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_ventas_diarias_cliente_fecha (fecha, trabajador_id)
+);
@@ -0,0 +1,75 @@
+package com.casaglass.casaglass_backend.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class UpsertSumaRepositoryTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private UpsertSumaRepository upsertSuma;
+
+    @Test
+    void unaSentenciaPorBloqueConVersionYAvance() {
+        List<Object[]> filas = new ArrayList<>();
+        for (long id = 1; id <= 250; id++) {
+            filas.add(new Object[] {id, 1L, 2.0});
+        }
+        AtomicInteger avance = new AtomicInteger();
+
+        upsertSuma.sumar("inventario", List.of("producto_id", "sede_id"), List.of("cantidad"), "version",
+            filas, 200, avance::set);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(2)).update(sql.capture(), args.capture());
+        String ultima = sql.getAllValues().get(1);
+        assertTrue(ultima.startsWith("INSERT INTO inventario (producto_id, sede_id, cantidad, version) VALUES (?, ?, ?, 0), "));
+        assertTrue(ultima.endsWith("(?, ?, ?, 0) ON DUPLICATE KEY UPDATE cantidad = cantidad + VALUES(cantidad), "
+            + "version = COALESCE(version, 0) + 1"));
+        assertEquals(600, args.getAllValues().get(0).length);
+        assertEquals(150, args.getAllValues().get(1).length);
+        assertEquals(250, avance.get());
+    }
+
+    @Test
+    void variasColumnasDeSumaSinVersion() {
+        upsertSuma.sumar("ventas_diarias_cliente", List.of("fecha", "cliente_id"), List.of("cantidad_ordenes", "monto_total"),
+            null, List.<Object[]>of(new Object[] {"2026-03-01", 5L, 1L, 100.0}), 200, null);
+
+        verify(jdbcTemplate).update(
+            "INSERT INTO ventas_diarias_cliente (fecha, cliente_id, cantidad_ordenes, monto_total) VALUES (?, ?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE cantidad_ordenes = cantidad_ordenes + VALUES(cantidad_ordenes), "
+                + "monto_total = monto_total + VALUES(monto_total)",
+            "2026-03-01", 5L, 1L, 100.0);
+    }
+
+    @Test
+    void rechazaFilasConValoresDeMasSinEscribir() {
+        assertThrows(IllegalArgumentException.class, () -> upsertSuma.sumar("inventario_cortes",
+            List.of("corte_id", "sede_id"), List.of("cantidad"), null,
+            List.<Object[]>of(new Object[] {1L, 2L, 3.0, 4.0}), 200, null));
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+}
@@ -0,0 +1,82 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.dto.ClienteSimpleDTO;
+import com.casaglass.casaglass_backend.dto.PageResponse;
+import com.casaglass.casaglass_backend.model.Cliente;
+import com.casaglass.casaglass_backend.repository.ClienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ClienteBusquedaServiceTest {
+
+    @Mock
+    private ClienteRepository clienteRepository;
+
+    @InjectMocks
+    private ClienteBusquedaService service;
+
+    @BeforeEach
+    void cargar() {
+        when(clienteRepository.findAll()).thenReturn(List.of(
+            cliente(1L, "José Pérez Gómez", "900.123.456-7", "Bogotá", true),
+            cliente(2L, "Vidrios Pereira SAS", "800555111", "Pereira", false),
+            cliente(3L, "Ana Josefa Ruiz", "1020304050", "Medellín", true)
+        ));
+        service.recargar();
+    }
+
+    @Test
+    void prefijoSinTildesRankeaPrimeroElNombre() {
+        List<Long> ids = ids(service.buscar("pere", null, 1, 20));
+        // "perez" está en el nombre de 1; "pereira" en el nombre de 2 (y en su ciudad)
+        assertEquals(List.of(1L, 2L), ids.stream().sorted().toList());
+        assertEquals(List.of(1L, 3L), ids(service.buscar("JOSE", null, 1, 20)));
+    }
+
+    @Test
+    void variasPalabrasDebenCoincidirTodas() {
+        assertEquals(List.of(1L), ids(service.buscar("jose bogo", null, 1, 20)));
+        assertEquals(List.of(1L), ids(service.buscar("9001234567", null, 1, 20)));
+    }
+
+    @Test
+    void toleraUnErrorDeTipeoYFiltraPorCredito() {
+        assertEquals(List.of(3L), ids(service.buscar("medallin", null, 1, 20)));
+        assertTrue(ids(service.buscar("pereira", true, 1, 20)).isEmpty());
+    }
+
+    @Test
+    void cambiosSinTransaccionSeAplicanDeInmediato() {
+        service.registrarCambio(cliente(2L, "Cristales del Norte", "800555111", "Cali", false));
+        assertTrue(ids(service.buscar("pereira", null, 1, 20)).isEmpty());
+        assertEquals(List.of(2L), ids(service.buscar("cristal", null, 1, 20)));
+
+        service.registrarEliminacion(2L);
+        assertTrue(ids(service.buscar("cristal", null, 1, 20)).isEmpty());
+    }
+
+    private List<Long> ids(PageResponse<ClienteSimpleDTO> pagina) {
+        return pagina.getContent().stream().map(ClienteSimpleDTO::getId).toList();
+    }
+
+    private Cliente cliente(Long id, String nombre, String nit, String ciudad, boolean credito) {
+        Cliente cliente = new Cliente();
+        cliente.setId(id);
+        cliente.setNombre(nombre);
+        cliente.setNit(nit);
+        cliente.setCiudad(ciudad);
+        cliente.setCredito(credito);
+        return cliente;
+    }
+}
@@ -0,0 +1,153 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.Categoria;
+import com.casaglass.casaglass_backend.model.ColorProducto;
+import com.casaglass.casaglass_backend.model.Corte;
+import com.casaglass.casaglass_backend.repository.CorteRepository;
+import com.casaglass.casaglass_backend.service.CorteIndiceService.Entrada;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CorteIndiceServiceTest {
+
+    @Mock
+    private CorteRepository corteRepository;
+
+    @InjectMocks
+    private CorteIndiceService indice;
+
+    @Test
+    void cargaCadaCodigoUnaVezYResuelveExactosYRangoEnMemoria() {
+        when(corteRepository.findDatosIndicePorCodigo("392")).thenReturn(List.of(
+            new Object[] {10L, ColorProducto.MATE, 1L, 120.0},
+            new Object[] {11L, ColorProducto.MATE, 1L, 120.0},
+            new Object[] {12L, ColorProducto.NEGRO, 1L, 120.0},
+            new Object[] {13L, ColorProducto.MATE, 1L, 150.4}
+        ));
+
+        List<Entrada> exactos = indice.buscarExactos("392", 120.0, ColorProducto.MATE, 1L);
+        assertEquals(List.of(11L, 10L), exactos.stream().map(Entrada::id).toList());
+        assertEquals(3, indice.buscarPorLargo("392", 120.0).size());
+        assertEquals(List.of(13L), indice.buscarEnRango("392", 149.5, 150.5).stream().map(Entrada::id).toList());
+        assertTrue(indice.buscarExactos("392", 200.0, ColorProducto.MATE, 1L).isEmpty());
+
+        verify(corteRepository, times(1)).findDatosIndicePorCodigo("392");
+    }
+
+    @Test
+    void registrarReubicaElCorteYQuitarLoSaca() {
+        when(corteRepository.findDatosIndicePorCodigo("392")).thenReturn(List.<Object[]>of(
+            new Object[] {10L, ColorProducto.MATE, 1L, 120.0}
+        ));
+        assertEquals(1, indice.buscarPorLargo("392", 120.0).size());
+
+        Corte nuevo = corte(20L, "392", 80.0);
+        indice.registrar(nuevo);
+        Corte movido = corte(10L, "392", 90.0);
+        indice.registrar(movido);
+
+        assertTrue(indice.buscarPorLargo("392", 120.0).isEmpty());
+        assertEquals(List.of(20L), indice.buscarExactos("392", 80.0, ColorProducto.MATE, 1L).stream().map(Entrada::id).toList());
+        assertEquals(List.of(10L), indice.buscarExactos("392", 90.0, ColorProducto.MATE, 1L).stream().map(Entrada::id).toList());
+
+        indice.quitar(20L);
+        assertTrue(indice.buscarPorLargo("392", 80.0).isEmpty());
+        verify(corteRepository, times(1)).findDatosIndicePorCodigo("392");
+    }
+
+    @Test
+    void dentroDeTransaccionSoloLaPropiaVeElCorteHastaElCommit() {
+        when(corteRepository.findDatosIndicePorCodigo("392")).thenReturn(List.<Object[]>of(
+            new Object[] {10L, ColorProducto.MATE, 1L, 120.0}
+        ));
+        assertEquals(1, indice.buscarPorLargo("392", 120.0).size());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            indice.registrar(corte(20L, "392", 80.0));
+            indice.registrar(corte(10L, "392", 90.0));
+            assertEquals(List.of(20L), indice.buscarPorLargo("392", 80.0).stream().map(Entrada::id).toList());
+            assertEquals(List.of(10L), indice.buscarPorLargo("392", 90.0).stream().map(Entrada::id).toList());
+            assertTrue(indice.buscarPorLargo("392", 120.0).isEmpty());
+
+            List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            // Otra transacción (sin los pendientes) sigue viendo el índice publicado
+            assertEquals(List.of(10L), indice.buscarPorLargo("392", 120.0).stream().map(Entrada::id).toList());
+            assertTrue(indice.buscarPorLargo("392", 80.0).isEmpty());
+
+            syncs.forEach(TransactionSynchronization::afterCommit);
+            syncs.forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        }
+
+        assertEquals(List.of(20L), indice.buscarPorLargo("392", 80.0).stream().map(Entrada::id).toList());
+        assertEquals(List.of(10L), indice.buscarPorLargo("392", 90.0).stream().map(Entrada::id).toList());
+        verify(corteRepository, times(1)).findDatosIndicePorCodigo("392");
+    }
+
+    @Test
+    void rollbackDescartaLosPendientesSinTocarElIndice() {
+        when(corteRepository.findDatosIndicePorCodigo("392")).thenReturn(List.<Object[]>of(
+            new Object[] {10L, ColorProducto.MATE, 1L, 120.0}
+        ));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            indice.registrar(corte(20L, "392", 120.0));
+            indice.quitar(10L);
+            assertEquals(List.of(20L), indice.buscarPorLargo("392", 120.0).stream().map(Entrada::id).toList());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(10L), indice.buscarPorLargo("392", 120.0).stream().map(Entrada::id).toList());
+        verify(corteRepository, times(1)).findDatosIndicePorCodigo("392");
+    }
+
+    @Test
+    void sinCoincidenciaEnElIndiceConfirmaEnBdYRecargaElCodigo() {
+        when(corteRepository.findDatosIndicePorCodigo("392")).thenReturn(List.of());
+        Corte deOtraInstancia = corte(30L, "392", 120.0);
+        when(corteRepository.findExistingByCodigoAndSpecs("392", 120.0, 1L, ColorProducto.MATE))
+                .thenReturn(List.of(deOtraInstancia));
+        CorteService corteService = new CorteService(corteRepository, null, null, null, null, null, indice);
+
+        assertSame(deOtraInstancia,
+                corteService.buscarExistentePorEspecificaciones("392", 120.0, 1L, ColorProducto.MATE, 1L));
+        indice.buscarPorLargo("392", 120.0);
+        verify(corteRepository, times(2)).findDatosIndicePorCodigo("392");
+    }
+
+    private Corte corte(Long id, String codigo, double largo) {
+        Categoria categoria = new Categoria();
+        categoria.setId(1L);
+        Corte corte = new Corte();
+        corte.setId(id);
+        corte.setCodigo(codigo);
+        corte.setColor(ColorProducto.MATE);
+        corte.setCategoria(categoria);
+        corte.setLargoCm(largo);
+        return corte;
+    }
+}
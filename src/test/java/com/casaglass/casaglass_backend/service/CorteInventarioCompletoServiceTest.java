@@ -0,0 +1,88 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.dto.CorteInventarioCompletoDTO;
+import com.casaglass.casaglass_backend.dto.CursorToken;
+import com.casaglass.casaglass_backend.dto.PageResponse;
+import com.casaglass.casaglass_backend.repository.CorteRepository;
+import com.casaglass.casaglass_backend.repository.SedeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CorteInventarioCompletoServiceTest {
+
+    @Mock
+    private CorteRepository corteRepository;
+
+    @Mock
+    private SedeRepository sedeRepository;
+
+    @InjectMocks
+    private CorteInventarioCompletoService service;
+
+    @Test
+    void paginaPorCursorYSoloDejaLaColumnaDeLaSedeFiltrada() {
+        when(sedeRepository.findByNombreContainingIgnoreCase(anyString())).thenReturn(List.of());
+        List<Object[]> filas = new ArrayList<>();
+        filas.add(fila(10L, "392", 120.0));
+        filas.add(fila(11L, "392", 150.0));
+        filas.add(fila(12L, "401", 80.0));
+        when(corteRepository.buscarInventarioPivotado(1L, 2L, 3L, null, "PERFIL", null, 50.0, null, "%39%",
+                2L, true, null, null, null, 3)).thenReturn(filas);
+
+        PageResponse<CorteInventarioCompletoDTO> pagina = service.buscarInventarioPaginado(
+            null, "perfil", null, 50.0, null, " 39 ", 2L, null, 2, "");
+
+        assertEquals(2, pagina.getContent().size());
+        assertTrue(pagina.isHasNext());
+        assertFalse(pagina.isHasPrevious());
+        CorteInventarioCompletoDTO primero = pagina.getContent().get(0);
+        assertEquals(0.0, primero.getCantidadInsula());
+        assertEquals(5.0, primero.getCantidadCentro());
+        assertEquals(5.0, primero.getCantidadTotal());
+        assertEquals(List.of("392", "150.0", "11"), List.of(CursorToken.decode(pagina.getNextCursor(), 3)));
+
+        when(corteRepository.buscarInventarioPivotado(1L, 2L, 3L, null, "PERFIL", null, 50.0, null, "%39%",
+                2L, true, "392", 150.0, 11L, 3)).thenReturn(List.<Object[]>of(fila(12L, "401", 80.0)));
+
+        PageResponse<CorteInventarioCompletoDTO> siguiente = service.buscarInventarioPaginado(
+            null, "perfil", null, 50.0, null, " 39 ", 2L, null, 2, pagina.getNextCursor());
+
+        assertEquals(1, siguiente.getContent().size());
+        assertNull(siguiente.getNextCursor());
+        assertTrue(siguiente.isHasPrevious());
+    }
+
+    @Test
+    void rechazaFiltrosInvalidosSinConsultar() {
+        assertThrows(IllegalArgumentException.class,
+            () -> service.buscarInventarioPaginado(null, "NO_EXISTE", null, null, null, null, null, null, 10, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.buscarInventarioPaginado(null, null, null, 300.0, 100.0, null, null, null, 10, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.buscarInventarioPaginado(null, null, null, null, null, null, null, null, 10, "xx"));
+        verifyNoInteractions(corteRepository);
+    }
+
+    private Object[] fila(Long id, String codigo, double largo) {
+        return new Object[] {
+            id, codigo, "Perfil " + codigo, "PERFILERIA", "PERFIL", "NA", largo,
+            4.0, 5.0, 6.0, 10000.0, 11000.0, 12000.0
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.repository.ProductoCostoHistorialRepository;
+import com.casaglass.casaglass_backend.repository.ProductoRepository;
+import com.casaglass.casaglass_backend.service.CostoPromedioService.Entrada;
+import com.casaglass.casaglass_backend.service.CostoPromedioService.Resultado;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CostoPromedioServiceTest {
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private ProductoCostoHistorialRepository historialRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private CostoPromedioService service;
+
+    @Test
+    void promediaConElStockDeTodasLasSedesEnUnaSolaConsulta() {
+        when(productoRepository.bloquearCostoYStockTotal(List.of(5L, 7L, 9L))).thenReturn(List.of(
+            new Object[] {5L, 100.0, 30.0},   // 30 unidades entre las 3 sedes a 100
+            new Object[] {7L, 50.0, 0.0},     // sin stock: toma el costo del ingreso
+            new Object[] {9L, 80.0, 10.0}     // mismo costo: no se actualiza
+        ));
+        Map<Long, Entrada> entradas = new LinkedHashMap<>();
+        entradas.put(9L, new Entrada(5, 400.0));
+        entradas.put(5L, new Entrada(10, 1600.0));
+        entradas.put(7L, new Entrada(4, 260.0));
+
+        Resultado resultado = service.aplicarEntradas(3L, entradas);
+
+        assertEquals(115.0, resultado.costos().get(5L));
+        assertEquals(65.0, resultado.costos().get(7L));
+        assertEquals(80.0, resultado.costos().get(9L));
+        assertEquals(Set.of(5L, 7L), resultado.actualizados());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> costos = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("UPDATE productos"), costos.capture());
+        assertEquals(2, costos.getValue().size());
+        assertArrayEquals(new Object[] {115.0, 5L}, costos.getValue().get(0));
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO producto_costos_historial"), anyList());
+    }
+}
@@ -0,0 +1,218 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.Abono;
+import com.casaglass.casaglass_backend.model.Credito;
+import com.casaglass.casaglass_backend.model.CreditoCorteMes;
+import com.casaglass.casaglass_backend.model.CreditoMovimiento;
+import com.casaglass.casaglass_backend.model.CreditoMovimiento.TipoMovimiento;
+import com.casaglass.casaglass_backend.model.Orden;
+import com.casaglass.casaglass_backend.model.Sede;
+import com.casaglass.casaglass_backend.repository.CreditoCorteMesRepository;
+import com.casaglass.casaglass_backend.repository.CreditoMovimientoRepository;
+import com.casaglass.casaglass_backend.repository.CreditoRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CreditoMovimientoServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2026, 3, 10);
+
+    @Mock
+    private CreditoMovimientoRepository movimientoRepository;
+
+    @Mock
+    private CreditoRepository creditoRepository;
+
+    @Mock
+    private CreditoCorteMesRepository corteRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private CreditoMovimientoService service;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void creditoNuevoRegistraAperturaRetencionYAbonos() {
+        Credito credito = credito(1000.0, 40.0);
+        credito.getAbonos().add(abono(7L, LocalDate.of(2026, 3, 20), 300.0));
+        credito.setTotalAbonado(300.0);
+        when(creditoRepository.findById(1L)).thenReturn(Optional.of(credito));
+        when(movimientoRepository.resumirPorCredito(1L)).thenReturn(List.of());
+
+        assertEquals(3, service.sincronizar(1L));
+
+        ArgumentCaptor<List<CreditoMovimiento>> filas = ArgumentCaptor.forClass(List.class);
+        verify(movimientoRepository).saveAll(filas.capture());
+        List<CreditoMovimiento> movimientos = filas.getValue();
+        assertEquals(TipoMovimiento.APERTURA, movimientos.get(0).getTipo());
+        assertEquals(1000.0, movimientos.get(0).getMonto());
+        assertEquals(-40.0, movimientos.get(1).getMonto());
+        assertEquals(7L, movimientos.get(2).getAbonoId());
+        assertEquals(660.0, movimientos.get(2).getSaldo());
+        assertEquals(3L, movimientos.get(2).getSedeId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void abonoEditadoSoloAgregaLaDiferencia() {
+        Credito credito = credito(1000.0, 0.0);
+        credito.getAbonos().add(abono(7L, LocalDate.of(2026, 3, 20), 500.0));
+        credito.setTotalAbonado(500.0);
+        when(creditoRepository.findById(1L)).thenReturn(Optional.of(credito));
+        when(movimientoRepository.resumirPorCredito(1L)).thenReturn(new ArrayList<>(List.of(
+            new Object[] { TipoMovimiento.APERTURA, null, INICIO, 3L, 1000.0 },
+            new Object[] { TipoMovimiento.ABONO, 7L, LocalDate.of(2026, 3, 20), 3L, -300.0 }
+        )));
+
+        assertEquals(1, service.sincronizar(1L));
+
+        ArgumentCaptor<List<CreditoMovimiento>> filas = ArgumentCaptor.forClass(List.class);
+        verify(movimientoRepository).saveAll(filas.capture());
+        CreditoMovimiento compensacion = filas.getValue().get(0);
+        assertEquals(-200.0, compensacion.getMonto());
+        assertEquals(LocalDate.of(2026, 3, 20), compensacion.getFecha());
+        assertEquals(500.0, compensacion.getSaldo());
+
+        // Movimiento atrasado: los cierres desde su fecha se borran antes de insertarlo
+        InOrder orden = inOrder(corteRepository, movimientoRepository);
+        orden.verify(corteRepository).eliminarCortesDesde(LocalDate.of(2026, 3, 20));
+        orden.verify(movimientoRepository).saveAll(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void anulacionLlevaElSaldoACeroEnLaFechaDeCierre() {
+        Credito credito = credito(1000.0, 0.0);
+        credito.setEstado(Credito.EstadoCredito.ANULADO);
+        credito.setFechaCierre(LocalDate.of(2026, 4, 2));
+        when(creditoRepository.findById(1L)).thenReturn(Optional.of(credito));
+        when(movimientoRepository.resumirPorCredito(1L)).thenReturn(new ArrayList<>(List.<Object[]>of(
+            new Object[] { TipoMovimiento.APERTURA, null, INICIO, 3L, 1000.0 }
+        )));
+
+        service.sincronizar(1L);
+
+        ArgumentCaptor<List<CreditoMovimiento>> filas = ArgumentCaptor.forClass(List.class);
+        verify(movimientoRepository).saveAll(filas.capture());
+        CreditoMovimiento anulacion = filas.getValue().get(0);
+        assertEquals(TipoMovimiento.ANULACION, anulacion.getTipo());
+        assertEquals(-1000.0, anulacion.getMonto());
+        assertEquals(LocalDate.of(2026, 4, 2), anulacion.getFecha());
+        assertEquals(0.0, anulacion.getSaldo());
+    }
+
+    @Test
+    void sinCambiosNoAgregaMovimientos() {
+        Credito credito = credito(1000.0, 0.0);
+        when(creditoRepository.findById(1L)).thenReturn(Optional.of(credito));
+        when(movimientoRepository.resumirPorCredito(1L)).thenReturn(new ArrayList<>(List.<Object[]>of(
+            new Object[] { TipoMovimiento.APERTURA, null, INICIO, 3L, 1000.0 }
+        )));
+
+        assertEquals(0, service.sincronizar(1L));
+        verify(movimientoRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void corteEsElUltimoFinDeMesTerminado() {
+        LocalDate hoy = LocalDate.of(2025, 5, 14);
+        assertEquals(LocalDate.of(2025, 3, 31), CreditoMovimientoService.corteAplicable(LocalDate.of(2025, 3, 31), hoy));
+        assertEquals(LocalDate.of(2025, 3, 31), CreditoMovimientoService.corteAplicable(LocalDate.of(2025, 4, 20), hoy));
+        // Mes en curso o futuro: el último mes cerrado
+        assertEquals(LocalDate.of(2025, 4, 30), CreditoMovimientoService.corteAplicable(LocalDate.of(2025, 5, 31), hoy));
+        assertEquals(LocalDate.of(2025, 4, 30), CreditoMovimientoService.corteAplicable(LocalDate.of(2025, 8, 31), hoy));
+    }
+
+    @Test
+    void saldoAFechaLeeElCierreYSoloLosMovimientosPosteriores() {
+        LocalDate corte = LocalDate.of(2025, 3, 31);
+        when(corteRepository.bloquearCorte(corte)).thenReturn(Optional.of(new CreditoCorteMes(corte, LocalDateTime.now())));
+        when(movimientoRepository.saldoPendienteDesdeCortePorSede(3L, corte, LocalDate.of(2025, 4, 15))).thenReturn(500.0);
+
+        assertEquals(500.0, service.saldoPendienteAFecha(3L, LocalDate.of(2025, 4, 15)));
+
+        verify(movimientoRepository, never()).saldoPendienteAFechaPorSede(anyLong(), any());
+        verify(corteRepository, never()).bloquearTodos();
+    }
+
+    @Test
+    void cierreFaltanteSeArmaDesdeElCierreAnterior() {
+        LocalDate corte = LocalDate.of(2025, 4, 30);
+        when(corteRepository.bloquearCorte(corte))
+            .thenReturn(Optional.empty(), Optional.of(new CreditoCorteMes(corte, LocalDateTime.now())));
+        when(corteRepository.ultimoCorteHasta(corte)).thenReturn(LocalDate.of(2025, 2, 28));
+        when(movimientoRepository.saldoPendienteDesdeCorte(corte, corte)).thenReturn(200.0);
+
+        assertEquals(200.0, service.saldoPendienteAFecha(null, corte));
+
+        InOrder orden = inOrder(corteRepository);
+        orden.verify(corteRepository).bloquearTodos();
+        orden.verify(corteRepository).insertarSaldosDesdeCorte(LocalDate.of(2025, 2, 28), LocalDate.of(2025, 3, 31));
+        orden.verify(corteRepository).insertarSaldosDesdeCorte(LocalDate.of(2025, 3, 31), corte);
+        verify(corteRepository, times(2)).save(any());
+        verify(corteRepository, never()).insertarSaldosDesdeLibro(any());
+        verify(movimientoRepository, never()).saldoPendienteAFecha(any());
+    }
+
+    @Test
+    void siElCierreFallaSumaTodoElLibro() {
+        LocalDate corte = LocalDate.of(2025, 3, 31);
+        when(corteRepository.bloquearCorte(corte)).thenThrow(new RuntimeException("Deadlock"));
+        when(movimientoRepository.saldoPendienteAFecha(corte)).thenReturn(900.0);
+
+        assertEquals(900.0, service.saldoPendienteAFecha(null, corte));
+    }
+
+    private Credito credito(double total, double retencionFuente) {
+        Sede sede = new Sede();
+        sede.setId(3L);
+        Orden orden = new Orden();
+        orden.setSede(sede);
+        orden.setTieneRetencionFuente(retencionFuente > 0);
+        orden.setRetencionFuente(retencionFuente);
+
+        Credito credito = new Credito();
+        credito.setId(1L);
+        credito.setOrden(orden);
+        credito.setFechaInicio(INICIO);
+        credito.setTotalCredito(total);
+        credito.setTotalAbonado(0.0);
+        return credito;
+    }
+
+    private Abono abono(Long id, LocalDate fecha, double total) {
+        Abono abono = new Abono();
+        abono.setId(id);
+        abono.setFecha(fecha);
+        abono.setTotal(total);
+        return abono;
+    }
+}
@@ -0,0 +1,124 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.Abono;
+import com.casaglass.casaglass_backend.model.Credito;
+import com.casaglass.casaglass_backend.model.Orden;
+import com.casaglass.casaglass_backend.repository.CreditoRepository;
+import com.casaglass.casaglass_backend.repository.FacturaRepository;
+import com.casaglass.casaglass_backend.repository.SedeRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CreditoServiceAbonosTest {
+
+    @Mock
+    private CreditoRepository creditoRepo;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private FacturaRepository facturaRepository;
+
+    @Mock
+    private EntregaClienteEspecialService entregaClienteEspecialService;
+
+    @Mock
+    private SedeRepository sedeRepository;
+
+    @Mock
+    private CreditoMovimientoService creditoMovimientoService;
+
+    @InjectMocks
+    private CreditoService service;
+
+    @Test
+    void editarUnAbonoSoloReescribeLosPosteriores() {
+        Credito credito = credito(1000.0);
+        Abono primero = abono(1L, LocalDate.of(2026, 1, 5), 100.0, 900.0);
+        Abono segundo = abono(2L, LocalDate.of(2026, 2, 5), 200.0, 700.0);
+        Abono tercero = abono(3L, LocalDate.of(2026, 3, 5), 300.0, 400.0);
+        credito.getAbonos().add(tercero);
+        credito.getAbonos().add(primero);
+        credito.getAbonos().add(segundo);
+        credito.setTotalAbonado(600.0);
+        when(creditoRepo.save(any(Credito.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // El segundo abono pasa de 200 a 250
+        segundo.setTotal(250.0);
+        service.aplicarCambioAbonos(credito, 50.0, segundo.getFecha(), segundo.getId());
+
+        assertEquals(650.0, credito.getTotalAbonado());
+        assertEquals(350.0, credito.getSaldoPendiente());
+        assertEquals(900.0, primero.getSaldo());
+        assertEquals(650.0, segundo.getSaldo());
+        assertEquals(350.0, tercero.getSaldo());
+        verify(creditoMovimientoService).registrarCambio(1L);
+    }
+
+    @Test
+    void recalcularTotalesConservaLosAbonosQueSoloRegistraElLibro() {
+        Credito credito = credito(1000.0);
+        Abono primero = abono(1L, LocalDate.of(2026, 1, 5), 100.0, 0.0);
+        Abono segundo = abono(2L, LocalDate.of(2026, 2, 5), 200.0, 0.0);
+        credito.getAbonos().add(primero);
+        credito.getAbonos().add(segundo);
+        credito.setTotalAbonado(0.0);
+        when(creditoRepo.findById(1L)).thenReturn(Optional.of(credito));
+        when(creditoRepo.save(any(Credito.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(creditoMovimientoService.abonosSinRegistro(1L)).thenReturn(150.0);
+
+        service.recalcularTotales(1L);
+
+        assertEquals(450.0, credito.getTotalAbonado());
+        assertEquals(550.0, credito.getSaldoPendiente());
+        verify(creditoMovimientoService).registrarCambio(1L);
+    }
+
+    @Test
+    void eliminarElPrimerAbonoParteDelSaldoInicial() {
+        Credito credito = credito(1000.0);
+        Abono primero = abono(1L, LocalDate.of(2026, 1, 5), 100.0, 900.0);
+        Abono segundo = abono(2L, LocalDate.of(2026, 2, 5), 200.0, 700.0);
+        credito.getAbonos().add(segundo);
+        credito.setTotalAbonado(300.0);
+        when(creditoRepo.save(any(Credito.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.aplicarCambioAbonos(credito, -100.0, primero.getFecha(), primero.getId());
+
+        assertEquals(200.0, credito.getTotalAbonado());
+        assertEquals(800.0, segundo.getSaldo());
+    }
+
+    private Credito credito(double total) {
+        Credito credito = new Credito();
+        credito.setId(1L);
+        credito.setOrden(new Orden());
+        credito.setTotalCredito(total);
+        credito.setSaldoPendiente(total);
+        credito.setTotalAbonado(0.0);
+        return credito;
+    }
+
+    private Abono abono(Long id, LocalDate fecha, double total, double saldo) {
+        Abono abono = new Abono();
+        abono.setId(id);
+        abono.setFecha(fecha);
+        abono.setTotal(total);
+        abono.setSaldo(saldo);
+        return abono;
+    }
+}
@@ -0,0 +1,114 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.Cliente;
+import com.casaglass.casaglass_backend.model.Credito;
+import com.casaglass.casaglass_backend.model.EntregaDetalle;
+import com.casaglass.casaglass_backend.model.EntregaDinero;
+import com.casaglass.casaglass_backend.model.Orden;
+import com.casaglass.casaglass_backend.repository.AbonoRepository;
+import com.casaglass.casaglass_backend.repository.EntregaDetalleRepository;
+import com.casaglass.casaglass_backend.repository.OrdenRepository;
+import com.casaglass.casaglass_backend.repository.ReembolsoVentaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EntregaDetalleServiceLoteTest {
+
+    @Mock
+    private EntregaDetalleRepository entregaDetalleRepository;
+
+    @Mock
+    private OrdenRepository ordenRepository;
+
+    @Mock
+    private AbonoRepository abonoRepository;
+
+    @Mock
+    private ReembolsoVentaRepository reembolsoVentaRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PendienteEntregaService pendienteEntregaService;
+
+    @InjectMocks
+    private EntregaDetalleService service;
+
+    @Test
+    void validaTodasLasOrdenesConUnaConsultaPorTipo() {
+        when(ordenRepository.findByIdIn(List.of(1L, 2L))).thenReturn(List.of(orden(1L, 10L, 100.0), orden(2L, 11L, 50.0)));
+        when(entregaDetalleRepository.findOrdenIdsEnEntregas(eq(List.of(1L, 2L)), anyList())).thenReturn(List.of());
+
+        List<EntregaDetalle> detalles = service.prepararDetallesEnLote(List.of(1L, 2L), null, null);
+
+        assertEquals(2, detalles.size());
+        assertEquals(150.0, service.calcularDineroReal(detalles));
+        verify(ordenRepository, never()).findById(1L);
+    }
+
+    @Test
+    void rechazaClienteEspecialOrdenYaEntregadaYDuplicados() {
+        when(ordenRepository.findByIdIn(List.of(3L))).thenReturn(List.of(orden(3L, 499L, 80.0)));
+        RuntimeException especial = assertThrows(RuntimeException.class,
+            () -> service.prepararDetallesEnLote(List.of(3L), null, null));
+        assertTrue(especial.getMessage().contains("cliente especial"));
+
+        when(ordenRepository.findByIdIn(List.of(4L))).thenReturn(List.of(orden(4L, 10L, 80.0)));
+        when(entregaDetalleRepository.findOrdenIdsEnEntregas(eq(List.of(4L)), anyList())).thenReturn(List.of(4L));
+        RuntimeException entregada = assertThrows(RuntimeException.class,
+            () -> service.prepararDetallesEnLote(List.of(4L), null, null));
+        assertTrue(entregada.getMessage().contains("ya está incluida en otra entrega"));
+
+        assertThrows(RuntimeException.class, () -> service.prepararDetallesEnLote(List.of(5L, 5L), null, null));
+    }
+
+    @Test
+    void insertaLosDetallesEnUnSoloBatchYMarcaLasOrdenesAContado() {
+        Orden contado = orden(1L, 10L, 100.0);
+        Orden credito = orden(2L, 11L, 60.0);
+        credito.setCredito(true);
+        credito.setCreditoDetalle(new Credito());
+        when(ordenRepository.findByIdIn(List.of(1L, 2L))).thenReturn(List.of(contado, credito));
+        when(entregaDetalleRepository.findOrdenIdsEnEntregas(eq(List.of(1L, 2L)), anyList())).thenReturn(List.of());
+        List<EntregaDetalle> detalles = service.prepararDetallesEnLote(List.of(1L, 2L), null, null);
+
+        EntregaDinero entrega = new EntregaDinero();
+        entrega.setId(7L);
+        service.insertarDetallesEnLote(entrega, detalles);
+
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+        verify(ordenRepository).marcarIncluidasEnEntrega(List.of(1L));
+        verify(pendienteEntregaService).registrarCambioOrdenes(Set.of(1L, 2L));
+    }
+
+    private Orden orden(Long id, Long clienteId, double total) {
+        Cliente cliente = new Cliente();
+        cliente.setId(clienteId);
+        cliente.setNombre("Cliente " + clienteId);
+        Orden orden = new Orden();
+        orden.setId(id);
+        orden.setNumero(1000L + id);
+        orden.setCliente(cliente);
+        orden.setTotal(total);
+        return orden;
+    }
+}
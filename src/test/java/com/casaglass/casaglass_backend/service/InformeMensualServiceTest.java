@@ -0,0 +1,123 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.config.EjecutoresConfig;
+import com.casaglass.casaglass_backend.dto.InformeMensualResponseDTO;
+import com.casaglass.casaglass_backend.model.Sede;
+import com.casaglass.casaglass_backend.repository.AbonoRepository;
+import com.casaglass.casaglass_backend.repository.CierreInformeMensualSedeRepository;
+import com.casaglass.casaglass_backend.repository.CreditoRepository;
+import com.casaglass.casaglass_backend.repository.InventarioCorteRepository;
+import com.casaglass.casaglass_backend.repository.InventarioRepository;
+import com.casaglass.casaglass_backend.repository.OrdenRepository;
+import com.casaglass.casaglass_backend.repository.ReembolsoVentaRepository;
+import com.casaglass.casaglass_backend.repository.SedeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InformeMensualServiceTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2026, 3, 1);
+    private static final LocalDate FIN = LocalDate.of(2026, 3, 31);
+
+    @Mock
+    private SedeRepository sedeRepository;
+
+    @Mock
+    private OrdenRepository ordenRepository;
+
+    @Mock
+    private InventarioRepository inventarioRepository;
+
+    @Mock
+    private InventarioCorteRepository inventarioCorteRepository;
+
+    @Mock
+    private CierreInformeMensualSedeRepository cierreInformeRepository;
+
+    @Mock
+    private CreditoRepository creditoRepository;
+
+    @Mock
+    private CreditoMovimientoService creditoMovimientoService;
+
+    @Mock
+    private AbonoRepository abonoRepository;
+
+    @Mock
+    private ReembolsoVentaRepository reembolsoVentaRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private InformeMensualService service;
+
+    @BeforeEach
+    void setUp() {
+        executor = new EjecutoresConfig().informeMensualExecutor(2);
+        executor.initialize();
+        service = new InformeMensualService(sedeRepository, ordenRepository, inventarioRepository,
+            inventarioCorteRepository, cierreInformeRepository, creditoRepository, creditoMovimientoService,
+            abonoRepository, reembolsoVentaRepository, transactionManager, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void previewDeTodasLasSedesUsaSoloAgregadosYRespetaElOrdenDeSedes() {
+        when(sedeRepository.findAll()).thenReturn(List.of(sede(2L, "Centro"), sede(1L, "Insula")));
+        when(ordenRepository.resumenVentasPorSedeEnPeriodo(1L, INICIO, FIN))
+            .thenReturn(List.<Object[]>of(new Object[] {1000.0, 600.0, 10L, 19L, 10L}));
+        when(ordenRepository.resumenVentasPorSedeEnPeriodo(2L, INICIO, FIN))
+            .thenReturn(List.<Object[]>of(new Object[] {0.0, 0.0, null, null, 0L}));
+        when(abonoRepository.sumTotalAbonosPorSedeEnPeriodo(anyLong(), any(), any())).thenReturn(150.0);
+        when(reembolsoVentaRepository.sumTotalReembolsosPorSedeEnPeriodo(anyLong(), any(), any())).thenReturn(50.0);
+        when(creditoRepository.sumTotalCreditoPorSedeEnPeriodo(anyLong(), any(), any())).thenReturn(400.0);
+        when(creditoMovimientoService.saldoPendienteAFecha(anyLong(), any())).thenReturn(900.0);
+        when(inventarioRepository.valorInventarioPorSede(anyLong())).thenReturn(2000.0);
+        when(inventarioCorteRepository.valorInventarioPorSede(anyLong())).thenReturn(345.678);
+
+        List<InformeMensualResponseDTO> informes = service.calcularPreviewTodasLasSedes(2026, 3);
+
+        assertEquals(List.of(1L, 2L), informes.stream().map(i -> i.getSede().getId()).toList());
+        InformeMensualResponseDTO insula = informes.get(0);
+        assertEquals(1000.0, insula.getVentasMes());
+        assertEquals(700.0, insula.getDineroRecogidoMes());
+        assertEquals(400.0, insula.getDeudasMes());
+        assertEquals(2345.68, insula.getValorInventario());
+        assertEquals(10L, insula.getOrdenesVentasMes().getNumeroMin());
+        assertEquals(10, insula.getOrdenesVentasMes().getCantidad());
+        assertNull(informes.get(1).getOrdenesVentasMes().getNumeroMin());
+        verify(inventarioRepository, never()).findBySedeId(anyLong());
+        verify(ordenRepository, never()).findBySedeIdAndFechaBetweenAndVentaTrue(anyLong(), any(), any());
+    }
+
+    private Sede sede(Long id, String nombre) {
+        Sede sede = new Sede();
+        sede.setId(id);
+        sede.setNombre(nombre);
+        return sede;
+    }
+}
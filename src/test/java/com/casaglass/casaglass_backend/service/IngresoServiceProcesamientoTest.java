@@ -0,0 +1,209 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.Ingreso;
+import com.casaglass.casaglass_backend.model.Ingreso.EstadoProcesamiento;
+import com.casaglass.casaglass_backend.model.IngresoDetalle;
+import com.casaglass.casaglass_backend.model.Producto;
+import com.casaglass.casaglass_backend.model.Sede;
+import com.casaglass.casaglass_backend.repository.IngresoDetalleRepository;
+import com.casaglass.casaglass_backend.repository.IngresoRepository;
+import com.casaglass.casaglass_backend.repository.ProductoRepository;
+import com.casaglass.casaglass_backend.repository.ProveedorRepository;
+import com.casaglass.casaglass_backend.repository.SedeRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IngresoServiceProcesamientoTest {
+
+    private static final List<EstadoProcesamiento> ACTIVOS =
+        List.of(EstadoProcesamiento.EN_COLA, EstadoProcesamiento.EN_PROCESO);
+
+    @Mock
+    private IngresoRepository ingresoRepository;
+
+    @Mock
+    private IngresoDetalleRepository ingresoDetalleRepository;
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @Mock
+    private SedeRepository sedeRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private ProveedorRepository proveedorRepository;
+
+    @Mock
+    private CostoPromedioService costoPromedioService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private IngresoService service;
+
+    @BeforeEach
+    void setUp() {
+        // Ejecutor síncrono: la tarea en segundo plano corre dentro de la llamada
+        service = new IngresoService(ingresoRepository, ingresoDetalleRepository, inventarioService, sedeRepository,
+            productoRepository, proveedorRepository, costoPromedioService, entityManager, Runnable::run,
+            transactionManager, "instancia-a", 10);
+    }
+
+    @Test
+    void segundoPlanoPasaDeEnColaAEnProcesoYTerminaCompletado() {
+        Ingreso ingreso = ingreso(EstadoProcesamiento.EN_COLA);
+        when(ingresoRepository.encolarProcesamiento(eq(7L), eq(EstadoProcesamiento.EN_COLA), eq(ACTIVOS), eq("instancia-a"), any())).thenReturn(1);
+        when(ingresoRepository.findByIdWithDetalles(7L)).thenReturn(ingreso);
+        when(ingresoRepository.findById(7L)).thenReturn(Optional.of(ingreso));
+        when(sedeRepository.findById(1L)).thenReturn(Optional.of(sede()));
+        when(costoPromedioService.aplicarEntradas(eq(7L), anyMap()))
+            .thenReturn(new CostoPromedioService.Resultado(Map.of(10L, 5.0), Set.of()));
+
+        Map<String, Object> estado = service.procesarInventarioEnSegundoPlano(7L);
+
+        verify(ingresoRepository).actualizarProcesamiento(eq(7L), eq(EstadoProcesamiento.EN_PROCESO), eq(0), eq(1), isNull(), any());
+        verify(inventarioService).sumarEnLoteOCrear(eq(1L), eq(Map.of(10L, 4.0)), any());
+        verify(ingresoRepository).save(ingreso);
+        assertTrue(ingreso.getProcesado());
+        assertEquals(EstadoProcesamiento.COMPLETADO, estado.get("estadoProcesamiento"));
+        assertEquals(5.0, ingreso.getDetalles().get(0).getCostoUnitarioPonderado());
+    }
+
+    @Test
+    void segundoPlanoQueFallaQuedaEnErrorSinTocarInventario() {
+        Ingreso ingreso = ingreso(EstadoProcesamiento.EN_COLA);
+        when(ingresoRepository.encolarProcesamiento(eq(7L), eq(EstadoProcesamiento.EN_COLA), eq(ACTIVOS), eq("instancia-a"), any())).thenReturn(1);
+        when(ingresoRepository.findByIdWithDetalles(7L)).thenReturn(ingreso);
+        when(ingresoRepository.findById(7L)).thenReturn(Optional.of(ingreso));
+        when(sedeRepository.findById(1L)).thenReturn(Optional.of(sede()));
+        when(costoPromedioService.aplicarEntradas(eq(7L), anyMap()))
+            .thenThrow(new RuntimeException("Producto bloqueado"));
+
+        service.procesarInventarioEnSegundoPlano(7L);
+
+        verify(ingresoRepository).actualizarProcesamiento(eq(7L), eq(EstadoProcesamiento.ERROR), eq(0), isNull(), eq("Producto bloqueado"), any());
+        verify(inventarioService, never()).sumarEnLoteOCrear(anyLong(), anyMap(), any());
+        assertFalse(ingreso.getProcesado());
+    }
+
+    @Test
+    void segundoPlanoRechazaUnIngresoQueYaSeEstaProcesando() {
+        when(ingresoRepository.encolarProcesamiento(eq(7L), eq(EstadoProcesamiento.EN_COLA), eq(ACTIVOS), eq("instancia-a"), any())).thenReturn(0);
+        when(ingresoRepository.findById(7L)).thenReturn(Optional.of(ingreso(EstadoProcesamiento.EN_PROCESO)));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+            () -> service.procesarInventarioEnSegundoPlano(7L));
+
+        assertEquals(HttpStatus.CONFLICT, error.getStatusCode());
+        verify(ingresoRepository, never()).findByIdWithDetalles(anyLong());
+    }
+
+    @Test
+    void procesarEnLaPeticionRechazaUnIngresoEnCola() {
+        when(ingresoRepository.bloquearPorId(7L)).thenReturn(Optional.of(ingreso(EstadoProcesamiento.EN_COLA)));
+
+        ResponseStatusException error = assertThrows(ResponseStatusException.class,
+            () -> service.procesarInventarioPorId(7L));
+
+        assertEquals(HttpStatus.CONFLICT, error.getStatusCode());
+        verify(ingresoRepository, never()).findByIdWithDetalles(anyLong());
+        verifyNoInteractions(costoPromedioService, inventarioService);
+    }
+
+    @Test
+    void marcarYReprocesarTambienRespetanElProcesamientoActivo() {
+        when(ingresoRepository.bloquearPorId(7L)).thenReturn(Optional.of(ingreso(EstadoProcesamiento.EN_PROCESO)));
+
+        assertThrows(ResponseStatusException.class, () -> service.marcarComoProcesado(7L));
+        assertThrows(ResponseStatusException.class, () -> service.reprocesarInventario(7L));
+        verify(ingresoRepository, never()).save(any());
+    }
+
+    @Test
+    void reprocesarUnIngresoProcesadoNoVuelveAPromediarElCosto() {
+        Ingreso ingreso = ingreso(EstadoProcesamiento.COMPLETADO);
+        ingreso.setProcesado(true);
+        when(ingresoRepository.bloquearPorId(7L)).thenReturn(Optional.of(ingreso));
+        when(ingresoRepository.findByIdWithDetalles(7L)).thenReturn(ingreso);
+        when(sedeRepository.findById(1L)).thenReturn(Optional.of(sede()));
+
+        service.reprocesarInventario(7L);
+
+        verifyNoInteractions(costoPromedioService);
+        verify(inventarioService).sumarEnLoteOCrear(eq(1L), eq(Map.of(10L, 4.0)), any());
+        assertTrue(ingreso.getProcesado());
+    }
+
+    @Test
+    void alArrancarSoloQuedanEnErrorLosDeEstaInstanciaOConLatidoVencido() {
+        when(ingresoRepository.marcarInterrumpidos(eq(EstadoProcesamiento.ERROR), eq(ACTIVOS), any(), any(), any()))
+            .thenReturn(2);
+
+        LocalDateTime antes = LocalDateTime.now();
+        service.marcarProcesamientosInterrumpidos();
+
+        ArgumentCaptor<LocalDateTime> vencido = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(ingresoRepository).marcarInterrumpidos(eq(EstadoProcesamiento.ERROR), eq(ACTIVOS),
+            eq("Procesamiento interrumpido por reinicio del servidor, intente nuevamente"),
+            eq("instancia-a"), vencido.capture());
+        assertFalse(vencido.getValue().isAfter(LocalDateTime.now().minusMinutes(10)));
+        assertFalse(vencido.getValue().isBefore(antes.minusMinutes(10)));
+    }
+
+    private static Ingreso ingreso(EstadoProcesamiento estado) {
+        Producto producto = new Producto();
+        producto.setId(10L);
+        IngresoDetalle detalle = new IngresoDetalle();
+        detalle.setProducto(producto);
+        detalle.setCantidad(4.0);
+        detalle.setCostoUnitario(5.0);
+        Ingreso ingreso = new Ingreso();
+        ingreso.setId(7L);
+        ingreso.setProcesado(false);
+        ingreso.setEstadoProcesamiento(estado);
+        ingreso.getDetalles().add(detalle);
+        detalle.setIngreso(ingreso);
+        return ingreso;
+    }
+
+    private static Sede sede() {
+        Sede sede = new Sede();
+        sede.setId(1L);
+        return sede;
+    }
+}
@@ -0,0 +1,125 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.model.Inventario;
+import com.casaglass.casaglass_backend.model.Producto;
+import com.casaglass.casaglass_backend.repository.CorteRepository;
+import com.casaglass.casaglass_backend.repository.InventarioRepository;
+import com.casaglass.casaglass_backend.repository.SedeRepository;
+import com.casaglass.casaglass_backend.repository.UpsertSumaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InventarioServiceLoteTest {
+
+    @Mock
+    private InventarioRepository repo;
+
+    @Mock
+    private EntityManager em;
+
+    @Mock
+    private SedeRepository sedeRepo;
+
+    @Mock
+    private CorteRepository corteRepository;
+
+    @Mock
+    private UpsertSumaRepository upsertSuma;
+
+    @InjectMocks
+    private InventarioService service;
+
+    @Test
+    void aplicaTodasLasLineasConUnSoloBloqueoYUnFlush() {
+        Inventario perfil = inventario(10L, 5.0);
+        Inventario vidrio = inventario(20L, 1.0);
+        when(repo.bloquearPorSedeYProductos(1L, Set.of(10L, 20L))).thenReturn(List.of(perfil, vidrio));
+
+        service.aplicarMovimientosEnLote(1L, Map.of(10L, -3.0, 20L, -2.5));
+
+        assertEquals(2.0, perfil.getCantidad());
+        // Se permiten negativos (venta anticipada)
+        assertEquals(-1.5, vidrio.getCantidad());
+        verify(em).flush();
+    }
+
+    @Test
+    void sinInventarioEnLaSedeNoModificaNada() {
+        Inventario perfil = inventario(10L, 5.0);
+        when(repo.bloquearPorSedeYProductos(1L, Set.of(10L, 30L))).thenReturn(List.of(perfil));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> service.aplicarMovimientosEnLote(1L, Map.of(10L, -1.0, 30L, -1.0)));
+        assertEquals(5.0, perfil.getCantidad());
+        verify(em, never()).flush();
+    }
+
+    @Test
+    void ignoraVariacionesEnCero() {
+        service.aplicarMovimientosEnLote(1L, Map.of(10L, 0.0));
+        verify(repo, never()).bloquearPorSedeYProductos(anyLong(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void ingresoMasivoSumaTodoConElUpsertEnOrdenDeProducto() {
+        Map<Long, Double> cantidades = new HashMap<>();
+        for (long id = 250; id >= 1; id--) {
+            cantidades.put(id, 2.0);
+        }
+        when(corteRepository.findIdsByIdIn(anyList())).thenReturn(List.of());
+        IntConsumer avance = n -> { };
+
+        service.sumarEnLoteOCrear(1L, cantidades, avance);
+
+        verify(em).flush();
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(upsertSuma).sumar(eq("inventario"), eq(List.of("producto_id", "sede_id")), eq(List.of("cantidad")),
+            eq("version"), filas.capture(), eq(UpsertSumaRepository.FILAS_POR_SENTENCIA), same(avance));
+        assertEquals(250, filas.getValue().size());
+        assertArrayEquals(new Object[] {1L, 1L, 2.0}, filas.getValue().get(0));
+    }
+
+    @Test
+    void ingresoMasivoRechazaCortesSinTocarInventario() {
+        when(corteRepository.findIdsByIdIn(List.of(10L, 20L))).thenReturn(List.of(20L));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> service.sumarEnLoteOCrear(1L, Map.of(10L, 1.0, 20L, 1.0), null));
+        verifyNoInteractions(upsertSuma);
+    }
+
+    private Inventario inventario(Long productoId, double cantidad) {
+        Producto producto = new Producto();
+        producto.setId(productoId);
+        Inventario inventario = new Inventario();
+        inventario.setProducto(producto);
+        inventario.setCantidad(cantidad);
+        return inventario;
+    }
+}
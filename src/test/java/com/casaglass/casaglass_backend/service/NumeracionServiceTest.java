@@ -0,0 +1,102 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.dto.AuditoriaNumeracionDTO;
+import com.casaglass.casaglass_backend.model.SecuenciaNumeracion;
+import com.casaglass.casaglass_backend.repository.FacturaRepository;
+import com.casaglass.casaglass_backend.repository.OrdenRepository;
+import com.casaglass.casaglass_backend.repository.SecuenciaNumeracionRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NumeracionServiceTest {
+
+    @Mock
+    private SecuenciaNumeracionRepository secuenciaRepository;
+
+    @Mock
+    private OrdenRepository ordenRepository;
+
+    @Mock
+    private FacturaRepository facturaRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private NumeracionService crearServicio(int bloque) {
+        return new NumeracionService(secuenciaRepository, ordenRepository, facturaRepository, transactionManager, bloque, bloque);
+    }
+
+    @Test
+    void entregaNumerosDelBloqueSinVolverABaseDeDatos() {
+        SecuenciaNumeracion fila = new SecuenciaNumeracion("ORDEN", 100L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(secuenciaRepository.existsById("ORDEN")).thenReturn(true);
+        when(secuenciaRepository.findByNombreForUpdate("ORDEN")).thenReturn(Optional.of(fila));
+        when(ordenRepository.obtenerSiguienteNumero()).thenReturn(90L);
+
+        NumeracionService service = crearServicio(3);
+
+        assertEquals(100L, service.siguiente(NumeracionService.SECUENCIA_ORDEN));
+        assertEquals(101L, service.siguiente(NumeracionService.SECUENCIA_ORDEN));
+        assertEquals(102L, service.siguiente(NumeracionService.SECUENCIA_ORDEN));
+        assertEquals(103L, fila.getSiguienteValor());
+        verify(secuenciaRepository, times(1)).findByNombreForUpdate("ORDEN");
+
+        // Al agotarse el bloque se reserva el siguiente
+        assertEquals(103L, service.siguiente(NumeracionService.SECUENCIA_ORDEN));
+        assertEquals(106L, fila.getSiguienteValor());
+        verify(secuenciaRepository, times(2)).findByNombreForUpdate("ORDEN");
+    }
+
+    @Test
+    void nuncaReservaPorDebajoDeLosNumerosExistentes() {
+        SecuenciaNumeracion fila = new SecuenciaNumeracion("FACTURA", 1L);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(secuenciaRepository.existsById("FACTURA")).thenReturn(true);
+        when(secuenciaRepository.findByNombreForUpdate("FACTURA")).thenReturn(Optional.of(fila));
+        when(facturaRepository.obtenerSiguienteNumero()).thenReturn(5852L);
+
+        NumeracionService service = crearServicio(10);
+
+        assertEquals(5852L, service.siguiente("factura"));
+        assertEquals(5862L, fila.getSiguienteValor());
+    }
+
+    @Test
+    void auditoriaReportaHuecos() {
+        // Emitidos: 1, 2, 5, 6, 9
+        when(ordenRepository.resumenNumeracion()).thenReturn(List.<Object[]>of(new Object[] { 1L, 9L, 5L }));
+        when(ordenRepository.listarHuecosNumeracion()).thenReturn(List.of(new Object[] { 3L, 4L }, new Object[] { 7L, 8L }));
+        when(secuenciaRepository.findById("ORDEN")).thenReturn(Optional.empty());
+
+        AuditoriaNumeracionDTO auditoria = crearServicio(50).auditarHuecos("ORDEN");
+
+        assertEquals(5, auditoria.getCantidadEmitidos());
+        assertEquals(4, auditoria.getTotalFaltantes());
+        assertEquals(2, auditoria.getHuecos().size());
+        assertEquals(3L, auditoria.getHuecos().get(0).getDesde());
+        assertEquals(4L, auditoria.getHuecos().get(0).getHasta());
+        assertEquals(7L, auditoria.getHuecos().get(1).getDesde());
+        assertEquals(2, auditoria.getHuecos().get(1).getCantidad());
+    }
+
+    @Test
+    void secuenciaDesconocidaEsRechazada() {
+        assertThrows(IllegalArgumentException.class, () -> crearServicio(50).siguiente("REMISION"));
+    }
+}
@@ -0,0 +1,130 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.dto.TotalesEntregaPorMedioDTO;
+import com.casaglass.casaglass_backend.model.Cliente;
+import com.casaglass.casaglass_backend.model.EntregaDetalle;
+import com.casaglass.casaglass_backend.model.Orden;
+import com.casaglass.casaglass_backend.model.PendienteEntrega;
+import com.casaglass.casaglass_backend.model.ReembolsoVenta;
+import com.casaglass.casaglass_backend.model.Sede;
+import com.casaglass.casaglass_backend.repository.AbonoRepository;
+import com.casaglass.casaglass_backend.repository.OrdenRepository;
+import com.casaglass.casaglass_backend.repository.PendienteEntregaRepository;
+import com.casaglass.casaglass_backend.repository.ReembolsoVentaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PendienteEntregaServiceTest {
+
+    @Mock
+    private PendienteEntregaRepository pendienteRepository;
+
+    @Mock
+    private OrdenRepository ordenRepository;
+
+    @Mock
+    private AbonoRepository abonoRepository;
+
+    @Mock
+    private ReembolsoVentaRepository reembolsoVentaRepository;
+
+    @InjectMocks
+    private PendienteEntregaService service;
+
+    @Test
+    void sinTransaccionRehaceLasFilasDeLaOrdenConSuAportePorMedio() {
+        Orden orden = orden(1L, 100.0);
+        ReembolsoVenta reembolso = new ReembolsoVenta();
+        reembolso.setId(9L);
+        reembolso.setOrdenOriginal(orden);
+        reembolso.setCliente(orden.getCliente());
+        reembolso.setFecha(LocalDate.of(2026, 3, 5));
+        reembolso.setTotalReembolso(30.0);
+        reembolso.setFormaReembolso(ReembolsoVenta.FormaReembolso.EFECTIVO);
+
+        when(ordenRepository.findOrdenesContadoDisponiblesParaEntregaPorIds(List.of(1L))).thenReturn(List.of(orden));
+        when(abonoRepository.findAbonosDisponiblesParaEntregaPorOrdenes(List.of(1L))).thenReturn(List.of());
+        when(reembolsoVentaRepository.findReembolsosDisponiblesParaEntregaPorOrdenes(List.of(1L))).thenReturn(List.of(reembolso));
+
+        service.registrarCambioOrden(1L);
+
+        verify(pendienteRepository).eliminarPorOrdenes(List.of(1L));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PendienteEntrega>> filas = ArgumentCaptor.forClass(List.class);
+        verify(pendienteRepository).saveAll(filas.capture());
+
+        PendienteEntrega venta = filas.getValue().get(0);
+        assertEquals(PendienteEntrega.TipoPendiente.ORDEN, venta.getTipo());
+        assertEquals(2L, venta.getSedeId());
+        assertEquals(100.0, venta.getMontoEfectivo());
+
+        PendienteEntrega egreso = filas.getValue().get(1);
+        assertEquals(PendienteEntrega.TipoPendiente.REEMBOLSO, egreso.getTipo());
+        assertEquals(EntregaDetalle.TipoMovimiento.EGRESO, egreso.getTipoMovimiento());
+        assertEquals(30.0, egreso.getMonto());
+        assertEquals(-30.0, egreso.getMontoEfectivo());
+    }
+
+    @Test
+    void resumenSumaLosAportesYRestaLosEgresos() {
+        when(pendienteRepository.findBySedeIdOrderByFechaAscIdAsc(2L)).thenReturn(List.of(
+            pendiente(PendienteEntrega.TipoPendiente.ORDEN, EntregaDetalle.TipoMovimiento.INGRESO, 100.0, 60.0, 40.0),
+            pendiente(PendienteEntrega.TipoPendiente.ABONO, EntregaDetalle.TipoMovimiento.INGRESO, 50.0, 0.0, 50.0),
+            pendiente(PendienteEntrega.TipoPendiente.REEMBOLSO, EntregaDetalle.TipoMovimiento.EGRESO, 30.0, -30.0, 0.0)
+        ));
+
+        Map<String, Object> resumen = service.resumenPorSede(2L);
+
+        TotalesEntregaPorMedioDTO totales = (TotalesEntregaPorMedioDTO) resumen.get("totalesPorMedio");
+        assertEquals(30.0, totales.getEfectivo());
+        assertEquals(90.0, totales.getTransferencia());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> conteos = (Map<String, Object>) resumen.get("totales");
+        assertEquals(120.0, conteos.get("monto"));
+        assertEquals(1L, conteos.get("reembolsos"));
+    }
+
+    private Orden orden(Long id, double total) {
+        Cliente cliente = new Cliente();
+        cliente.setId(20L);
+        cliente.setNombre("Vidrios del Centro");
+        Sede sede = new Sede();
+        sede.setId(2L);
+        Orden orden = new Orden();
+        orden.setId(id);
+        orden.setNumero(5000L + id);
+        orden.setFecha(LocalDate.of(2026, 3, 1));
+        orden.setCliente(cliente);
+        orden.setSede(sede);
+        orden.setVenta(true);
+        orden.setTotal(total);
+        orden.setMontoEfectivo(total);
+        return orden;
+    }
+
+    private PendienteEntrega pendiente(PendienteEntrega.TipoPendiente tipo, EntregaDetalle.TipoMovimiento movimiento,
+                                       double monto, double efectivo, double transferencia) {
+        PendienteEntrega p = new PendienteEntrega();
+        p.setTipo(tipo);
+        p.setTipoMovimiento(movimiento);
+        p.setMonto(monto);
+        p.setMontoEfectivo(efectivo);
+        p.setMontoTransferencia(transferencia);
+        p.setMontoCheque(0.0);
+        p.setMontoDeposito(0.0);
+        return p;
+    }
+}
@@ -0,0 +1,79 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.repository.ProductoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductoPosicionServiceTest {
+
+    @Mock
+    private ProductoRepository repo;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private ProductoPosicionService service;
+
+    @Test
+    void insertarEnPosicionCorreLosPosterioresConUnSoloUpdate() {
+        assertEquals(5L, service.reservarPosicionNueva(" 5 "));
+        verify(repo).desplazarPosiciones(5L, Long.MAX_VALUE, 1, null);
+    }
+
+    @Test
+    void sinPosicionSeAsignaAlFinal() {
+        when(repo.obtenerMaximaPosicion()).thenReturn(41L);
+        assertEquals(42L, service.reservarPosicionNueva(null));
+    }
+
+    @Test
+    void moverSoloCorreElTramoEntrePosiciones() {
+        service.moverPosicion(7L, "10", "3");
+        verify(repo).desplazarPosiciones(3L, 9L, 1, 7L);
+
+        service.moverPosicion(7L, "3", "8");
+        verify(repo).desplazarPosiciones(4L, 8L, -1, 7L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void reordenarRepartePosicionesDelGrupoEnUnBatch() {
+        when(repo.obtenerPosicionesPorIds(List.of(3L, 1L, 2L))).thenReturn(List.of(
+            new Object[] { 1L, 4L },
+            new Object[] { 2L, 9L },
+            new Object[] { 3L, 6L }
+        ));
+
+        assertEquals(2, service.reordenar(List.of(3L, 1L, 2L)));
+
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), filas.capture());
+        // El producto 2 conserva su posición 9: no se envía al batch
+        assertEquals(2, filas.getValue().size());
+        assertArrayEquals(new Object[] { "4", 4L, 3L }, filas.getValue().get(0));
+        assertArrayEquals(new Object[] { "6", 6L, 1L }, filas.getValue().get(1));
+    }
+
+    @Test
+    void rechazaPosicionInvalidaEIdsRepetidos() {
+        assertThrows(IllegalArgumentException.class, () -> service.reservarPosicionNueva("0"));
+        assertThrows(IllegalArgumentException.class, () -> service.reservarPosicionNueva("abc"));
+        assertThrows(IllegalArgumentException.class, () -> service.reordenar(List.of(1L, 1L)));
+    }
+}
@@ -0,0 +1,90 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.dto.CursorToken;
+import com.casaglass.casaglass_backend.dto.PageResponse;
+import com.casaglass.casaglass_backend.dto.TrasladoMovimientoDTO;
+import com.casaglass.casaglass_backend.repository.TrasladoDetalleRepository;
+import com.casaglass.casaglass_backend.repository.TrasladoMovimientoProjection;
+import com.casaglass.casaglass_backend.repository.TrasladoRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrasladoMovimientoServiceTest {
+
+    @Mock
+    private TrasladoRepository trasladoRepository;
+
+    @Mock
+    private TrasladoDetalleRepository trasladoDetalleRepository;
+
+    @Mock
+    private TrasladoService trasladoService;
+
+    @InjectMocks
+    private TrasladoMovimientoService service;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void paginaPorCursorYCargaSoloLosDetallesDeLaPagina() {
+        when(trasladoRepository.buscarMovimientosKeysetPorFecha(eq(null), eq(null), eq(2L), eq(null), eq(null),
+                eq(false), eq(null), eq(false), eq(null), eq(null), any(Pageable.class))).thenReturn(List.of(
+            movimiento(12L, LocalDate.of(2026, 3, 2)),
+            movimiento(11L, LocalDate.of(2026, 3, 2)),
+            movimiento(10L, LocalDate.of(2026, 3, 1))
+        ));
+        when(trasladoDetalleRepository.findDatosMovimientoPorTrasladoIds(List.of(12L, 11L))).thenReturn(List.<Object[]>of(
+            new Object[] {11L, 100L, 5.0, 42L, "Vidrio Templado", "VT-4", "VIDRIO", null, null, null, null}
+        ));
+
+        PageResponse<TrasladoMovimientoDTO> pagina = (PageResponse<TrasladoMovimientoDTO>) service.obtenerMovimientosConFiltros(
+            null, null, 2L, null, null, "pendiente", null, null, null, 2, null, null, "");
+
+        assertEquals(2, pagina.getContent().size());
+        assertTrue(pagina.getContent().get(0).getDetalles().isEmpty());
+        TrasladoMovimientoDTO.TrasladoDetalleSimpleDTO detalle = pagina.getContent().get(1).getDetalles().get(0);
+        assertEquals("VT-4", detalle.getProducto().getCodigo());
+        assertNull(detalle.getProductoInventarioADescontarSede1());
+        assertEquals(List.of("fecha", "DESC", "2026-03-02", "11"), List.of(CursorToken.decode(pagina.getNextCursor(), 4)));
+    }
+
+    @Test
+    void rechazaCursorDeOtroOrdenamientoYEstadoInvalidoSinConsultar() {
+        String cursor = CursorToken.encode("fecha", "DESC", "2026-03-02", "11");
+        assertThrows(IllegalArgumentException.class, () -> service.obtenerMovimientosConFiltros(
+            null, null, null, null, null, null, null, null, null, 20, "id", "DESC", cursor));
+        assertThrows(IllegalArgumentException.class, () -> service.obtenerMovimientosConFiltros(
+            null, null, null, null, null, "OTRO", null, null, null, 20, null, null, ""));
+        verifyNoInteractions(trasladoRepository, trasladoDetalleRepository);
+    }
+
+    private TrasladoMovimientoProjection movimiento(Long id, LocalDate fecha) {
+        return new TrasladoMovimientoProjection() {
+            public Long getId() { return id; }
+            public LocalDate getFecha() { return fecha; }
+            public Long getSedeOrigenId() { return 1L; }
+            public String getSedeOrigenNombre() { return "Insula"; }
+            public Long getSedeDestinoId() { return 2L; }
+            public String getSedeDestinoNombre() { return "Centro"; }
+            public Long getTrabajadorConfirmacionId() { return null; }
+            public String getTrabajadorConfirmacionNombre() { return null; }
+            public LocalDate getFechaConfirmacion() { return null; }
+        };
+    }
+}
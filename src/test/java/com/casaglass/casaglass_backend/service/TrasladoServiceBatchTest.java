@@ -0,0 +1,164 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.dto.DeltaInventarioDTO;
+import com.casaglass.casaglass_backend.dto.TrasladoDetalleBatchDTO;
+import com.casaglass.casaglass_backend.model.Producto;
+import com.casaglass.casaglass_backend.model.Sede;
+import com.casaglass.casaglass_backend.model.Traslado;
+import com.casaglass.casaglass_backend.model.TrasladoDetalle;
+import com.casaglass.casaglass_backend.repository.CorteRepository;
+import com.casaglass.casaglass_backend.repository.ProductoRepository;
+import com.casaglass.casaglass_backend.repository.SedeRepository;
+import com.casaglass.casaglass_backend.repository.TrabajadorRepository;
+import com.casaglass.casaglass_backend.repository.TrasladoDetalleRepository;
+import com.casaglass.casaglass_backend.repository.TrasladoRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TrasladoServiceBatchTest {
+
+    @Mock
+    private TrasladoRepository trasladoRepository;
+
+    @Mock
+    private TrasladoDetalleRepository trasladoDetalleRepository;
+
+    @Mock
+    private SedeRepository sedeRepository;
+
+    @Mock
+    private ProductoRepository productoRepository;
+
+    @Mock
+    private TrabajadorRepository trabajadorRepository;
+
+    @Mock
+    private InventarioService inventarioService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private CorteRepository corteRepository;
+
+    @Mock
+    private InventarioCorteService inventarioCorteService;
+
+    @InjectMocks
+    private TrasladoService trasladoService;
+
+    @Test
+    void aplicaSoloLaVariacionNetaYExigeStockSoloPorLasSalidas() {
+        Traslado traslado = traslado(detalle(5L, producto(42L), 10.0), detalle(6L, producto(44L), 4.0));
+        when(trasladoRepository.findById(1L)).thenReturn(Optional.of(traslado));
+        when(productoRepository.findAllById(Set.of(43L))).thenReturn(List.of(producto(43L)));
+        when(corteRepository.findIdsByIdIn(anyList())).thenReturn(List.of());
+
+        TrasladoDetalleBatchDTO batch = new TrasladoDetalleBatchDTO();
+        batch.setActualizar(List.of(actualizar(5L, 12.0), actualizar(6L, 1.0)));
+        batch.setCrear(List.of(crear(43L, 3.0)));
+
+        trasladoService.actualizarDetallesBatch(1L, batch);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DeltaInventarioDTO>> deltas = ArgumentCaptor.forClass(List.class);
+        verify(inventarioService).aplicarDeltasNetos(deltas.capture());
+        assertEquals(List.of(
+            new DeltaInventarioDTO(42L, 2L, -2.0, true),
+            new DeltaInventarioDTO(42L, 3L, 2.0, false),
+            new DeltaInventarioDTO(44L, 2L, 3.0, false),
+            new DeltaInventarioDTO(44L, 3L, -3.0, false),
+            new DeltaInventarioDTO(43L, 2L, -3.0, true),
+            new DeltaInventarioDTO(43L, 3L, 3.0, false)
+        ), deltas.getValue());
+        verify(inventarioService, never()).aplicarDeltaExistente(any(), any(), anyDouble(), anyBoolean());
+        assertEquals(3, traslado.getDetalles().size());
+    }
+
+    @Test
+    void eliminarYVolverACrearLaMismaLineaNoMueveInventario() {
+        Traslado traslado = traslado(detalle(5L, producto(42L), 10.0));
+        when(trasladoRepository.findById(1L)).thenReturn(Optional.of(traslado));
+        when(productoRepository.findAllById(Set.of(42L))).thenReturn(List.of(producto(42L)));
+        when(corteRepository.findIdsByIdIn(anyList())).thenReturn(List.of());
+
+        TrasladoDetalleBatchDTO batch = new TrasladoDetalleBatchDTO();
+        batch.setEliminar(List.of(5L));
+        batch.setCrear(List.of(crear(42L, 10.0)));
+
+        trasladoService.actualizarDetallesBatch(1L, batch);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<DeltaInventarioDTO>> deltas = ArgumentCaptor.forClass(List.class);
+        verify(inventarioService).aplicarDeltasNetos(deltas.capture());
+        assertTrue(deltas.getValue().isEmpty());
+        assertEquals(1, traslado.getDetalles().size());
+        assertNull(traslado.getDetalles().get(0).getId());
+    }
+
+    private Traslado traslado(TrasladoDetalle... detalles) {
+        Sede origen = new Sede();
+        origen.setId(2L);
+        Sede destino = new Sede();
+        destino.setId(3L);
+        Traslado traslado = new Traslado();
+        traslado.setId(1L);
+        traslado.setSedeOrigen(origen);
+        traslado.setSedeDestino(destino);
+        traslado.setDetalles(new ArrayList<>(List.of(detalles)));
+        for (TrasladoDetalle d : detalles) {
+            d.setTraslado(traslado);
+        }
+        return traslado;
+    }
+
+    private TrasladoDetalle detalle(Long id, Producto producto, double cantidad) {
+        TrasladoDetalle detalle = new TrasladoDetalle();
+        detalle.setId(id);
+        detalle.setProducto(producto);
+        detalle.setCantidad(cantidad);
+        return detalle;
+    }
+
+    private Producto producto(Long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        return producto;
+    }
+
+    private TrasladoDetalleBatchDTO.DetalleActualizarDTO actualizar(Long detalleId, double cantidad) {
+        TrasladoDetalleBatchDTO.DetalleActualizarDTO dto = new TrasladoDetalleBatchDTO.DetalleActualizarDTO();
+        dto.setDetalleId(detalleId);
+        dto.setCantidad(cantidad);
+        return dto;
+    }
+
+    private TrasladoDetalleBatchDTO.DetalleCrearDTO crear(Long productoId, double cantidad) {
+        TrasladoDetalleBatchDTO.DetalleCrearDTO dto = new TrasladoDetalleBatchDTO.DetalleCrearDTO();
+        dto.setProductoId(productoId);
+        dto.setCantidad(cantidad);
+        return dto;
+    }
+}
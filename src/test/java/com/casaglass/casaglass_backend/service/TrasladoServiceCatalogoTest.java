@@ -1,6 +1,7 @@
 package com.casaglass.casaglass_backend.service;
 
 import com.casaglass.casaglass_backend.dto.CatalogoProductosTrasladoResponseDTO;
+import com.casaglass.casaglass_backend.dto.DeltaInventarioDTO;
 import com.casaglass.casaglass_backend.model.ColorProducto;
 import com.casaglass.casaglass_backend.model.Rol;
 import com.casaglass.casaglass_backend.model.Sede;
@@ -14,7 +15,6 @@ import com.casaglass.casaglass_backend.repository.TrasladoRepository;
 import com.casaglass.casaglass_backend.model.Traslado;
 import com.casaglass.casaglass_backend.model.TrasladoDetalle;
 import com.casaglass.casaglass_backend.model.Producto;
-import com.casaglass.casaglass_backend.model.Inventario;
 import com.casaglass.casaglass_backend.repository.CorteRepository;
 import java.util.ArrayList;
 import jakarta.persistence.EntityManager;
@@ -30,12 +30,14 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -263,34 +265,19 @@ class TrasladoServiceCatalogoTest {
 
         when(sedeRepository.findById(2L)).thenReturn(Optional.of(sedeOrigen));
         when(sedeRepository.findById(3L)).thenReturn(Optional.of(sedeDestino));
-        when(productoRepository.findById(42L)).thenReturn(Optional.of(producto));
+        when(productoRepository.findAllById(Set.of(42L))).thenReturn(List.of(producto));
         when(trasladoRepository.save(any(Traslado.class))).thenReturn(traslado);
-        when(corteRepository.existsById(42L)).thenReturn(false);
-
-        // Inventario de origen: 100 unidades (ajuste -50 -> queda en 50, >= 0 ok)
-        Inventario invOrigen = new Inventario();
-        invOrigen.setId(101L);
-        invOrigen.setCantidad(100.0);
-        invOrigen.setProducto(producto);
-        invOrigen.setSede(sedeOrigen);
-
-        // Inventario de destino: -150 unidades (ajuste +50 -> queda en -100, < 0 pero ajuste > 0 ok!)
-        Inventario invDestino = new Inventario();
-        invDestino.setId(102L);
-        invDestino.setCantidad(-150.0);
-        invDestino.setProducto(producto);
-        invDestino.setSede(sedeDestino);
-
-        when(inventarioService.obtenerPorProductoYSede(42L, 2L)).thenReturn(Optional.of(invOrigen));
-        when(inventarioService.obtenerPorProductoYSede(42L, 3L)).thenReturn(Optional.of(invDestino));
+        when(corteRepository.findIdsByIdIn(List.of(42L))).thenReturn(List.of());
 
         // Act
-        Traslado resultado = trasladoService.crear(traslado);
-
-        // Assert
-        assertEquals(50.0, invOrigen.getCantidad());
-        assertEquals(-100.0, invDestino.getCantidad());
-        verify(inventarioService).actualizar(eq(101L), eq(invOrigen));
-        verify(inventarioService).actualizar(eq(102L), eq(invDestino));
+        trasladoService.crear(traslado);
+
+        // Assert: origen descuenta 50 exigiendo stock; destino (-150) suma 50 aunque quede negativo
+        verify(inventarioService).aplicarDeltasNetos(List.of(
+            new DeltaInventarioDTO(42L, 2L, -50.0, true),
+            new DeltaInventarioDTO(42L, 3L, 50.0, false)));
+        verify(inventarioCorteService).aplicarDeltasNetos(List.of());
+        verify(productoRepository, never()).findById(any());
+        verify(inventarioService, never()).obtenerPorProductoYSede(any(), any());
     }
 }
@@ -0,0 +1,197 @@
+package com.casaglass.casaglass_backend.service;
+
+import com.casaglass.casaglass_backend.repository.UpsertSumaRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaClienteRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaOrdenRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaProductoRepository;
+import com.casaglass.casaglass_backend.repository.VentaDiariaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class VentasDiariasServiceTest {
+
+    private static final LocalDate DIA_1 = LocalDate.of(2026, 3, 10);
+    private static final LocalDate DIA_2 = LocalDate.of(2026, 3, 11);
+    private static final List<Long> ORDEN = List.of(5L);
+
+    @Mock
+    private VentaDiariaRepository ventaDiariaRepository;
+
+    @Mock
+    private VentaDiariaProductoRepository ventaDiariaProductoRepository;
+
+    @Mock
+    private VentaDiariaClienteRepository ventaDiariaClienteRepository;
+
+    @Mock
+    private VentaDiariaOrdenRepository ventaDiariaOrdenRepository;
+
+    @Mock
+    private UpsertSumaRepository upsertSuma;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private VentasDiariasService service;
+
+    @Test
+    void ordenNuevaSumaSuAporteYLoGuarda() {
+        when(ventaDiariaOrdenRepository.bloquearAportes(ORDEN)).thenReturn(filas(
+            new Object[] { 5L, null, null, null, null, null, null, null, null, null }));
+        when(ventaDiariaOrdenRepository.aportesActuales(ORDEN)).thenReturn(filas(
+            new Object[] { 5L, DIA_1, 1L, 9L, 3L, true, false, "ACTIVA", 100.0 }));
+        when(ventaDiariaOrdenRepository.aportesProductosActuales(ORDEN)).thenReturn(filas(
+            new Object[] { 5L, 7L, 2.0, 100.0 }));
+
+        service.registrarCambioOrden(5L);
+
+        verify(ventaDiariaOrdenRepository).reservar(ORDEN);
+        assertFilas(sumado("ventas_diarias"), new Object[] { DIA_1, 1L, 9L, true, false, "ACTIVA", 1L, 100.0 });
+        assertFilas(sumado("ventas_diarias_producto"), new Object[] { DIA_1, 9L, 7L, "ACTIVA", 2.0, 100.0 });
+        assertFilas(sumado("ventas_diarias_cliente"), new Object[] { DIA_1, 9L, 3L, "ACTIVA", 1L, 100.0 });
+        verify(ventaDiariaOrdenRepository).actualizarAporte(5L, DIA_1, 1L, 9L, 3L, true, false, "ACTIVA", 100.0, "7:2.0:100.0");
+    }
+
+    @Test
+    void cambioDeFechaYSedeRestaElDiaAnteriorYSumaElNuevo() {
+        when(ventaDiariaOrdenRepository.bloquearAportes(ORDEN)).thenReturn(filas(
+            new Object[] { 5L, DIA_1, 1L, 9L, 3L, true, false, "ACTIVA", 100.0, "7:2.0:100.0" }));
+        when(ventaDiariaOrdenRepository.aportesActuales(ORDEN)).thenReturn(filas(
+            new Object[] { 5L, DIA_2, 2L, 9L, 3L, true, false, "ACTIVA", 150.0 }));
+        when(ventaDiariaOrdenRepository.aportesProductosActuales(ORDEN)).thenReturn(filas(
+            new Object[] { 5L, 7L, 3.0, 150.0 }));
+
+        service.registrarCambioOrden(5L);
+
+        assertFilas(sumado("ventas_diarias"),
+            new Object[] { DIA_1, 1L, 9L, true, false, "ACTIVA", -1L, -100.0 },
+            new Object[] { DIA_2, 2L, 9L, true, false, "ACTIVA", 1L, 150.0 });
+        assertFilas(sumado("ventas_diarias_producto"),
+            new Object[] { DIA_1, 9L, 7L, "ACTIVA", -2.0, -100.0 },
+            new Object[] { DIA_2, 9L, 7L, "ACTIVA", 3.0, 150.0 });
+        verify(ventaDiariaOrdenRepository).actualizarAporte(5L, DIA_2, 2L, 9L, 3L, true, false, "ACTIVA", 150.0, "7:3.0:150.0");
+    }
+
+    @Test
+    void anularMueveElAporteDeActivaAAnuladaSinTocarLoDemas() {
+        when(ventaDiariaOrdenRepository.bloquearAportes(ORDEN)).thenReturn(filas(
+            new Object[] { 5L, DIA_1, 1L, 9L, 3L, false, false, "ACTIVA", 80.0, null }));
+        when(ventaDiariaOrdenRepository.aportesActuales(ORDEN)).thenReturn(filas(
+            new Object[] { 5L, DIA_1, 1L, 9L, 3L, false, false, "ANULADA", 80.0 }));
+
+        service.registrarCambioOrden(5L);
+
+        assertFilas(sumado("ventas_diarias"),
+            new Object[] { DIA_1, 1L, 9L, false, false, "ACTIVA", -1L, -80.0 },
+            new Object[] { DIA_1, 1L, 9L, false, false, "ANULADA", 1L, 80.0 });
+        // Cotización: no aporta a productos ni clientes
+        assertTrue(sumado("ventas_diarias_producto").isEmpty());
+        assertTrue(sumado("ventas_diarias_cliente").isEmpty());
+    }
+
+    @Test
+    void ordenEliminadaSoloRestaYBorraSuAporte() {
+        when(ventaDiariaOrdenRepository.bloquearAportes(ORDEN)).thenReturn(filas(
+            new Object[] { 5L, DIA_1, 1L, 9L, 3L, true, true, "ACTIVA", 100.0, "7:2.0:100.0" }));
+
+        service.registrarCambioOrden(5L);
+
+        assertFilas(sumado("ventas_diarias_cliente"), new Object[] { DIA_1, 9L, 3L, "ACTIVA", -1L, -100.0 });
+        verify(ventaDiariaOrdenRepository).eliminarPorOrdenIds(ORDEN);
+        verify(ventaDiariaOrdenRepository, never()).actualizarAporte(any(), any(), any(), any(), any(),
+            anyBoolean(), anyBoolean(), any(), any(), any());
+    }
+
+    @Test
+    void conTransaccionSeAplicaUnaVezPorOrdenAntesDelCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.registrarCambioOrden(6L);
+            service.registrarCambioOrden(5L);
+            service.registrarCambioOrden(5L);
+            verifyNoInteractions(ventaDiariaOrdenRepository, upsertSuma);
+
+            TransactionSynchronizationUtils.triggerBeforeCommit(false);
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(entityManager).flush();
+        verify(ventaDiariaOrdenRepository).reservar(List.of(5L, 6L));
+        assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+    }
+
+    @Test
+    void rollbackNoTocaLosAcumulados() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.registrarCambioOrden(5L);
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verifyNoInteractions(ventaDiariaOrdenRepository, upsertSuma, entityManager);
+        assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+    }
+
+    @Test
+    void recalcularRangoAmpliaGroupConcatAntesDeArmarLosAportes() {
+        service.recalcularRango(DIA_1, DIA_2);
+
+        InOrder orden = inOrder(ventaDiariaOrdenRepository);
+        orden.verify(ventaDiariaOrdenRepository).eliminarRango(DIA_1, DIA_2);
+        orden.verify(ventaDiariaOrdenRepository).ampliarGroupConcat();
+        orden.verify(ventaDiariaOrdenRepository).insertarDesdeOrdenes(DIA_1, DIA_2);
+    }
+
+    private static List<Object[]> filas(Object[]... filas) {
+        return List.of(filas);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> sumado(String tabla) {
+        ArgumentCaptor<List<Object[]>> filas = ArgumentCaptor.forClass(List.class);
+        verify(upsertSuma).sumar(eq(tabla), anyList(), anyList(), isNull(), filas.capture(), anyInt(), isNull());
+        return filas.getValue();
+    }
+
+    private static void assertFilas(List<Object[]> reales, Object[]... esperadas) {
+        assertEquals(esperadas.length, reales.size());
+        for (int i = 0; i < esperadas.length; i++) {
+            assertArrayEquals(esperadas[i], reales.get(i));
+        }
+    }
+}